@@ -9,6 +9,12 @@ public interface AsignacionService {
 
     Asignacion crearAsignacion(String dniTrabajador, String nombreSeccion, int horasAsignadas);
 
+    /**
+     * Crea varias asignaciones validando todo el lote en memoria: las válidas se insertan en una
+     * única transacción y las demás se devuelven con el mismo mensaje que daría el alta individual
+     */
+    ResultadoLoteAsignaciones crearAsignacionesEnLote(List<SolicitudAsignacion> solicitudes);
+
     Optional<Asignacion> buscarAsignacion(String dniTrabajador, String nombreSeccion);
 
     List<Asignacion> buscarAsignacionesPorTrabajador(String dniTrabajador);
@@ -31,5 +37,39 @@ public interface AsignacionService {
 
     void eliminarAsignacion(String dniTrabajador, String nombreSeccion);
 
+    /**
+     * Con la escritura diferida activa el cambio se valida y se acepta al momento, pero se escribe
+     * al vencer la ventana del trabajador, fundido con los cambios que lleguen antes
+     */
     Asignacion actualizarHorasAsignacion(String dniTrabajador, String nombreSeccion, int nuevasHoras);
+
+    /**
+     * Escribe ya los cambios de horas diferidos de los trabajadores de la tienda, para leerla
+     * actualizada. Sin escritura diferida no hace nada.
+     */
+    void confirmarHorasPendientes(String codigoTienda);
+
+    /**
+     * Escribe ya los cambios de horas diferidos del trabajador. Sin escritura diferida no hace nada.
+     */
+    void confirmarHorasPendientesTrabajador(String dniTrabajador);
+
+    /**
+     * Descarta los cambios de horas diferidos del trabajador, que se va a eliminar con sus
+     * asignaciones. Sin escritura diferida no hace nada.
+     */
+    void descartarHorasPendientesTrabajador(String dniTrabajador);
+
+    /**
+     * Pasa la asignación del trabajador a otra sección con las mismas horas, en una única
+     * transacción: las horas del trabajador no llegan a quedar libres en ningún momento
+     */
+    Asignacion moverAsignacion(String dniTrabajador, String nombreSeccionOrigen, String nombreSeccionDestino);
+
+    /**
+     * Intercambia las secciones de dos asignaciones de trabajadores distintos, cada una con sus
+     * horas, en una única transacción. Devuelve las dos asignaciones en el orden recibido.
+     */
+    List<Asignacion> intercambiarAsignaciones(String dniPrimerTrabajador, String nombrePrimeraSeccion,
+                                              String dniSegundoTrabajador, String nombreSegundaSeccion);
 }
@@ -0,0 +1,40 @@
+package com.mercadona.asignacion.application.port;
+
+import com.mercadona.asignacion.domain.EventoAsignacion;
+import com.mercadona.asignacion.domain.TipoCambioAsignacion;
+
+import java.time.Instant;
+
+/**
+ * Cambio de una asignación tal como lo reciben los suscriptores. La entrega es al menos una vez y
+ * sin orden garantizado: el id del evento es único, así que sirve para descartar repeticiones, pero
+ * no refleja el orden en que se confirmaron los cambios (la secuencia reserva bloques por instancia
+ * y una transacción con un id menor puede confirmarse después). Quien necesite el estado de cada
+ * asignación debe agrupar los cambios por la clave (codigoTienda, dniTrabajador, nombreSeccion) y
+ * no suponer que llegan en orden.
+ */
+public record CambioAsignacion(
+    long idEvento,
+    TipoCambioAsignacion tipo,
+    Long idAsignacion,
+    String dniTrabajador,
+    String codigoTienda,
+    String nombreSeccion,
+    int horasAnteriores,
+    int horasNuevas,
+    Instant ocurridoEn
+) {
+
+    public static CambioAsignacion de(EventoAsignacion evento) {
+        return new CambioAsignacion(evento.getId(), evento.getTipo(), evento.getIdAsignacion(),
+            evento.getDniTrabajador(), evento.getCodigoTienda(), evento.getNombreSeccion(),
+            evento.getHorasAnteriores(), evento.getHorasNuevas(), evento.getCreadoEn());
+    }
+
+    /**
+     * Horas que el cambio suma (o resta) al trabajador, a la tienda y a la sección
+     */
+    public int diferenciaHoras() {
+        return horasNuevas - horasAnteriores;
+    }
+}
@@ -0,0 +1,12 @@
+package com.mercadona.asignacion.application.port;
+
+import java.util.List;
+
+/**
+ * Lote de cambios de asignaciones publicado por el relay del outbox, sin orden garantizado entre
+ * lotes ni dentro de ellos (ver {@link CambioAsignacion}).
+ * Se recibe con {@code @EventListener} dentro de la transacción que los marca como publicados:
+ * si un suscriptor lanza una excepción el lote entero se vuelve a publicar más tarde.
+ */
+public record CambiosAsignacionPublicados(List<CambioAsignacion> cambios) {
+}
@@ -0,0 +1,35 @@
+package com.mercadona.asignacion.application.port;
+
+import com.mercadona.asignacion.domain.Asignacion;
+
+import java.util.List;
+
+/**
+ * Resultado de un alta en lote, con una entrada por solicitud y en el mismo orden:
+ * la asignación creada o el motivo por el que se rechazó.
+ */
+public record ResultadoLoteAsignaciones(List<Resultado> resultados) {
+
+    public long creadas() {
+        return resultados.stream().filter(Resultado::creada).count();
+    }
+
+    public long rechazadas() {
+        return resultados.size() - creadas();
+    }
+
+    public record Resultado(int indice, SolicitudAsignacion solicitud, Asignacion asignacion, String error) {
+
+        public static Resultado creada(int indice, SolicitudAsignacion solicitud, Asignacion asignacion) {
+            return new Resultado(indice, solicitud, asignacion, null);
+        }
+
+        public static Resultado rechazada(int indice, SolicitudAsignacion solicitud, String error) {
+            return new Resultado(indice, solicitud, null, error);
+        }
+
+        public boolean creada() {
+            return asignacion != null;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.mercadona.asignacion.application.port;
+
+public record SolicitudAsignacion(
+    String dniTrabajador,
+    String nombreSeccion,
+    int horasAsignadas
+) {
+}
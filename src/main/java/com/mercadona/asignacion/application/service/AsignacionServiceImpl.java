@@ -1,43 +1,205 @@
 package com.mercadona.asignacion.application.service;
 
 import com.mercadona.asignacion.application.port.AsignacionService;
+import com.mercadona.asignacion.application.port.ResultadoLoteAsignaciones;
+import com.mercadona.asignacion.application.port.SolicitudAsignacion;
 import com.mercadona.asignacion.domain.Asignacion;
+import com.mercadona.asignacion.domain.AsignacionRechazadaException;
+import com.mercadona.asignacion.domain.MovimientoAsignacion;
+import com.mercadona.asignacion.domain.ReglasAsignacion;
 import com.mercadona.asignacion.infrastructure.repository.AsignacionRepository;
+import com.mercadona.asignacion.infrastructure.repository.HorasAsignadasAgregadas;
+import com.mercadona.asignacion.infrastructure.repository.InsercionCondicionalAsignacion;
+import com.mercadona.asignacion.infrastructure.repository.ResultadoInsercionAsignacion;
 import com.mercadona.tienda.domain.Seccion;
 import com.mercadona.trabajador.domain.Trabajador;
 import com.mercadona.trabajador.infrastructure.repository.TrabajadorRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.mercadona.tienda.infrastructure.repository.SeccionRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class AsignacionServiceImpl implements AsignacionService {
 
+    private static final Logger log = LoggerFactory.getLogger(AsignacionServiceImpl.class);
+
     private final AsignacionRepository asignacionRepository;
     private final TrabajadorRepository trabajadorRepository;
     private final SeccionRepository seccionRepository;
+    private final LibroHorasAsignadas libroHoras;
+    private final BandejaSalidaAsignaciones bandejaSalida;
+    private final CambiosHorasPendientes pendientes;
+    private final BloqueosPorFranjas bloqueos;
+    private final ReintentosBloqueoOptimista reintentos;
+    private final InsercionCondicionalAsignacion insercionCondicional;
+    private final boolean usarInsercionCondicional;
 
     public AsignacionServiceImpl(AsignacionRepository asignacionRepository, 
                                TrabajadorRepository trabajadorRepository,
-                               SeccionRepository seccionRepository) {
+                               SeccionRepository seccionRepository,
+                               LibroHorasAsignadas libroHoras,
+                               BandejaSalidaAsignaciones bandejaSalida,
+                               CambiosHorasPendientes pendientes,
+                               BloqueosPorFranjas bloqueos,
+                               ReintentosBloqueoOptimista reintentos,
+                               InsercionCondicionalAsignacion insercionCondicional,
+                               @Value("${asignaciones.insercion-condicional.enabled:false}") boolean usarInsercionCondicional) {
         this.asignacionRepository = asignacionRepository;
         this.trabajadorRepository = trabajadorRepository;
         this.seccionRepository = seccionRepository;
+        this.libroHoras = libroHoras;
+        this.bandejaSalida = bandejaSalida;
+        this.pendientes = pendientes;
+        this.bloqueos = bloqueos;
+        this.reintentos = reintentos;
+        this.insercionCondicional = insercionCondicional;
+        this.usarInsercionCondicional = usarInsercionCondicional;
     }
 
     @Override
     public Asignacion crearAsignacion(String dniTrabajador, String nombreSeccion, int horasAsignadas) {
+        confirmarPendientesDe(List.of(dniTrabajador));
+        return reintentos.ejecutar("create", () -> usarInsercionCondicional
+            ? crearConInsercionCondicional(dniTrabajador, nombreSeccion, horasAsignadas)
+            : crearConValidacionEnJava(dniTrabajador, nombreSeccion, horasAsignadas));
+    }
+
+    private Asignacion crearConValidacionEnJava(String dniTrabajador, String nombreSeccion, int horasAsignadas) {
         Trabajador trabajador = buscarTrabajadorPorDni(dniTrabajador);
         Seccion seccion = buscarSeccionPorNombre(nombreSeccion);
         
-        validarAsignacionUnica(trabajador, seccion);
-        validarHorasDisponibles(trabajador, horasAsignadas);
-        validarLimiteSeccion(seccion, horasAsignadas);
-        
-        Asignacion nuevaAsignacion = new Asignacion(trabajador, seccion, horasAsignadas);
-        return asignacionRepository.save(nuevaAsignacion);
+        return bloqueos.conBloqueo(clavesDeBloqueo(trabajador, seccion), () -> {
+            validarAsignacionUnica(trabajador, seccion);
+            validarHorasDisponibles(trabajador, horasAsignadas);
+            validarLimiteSeccion(trabajador, seccion, horasAsignadas);
+
+            Asignacion nuevaAsignacion = asignacionRepository.save(new Asignacion(trabajador, seccion, horasAsignadas));
+            libroHoras.registrarAltas(List.of(nuevaAsignacion));
+            bandejaSalida.registrarAltas(List.of(nuevaAsignacion));
+            return nuevaAsignacion;
+        });
+    }
+
+    /**
+     * Valida e inserta en una sola sentencia SQL y después lee la asignación creada con su
+     * trabajador, tienda y sección en una única consulta. Si la sentencia rechaza el alta se lanza
+     * el mismo mensaje que en la validación en Java, con el motivo estructurado.
+     */
+    private Asignacion crearConInsercionCondicional(String dniTrabajador, String nombreSeccion, int horasAsignadas) {
+        ReglasAsignacion.validarHoras(horasAsignadas);
+        List<String> claves = insercionCondicional.prepararHoras(dniTrabajador, nombreSeccion)
+            .map(idTienda -> clavesDeBloqueo(dniTrabajador, idTienda, nombreSeccion))
+            .orElse(List.of());
+        ResultadoInsercionAsignacion resultado = bloqueos.conBloqueo(claves,
+            () -> insercionCondicional.insertar(dniTrabajador, nombreSeccion, horasAsignadas));
+        if (!resultado.creada()) {
+            throw new AsignacionRechazadaException(resultado.motivo(),
+                mensajeDeRechazo(resultado, dniTrabajador, nombreSeccion, horasAsignadas));
+        }
+        Asignacion creada = asignacionRepository.findConDetallesById(resultado.idAsignacion())
+            .orElseThrow(() -> new IllegalStateException("No se encuentra la asignación recién creada: " + resultado.idAsignacion()));
+        bandejaSalida.registrarAltas(List.of(creada));
+        return creada;
+    }
+
+    private static String mensajeDeRechazo(ResultadoInsercionAsignacion resultado, String dniTrabajador,
+                                           String nombreSeccion, int horasAsignadas) {
+        return switch (resultado.motivo()) {
+            case TRABAJADOR_NO_ENCONTRADO -> trabajadorNoEncontrado(dniTrabajador).getMessage();
+            case SECCION_NO_ENCONTRADA -> seccionNoEncontrada(nombreSeccion).getMessage();
+            case ASIGNACION_DUPLICADA -> ReglasAsignacion.mensajeAsignacionDuplicada(dniTrabajador, nombreSeccion);
+            case HORAS_TRABAJADOR_EXCEDIDAS -> ReglasAsignacion.mensajeHorasDisponiblesExcedidas(
+                resultado.horasDisponibles(), resultado.horasTrabajador(), horasAsignadas);
+            case LIMITE_SECCION_EXCEDIDO -> ReglasAsignacion.mensajeLimiteSeccionExcedido(
+                nombreSeccion, resultado.horasNecesarias(), resultado.horasSeccion(), horasAsignadas);
+        };
+    }
+
+    /**
+     * Con independencia del tamaño del lote hace cuatro consultas (trabajadores, secciones, horas
+     * agrupadas por trabajador y sección y horas de cada sección en las tiendas afectadas) y valida
+     * en memoria, acumulando las horas de las solicitudes ya aceptadas del propio lote.
+     */
+    @Override
+    public ResultadoLoteAsignaciones crearAsignacionesEnLote(List<SolicitudAsignacion> solicitudes) {
+        confirmarPendientesDe(solicitudes.stream().map(SolicitudAsignacion::dniTrabajador).toList());
+        return reintentos.ejecutar("batch", () -> {
+            Map<String, Trabajador> trabajadores = cargarTrabajadores(solicitudes);
+            Map<String, Seccion> secciones = cargarSecciones(solicitudes);
+            return bloqueos.conBloqueo(clavesDeBloqueo(solicitudes, trabajadores, secciones),
+                () -> crearAsignacionesEnLote(solicitudes, trabajadores, secciones));
+        });
+    }
+
+    private ResultadoLoteAsignaciones crearAsignacionesEnLote(List<SolicitudAsignacion> solicitudes,
+                                                              Map<String, Trabajador> trabajadores,
+                                                              Map<String, Seccion> secciones) {
+
+        Map<String, Integer> horasPorTrabajador = new HashMap<>();
+        Set<String> asignacionesExistentes = new HashSet<>();
+        if (!trabajadores.isEmpty()) {
+            for (HorasAsignadasAgregadas horas : asignacionRepository.sumHorasAsignadasPorTrabajadorYSeccion(trabajadores.values())) {
+                horasPorTrabajador.merge(horas.getDniTrabajador(), horas.getHoras().intValue(), Integer::sum);
+                asignacionesExistentes.add(clave(horas.getDniTrabajador(), horas.getNombreSeccion()));
+            }
+        }
+        Map<LibroHorasAsignadas.ClaveSeccion, Integer> horasPorSeccion =
+            new HashMap<>(libroHoras.horasSecciones(trabajadores.values(), secciones.values()));
+
+        List<ResultadoLoteAsignaciones.Resultado> resultados = new ArrayList<>(solicitudes.size());
+        List<Asignacion> nuevas = new ArrayList<>();
+        for (int indice = 0; indice < solicitudes.size(); indice++) {
+            SolicitudAsignacion solicitud = solicitudes.get(indice);
+            try {
+                ReglasAsignacion.validarHoras(solicitud.horasAsignadas());
+                Trabajador trabajador = trabajadores.get(solicitud.dniTrabajador());
+                if (trabajador == null) {
+                    throw trabajadorNoEncontrado(solicitud.dniTrabajador());
+                }
+                Seccion seccion = secciones.get(solicitud.nombreSeccion());
+                if (seccion == null) {
+                    throw seccionNoEncontrada(solicitud.nombreSeccion());
+                }
+
+                String clave = clave(trabajador.getDni(), seccion.getNombre());
+                LibroHorasAsignadas.ClaveSeccion claveSeccion = LibroHorasAsignadas.ClaveSeccion.de(trabajador.getTienda(), seccion);
+                int horasTrabajador = horasPorTrabajador.getOrDefault(trabajador.getDni(), 0);
+                int horasSeccion = horasPorSeccion.getOrDefault(claveSeccion, 0);
+                ReglasAsignacion.validarAsignacionUnica(asignacionesExistentes.contains(clave), trabajador, seccion);
+                ReglasAsignacion.validarHorasDisponibles(trabajador, horasTrabajador, solicitud.horasAsignadas());
+                ReglasAsignacion.validarLimiteSeccion(seccion, horasSeccion, solicitud.horasAsignadas());
+
+                Asignacion asignacion = new Asignacion(trabajador, seccion, solicitud.horasAsignadas());
+                asignacionesExistentes.add(clave);
+                horasPorTrabajador.put(trabajador.getDni(), horasTrabajador + solicitud.horasAsignadas());
+                horasPorSeccion.put(claveSeccion, horasSeccion + solicitud.horasAsignadas());
+                nuevas.add(asignacion);
+                resultados.add(ResultadoLoteAsignaciones.Resultado.creada(indice, solicitud, asignacion));
+
+            } catch (IllegalArgumentException e) {
+                resultados.add(ResultadoLoteAsignaciones.Resultado.rechazada(indice, solicitud, e.getMessage()));
+            }
+        }
+
+        asignacionRepository.saveAll(nuevas);
+        libroHoras.registrarAltas(nuevas);
+        bandejaSalida.registrarAltas(nuevas);
+        return new ResultadoLoteAsignaciones(resultados);
     }
 
     @Override
@@ -105,90 +267,417 @@ public class AsignacionServiceImpl implements AsignacionService {
 
     @Override
     public void eliminarAsignacion(String dniTrabajador, String nombreSeccion) {
+        confirmarPendientesDe(List.of(dniTrabajador));
+        reintentos.ejecutar("delete", () -> eliminarEnTransaccion(dniTrabajador, nombreSeccion));
+    }
+
+    private void eliminarEnTransaccion(String dniTrabajador, String nombreSeccion) {
         Trabajador trabajador = buscarTrabajadorPorDni(dniTrabajador);
         Seccion seccion = buscarSeccionPorNombre(nombreSeccion);
         
-        Asignacion asignacion = asignacionRepository.findByTrabajadorAndSeccion(trabajador, seccion)
-            .orElseThrow(() -> new IllegalArgumentException(
-                "No existe una asignación para el trabajador " + dniTrabajador + " en la sección " + nombreSeccion));
-        
-        asignacionRepository.deleteById(asignacion.getId());
+        bloqueos.conBloqueo(clavesDeBloqueo(trabajador, seccion), () -> {
+            Asignacion asignacion = buscarAsignacion(trabajador, seccion);
+
+            asignacionRepository.deleteById(asignacion.getId());
+            libroHoras.registrarBajas(List.of(asignacion));
+            bandejaSalida.registrarBajas(List.of(asignacion));
+        });
     }
 
     private Trabajador buscarTrabajadorPorDni(String dni) {
         return trabajadorRepository.findByDni(dni)
-            .orElseThrow(() -> new IllegalArgumentException("No existe un trabajador con el DNI: " + dni));
+            .orElseThrow(() -> trabajadorNoEncontrado(dni));
     }
 
     private Seccion buscarSeccionPorNombre(String nombre) {
         return seccionRepository.findByNombre(nombre)
-            .orElseThrow(() -> new IllegalArgumentException("No existe una sección con el nombre: " + nombre));
+            .orElseThrow(() -> seccionNoEncontrada(nombre));
     }
 
-    private void validarAsignacionUnica(Trabajador trabajador, Seccion seccion) {
-        if (asignacionRepository.existsByTrabajadorAndSeccion(trabajador, seccion)) {
-            throw new IllegalArgumentException(
-                "Ya existe una asignación para el trabajador " + trabajador.getDni() + " en la sección " + seccion.getNombre());
+    private static IllegalArgumentException trabajadorNoEncontrado(String dni) {
+        return new IllegalArgumentException(ReglasAsignacion.mensajeTrabajadorNoEncontrado(dni));
+    }
+
+    private static IllegalArgumentException seccionNoEncontrada(String nombre) {
+        return new IllegalArgumentException(ReglasAsignacion.mensajeSeccionNoEncontrada(nombre));
+    }
+
+    private Map<String, Trabajador> cargarTrabajadores(List<SolicitudAsignacion> solicitudes) {
+        Set<String> dnis = solicitudes.stream()
+            .map(SolicitudAsignacion::dniTrabajador)
+            .filter(dni -> dni != null)
+            .collect(Collectors.toSet());
+        if (dnis.isEmpty()) {
+            return Map.of();
+        }
+        return trabajadorRepository.findByDniIn(dnis).stream()
+            .collect(Collectors.toMap(Trabajador::getDni, Function.identity()));
+    }
+
+    private Map<String, Seccion> cargarSecciones(List<SolicitudAsignacion> solicitudes) {
+        Set<String> nombres = solicitudes.stream()
+            .map(SolicitudAsignacion::nombreSeccion)
+            .filter(nombre -> nombre != null)
+            .collect(Collectors.toSet());
+        if (nombres.isEmpty()) {
+            return Map.of();
+        }
+        return seccionRepository.findByNombreIn(nombres).stream()
+            .collect(Collectors.toMap(Seccion::getNombre, Function.identity()));
+    }
+
+    private static String clave(String dniTrabajador, String nombreSeccion) {
+        return dniTrabajador + "|" + nombreSeccion;
+    }
+
+    /**
+     * Franjas que serializan las escrituras sobre las horas de un trabajador y de la sección en su tienda
+     */
+    private static List<String> clavesDeBloqueo(String dniTrabajador, Long idTienda, String nombreSeccion) {
+        return List.of(BloqueosPorFranjas.claveTrabajador(dniTrabajador), BloqueosPorFranjas.claveSeccion(idTienda, nombreSeccion));
+    }
+
+    private static List<String> clavesDeBloqueo(Trabajador trabajador, Seccion seccion) {
+        return clavesDeBloqueo(trabajador.getDni(), trabajador.getTienda().getId(), seccion.getNombre());
+    }
+
+    private static List<String> clavesDeBloqueo(CambiosHorasPendientes.VistaTrabajador vista) {
+        Trabajador trabajador = vista.trabajador();
+        List<String> claves = new ArrayList<>();
+        claves.add(BloqueosPorFranjas.claveTrabajador(trabajador.getDni()));
+        for (String nombreSeccion : vista.secciones()) {
+            claves.add(BloqueosPorFranjas.claveSeccion(trabajador.getTienda().getId(), nombreSeccion));
+        }
+        return claves;
+    }
+
+    private static List<String> clavesDeBloqueo(List<SolicitudAsignacion> solicitudes,
+                                                Map<String, Trabajador> trabajadores,
+                                                Map<String, Seccion> secciones) {
+        Set<String> claves = new HashSet<>();
+        for (SolicitudAsignacion solicitud : solicitudes) {
+            Trabajador trabajador = trabajadores.get(solicitud.dniTrabajador());
+            Seccion seccion = secciones.get(solicitud.nombreSeccion());
+            if (trabajador != null && seccion != null) {
+                claves.addAll(clavesDeBloqueo(trabajador, seccion));
+            }
         }
+        return new ArrayList<>(claves);
+    }
+
+    private void validarAsignacionUnica(Trabajador trabajador, Seccion seccion) {
+        ReglasAsignacion.validarAsignacionUnica(
+            asignacionRepository.existsByTrabajadorAndSeccion(trabajador, seccion), trabajador, seccion);
     }
 
 
     private void validarHorasDisponibles(Trabajador trabajador, int horasAsignadas) {
-        List<Asignacion> asignacionesExistentes = asignacionRepository.findByTrabajador(trabajador);
-        int horasYaAsignadas = asignacionesExistentes.stream()
-                .mapToInt(Asignacion::getHorasAsignadas)
-                .sum();
-        
-        int horasDisponibles = trabajador.getHorasDisponibles();
-        
-        if (horasYaAsignadas + horasAsignadas > horasDisponibles) {
-            throw new IllegalArgumentException(
-                "El trabajador no puede exceder sus horas disponibles. Disponibles: " + horasDisponibles + 
-                ", ya asignadas: " + horasYaAsignadas + ", intentando asignar: " + horasAsignadas);
+        ReglasAsignacion.validarHorasDisponibles(trabajador, libroHoras.horasTrabajador(trabajador), horasAsignadas);
+    }
+
+    private void validarLimiteSeccion(Trabajador trabajador, Seccion seccion, int horasAsignadas) {
+        ReglasAsignacion.validarLimiteSeccion(
+            seccion, libroHoras.horasSeccion(trabajador.getTienda(), seccion), horasAsignadas);
+    }
+
+    /**
+     * La asignación y las horas registradas del trabajador y de la sección llevan versión: si otra
+     * transacción las cambia entre la lectura y el commit, la actualización se repite desde la lectura.
+     */
+    @Override
+    public Asignacion actualizarHorasAsignacion(String dniTrabajador, String nombreSeccion, int nuevasHoras) {
+        ReglasAsignacion.validarHoras(nuevasHoras);
+
+        if (pendientes.activa()) {
+            return actualizarDiferido(dniTrabajador, nombreSeccion, nuevasHoras);
+        }
+        return reintentos.ejecutar("update", () -> actualizarEnTransaccion(dniTrabajador, nombreSeccion, nuevasHoras));
+    }
+
+    /**
+     * Escritura diferida: el cambio se valida contra la vista en memoria del trabajador y se
+     * escribe al vencer su ventana, junto con los demás cambios que lleguen antes. Solo la primera
+     * vez que se toca un trabajador o una asignación se leen sus horas de la base de datos; se
+     * devuelve esa asignación leída con las horas aceptadas.
+     */
+    private Asignacion actualizarDiferido(String dniTrabajador, String nombreSeccion, int nuevasHoras) {
+        CambiosHorasPendientes.VistaTrabajador vistaPrevia = pendientes.vista(dniTrabajador);
+        Trabajador trabajador = vistaPrevia != null ? vistaPrevia.trabajador() : buscarTrabajadorPorDni(dniTrabajador);
+        CambiosHorasPendientes.CambioPendiente cambioPrevio = vistaPrevia != null ? vistaPrevia.cambio(nombreSeccion) : null;
+        Seccion seccion = cambioPrevio != null ? cambioPrevio.seccion() : buscarSeccionPorNombre(nombreSeccion);
+
+        return bloqueos.conBloqueo(clavesDeBloqueo(trabajador, seccion), () -> {
+            // Con la franja adquirida, por si se ha escrito mientras tanto
+            CambiosHorasPendientes.VistaTrabajador vista = pendientes.vista(dniTrabajador);
+            if (vista == null) {
+                vista = pendientes.abrir(trabajador, libroHoras.horasTrabajador(trabajador));
+            }
+            CambiosHorasPendientes.CambioPendiente cambio = vista.cambio(nombreSeccion);
+            if (cambio == null) {
+                cambio = vista.anadir(seccion, buscarAsignacionConDetalles(trabajador, seccion));
+            }
+
+            ReglasAsignacion.validarCambioHoras(trabajador, vista.horas() - cambio.horas(), nuevasHoras);
+
+            cambio.horas(nuevasHoras);
+            pendientes.aceptado();
+            return cambio.asignacion();
+        });
+    }
+
+    @Override
+    public void confirmarHorasPendientes(String codigoTienda) {
+        if (pendientes.activa()) {
+            confirmarPendientes(pendientes.deTienda(codigoTienda));
         }
     }
 
-    private void validarLimiteSeccion(Seccion seccion, int horasAsignadas) {
-        Integer horasYaAsignadas = asignacionRepository.sumHorasAsignadasBySeccion(seccion);
-        if (horasYaAsignadas == null) {
-            horasYaAsignadas = 0;
+    @Override
+    public void confirmarHorasPendientesTrabajador(String dniTrabajador) {
+        confirmarPendientesDe(List.of(dniTrabajador));
+    }
+
+    @Override
+    public void descartarHorasPendientesTrabajador(String dniTrabajador) {
+        if (!pendientes.activa()) {
+            return;
         }
-        
-        int horasNecesarias = seccion.getHorasNecesarias();
-        
-        if (horasYaAsignadas + horasAsignadas > horasNecesarias) {
-            throw new IllegalArgumentException(
-                "La sección no puede exceder sus horas necesarias. Sección: " + seccion.getNombre() + 
-                ", límite: " + horasNecesarias + ", ya asignadas: " + horasYaAsignadas + ", intentando asignar: " + horasAsignadas);
+        bloqueos.conBloqueo(List.of(BloqueosPorFranjas.claveTrabajador(dniTrabajador)), () -> {
+            CambiosHorasPendientes.VistaTrabajador vista = pendientes.retirar(dniTrabajador);
+            if (vista == null) {
+                return;
+            }
+            for (CambiosHorasPendientes.CambioPendiente cambio : vista.cambios()) {
+                if (!cambio.sinEfecto()) {
+                    pendientes.descartado();
+                    log.info("Se descarta el cambio diferido a {} h de la asignación de {} en {} al eliminar el trabajador",
+                        cambio.horas(), dniTrabajador, cambio.seccion().getNombre());
+                }
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${asignaciones.escritura-diferida.intervalo:100}")
+    public void confirmarHorasPendientesVencidas() {
+        if (pendientes.activa()) {
+            confirmarPendientes(pendientes.vencidos());
         }
     }
 
+    @PreDestroy
+    public void confirmarTodasLasHorasPendientes() {
+        if (pendientes.activa()) {
+            confirmarPendientes(pendientes.todos());
+        }
+    }
+
+    /**
+     * Antes de cualquier otra escritura sobre un trabajador se escriben sus cambios pendientes,
+     * para que se valide contra sus horas reales. Si no se pueden escribir por ahora, la escritura
+     * falla con {@link BloqueoNoDisponibleException} para que se repita.
+     */
+    private void confirmarPendientesDe(Collection<String> dnis) {
+        if (pendientes.activa()) {
+            dnis.stream().filter(pendientes::hayPendientes).distinct().forEach(this::confirmarTrabajador);
+        }
+    }
+
+    /**
+     * Escrituras en segundo plano: un trabajador cuyas franjas no están disponibles conserva sus
+     * cambios para la siguiente pasada.
+     */
+    private void confirmarPendientes(Collection<String> dnis) {
+        for (String dni : dnis) {
+            try {
+                confirmarTrabajador(dni);
+            } catch (BloqueoNoDisponibleException e) {
+                log.warn("Los cambios diferidos de {} siguen pendientes: {}", dni, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Adquiere de una vez y en orden las franjas del trabajador y de las secciones de sus cambios,
+     * como cualquier otra escritura. Si mientras tanto se ha abierto un cambio en otra sección, se
+     * liberan y se vuelve a intentar con todas. Debe llamarse fuera de una transacción, para que las
+     * franjas se liberen antes de volver a intentarlo.
+     */
+    private void confirmarTrabajador(String dni) {
+        boolean confirmada;
+        do {
+            CambiosHorasPendientes.VistaTrabajador vista = pendientes.vista(dni);
+            if (vista == null) {
+                return;
+            }
+            List<String> claves = clavesDeBloqueo(vista);
+            confirmada = bloqueos.conBloqueo(claves, () -> confirmarVista(dni, claves));
+        } while (!confirmada);
+    }
+
+    /**
+     * Cada asignación se escribe con la actualización de siempre, que vuelve a validar contra la
+     * base de datos, escribe el registro de horas y el evento y reintenta los conflictos de versión.
+     * Si ya no cumple las reglas o no se puede escribir, el cambio se descarta y se avisa en el log;
+     * si lo que falta es una franja, el cambio sigue pendiente.
+     *
+     * @return false si la vista tiene cambios en secciones cuyas franjas no están entre las adquiridas
+     */
+    private boolean confirmarVista(String dni, List<String> claves) {
+        CambiosHorasPendientes.VistaTrabajador vista = pendientes.vista(dni);
+        if (vista == null) {
+            return true;
+        }
+        if (!claves.containsAll(clavesDeBloqueo(vista))) {
+            return false;
+        }
+        for (CambiosHorasPendientes.CambioPendiente cambio : List.copyOf(vista.cambios())) {
+            if (cambio.sinEfecto()) {
+                vista.quitar(cambio);
+                continue;
+            }
+            String nombreSeccion = cambio.seccion().getNombre();
+            try {
+                reintentos.ejecutar("update", () -> actualizarEnTransaccion(dni, nombreSeccion, cambio.horas()));
+                vista.confirmar(cambio);
+                pendientes.escrito();
+            } catch (BloqueoNoDisponibleException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                vista.quitar(cambio);
+                pendientes.descartado();
+                log.warn("Se descarta el cambio diferido a {} h de la asignación de {} en {}: {}",
+                    cambio.horas(), dni, nombreSeccion, e.getMessage());
+            }
+        }
+        pendientes.cerrarSiVacia(vista);
+        return true;
+    }
+
+    private Asignacion actualizarEnTransaccion(String dniTrabajador, String nombreSeccion, int nuevasHoras) {
+        Trabajador trabajador = buscarTrabajadorPorDni(dniTrabajador);
+        Seccion seccion = buscarSeccionPorNombre(nombreSeccion);
+
+        // La asignación se lee ya con el bloqueo para partir de las horas confirmadas por otras escrituras
+        return bloqueos.conBloqueo(clavesDeBloqueo(trabajador, seccion), () -> {
+            Asignacion asignacionExistente = buscarAsignacion(trabajador, seccion);
+
+            // Validar que el trabajador tenga suficientes horas disponibles
+            int horasAnteriores = asignacionExistente.getHorasAsignadas();
+            ReglasAsignacion.validarCambioHoras(trabajador, libroHoras.horasTrabajador(trabajador) - horasAnteriores, nuevasHoras);
+
+            asignacionExistente.setHorasAsignadas(nuevasHoras);
+            Asignacion actualizada = asignacionRepository.save(asignacionExistente);
+            libroHoras.registrarCambio(actualizada, horasAnteriores);
+            bandejaSalida.registrarCambio(actualizada, horasAnteriores);
+            return actualizada;
+        });
+    }
+
+    /**
+     * Las horas del trabajador no cambian, así que solo se valida la sección de destino
+     */
     @Override
-    public Asignacion actualizarHorasAsignacion(String dniTrabajador, String nombreSeccion, int nuevasHoras) {
-        if (nuevasHoras < 1 || nuevasHoras > 8) {
-            throw new IllegalArgumentException("Las horas asignadas deben estar entre 1 y 8");
+    public Asignacion moverAsignacion(String dniTrabajador, String nombreSeccionOrigen, String nombreSeccionDestino) {
+        confirmarPendientesDe(List.of(dniTrabajador));
+        return reintentos.ejecutar("move", () -> moverEnTransaccion(dniTrabajador, nombreSeccionOrigen, nombreSeccionDestino));
+    }
+
+    private Asignacion moverEnTransaccion(String dniTrabajador, String nombreSeccionOrigen, String nombreSeccionDestino) {
+        Trabajador trabajador = buscarTrabajadorPorDni(dniTrabajador);
+        Seccion origen = buscarSeccionPorNombre(nombreSeccionOrigen);
+        Seccion destino = buscarSeccionPorNombre(nombreSeccionDestino);
+        ReglasAsignacion.validarSeccionesDistintas(origen, destino);
+
+        Set<String> claves = new HashSet<>(clavesDeBloqueo(trabajador, origen));
+        claves.addAll(clavesDeBloqueo(trabajador, destino));
+        return bloqueos.conBloqueo(claves, () -> {
+            Asignacion asignacion = buscarAsignacion(trabajador, origen);
+            validarAsignacionUnica(trabajador, destino);
+            validarLimiteSeccion(trabajador, destino, asignacion.getHorasAsignadas());
+
+            asignacion.moverASeccion(destino);
+            Asignacion movida = asignacionRepository.save(asignacion);
+            List<MovimientoAsignacion> movimientos = List.of(new MovimientoAsignacion(movida, origen));
+            libroHoras.registrarMovimientos(movimientos);
+            bandejaSalida.registrarMovimientos(movimientos);
+            return movida;
+        });
+    }
+
+    /**
+     * Cada sección de destino se valida con las horas que deja libres la asignación que sale de ella
+     * en la misma tienda, leyendo las horas de las dos secciones con una sola consulta
+     */
+    @Override
+    public List<Asignacion> intercambiarAsignaciones(String dniPrimerTrabajador, String nombrePrimeraSeccion,
+                                                     String dniSegundoTrabajador, String nombreSegundaSeccion) {
+        confirmarPendientesDe(List.of(dniPrimerTrabajador, dniSegundoTrabajador));
+        return reintentos.ejecutar("swap", () -> intercambiarEnTransaccion(
+            dniPrimerTrabajador, nombrePrimeraSeccion, dniSegundoTrabajador, nombreSegundaSeccion));
+    }
+
+    private List<Asignacion> intercambiarEnTransaccion(String dniPrimerTrabajador, String nombrePrimeraSeccion,
+                                                       String dniSegundoTrabajador, String nombreSegundaSeccion) {
+        Trabajador primerTrabajador = buscarTrabajadorPorDni(dniPrimerTrabajador);
+        Trabajador segundoTrabajador = buscarTrabajadorPorDni(dniSegundoTrabajador);
+        if (primerTrabajador.equals(segundoTrabajador)) {
+            throw new IllegalArgumentException("Solo se pueden intercambiar asignaciones de trabajadores distintos");
         }
+        Seccion primeraSeccion = buscarSeccionPorNombre(nombrePrimeraSeccion);
+        Seccion segundaSeccion = buscarSeccionPorNombre(nombreSegundaSeccion);
+        ReglasAsignacion.validarSeccionesDistintas(primeraSeccion, segundaSeccion);
 
-        Asignacion asignacionExistente = buscarAsignacion(dniTrabajador, nombreSeccion)
-            .orElseThrow(() -> new IllegalArgumentException(
-                "No existe una asignación para el trabajador " + dniTrabajador + " en la sección " + nombreSeccion));
-
-        // Validar que el trabajador tenga suficientes horas disponibles
-        List<Asignacion> asignacionesTrabajador = buscarAsignacionesPorTrabajador(dniTrabajador);
-        int horasActualesAsignadas = asignacionesTrabajador.stream()
-            .filter(a -> !a.equals(asignacionExistente))
-            .mapToInt(Asignacion::getHorasAsignadas)
-            .sum();
-        int horasDisponibles = asignacionExistente.getTrabajador().getHorasDisponibles();
-        
-        if (horasActualesAsignadas + nuevasHoras > horasDisponibles) {
-            throw new IllegalArgumentException(
-                "El trabajador no tiene suficientes horas disponibles. Disponibles: " + horasDisponibles + 
-                ", ya asignadas: " + horasActualesAsignadas + ", solicitadas: " + nuevasHoras);
+        Set<String> claves = new HashSet<>();
+        for (Trabajador trabajador : List.of(primerTrabajador, segundoTrabajador)) {
+            claves.addAll(clavesDeBloqueo(trabajador, primeraSeccion));
+            claves.addAll(clavesDeBloqueo(trabajador, segundaSeccion));
         }
+        return bloqueos.conBloqueo(claves, () -> {
+            Asignacion primera = buscarAsignacion(primerTrabajador, primeraSeccion);
+            Asignacion segunda = buscarAsignacion(segundoTrabajador, segundaSeccion);
+            validarAsignacionUnica(primerTrabajador, segundaSeccion);
+            validarAsignacionUnica(segundoTrabajador, primeraSeccion);
 
-        asignacionExistente.setHorasAsignadas(nuevasHoras);
-        return asignacionRepository.save(asignacionExistente);
+            Map<LibroHorasAsignadas.ClaveSeccion, Integer> horasSecciones = libroHoras.horasSecciones(
+                List.of(primerTrabajador, segundoTrabajador), List.of(primeraSeccion, segundaSeccion));
+            Map<LibroHorasAsignadas.ClaveSeccion, Integer> horasSalientes = new HashMap<>();
+            horasSalientes.merge(LibroHorasAsignadas.ClaveSeccion.de(primerTrabajador.getTienda(), primeraSeccion),
+                primera.getHorasAsignadas(), Integer::sum);
+            horasSalientes.merge(LibroHorasAsignadas.ClaveSeccion.de(segundoTrabajador.getTienda(), segundaSeccion),
+                segunda.getHorasAsignadas(), Integer::sum);
+            validarEntrada(primerTrabajador, segundaSeccion, primera.getHorasAsignadas(), horasSecciones, horasSalientes);
+            validarEntrada(segundoTrabajador, primeraSeccion, segunda.getHorasAsignadas(), horasSecciones, horasSalientes);
+
+            primera.moverASeccion(segundaSeccion);
+            segunda.moverASeccion(primeraSeccion);
+            List<Asignacion> intercambiadas = asignacionRepository.saveAll(List.of(primera, segunda));
+            List<MovimientoAsignacion> movimientos = List.of(
+                new MovimientoAsignacion(intercambiadas.get(0), primeraSeccion),
+                new MovimientoAsignacion(intercambiadas.get(1), segundaSeccion));
+            libroHoras.registrarMovimientos(movimientos);
+            bandejaSalida.registrarMovimientos(movimientos);
+            return intercambiadas;
+        });
+    }
+
+    private static void validarEntrada(Trabajador trabajador, Seccion destino, int horasAsignadas,
+                                       Map<LibroHorasAsignadas.ClaveSeccion, Integer> horasSecciones,
+                                       Map<LibroHorasAsignadas.ClaveSeccion, Integer> horasSalientes) {
+        LibroHorasAsignadas.ClaveSeccion clave = LibroHorasAsignadas.ClaveSeccion.de(trabajador.getTienda(), destino);
+        int horasQueQuedan = horasSecciones.getOrDefault(clave, 0) - horasSalientes.getOrDefault(clave, 0);
+        ReglasAsignacion.validarLimiteSeccion(destino, horasQueQuedan, horasAsignadas);
+    }
+
+    private Asignacion buscarAsignacion(Trabajador trabajador, Seccion seccion) {
+        return asignacionRepository.findByTrabajadorAndSeccion(trabajador, seccion)
+            .orElseThrow(() -> new IllegalArgumentException(
+                ReglasAsignacion.mensajeAsignacionNoEncontrada(trabajador.getDni(), seccion.getNombre())));
+    }
+
+    private Asignacion buscarAsignacionConDetalles(Trabajador trabajador, Seccion seccion) {
+        return asignacionRepository.findConDetallesByTrabajadorAndSeccion(trabajador, seccion)
+            .orElseThrow(() -> new IllegalArgumentException(
+                ReglasAsignacion.mensajeAsignacionNoEncontrada(trabajador.getDni(), seccion.getNombre())));
     }
 
 }
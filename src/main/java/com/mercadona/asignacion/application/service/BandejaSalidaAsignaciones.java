@@ -0,0 +1,57 @@
+package com.mercadona.asignacion.application.service;
+
+import com.mercadona.asignacion.domain.Asignacion;
+import com.mercadona.asignacion.domain.EventoAsignacion;
+import com.mercadona.asignacion.domain.MovimientoAsignacion;
+import com.mercadona.asignacion.domain.TipoCambioAsignacion;
+import com.mercadona.asignacion.infrastructure.repository.EventoAsignacionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Escritura de los eventos de cambio de asignaciones en el outbox. Igual que en
+ * {@link LibroHorasAsignadas}, cada alta, cambio o baja debe anotarse aquí dentro de la misma
+ * transacción en la que se persiste, para que el evento exista si y solo si el cambio se confirma.
+ */
+@Component
+public class BandejaSalidaAsignaciones {
+
+    private final EventoAsignacionRepository eventoAsignacionRepository;
+    private final MeterRegistry meterRegistry;
+
+    public BandejaSalidaAsignaciones(EventoAsignacionRepository eventoAsignacionRepository, MeterRegistry meterRegistry) {
+        this.eventoAsignacionRepository = eventoAsignacionRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void registrarAltas(Collection<Asignacion> asignaciones) {
+        guardar(TipoCambioAsignacion.CREADA, asignaciones.stream().map(EventoAsignacion::alta).toList());
+    }
+
+    public void registrarCambio(Asignacion asignacion, int horasAnteriores) {
+        guardar(TipoCambioAsignacion.ACTUALIZADA, List.of(EventoAsignacion.cambio(asignacion, horasAnteriores)));
+    }
+
+    public void registrarBajas(Collection<Asignacion> asignaciones) {
+        guardar(TipoCambioAsignacion.ELIMINADA, asignaciones.stream().map(EventoAsignacion::baja).toList());
+    }
+
+    public void registrarMovimientos(Collection<MovimientoAsignacion> movimientos) {
+        List<EventoAsignacion> eventos = movimientos.stream()
+            .flatMap(movimiento -> EventoAsignacion.movimiento(movimiento.asignacion(), movimiento.seccionAnterior()).stream())
+            .toList();
+        guardar(TipoCambioAsignacion.ELIMINADA, eventos.stream().filter(evento -> evento.getTipo() == TipoCambioAsignacion.ELIMINADA).toList());
+        guardar(TipoCambioAsignacion.CREADA, eventos.stream().filter(evento -> evento.getTipo() == TipoCambioAsignacion.CREADA).toList());
+    }
+
+    private void guardar(TipoCambioAsignacion tipo, List<EventoAsignacion> eventos) {
+        if (eventos.isEmpty()) {
+            return;
+        }
+        eventoAsignacionRepository.saveAll(eventos);
+        meterRegistry.counter("assignments.outbox.written", "type", tipo.name().toLowerCase()).increment(eventos.size());
+    }
+}
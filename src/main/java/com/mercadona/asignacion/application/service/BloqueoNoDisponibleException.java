@@ -0,0 +1,14 @@
+package com.mercadona.asignacion.application.service;
+
+/**
+ * Una franja de {@link BloqueosPorFranjas} ha seguido ocupada por otra operación más allá de la
+ * espera máxima. Es un conflicto pasajero: la misma petición puede repetirse al poco.
+ */
+public class BloqueoNoDisponibleException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BloqueoNoDisponibleException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,195 @@
+package com.mercadona.asignacion.application.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bloqueos en memoria por franjas (lock striping) para serializar las escrituras de asignaciones
+ * que comparten trabajador o sección de una tienda, sin bloquear las que no tienen nada en común.
+ * <p>
+ * Cada clave se asigna a uno de un número fijo de ReentrantLock por su hash. Las franjas de una
+ * operación se adquieren siempre en orden ascendente, así que dos operaciones con claves cruzadas
+ * no pueden interbloquearse. Dentro de una transacción las franjas se liberan al terminarla
+ * (commit o rollback), para que la siguiente operación ya lea las horas confirmadas; fuera de una
+ * transacción se liberan al cerrar el {@link Bloqueo} o al terminar {@link #conBloqueo}.
+ * <p>
+ * Solo coordina las peticiones de esta instancia de la aplicación.
+ */
+@Component
+public class BloqueosPorFranjas {
+
+    private final ReentrantLock[] franjas;
+    private final int mascara;
+    private final Duration esperaMaxima;
+
+    private final Counter inmediatos;
+    private final Counter conEspera;
+    private final Counter agotados;
+    private final Timer espera;
+
+    public BloqueosPorFranjas(@Value("${asignaciones.bloqueos.franjas:1024}") int numeroFranjas,
+                              @Value("${asignaciones.bloqueos.espera-maxima:5s}") Duration esperaMaxima,
+                              MeterRegistry meterRegistry) {
+        if (numeroFranjas <= 0 || Integer.bitCount(numeroFranjas) != 1) {
+            throw new IllegalArgumentException("El número de franjas debe ser una potencia de dos: " + numeroFranjas);
+        }
+        this.franjas = new ReentrantLock[numeroFranjas];
+        Arrays.setAll(franjas, i -> new ReentrantLock());
+        this.mascara = numeroFranjas - 1;
+        this.esperaMaxima = esperaMaxima;
+        this.inmediatos = meterRegistry.counter("assignments.locks.acquisitions", "result", "immediate");
+        this.conEspera = meterRegistry.counter("assignments.locks.acquisitions", "result", "contended");
+        this.agotados = meterRegistry.counter("assignments.locks.acquisitions", "result", "timeout");
+        this.espera = Timer.builder("assignments.locks.wait")
+            .description("Espera para adquirir una franja ocupada por otra operación")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+        Gauge.builder("assignments.locks.held", franjas, BloqueosPorFranjas::ocupadas)
+            .description("Franjas bloqueadas en este momento")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Adquiere las franjas de todas las claves. Lanza {@link BloqueoNoDisponibleException} si
+     * alguna sigue ocupada pasada la espera máxima, sin retener ninguna.
+     */
+    public Bloqueo bloquear(Collection<String> claves) {
+        int[] indices = claves.stream().mapToInt(this::franja).distinct().sorted().toArray();
+        List<ReentrantLock> adquiridas = new ArrayList<>(indices.length);
+        try {
+            for (int indice : indices) {
+                adquirir(franjas[indice]);
+                adquiridas.add(franjas[indice]);
+            }
+        } catch (RuntimeException e) {
+            liberar(adquiridas);
+            throw e;
+        }
+        return new Bloqueo(adquiridas);
+    }
+
+    /**
+     * Ejecuta la operación con las franjas de todas las claves adquiridas y las cierra al terminar,
+     * como {@link #bloquear} seguido de {@link Bloqueo#close()}.
+     */
+    public <T> T conBloqueo(Collection<String> claves, Supplier<T> operacion) {
+        Bloqueo bloqueo = bloquear(claves);
+        try {
+            return operacion.get();
+        } finally {
+            bloqueo.close();
+        }
+    }
+
+    public void conBloqueo(Collection<String> claves, Runnable operacion) {
+        conBloqueo(claves, () -> {
+            operacion.run();
+            return null;
+        });
+    }
+
+    /**
+     * Clave que serializa las operaciones que cambian las asignaciones o las horas de un trabajador
+     */
+    public static String claveTrabajador(String dniTrabajador) {
+        return "trabajador:" + dniTrabajador;
+    }
+
+    /**
+     * Clave que serializa las operaciones que cambian las horas de una sección en una tienda
+     */
+    public static String claveSeccion(Long idTienda, String nombreSeccion) {
+        return "seccion:" + idTienda + "|" + nombreSeccion;
+    }
+
+    int franja(String clave) {
+        int hash = clave.hashCode();
+        return (hash ^ (hash >>> 16)) & mascara;
+    }
+
+    private void adquirir(ReentrantLock franja) {
+        if (franja.tryLock()) {
+            inmediatos.increment();
+            return;
+        }
+
+        conEspera.increment();
+        long inicio = System.nanoTime();
+        boolean adquirida;
+        try {
+            adquirida = franja.tryLock(esperaMaxima.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido mientras se esperaba un bloqueo de asignaciones", e);
+        } finally {
+            espera.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+        if (!adquirida) {
+            agotados.increment();
+            throw new BloqueoNoDisponibleException("Hay otra operación en curso sobre el mismo trabajador o sección; inténtelo de nuevo");
+        }
+    }
+
+    private static void liberar(List<ReentrantLock> adquiridas) {
+        for (int i = adquiridas.size() - 1; i >= 0; i--) {
+            adquiridas.get(i).unlock();
+        }
+    }
+
+    private static int ocupadas(ReentrantLock[] franjas) {
+        int ocupadas = 0;
+        for (ReentrantLock franja : franjas) {
+            if (franja.isLocked()) {
+                ocupadas++;
+            }
+        }
+        return ocupadas;
+    }
+
+    /**
+     * Franjas adquiridas por una operación. Cerrarlo dentro de una transacción aplaza la
+     * liberación hasta que la transacción termine.
+     */
+    public static final class Bloqueo implements AutoCloseable {
+
+        private final List<ReentrantLock> adquiridas;
+        private boolean cerrado;
+
+        private Bloqueo(List<ReentrantLock> adquiridas) {
+            this.adquiridas = adquiridas;
+        }
+
+        @Override
+        public void close() {
+            if (cerrado) {
+                return;
+            }
+            cerrado = true;
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        liberar(adquiridas);
+                    }
+                });
+            } else {
+                liberar(adquiridas);
+            }
+        }
+    }
+}
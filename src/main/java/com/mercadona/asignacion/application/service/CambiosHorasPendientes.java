@@ -0,0 +1,245 @@
+package com.mercadona.asignacion.application.service;
+
+import com.mercadona.asignacion.domain.Asignacion;
+import com.mercadona.tienda.domain.Seccion;
+import com.mercadona.trabajador.domain.Trabajador;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cambios de horas aceptados y aún no escritos, para la escritura diferida de
+ * {@code actualizarHorasAsignacion}.
+ * <p>
+ * Por cada trabajador con cambios pendientes se guarda una vista con sus horas confirmadas y, por
+ * sección, la asignación leída con sus horas de partida y las últimas aceptadas. Los cambios se
+ * validan contra esta vista sin volver a la base de datos, y los que llegan antes de que venza la
+ * ventana del trabajador se funden en una sola escritura por asignación. Cada cambio sale de la vista
+ * al escribirse o descartarse, y la vista cuando se queda sin cambios. Solo se modifica con la franja
+ * del trabajador adquirida en {@link BloqueosPorFranjas}, y como ella solo coordina esta instancia
+ * de la aplicación. El número de cambios pendientes se lleva aparte en un contador
+ * atómico para que las métricas lo lean sin recorrer las vistas.
+ */
+@Component
+public class CambiosHorasPendientes {
+
+    private final boolean activa;
+    private final long ventanaNanos;
+    private final Map<String, VistaTrabajador> vistas = new ConcurrentHashMap<>();
+    private final AtomicInteger pendientes = new AtomicInteger();
+
+    private final Counter aceptados;
+    private final Counter escritos;
+    private final Counter descartados;
+
+    public CambiosHorasPendientes(@Value("${asignaciones.escritura-diferida.enabled:false}") boolean activa,
+                                  @Value("${asignaciones.escritura-diferida.ventana:500ms}") Duration ventana,
+                                  MeterRegistry meterRegistry) {
+        this.activa = activa;
+        this.ventanaNanos = ventana.toNanos();
+        Gauge.builder("assignments.write_behind.pending", pendientes, AtomicInteger::get)
+            .description("Asignaciones con cambios de horas aceptados pendientes de escribir")
+            .register(meterRegistry);
+        this.aceptados = meterRegistry.counter("assignments.write_behind.accepted");
+        this.escritos = meterRegistry.counter("assignments.write_behind.written");
+        this.descartados = meterRegistry.counter("assignments.write_behind.dropped");
+    }
+
+    public boolean activa() {
+        return activa;
+    }
+
+    VistaTrabajador vista(String dni) {
+        return vistas.get(dni);
+    }
+
+    /**
+     * @param horasConfirmadas horas del trabajador en el registro de horas asignadas
+     */
+    VistaTrabajador abrir(Trabajador trabajador, int horasConfirmadas) {
+        VistaTrabajador vista = new VistaTrabajador(trabajador, horasConfirmadas, System.nanoTime() + ventanaNanos, pendientes);
+        vistas.put(trabajador.getDni(), vista);
+        return vista;
+    }
+
+    VistaTrabajador retirar(String dni) {
+        VistaTrabajador vista = vistas.remove(dni);
+        if (vista != null) {
+            pendientes.addAndGet(-vista.cambios.size());
+        }
+        return vista;
+    }
+
+    /**
+     * Retira la vista si ya no le quedan cambios
+     */
+    void cerrarSiVacia(VistaTrabajador vista) {
+        if (vista.cambios.isEmpty()) {
+            vistas.remove(vista.trabajador.getDni(), vista);
+        }
+    }
+
+    boolean hayPendientes(String dni) {
+        return dni != null && vistas.containsKey(dni);
+    }
+
+    List<String> vencidos() {
+        long ahora = System.nanoTime();
+        return vistas.values().stream()
+            .filter(vista -> ahora - vista.vencimiento >= 0)
+            .map(vista -> vista.trabajador.getDni())
+            .toList();
+    }
+
+    List<String> deTienda(String codigoTienda) {
+        return vistas.values().stream()
+            .filter(vista -> vista.codigoTienda.equals(codigoTienda))
+            .map(vista -> vista.trabajador.getDni())
+            .toList();
+    }
+
+    List<String> todos() {
+        return new ArrayList<>(vistas.keySet());
+    }
+
+    void aceptado() {
+        aceptados.increment();
+    }
+
+    void escrito() {
+        escritos.increment();
+    }
+
+    /**
+     * Un cambio aceptado que no llega a escribirse: al escribirse ya no cumple las reglas, o el
+     * trabajador se elimina antes
+     */
+    void descartado() {
+        descartados.increment();
+    }
+
+    static final class VistaTrabajador {
+
+        private final Trabajador trabajador;
+        private final String codigoTienda;
+        private int horasConfirmadas;
+        private final long vencimiento;
+        // Concurrente para poder consultar sus secciones antes de adquirir las franjas
+        private final Map<String, CambioPendiente> cambios = new ConcurrentHashMap<>();
+        private final AtomicInteger pendientes;
+
+        private VistaTrabajador(Trabajador trabajador, int horasConfirmadas, long vencimiento, AtomicInteger pendientes) {
+            this.trabajador = trabajador;
+            // Se lee ya para que la tienda esté cargada cuando se use fuera de esta petición
+            this.codigoTienda = trabajador.getTienda().getCodigo();
+            this.horasConfirmadas = horasConfirmadas;
+            this.vencimiento = vencimiento;
+            this.pendientes = pendientes;
+        }
+
+        Trabajador trabajador() {
+            return trabajador;
+        }
+
+        /**
+         * Horas del trabajador contando los cambios pendientes
+         */
+        int horas() {
+            int horas = horasConfirmadas;
+            for (CambioPendiente cambio : cambios.values()) {
+                horas += cambio.horas() - cambio.horasConfirmadas;
+            }
+            return horas;
+        }
+
+        CambioPendiente cambio(String nombreSeccion) {
+            return cambios.get(nombreSeccion);
+        }
+
+        /**
+         * @param asignacion asignación leída de la base de datos, con su trabajador y su sección
+         */
+        CambioPendiente anadir(Seccion seccion, Asignacion asignacion) {
+            CambioPendiente cambio = new CambioPendiente(seccion, asignacion);
+            cambios.put(seccion.getNombre(), cambio);
+            pendientes.incrementAndGet();
+            return cambio;
+        }
+
+        /**
+         * El cambio se ha escrito: sus horas pasan a ser parte de las confirmadas del trabajador
+         */
+        void confirmar(CambioPendiente cambio) {
+            horasConfirmadas += cambio.horas() - cambio.horasConfirmadas;
+            quitar(cambio);
+        }
+
+        /**
+         * El cambio no se va a escribir: las horas confirmadas del trabajador no cambian
+         */
+        void quitar(CambioPendiente cambio) {
+            if (cambios.remove(cambio.seccion.getNombre(), cambio)) {
+                pendientes.decrementAndGet();
+            }
+        }
+
+        Set<String> secciones() {
+            return cambios.keySet();
+        }
+
+        Collection<CambioPendiente> cambios() {
+            return cambios.values();
+        }
+    }
+
+    static final class CambioPendiente {
+
+        private final Seccion seccion;
+        private final Asignacion asignacion;
+        private final int horasConfirmadas;
+
+        private CambioPendiente(Seccion seccion, Asignacion asignacion) {
+            this.seccion = seccion;
+            this.asignacion = asignacion;
+            this.horasConfirmadas = asignacion.getHorasAsignadas();
+        }
+
+        Seccion seccion() {
+            return seccion;
+        }
+
+        /**
+         * Asignación leída al abrir el cambio, con las últimas horas aceptadas. No se escribe
+         * directamente: la escritura vuelve a leerla en su propia transacción.
+         */
+        Asignacion asignacion() {
+            return asignacion;
+        }
+
+        int horas() {
+            return asignacion.getHorasAsignadas();
+        }
+
+        void horas(int horas) {
+            asignacion.setHorasAsignadas(horas);
+        }
+
+        /**
+         * Los cambios se han compensado y la asignación vuelve a tener las horas de partida
+         */
+        boolean sinEfecto() {
+            return horas() == horasConfirmadas;
+        }
+    }
+}
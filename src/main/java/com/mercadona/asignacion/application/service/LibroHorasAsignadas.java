@@ -0,0 +1,171 @@
+package com.mercadona.asignacion.application.service;
+
+import com.mercadona.asignacion.domain.Asignacion;
+import com.mercadona.asignacion.domain.HorasSeccionTienda;
+import com.mercadona.asignacion.domain.HorasTrabajador;
+import com.mercadona.asignacion.domain.MovimientoAsignacion;
+import com.mercadona.asignacion.infrastructure.repository.HorasSeccionTiendaRepository;
+import com.mercadona.asignacion.infrastructure.repository.HorasTrabajadorRepository;
+import com.mercadona.tienda.domain.Seccion;
+import com.mercadona.tienda.domain.Tienda;
+import com.mercadona.trabajador.domain.Trabajador;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registro de las horas ya asignadas por trabajador y por sección de cada tienda.
+ * <p>
+ * Las validaciones de asignación leen una única fila por clave en lugar de sumar todas las
+ * asignaciones. Cada alta, cambio o baja de asignación debe anotarse aquí dentro de la misma
+ * transacción en la que se persiste; las filas que faltan equivalen a cero horas.
+ */
+@Component
+public class LibroHorasAsignadas {
+
+    private final HorasTrabajadorRepository horasTrabajadorRepository;
+    private final HorasSeccionTiendaRepository horasSeccionTiendaRepository;
+
+    public LibroHorasAsignadas(HorasTrabajadorRepository horasTrabajadorRepository,
+                               HorasSeccionTiendaRepository horasSeccionTiendaRepository) {
+        this.horasTrabajadorRepository = horasTrabajadorRepository;
+        this.horasSeccionTiendaRepository = horasSeccionTiendaRepository;
+    }
+
+    public int horasTrabajador(Trabajador trabajador) {
+        return horasTrabajadorRepository.findByTrabajador(trabajador)
+            .map(HorasTrabajador::getHorasAsignadas)
+            .orElse(0);
+    }
+
+    public int horasSeccion(Tienda tienda, Seccion seccion) {
+        return horasSeccionTiendaRepository.findByTiendaAndSeccion(tienda, seccion)
+            .map(HorasSeccionTienda::getHorasAsignadas)
+            .orElse(0);
+    }
+
+    /**
+     * Horas ya asignadas de cada sección en las tiendas de los trabajadores, con una única consulta
+     */
+    public Map<ClaveSeccion, Integer> horasSecciones(Collection<Trabajador> trabajadores, Collection<Seccion> secciones) {
+        Map<ClaveSeccion, Integer> horas = new HashMap<>();
+        for (HorasSeccionTienda fila : filasSeccion(tiendasDe(trabajadores), secciones).values()) {
+            horas.put(ClaveSeccion.de(fila.getTienda(), fila.getSeccion()), fila.getHorasAsignadas());
+        }
+        return horas;
+    }
+
+    public void registrarAltas(Collection<Asignacion> asignaciones) {
+        aplicar(asignaciones.stream().map(asignacion -> Cambio.de(asignacion, asignacion.getHorasAsignadas())).toList());
+    }
+
+    public void registrarCambio(Asignacion asignacion, int horasAnteriores) {
+        aplicar(List.of(Cambio.de(asignacion, asignacion.getHorasAsignadas() - horasAnteriores)));
+    }
+
+    public void registrarBajas(Collection<Asignacion> asignaciones) {
+        aplicar(asignaciones.stream().map(asignacion -> Cambio.de(asignacion, -asignacion.getHorasAsignadas())).toList());
+    }
+
+    /**
+     * Las horas pasan de la sección anterior a la nueva; las del trabajador no cambian
+     */
+    public void registrarMovimientos(Collection<MovimientoAsignacion> movimientos) {
+        // Primero todas las salidas, para que ninguna fila pase por un valor negativo en un intercambio
+        List<Cambio> cambios = new ArrayList<>(movimientos.size() * 2);
+        for (MovimientoAsignacion movimiento : movimientos) {
+            Asignacion asignacion = movimiento.asignacion();
+            cambios.add(new Cambio(asignacion.getTrabajador(), movimiento.seccionAnterior(), -asignacion.getHorasAsignadas()));
+        }
+        for (MovimientoAsignacion movimiento : movimientos) {
+            cambios.add(Cambio.de(movimiento.asignacion(), movimiento.asignacion().getHorasAsignadas()));
+        }
+        aplicar(cambios);
+    }
+
+    /**
+     * Elimina la fila del trabajador; sus asignaciones deben haberse dado de baja antes
+     */
+    public void eliminarTrabajador(Trabajador trabajador) {
+        horasTrabajadorRepository.deleteByTrabajador(trabajador);
+    }
+
+    /**
+     * Elimina todas las filas de la tienda y de sus trabajadores
+     */
+    public void eliminarTienda(Tienda tienda) {
+        horasTrabajadorRepository.deleteByTrabajadorTiendaId(tienda.getId());
+        horasSeccionTiendaRepository.deleteByTiendaId(tienda.getId());
+    }
+
+    private void aplicar(List<Cambio> cambios) {
+        if (cambios.isEmpty()) {
+            return;
+        }
+        Set<Trabajador> trabajadores = new HashSet<>();
+        Set<Seccion> secciones = new HashSet<>();
+        cambios.forEach(cambio -> {
+            trabajadores.add(cambio.trabajador());
+            secciones.add(cambio.seccion());
+        });
+
+        Map<String, HorasTrabajador> filasTrabajador = new HashMap<>();
+        horasTrabajadorRepository.findByTrabajadorIn(trabajadores)
+            .forEach(fila -> filasTrabajador.put(fila.getTrabajador().getDni(), fila));
+        Map<ClaveSeccion, HorasSeccionTienda> filasSeccion = filasSeccion(tiendasDe(trabajadores), secciones);
+
+        cambios.forEach(cambio -> {
+            Trabajador trabajador = cambio.trabajador();
+            Seccion seccion = cambio.seccion();
+            filasTrabajador.computeIfAbsent(trabajador.getDni(), dni -> new HorasTrabajador(trabajador)).sumar(cambio.horas());
+            filasSeccion.computeIfAbsent(ClaveSeccion.de(trabajador.getTienda(), seccion),
+                clave -> new HorasSeccionTienda(trabajador.getTienda(), seccion)).sumar(cambio.horas());
+        });
+
+        horasTrabajadorRepository.saveAll(filasTrabajador.values());
+        horasSeccionTiendaRepository.saveAll(filasSeccion.values());
+    }
+
+    private Map<ClaveSeccion, HorasSeccionTienda> filasSeccion(Set<Tienda> tiendas, Collection<Seccion> secciones) {
+        Map<ClaveSeccion, HorasSeccionTienda> filas = new HashMap<>();
+        if (tiendas.isEmpty() || secciones.isEmpty()) {
+            return filas;
+        }
+        for (HorasSeccionTienda fila : horasSeccionTiendaRepository.findByTiendaInAndSeccionIn(tiendas, secciones)) {
+            filas.put(ClaveSeccion.de(fila.getTienda(), fila.getSeccion()), fila);
+        }
+        return filas;
+    }
+
+    private static Set<Tienda> tiendasDe(Collection<Trabajador> trabajadores) {
+        Set<Tienda> tiendas = new HashSet<>();
+        trabajadores.forEach(trabajador -> tiendas.add(trabajador.getTienda()));
+        return tiendas;
+    }
+
+    /**
+     * Horas que se suman (o restan) a un trabajador y a una sección de su tienda
+     */
+    private record Cambio(Trabajador trabajador, Seccion seccion, int horas) {
+
+        static Cambio de(Asignacion asignacion, int horas) {
+            return new Cambio(asignacion.getTrabajador(), asignacion.getSeccion(), horas);
+        }
+    }
+
+    /**
+     * Sección de una tienda identificada por sus claves de negocio, que también valen con proxies sin inicializar
+     */
+    public record ClaveSeccion(String codigoTienda, String nombreSeccion) {
+
+        public static ClaveSeccion de(Tienda tienda, Seccion seccion) {
+            return new ClaveSeccion(tienda.getCodigo(), seccion.getNombre());
+        }
+    }
+}
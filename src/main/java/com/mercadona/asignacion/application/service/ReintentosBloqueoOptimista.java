@@ -0,0 +1,105 @@
+package com.mercadona.asignacion.application.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta una escritura de asignaciones en su propia transacción y la repite si al confirmarla
+ * otra transacción ha modificado antes alguna de las filas versionadas que leyó (la asignación
+ * o las horas registradas del trabajador o de la sección).
+ * <p>
+ * Cada reintento es una transacción nueva que vuelve a leer y validar. Entre intentos se espera
+ * un tiempo que se duplica en cada conflicto hasta la espera máxima, con una parte aleatoria para
+ * que las operaciones en conflicto no vuelvan a coincidir. Agotados los intentos se propaga el
+ * último {@link OptimisticLockingFailureException}.
+ * <p>
+ * Si ya hay una transacción activa la operación se une a ella y no se reintenta: tras el conflicto
+ * esa transacción queda marcada para deshacerse y es quien la abrió quien debe repetirla.
+ */
+@Component
+public class ReintentosBloqueoOptimista {
+
+    private static final Logger log = LoggerFactory.getLogger(ReintentosBloqueoOptimista.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maximoIntentos;
+    private final Duration esperaInicial;
+    private final Duration esperaMaxima;
+    private final MeterRegistry meterRegistry;
+
+    public ReintentosBloqueoOptimista(PlatformTransactionManager transactionManager,
+                                      @Value("${asignaciones.reintentos.maximo-intentos:4}") int maximoIntentos,
+                                      @Value("${asignaciones.reintentos.espera-inicial:20ms}") Duration esperaInicial,
+                                      @Value("${asignaciones.reintentos.espera-maxima:500ms}") Duration esperaMaxima,
+                                      MeterRegistry meterRegistry) {
+        if (maximoIntentos < 1) {
+            throw new IllegalArgumentException("El número máximo de intentos debe ser al menos 1: " + maximoIntentos);
+        }
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maximoIntentos = maximoIntentos;
+        this.esperaInicial = esperaInicial;
+        this.esperaMaxima = esperaMaxima;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param operacion etiqueta de la operación en las métricas (create, batch, update, delete)
+     */
+    public <T> T ejecutar(String operacion, Supplier<T> escritura) {
+        meterRegistry.counter("assignments.optimistic.executions", "operation", operacion).increment();
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return escritura.get();
+        }
+
+        long espera = esperaInicial.toMillis();
+        for (int intento = 1; ; intento++) {
+            try {
+                return transactionTemplate.execute(status -> escritura.get());
+            } catch (OptimisticLockingFailureException e) {
+                meterRegistry.counter("assignments.optimistic.conflicts", "operation", operacion).increment();
+                if (intento >= maximoIntentos) {
+                    meterRegistry.counter("assignments.optimistic.exhausted", "operation", operacion).increment();
+                    log.warn("Conflicto de versión en {} tras {} intentos: {}", operacion, intento, e.getMessage());
+                    throw e;
+                }
+                meterRegistry.counter("assignments.optimistic.retries", "operation", operacion).increment();
+                log.debug("Conflicto de versión en {} (intento {}), se reintenta en {} ms", operacion, intento, espera);
+                esperar(espera);
+                espera = Math.min(espera * 2, esperaMaxima.toMillis());
+            }
+        }
+    }
+
+    public void ejecutar(String operacion, Runnable escritura) {
+        ejecutar(operacion, () -> {
+            escritura.run();
+            return null;
+        });
+    }
+
+    /**
+     * Espera entre la mitad y el total del tiempo indicado
+     */
+    private static void esperar(long milisegundos) {
+        if (milisegundos <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(milisegundos / 2, milisegundos + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido mientras se esperaba para reintentar la operación", e);
+        }
+    }
+}
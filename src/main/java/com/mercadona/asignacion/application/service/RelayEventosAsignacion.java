@@ -0,0 +1,123 @@
+package com.mercadona.asignacion.application.service;
+
+import com.mercadona.asignacion.application.port.CambioAsignacion;
+import com.mercadona.asignacion.application.port.CambiosAsignacionPublicados;
+import com.mercadona.asignacion.domain.EventoAsignacion;
+import com.mercadona.asignacion.infrastructure.repository.EventoAsignacionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Publica los eventos pendientes del outbox de asignaciones a los suscriptores de la aplicación
+ * ({@link CambiosAsignacionPublicados}) y los marca como publicados.
+ * <p>
+ * Cada lote se lee, se publica y se marca en una misma transacción, con las filas bloqueadas
+ * (SKIP LOCKED) para que dos instancias no publiquen el mismo lote. Si un suscriptor falla la
+ * transacción se deshace y el lote se vuelve a publicar en la siguiente pasada: la entrega es al
+ * menos una vez. Los lotes se leen por id, pero eso no garantiza el orden de entrega: los ids se
+ * reservan por bloques en cada instancia y un evento con id menor cuya transacción se confirme tarde
+ * se publica en una pasada posterior. Los eventos publicados se borran pasado el periodo de retención.
+ */
+@Component
+@ConditionalOnProperty(name = "asignaciones.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class RelayEventosAsignacion {
+
+    private static final Logger log = LoggerFactory.getLogger(RelayEventosAsignacion.class);
+
+    private final EventoAsignacionRepository eventoAsignacionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanoLote;
+    private final Duration retencion;
+
+    private final Counter publicados;
+    private final Counter lotes;
+    private final Counter fallos;
+    private final Timer retraso;
+
+    public RelayEventosAsignacion(EventoAsignacionRepository eventoAsignacionRepository,
+                                  ApplicationEventPublisher eventPublisher,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${asignaciones.outbox.relay.batch-size:200}") int tamanoLote,
+                                  @Value("${asignaciones.outbox.retention:7d}") Duration retencion,
+                                  MeterRegistry meterRegistry) {
+        this.eventoAsignacionRepository = eventoAsignacionRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanoLote = tamanoLote;
+        this.retencion = retencion;
+        this.publicados = meterRegistry.counter("assignments.outbox.published");
+        this.lotes = meterRegistry.counter("assignments.outbox.batches");
+        this.fallos = meterRegistry.counter("assignments.outbox.failures");
+        this.retraso = Timer.builder("assignments.outbox.lag")
+            .description("Tiempo desde que se escribe un evento hasta que se publica")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Publica lotes mientras vengan completos; devuelve el número de eventos publicados
+     */
+    @Scheduled(fixedDelayString = "${asignaciones.outbox.relay.interval:1000}")
+    public int publicarPendientes() {
+        int total = 0;
+        try {
+            List<EventoAsignacion> lote;
+            do {
+                lote = transactionTemplate.execute(status -> publicarLote());
+                registrarPublicados(lote);
+                total += lote.size();
+            } while (lote.size() == tamanoLote);
+        } catch (RuntimeException e) {
+            fallos.increment();
+            log.warn("No se pudo publicar un lote de eventos de asignaciones, se reintentará: {}", e.getMessage());
+        }
+        return total;
+    }
+
+    @Scheduled(fixedDelayString = "${asignaciones.outbox.purge-interval:3600000}")
+    public void purgarPublicados() {
+        int borrados = transactionTemplate.execute(status ->
+            eventoAsignacionRepository.deletePublicadosAntesDe(Instant.now().minus(retencion)));
+        if (borrados > 0) {
+            log.debug("Purgados {} eventos de asignaciones ya publicados", borrados);
+        }
+    }
+
+    private List<EventoAsignacion> publicarLote() {
+        List<EventoAsignacion> lote = eventoAsignacionRepository.findPendientes(PageRequest.of(0, tamanoLote));
+        if (lote.isEmpty()) {
+            return lote;
+        }
+
+        eventPublisher.publishEvent(new CambiosAsignacionPublicados(lote.stream().map(CambioAsignacion::de).toList()));
+
+        Instant ahora = Instant.now();
+        lote.forEach(evento -> evento.marcarPublicado(ahora));
+        return lote;
+    }
+
+    private void registrarPublicados(List<EventoAsignacion> lote) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        lote.forEach(evento -> retraso.record(Duration.between(evento.getCreadoEn(), evento.getPublicadoEn())));
+        lotes.increment();
+        publicados.increment(lote.size());
+    }
+}
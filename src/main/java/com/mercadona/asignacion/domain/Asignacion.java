@@ -10,7 +10,8 @@ import java.util.Objects;
 public class Asignacion {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "asignaciones_seq")
+    @SequenceGenerator(name = "asignaciones_seq", sequenceName = "asignaciones_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -24,6 +25,10 @@ public class Asignacion {
     @Column(name = "horas_asignadas", nullable = false)
     private int horasAsignadas;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     protected Asignacion() {
         // Constructor vacío requerido por JPA
     }
@@ -67,6 +72,16 @@ public class Asignacion {
         this.horasAsignadas = horasAsignadas;
     }
 
+    /**
+     * Cambia la sección de la asignación conservando sus horas
+     */
+    public void moverASeccion(Seccion seccion) {
+        if (seccion == null) {
+            throw new IllegalArgumentException("La sección no puede ser nula");
+        }
+        this.seccion = seccion;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,21 @@
+package com.mercadona.asignacion.domain;
+
+/**
+ * Alta de asignación rechazada por una regla de negocio, con su motivo estructurado.
+ * Hereda de IllegalArgumentException para que se trate como el resto de errores de negocio.
+ */
+public class AsignacionRechazadaException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final MotivoRechazoAsignacion motivo;
+
+    public AsignacionRechazadaException(MotivoRechazoAsignacion motivo, String mensaje) {
+        super(mensaje);
+        this.motivo = motivo;
+    }
+
+    public MotivoRechazoAsignacion getMotivo() {
+        return motivo;
+    }
+}
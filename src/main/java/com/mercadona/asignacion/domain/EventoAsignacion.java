@@ -0,0 +1,136 @@
+package com.mercadona.asignacion.domain;
+
+import com.mercadona.tienda.domain.Seccion;
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Cambio de una asignación pendiente de publicar (outbox transaccional). Se escribe en la misma
+ * transacción que el cambio y guarda solo las claves de negocio y las horas antes y después, de
+ * modo que se puede publicar aunque la asignación, el trabajador o la tienda ya no existan.
+ */
+@Entity
+@Table(name = "eventos_asignacion")
+public class EventoAsignacion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "eventos_asignacion_seq")
+    @SequenceGenerator(name = "eventos_asignacion_seq", sequenceName = "eventos_asignacion_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 20)
+    private TipoCambioAsignacion tipo;
+
+    @Column(name = "asignacion_id")
+    private Long idAsignacion;
+
+    @Column(name = "dni_trabajador", nullable = false, length = 9)
+    private String dniTrabajador;
+
+    @Column(name = "codigo_tienda", nullable = false, length = 50)
+    private String codigoTienda;
+
+    @Column(name = "nombre_seccion", nullable = false, length = 100)
+    private String nombreSeccion;
+
+    @Column(name = "horas_anteriores", nullable = false)
+    private int horasAnteriores;
+
+    @Column(name = "horas_nuevas", nullable = false)
+    private int horasNuevas;
+
+    @Column(name = "creado_en", nullable = false)
+    private Instant creadoEn;
+
+    @Column(name = "publicado_en")
+    private Instant publicadoEn;
+
+    protected EventoAsignacion() {
+        // Constructor vacío requerido por JPA
+    }
+
+    public EventoAsignacion(TipoCambioAsignacion tipo, Asignacion asignacion, int horasAnteriores, int horasNuevas) {
+        if (tipo == null) {
+            throw new IllegalArgumentException("El tipo de cambio no puede ser nulo");
+        }
+        if (asignacion == null) {
+            throw new IllegalArgumentException("La asignación no puede ser nula");
+        }
+        this.tipo = tipo;
+        this.idAsignacion = asignacion.getId();
+        this.dniTrabajador = asignacion.getTrabajador().getDni();
+        this.codigoTienda = asignacion.getTrabajador().getTienda().getCodigo();
+        this.nombreSeccion = asignacion.getSeccion().getNombre();
+        this.horasAnteriores = horasAnteriores;
+        this.horasNuevas = horasNuevas;
+        this.creadoEn = Instant.now();
+    }
+
+    public static EventoAsignacion alta(Asignacion asignacion) {
+        return new EventoAsignacion(TipoCambioAsignacion.CREADA, asignacion, 0, asignacion.getHorasAsignadas());
+    }
+
+    public static EventoAsignacion cambio(Asignacion asignacion, int horasAnteriores) {
+        return new EventoAsignacion(TipoCambioAsignacion.ACTUALIZADA, asignacion, horasAnteriores, asignacion.getHorasAsignadas());
+    }
+
+    public static EventoAsignacion baja(Asignacion asignacion) {
+        return new EventoAsignacion(TipoCambioAsignacion.ELIMINADA, asignacion, asignacion.getHorasAsignadas(), 0);
+    }
+
+    /**
+     * Un cambio de sección se publica como la baja en la sección anterior y el alta en la nueva,
+     * ambas con el id de la asignación, para que los consumidores no necesiten otro tipo de evento
+     */
+    public static List<EventoAsignacion> movimiento(Asignacion asignacion, Seccion seccionAnterior) {
+        EventoAsignacion baja = baja(asignacion);
+        baja.nombreSeccion = seccionAnterior.getNombre();
+        return List.of(baja, alta(asignacion));
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public TipoCambioAsignacion getTipo() {
+        return tipo;
+    }
+
+    public Long getIdAsignacion() {
+        return idAsignacion;
+    }
+
+    public String getDniTrabajador() {
+        return dniTrabajador;
+    }
+
+    public String getCodigoTienda() {
+        return codigoTienda;
+    }
+
+    public String getNombreSeccion() {
+        return nombreSeccion;
+    }
+
+    public int getHorasAnteriores() {
+        return horasAnteriores;
+    }
+
+    public int getHorasNuevas() {
+        return horasNuevas;
+    }
+
+    public Instant getCreadoEn() {
+        return creadoEn;
+    }
+
+    public Instant getPublicadoEn() {
+        return publicadoEn;
+    }
+
+    public void marcarPublicado(Instant publicadoEn) {
+        this.publicadoEn = publicadoEn;
+    }
+}
@@ -0,0 +1,74 @@
+package com.mercadona.asignacion.domain;
+
+import com.mercadona.tienda.domain.Seccion;
+import com.mercadona.tienda.domain.Tienda;
+import jakarta.persistence.*;
+
+/**
+ * Horas ya asignadas a una sección dentro de una tienda, mantenidas junto a cada alta,
+ * cambio o baja de asignación. El límite de horas necesarias de la sección se valida contra esta fila.
+ */
+@Entity
+@Table(name = "horas_seccion_tienda",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"tienda_id", "seccion_id"}))
+public class HorasSeccionTienda {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "horas_seccion_tienda_seq")
+    @SequenceGenerator(name = "horas_seccion_tienda_seq", sequenceName = "horas_seccion_tienda_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "tienda_id", nullable = false)
+    private Tienda tienda;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "seccion_id", nullable = false)
+    private Seccion seccion;
+
+    @Column(name = "horas_asignadas", nullable = false)
+    private int horasAsignadas;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    protected HorasSeccionTienda() {
+        // Constructor vacío requerido por JPA
+    }
+
+    public HorasSeccionTienda(Tienda tienda, Seccion seccion) {
+        if (tienda == null) {
+            throw new IllegalArgumentException("La tienda no puede ser nula");
+        }
+        if (seccion == null) {
+            throw new IllegalArgumentException("La sección no puede ser nula");
+        }
+        this.tienda = tienda;
+        this.seccion = seccion;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Tienda getTienda() {
+        return tienda;
+    }
+
+    public Seccion getSeccion() {
+        return seccion;
+    }
+
+    public int getHorasAsignadas() {
+        return horasAsignadas;
+    }
+
+    public void sumar(int horas) {
+        if (horasAsignadas + horas < 0) {
+            throw new IllegalStateException("Las horas asignadas a la sección " + seccion.getNombre()
+                + " de la tienda " + tienda.getCodigo() + " no pueden ser negativas");
+        }
+        this.horasAsignadas += horas;
+    }
+}
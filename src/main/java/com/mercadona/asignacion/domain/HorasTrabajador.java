@@ -0,0 +1,56 @@
+package com.mercadona.asignacion.domain;
+
+import com.mercadona.trabajador.domain.Trabajador;
+import jakarta.persistence.*;
+
+/**
+ * Horas ya asignadas a un trabajador en todas sus secciones. Se mantiene en la misma
+ * transacción que cada alta, cambio o baja de asignación para validar sin sumar su historial.
+ */
+@Entity
+@Table(name = "horas_trabajador")
+public class HorasTrabajador {
+
+    @Id
+    @Column(name = "trabajador_id")
+    private Long id;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "trabajador_id")
+    private Trabajador trabajador;
+
+    @Column(name = "horas_asignadas", nullable = false)
+    private int horasAsignadas;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    protected HorasTrabajador() {
+        // Constructor vacío requerido por JPA
+    }
+
+    public HorasTrabajador(Trabajador trabajador) {
+        if (trabajador == null) {
+            throw new IllegalArgumentException("El trabajador no puede ser nulo");
+        }
+        this.trabajador = trabajador;
+    }
+
+    public Trabajador getTrabajador() {
+        return trabajador;
+    }
+
+    public int getHorasAsignadas() {
+        return horasAsignadas;
+    }
+
+    public void sumar(int horas) {
+        if (horasAsignadas + horas < 0) {
+            throw new IllegalStateException("Las horas asignadas al trabajador " + trabajador.getDni()
+                + " no pueden ser negativas");
+        }
+        this.horasAsignadas += horas;
+    }
+}
@@ -0,0 +1,12 @@
+package com.mercadona.asignacion.domain;
+
+/**
+ * Motivo por el que se rechaza el alta de una asignación, en el orden en que se comprueban
+ */
+public enum MotivoRechazoAsignacion {
+    TRABAJADOR_NO_ENCONTRADO,
+    SECCION_NO_ENCONTRADA,
+    ASIGNACION_DUPLICADA,
+    HORAS_TRABAJADOR_EXCEDIDAS,
+    LIMITE_SECCION_EXCEDIDO
+}
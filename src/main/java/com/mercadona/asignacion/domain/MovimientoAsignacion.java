@@ -0,0 +1,9 @@
+package com.mercadona.asignacion.domain;
+
+import com.mercadona.tienda.domain.Seccion;
+
+/**
+ * Asignación que ya apunta a su nueva sección junto con la sección en la que estaba
+ */
+public record MovimientoAsignacion(Asignacion asignacion, Seccion seccionAnterior) {
+}
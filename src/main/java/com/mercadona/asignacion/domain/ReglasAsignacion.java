@@ -0,0 +1,96 @@
+package com.mercadona.asignacion.domain;
+
+import com.mercadona.tienda.domain.Seccion;
+import com.mercadona.trabajador.domain.Trabajador;
+
+/**
+ * Reglas de negocio de las asignaciones, independientes de cómo se obtengan las horas
+ * ya asignadas: el alta individual las consulta en base de datos y el alta en lote y la simulación
+ * las calculan en memoria. Todas lanzan los mismos mensajes, que también usa la inserción
+ * condicional cuando es la propia sentencia SQL la que rechaza el alta.
+ */
+public final class ReglasAsignacion {
+
+    public static final int HORAS_MINIMAS = 1;
+    public static final int HORAS_MAXIMAS = 8;
+
+    private ReglasAsignacion() {
+    }
+
+    public static void validarHoras(int horasAsignadas) {
+        if (horasAsignadas < HORAS_MINIMAS || horasAsignadas > HORAS_MAXIMAS) {
+            throw new IllegalArgumentException("Las horas asignadas deben estar entre 1 y 8");
+        }
+    }
+
+    public static void validarAsignacionUnica(boolean yaExiste, Trabajador trabajador, Seccion seccion) {
+        if (yaExiste) {
+            throw new IllegalArgumentException(mensajeAsignacionDuplicada(trabajador.getDni(), seccion.getNombre()));
+        }
+    }
+
+    public static void validarHorasDisponibles(Trabajador trabajador, int horasYaAsignadas, int horasAsignadas) {
+        int horasDisponibles = trabajador.getHorasDisponibles();
+
+        if (horasYaAsignadas + horasAsignadas > horasDisponibles) {
+            throw new IllegalArgumentException(
+                mensajeHorasDisponiblesExcedidas(horasDisponibles, horasYaAsignadas, horasAsignadas));
+        }
+    }
+
+    public static void validarLimiteSeccion(Seccion seccion, int horasYaAsignadas, int horasAsignadas) {
+        int horasNecesarias = seccion.getHorasNecesarias();
+
+        if (horasYaAsignadas + horasAsignadas > horasNecesarias) {
+            throw new IllegalArgumentException(
+                mensajeLimiteSeccionExcedido(seccion.getNombre(), horasNecesarias, horasYaAsignadas, horasAsignadas));
+        }
+    }
+
+    /**
+     * Cambio de horas de una asignación existente: solo se comprueban las horas del trabajador,
+     * descontando las que ya tenía la propia asignación
+     */
+    public static void validarCambioHoras(Trabajador trabajador, int horasOtrasAsignaciones, int nuevasHoras) {
+        int horasDisponibles = trabajador.getHorasDisponibles();
+
+        if (horasOtrasAsignaciones + nuevasHoras > horasDisponibles) {
+            throw new IllegalArgumentException(
+                "El trabajador no tiene suficientes horas disponibles. Disponibles: " + horasDisponibles +
+                ", ya asignadas: " + horasOtrasAsignaciones + ", solicitadas: " + nuevasHoras);
+        }
+    }
+
+    public static void validarSeccionesDistintas(Seccion origen, Seccion destino) {
+        if (origen.equals(destino)) {
+            throw new IllegalArgumentException("La sección de destino debe ser distinta de la de origen: " + origen.getNombre());
+        }
+    }
+
+    public static String mensajeTrabajadorNoEncontrado(String dni) {
+        return "No existe un trabajador con el DNI: " + dni;
+    }
+
+    public static String mensajeSeccionNoEncontrada(String nombre) {
+        return "No existe una sección con el nombre: " + nombre;
+    }
+
+    public static String mensajeAsignacionNoEncontrada(String dniTrabajador, String nombreSeccion) {
+        return "No existe una asignación para el trabajador " + dniTrabajador + " en la sección " + nombreSeccion;
+    }
+
+    public static String mensajeAsignacionDuplicada(String dniTrabajador, String nombreSeccion) {
+        return "Ya existe una asignación para el trabajador " + dniTrabajador + " en la sección " + nombreSeccion;
+    }
+
+    public static String mensajeHorasDisponiblesExcedidas(int horasDisponibles, int horasYaAsignadas, int horasAsignadas) {
+        return "El trabajador no puede exceder sus horas disponibles. Disponibles: " + horasDisponibles +
+            ", ya asignadas: " + horasYaAsignadas + ", intentando asignar: " + horasAsignadas;
+    }
+
+    public static String mensajeLimiteSeccionExcedido(String nombreSeccion, int horasNecesarias,
+                                                      int horasYaAsignadas, int horasAsignadas) {
+        return "La sección no puede exceder sus horas necesarias. Sección: " + nombreSeccion +
+            ", límite: " + horasNecesarias + ", ya asignadas: " + horasYaAsignadas + ", intentando asignar: " + horasAsignadas;
+    }
+}
@@ -0,0 +1,7 @@
+package com.mercadona.asignacion.domain;
+
+public enum TipoCambioAsignacion {
+    CREADA,
+    ACTUALIZADA,
+    ELIMINADA
+}
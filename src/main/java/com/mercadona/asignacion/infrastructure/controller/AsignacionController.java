@@ -1,12 +1,18 @@
 package com.mercadona.asignacion.infrastructure.controller;
 
 import com.mercadona.asignacion.application.port.AsignacionService;
+import com.mercadona.asignacion.application.port.ResultadoLoteAsignaciones;
+import com.mercadona.asignacion.application.port.SolicitudAsignacion;
 import com.mercadona.asignacion.domain.Asignacion;
 import com.mercadona.asignacion.infrastructure.controller.dto.ActualizarHorasDto;
 import com.mercadona.asignacion.infrastructure.controller.dto.AsignacionDto;
 import com.mercadona.asignacion.infrastructure.controller.dto.AsignacionResponseDto;
 import com.mercadona.asignacion.infrastructure.controller.dto.HorasSeccionDto;
 import com.mercadona.asignacion.infrastructure.controller.dto.HorasTiendaDto;
+import com.mercadona.asignacion.infrastructure.controller.dto.IntercambioAsignacionesDto;
+import com.mercadona.asignacion.infrastructure.controller.dto.LoteAsignacionesDto;
+import com.mercadona.asignacion.infrastructure.controller.dto.MoverAsignacionDto;
+import com.mercadona.asignacion.infrastructure.controller.dto.ResultadoLoteAsignacionesDto;
 import com.mercadona.shared.infrastructure.controller.dto.EliminacionResponseDto;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
@@ -44,6 +50,40 @@ public class AsignacionController {
         return ResponseEntity.status(HttpStatus.CREATED).body(respuesta);
     }
 
+    /**
+     * Alta en lote: 201 si se crean todas, 207 si alguna se rechaza (cada resultado indica su error)
+     */
+    @PostMapping("/lote")
+    public ResponseEntity<ResultadoLoteAsignacionesDto> crearAsignacionesEnLote(@Valid @RequestBody LoteAsignacionesDto loteDto) {
+        List<SolicitudAsignacion> solicitudes = loteDto.asignaciones().stream()
+            .map(dto -> dto == null
+                ? new SolicitudAsignacion(null, null, 0)
+                : new SolicitudAsignacion(dto.dniTrabajador(), dto.nombreSeccion(),
+                    dto.horasAsignadas() != null ? dto.horasAsignadas() : 0))
+            .toList();
+
+        ResultadoLoteAsignaciones resultado = asignacionService.crearAsignacionesEnLote(solicitudes);
+
+        List<ResultadoLoteAsignacionesDto.ResultadoAsignacionDto> resultadosDto = resultado.resultados().stream()
+            .map(item -> new ResultadoLoteAsignacionesDto.ResultadoAsignacionDto(
+                item.indice(),
+                item.creada(),
+                item.creada() ? new AsignacionResponseDto(
+                    item.asignacion().getTrabajador().getDni(),
+                    item.asignacion().getTrabajador().getNombre(),
+                    item.asignacion().getSeccion().getNombre(),
+                    item.asignacion().getHorasAsignadas(),
+                    item.asignacion().getTrabajador().getTienda().getCodigo()
+                ) : null,
+                item.error()
+            ))
+            .toList();
+
+        HttpStatus estado = resultado.rechazadas() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return ResponseEntity.status(estado)
+            .body(new ResultadoLoteAsignacionesDto(resultado.creadas(), resultado.rechazadas(), resultadosDto));
+    }
+
     @GetMapping("/trabajador/{dni}")
     public ResponseEntity<List<AsignacionResponseDto>> buscarAsignacionesPorTrabajador(@PathVariable String dni) {
         List<Asignacion> asignaciones = asignacionService.buscarAsignacionesPorTrabajador(dni);
@@ -115,6 +155,53 @@ public class AsignacionController {
         return ResponseEntity.ok(responseDto);
     }
 
+    /**
+     * Pasa la asignación a otra sección con las mismas horas, sin dejarlas libres entre medias
+     */
+    @PutMapping("/trabajador/{dni}/seccion/{nombreSeccion}/mover")
+    public ResponseEntity<AsignacionResponseDto> moverAsignacion(
+            @PathVariable String dni,
+            @PathVariable String nombreSeccion,
+            @Valid @RequestBody MoverAsignacionDto moverAsignacionDto) {
+
+        Asignacion asignacionMovida = asignacionService.moverAsignacion(
+            dni, nombreSeccion, moverAsignacionDto.seccionDestino());
+
+        AsignacionResponseDto responseDto = new AsignacionResponseDto(
+            asignacionMovida.getTrabajador().getDni(),
+            asignacionMovida.getTrabajador().getNombre(),
+            asignacionMovida.getSeccion().getNombre(),
+            asignacionMovida.getHorasAsignadas(),
+            asignacionMovida.getTrabajador().getTienda().getCodigo()
+        );
+
+        return ResponseEntity.ok(responseDto);
+    }
+
+    /**
+     * Intercambia las secciones de dos asignaciones en una única transacción
+     */
+    @PostMapping("/intercambio")
+    public ResponseEntity<List<AsignacionResponseDto>> intercambiarAsignaciones(
+            @Valid @RequestBody IntercambioAsignacionesDto intercambioDto) {
+
+        List<Asignacion> intercambiadas = asignacionService.intercambiarAsignaciones(
+            intercambioDto.primera().dniTrabajador(), intercambioDto.primera().nombreSeccion(),
+            intercambioDto.segunda().dniTrabajador(), intercambioDto.segunda().nombreSeccion());
+
+        List<AsignacionResponseDto> asignacionesDto = intercambiadas.stream()
+                .map(asignacion -> new AsignacionResponseDto(
+                    asignacion.getTrabajador().getDni(),
+                    asignacion.getTrabajador().getNombre(),
+                    asignacion.getSeccion().getNombre(),
+                    asignacion.getHorasAsignadas(),
+                    asignacion.getTrabajador().getTienda().getCodigo()
+                ))
+                .toList();
+
+        return ResponseEntity.ok(asignacionesDto);
+    }
+
     @DeleteMapping("/trabajador/{dni}/seccion/{nombreSeccion}")
     public ResponseEntity<EliminacionResponseDto> eliminarAsignacion(@PathVariable String dni, @PathVariable String nombreSeccion) {
         asignacionService.eliminarAsignacion(dni, nombreSeccion);
@@ -0,0 +1,28 @@
+package com.mercadona.asignacion.infrastructure.controller.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Cada asignación pasa a la sección de la otra conservando sus horas
+ */
+public record IntercambioAsignacionesDto(
+    @NotNull(message = "La primera asignación es obligatoria")
+    @Valid
+    ClaveAsignacionDto primera,
+
+    @NotNull(message = "La segunda asignación es obligatoria")
+    @Valid
+    ClaveAsignacionDto segunda
+) {
+
+    public record ClaveAsignacionDto(
+        @NotBlank(message = "El DNI del trabajador es obligatorio")
+        String dniTrabajador,
+
+        @NotBlank(message = "El nombre de la sección es obligatorio")
+        String nombreSeccion
+    ) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.mercadona.asignacion.infrastructure.controller.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Los elementos no se validan con Bean Validation para que un elemento incorrecto
+ * se rechace individualmente en lugar de invalidar todo el lote.
+ */
+public record LoteAsignacionesDto(
+    @NotEmpty(message = "El lote debe contener al menos una asignación")
+    @Size(max = 500, message = "El lote no puede superar 500 asignaciones")
+    List<AsignacionDto> asignaciones
+) {
+}
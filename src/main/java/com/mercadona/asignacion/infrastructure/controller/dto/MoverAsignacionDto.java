@@ -0,0 +1,8 @@
+package com.mercadona.asignacion.infrastructure.controller.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record MoverAsignacionDto(
+        @NotBlank(message = "El nombre de la sección de destino es obligatorio")
+        String seccionDestino
+) {}
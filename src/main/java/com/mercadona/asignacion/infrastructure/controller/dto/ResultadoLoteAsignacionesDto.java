@@ -0,0 +1,18 @@
+package com.mercadona.asignacion.infrastructure.controller.dto;
+
+import java.util.List;
+
+public record ResultadoLoteAsignacionesDto(
+    long creadas,
+    long rechazadas,
+    List<ResultadoAsignacionDto> resultados
+) {
+
+    public record ResultadoAsignacionDto(
+        int indice,
+        boolean creada,
+        AsignacionResponseDto asignacion,
+        String error
+    ) {
+    }
+}
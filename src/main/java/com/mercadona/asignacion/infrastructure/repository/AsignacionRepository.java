@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +24,18 @@ public interface AsignacionRepository extends JpaRepository<Asignacion, Long>, J
 
     boolean existsByTrabajadorAndSeccion(Trabajador trabajador, Seccion seccion);
 
+    @Query("SELECT a FROM Asignacion a JOIN FETCH a.trabajador t JOIN FETCH t.tienda JOIN FETCH a.seccion WHERE a.id = :id")
+    Optional<Asignacion> findConDetallesById(@Param("id") Long id);
+
+    @Query("SELECT a FROM Asignacion a JOIN FETCH a.trabajador t JOIN FETCH t.tienda JOIN FETCH a.seccion WHERE a.trabajador = :trabajador AND a.seccion = :seccion")
+    Optional<Asignacion> findConDetallesByTrabajadorAndSeccion(@Param("trabajador") Trabajador trabajador, @Param("seccion") Seccion seccion);
+
+    @Query("SELECT a FROM Asignacion a JOIN FETCH a.trabajador t JOIN FETCH t.tienda JOIN FETCH a.seccion WHERE t.tienda.id = :tiendaId")
+    List<Asignacion> findConDetallesByTiendaId(@Param("tiendaId") Long tiendaId);
+
+    @Query("SELECT a FROM Asignacion a JOIN FETCH a.trabajador t JOIN FETCH t.tienda JOIN FETCH a.seccion WHERE t.tienda.id IN :tiendaIds")
+    List<Asignacion> findConDetallesByTiendaIdIn(@Param("tiendaIds") Collection<Long> tiendaIds);
+
     @Query("SELECT a FROM Asignacion a WHERE a.trabajador.tienda.codigo = :codigoTienda")
     List<Asignacion> findByCodigoTienda(@Param("codigoTienda") String codigoTienda);
 
@@ -38,6 +51,10 @@ public interface AsignacionRepository extends JpaRepository<Asignacion, Long>, J
     @Query("SELECT SUM(a.horasAsignadas) FROM Asignacion a WHERE a.seccion = :seccion")
     Integer sumHorasAsignadasBySeccion(@Param("seccion") Seccion seccion);
 
+    @Query("SELECT a.trabajador.dni AS dniTrabajador, a.seccion.nombre AS nombreSeccion, SUM(a.horasAsignadas) AS horas " +
+           "FROM Asignacion a WHERE a.trabajador IN :trabajadores GROUP BY a.trabajador.dni, a.seccion.nombre")
+    List<HorasAsignadasAgregadas> sumHorasAsignadasPorTrabajadorYSeccion(@Param("trabajadores") Collection<Trabajador> trabajadores);
+
     @Query("SELECT COUNT(a) FROM Asignacion a WHERE a.trabajador = :trabajador")
     Long countByTrabajador(@Param("trabajador") Trabajador trabajador);
 
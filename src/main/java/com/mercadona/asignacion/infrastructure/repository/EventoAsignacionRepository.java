@@ -0,0 +1,33 @@
+package com.mercadona.asignacion.infrastructure.repository;
+
+import com.mercadona.asignacion.domain.EventoAsignacion;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface EventoAsignacionRepository extends JpaRepository<EventoAsignacion, Long> {
+
+    /**
+     * Eventos pendientes de menor id, bloqueados para esta transacción. Los que ya tiene bloqueados
+     * otra instancia se saltan (SKIP LOCKED) en lugar de esperar.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EventoAsignacion e WHERE e.publicadoEn IS NULL ORDER BY e.id")
+    List<EventoAsignacion> findPendientes(Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM EventoAsignacion e WHERE e.publicadoEn < :limite")
+    int deletePublicadosAntesDe(@Param("limite") Instant limite);
+}
@@ -0,0 +1,13 @@
+package com.mercadona.asignacion.infrastructure.repository;
+
+/**
+ * Proyección de las sumas de horas asignadas agrupadas por trabajador y sección.
+ */
+public interface HorasAsignadasAgregadas {
+
+    String getDniTrabajador();
+
+    String getNombreSeccion();
+
+    Long getHoras();
+}
@@ -0,0 +1,26 @@
+package com.mercadona.asignacion.infrastructure.repository;
+
+import com.mercadona.asignacion.domain.HorasSeccionTienda;
+import com.mercadona.tienda.domain.Seccion;
+import com.mercadona.tienda.domain.Tienda;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface HorasSeccionTiendaRepository extends JpaRepository<HorasSeccionTienda, Long> {
+
+    Optional<HorasSeccionTienda> findByTiendaAndSeccion(Tienda tienda, Seccion seccion);
+
+    @Query("SELECT h FROM HorasSeccionTienda h JOIN FETCH h.tienda JOIN FETCH h.seccion " +
+           "WHERE h.tienda IN :tiendas AND h.seccion IN :secciones")
+    List<HorasSeccionTienda> findByTiendaInAndSeccionIn(@Param("tiendas") Collection<Tienda> tiendas,
+                                                        @Param("secciones") Collection<Seccion> secciones);
+
+    void deleteByTiendaId(Long tiendaId);
+}
@@ -0,0 +1,25 @@
+package com.mercadona.asignacion.infrastructure.repository;
+
+import com.mercadona.asignacion.domain.HorasTrabajador;
+import com.mercadona.trabajador.domain.Trabajador;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface HorasTrabajadorRepository extends JpaRepository<HorasTrabajador, Long> {
+
+    Optional<HorasTrabajador> findByTrabajador(Trabajador trabajador);
+
+    @Query("SELECT h FROM HorasTrabajador h JOIN FETCH h.trabajador WHERE h.trabajador IN :trabajadores")
+    List<HorasTrabajador> findByTrabajadorIn(@Param("trabajadores") Collection<Trabajador> trabajadores);
+
+    void deleteByTrabajador(Trabajador trabajador);
+
+    void deleteByTrabajadorTiendaId(Long tiendaId);
+}
@@ -0,0 +1,236 @@
+package com.mercadona.asignacion.infrastructure.repository;
+
+import com.mercadona.asignacion.domain.MotivoRechazoAsignacion;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * Alta de una asignación en una única sentencia SQL condicional: resuelve trabajador y sección
+ * por DNI y nombre, comprueba que no exista la asignación, las horas del trabajador y el límite
+ * de la sección en su tienda contra las horas registradas (horas_trabajador y horas_seccion_tienda),
+ * inserta la asignación y actualiza esas horas.
+ * <p>
+ * En PostgreSQL es un único WITH con inserciones encadenadas; las filas de horas se bloquean con
+ * FOR UPDATE, de modo que dos altas simultáneas para el mismo trabajador o sección se evalúan una
+ * detrás de otra. Como FOR UPDATE solo bloquea filas que ya existen, {@link #prepararHoras} las crea
+ * antes a cero si faltan. H2 no admite inserciones dentro de un WITH, así que la variante
+ * portable hace un INSERT ... SELECT condicional seguido de los MERGE de las horas registradas y,
+ * solo si se rechaza, una consulta para averiguar el motivo. Como en H2 las tablas las crea Hibernate,
+ * sin valor por defecto para el id, esta variante lo toma explícitamente de la secuencia.
+ * <p>
+ * Las horas registradas que modifica incrementan su versión, de modo que una actualización JPA que
+ * las hubiera leído antes falla por bloqueo optimista y se reintenta.
+ * <p>
+ * Debe ejecutarse dentro de la transacción del servicio.
+ */
+@Repository
+public class InsercionCondicionalAsignacion {
+
+    private static final String SENTENCIA_POSTGRESQL = """
+        WITH trabajador AS (
+            SELECT id, tienda_id, horas_disponibles FROM trabajadores WHERE dni = :dni
+        ), seccion AS (
+            SELECT id, horas_necesarias FROM secciones WHERE nombre = :seccion
+        ), horas_trabajador_actual AS (
+            SELECT h.horas_asignadas FROM horas_trabajador h
+            JOIN trabajador t ON h.trabajador_id = t.id
+            FOR UPDATE OF h
+        ), horas_seccion_actual AS (
+            SELECT h.horas_asignadas FROM horas_seccion_tienda h
+            JOIN trabajador t ON h.tienda_id = t.tienda_id
+            JOIN seccion s ON h.seccion_id = s.id
+            FOR UPDATE OF h
+        ), estado AS (
+            SELECT CASE
+                       WHEN NOT EXISTS (SELECT 1 FROM trabajador) THEN 'TRABAJADOR_NO_ENCONTRADO'
+                       WHEN NOT EXISTS (SELECT 1 FROM seccion) THEN 'SECCION_NO_ENCONTRADA'
+                       WHEN EXISTS (SELECT 1 FROM asignaciones a
+                                    JOIN trabajador t ON a.trabajador_id = t.id
+                                    JOIN seccion s ON a.seccion_id = s.id) THEN 'ASIGNACION_DUPLICADA'
+                       WHEN ht.horas + :horas > (SELECT horas_disponibles FROM trabajador) THEN 'HORAS_TRABAJADOR_EXCEDIDAS'
+                       WHEN hs.horas + :horas > (SELECT horas_necesarias FROM seccion) THEN 'LIMITE_SECCION_EXCEDIDO'
+                   END AS motivo,
+                   ht.horas AS horas_trabajador,
+                   hs.horas AS horas_seccion
+            FROM (SELECT COALESCE(SUM(horas_asignadas), 0) AS horas FROM horas_trabajador_actual) ht,
+                 (SELECT COALESCE(SUM(horas_asignadas), 0) AS horas FROM horas_seccion_actual) hs
+        ), nueva AS (
+            INSERT INTO asignaciones (trabajador_id, seccion_id, horas_asignadas, version)
+            SELECT t.id, s.id, :horas, 0 FROM trabajador t, seccion s, estado e
+            WHERE e.motivo IS NULL
+            ON CONFLICT (trabajador_id, seccion_id) DO NOTHING
+            RETURNING id, trabajador_id, seccion_id
+        ), libro_trabajador AS (
+            INSERT INTO horas_trabajador (trabajador_id, horas_asignadas, version)
+            SELECT n.trabajador_id, :horas, 0 FROM nueva n
+            ON CONFLICT (trabajador_id)
+            DO UPDATE SET horas_asignadas = horas_trabajador.horas_asignadas + EXCLUDED.horas_asignadas,
+                          version = horas_trabajador.version + 1
+        ), libro_seccion AS (
+            INSERT INTO horas_seccion_tienda (tienda_id, seccion_id, horas_asignadas, version)
+            SELECT t.tienda_id, n.seccion_id, :horas, 0 FROM nueva n, trabajador t
+            ON CONFLICT (tienda_id, seccion_id)
+            DO UPDATE SET horas_asignadas = horas_seccion_tienda.horas_asignadas + EXCLUDED.horas_asignadas,
+                          version = horas_seccion_tienda.version + 1
+        )
+        SELECT (SELECT id FROM nueva) AS id_asignacion,
+               e.motivo,
+               (SELECT horas_disponibles FROM trabajador) AS horas_disponibles,
+               e.horas_trabajador,
+               (SELECT horas_necesarias FROM seccion) AS horas_necesarias,
+               e.horas_seccion
+        FROM estado e
+        """;
+
+    private static final String PREPARAR_HORAS_POSTGRESQL = """
+        WITH trabajador AS (
+            SELECT id, tienda_id FROM trabajadores WHERE dni = :dni
+        ), libro_trabajador AS (
+            INSERT INTO horas_trabajador (trabajador_id, horas_asignadas, version)
+            SELECT id, 0, 0 FROM trabajador
+            ON CONFLICT (trabajador_id) DO NOTHING
+        ), libro_seccion AS (
+            INSERT INTO horas_seccion_tienda (tienda_id, seccion_id, horas_asignadas, version)
+            SELECT t.tienda_id, s.id, 0, 0 FROM trabajador t, secciones s WHERE s.nombre = :seccion
+            ON CONFLICT (tienda_id, seccion_id) DO NOTHING
+        )
+        SELECT tienda_id FROM trabajador
+        """;
+
+    private static final String TIENDA_TRABAJADOR_PORTABLE = """
+        SELECT tienda_id FROM trabajadores WHERE dni = :dni
+        """;
+
+    private static final String INSERCION_PORTABLE = """
+        INSERT INTO asignaciones (id, trabajador_id, seccion_id, horas_asignadas, version)
+        SELECT NEXT VALUE FOR asignaciones_seq, t.id, s.id, :horas, 0
+        FROM trabajadores t, secciones s
+        WHERE t.dni = :dni AND s.nombre = :seccion
+          AND NOT EXISTS (SELECT 1 FROM asignaciones a WHERE a.trabajador_id = t.id AND a.seccion_id = s.id)
+          AND COALESCE((SELECT h.horas_asignadas FROM horas_trabajador h WHERE h.trabajador_id = t.id), 0) + :horas
+              <= t.horas_disponibles
+          AND COALESCE((SELECT h.horas_asignadas FROM horas_seccion_tienda h
+                        WHERE h.tienda_id = t.tienda_id AND h.seccion_id = s.id), 0) + :horas
+              <= s.horas_necesarias
+        """;
+
+    private static final String SUMAR_HORAS_TRABAJADOR_PORTABLE = """
+        MERGE INTO horas_trabajador h
+        USING (SELECT id FROM trabajadores WHERE dni = :dni) t ON h.trabajador_id = t.id
+        WHEN MATCHED THEN UPDATE SET horas_asignadas = h.horas_asignadas + :horas, version = h.version + 1
+        WHEN NOT MATCHED THEN INSERT (trabajador_id, horas_asignadas, version) VALUES (t.id, :horas, 0)
+        """;
+
+    private static final String SUMAR_HORAS_SECCION_PORTABLE = """
+        MERGE INTO horas_seccion_tienda h
+        USING (SELECT t.tienda_id, s.id AS seccion_id FROM trabajadores t, secciones s
+               WHERE t.dni = :dni AND s.nombre = :seccion) n
+        ON h.tienda_id = n.tienda_id AND h.seccion_id = n.seccion_id
+        WHEN MATCHED THEN UPDATE SET horas_asignadas = h.horas_asignadas + :horas, version = h.version + 1
+        WHEN NOT MATCHED THEN INSERT (id, tienda_id, seccion_id, horas_asignadas, version)
+            VALUES (NEXT VALUE FOR horas_seccion_tienda_seq, n.tienda_id, n.seccion_id, :horas, 0)
+        """;
+
+    private static final String MOTIVO_RECHAZO_PORTABLE = """
+        SELECT CAST(NULL AS BIGINT) AS id_asignacion,
+               CASE
+                   WHEN x.trabajador_id IS NULL THEN 'TRABAJADOR_NO_ENCONTRADO'
+                   WHEN x.seccion_id IS NULL THEN 'SECCION_NO_ENCONTRADA'
+                   WHEN x.asignaciones > 0 THEN 'ASIGNACION_DUPLICADA'
+                   WHEN x.horas_trabajador + :horas > x.horas_disponibles THEN 'HORAS_TRABAJADOR_EXCEDIDAS'
+                   WHEN x.horas_seccion + :horas > x.horas_necesarias THEN 'LIMITE_SECCION_EXCEDIDO'
+               END AS motivo,
+               x.horas_disponibles, x.horas_trabajador, x.horas_necesarias, x.horas_seccion
+        FROM (
+            SELECT t.id AS trabajador_id, s.id AS seccion_id, t.horas_disponibles, s.horas_necesarias,
+                   (SELECT COUNT(*) FROM asignaciones a WHERE a.trabajador_id = t.id AND a.seccion_id = s.id) AS asignaciones,
+                   COALESCE((SELECT h.horas_asignadas FROM horas_trabajador h WHERE h.trabajador_id = t.id), 0) AS horas_trabajador,
+                   COALESCE((SELECT h.horas_asignadas FROM horas_seccion_tienda h
+                             WHERE h.tienda_id = t.tienda_id AND h.seccion_id = s.id), 0) AS horas_seccion
+            FROM (SELECT 1 AS fila) u
+            LEFT JOIN trabajadores t ON t.dni = :dni
+            LEFT JOIN secciones s ON s.nombre = :seccion
+        ) x
+        """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final boolean postgresql;
+
+    public InsercionCondicionalAsignacion(NamedParameterJdbcTemplate jdbcTemplate, DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.postgresql = "PostgreSQL".equals(nombreBaseDeDatos(dataSource));
+    }
+
+    /**
+     * Deja creadas (a cero) las filas de horas registradas del trabajador y de la sección en su tienda
+     * y devuelve esa tienda, o vacío si el trabajador no existe. Debe llamarse en la misma transacción
+     * que {@link #insertar}.
+     */
+    public Optional<Long> prepararHoras(String dniTrabajador, String nombreSeccion) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+            .addValue("dni", dniTrabajador)
+            .addValue("seccion", nombreSeccion);
+
+        String sentencia = postgresql ? PREPARAR_HORAS_POSTGRESQL : TIENDA_TRABAJADOR_PORTABLE;
+        return jdbcTemplate.queryForList(sentencia, parametros, Long.class).stream().findFirst();
+    }
+
+    public ResultadoInsercionAsignacion insertar(String dniTrabajador, String nombreSeccion, int horasAsignadas) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+            .addValue("dni", dniTrabajador)
+            .addValue("seccion", nombreSeccion)
+            .addValue("horas", horasAsignadas);
+
+        return postgresql ? insertarEnPostgresql(parametros) : insertarPortable(parametros);
+    }
+
+    private ResultadoInsercionAsignacion insertarEnPostgresql(MapSqlParameterSource parametros) {
+        return jdbcTemplate.queryForObject(SENTENCIA_POSTGRESQL, parametros, InsercionCondicionalAsignacion::mapearResultado);
+    }
+
+    private ResultadoInsercionAsignacion insertarPortable(MapSqlParameterSource parametros) {
+        KeyHolder claves = new GeneratedKeyHolder();
+        if (jdbcTemplate.update(INSERCION_PORTABLE, parametros, claves, new String[] {"id"}) == 0) {
+            return jdbcTemplate.queryForObject(MOTIVO_RECHAZO_PORTABLE, parametros, InsercionCondicionalAsignacion::mapearResultado);
+        }
+        jdbcTemplate.update(SUMAR_HORAS_TRABAJADOR_PORTABLE, parametros);
+        jdbcTemplate.update(SUMAR_HORAS_SECCION_PORTABLE, parametros);
+        return ResultadoInsercionAsignacion.creada(claves.getKey().longValue());
+    }
+
+    private static ResultadoInsercionAsignacion mapearResultado(ResultSet rs, int fila) throws SQLException {
+        long idAsignacion = rs.getLong("id_asignacion");
+        if (!rs.wasNull()) {
+            return ResultadoInsercionAsignacion.creada(idAsignacion);
+        }
+        String motivo = rs.getString("motivo");
+        return new ResultadoInsercionAsignacion(
+            null,
+            // Sin motivo ni fila insertada: otra transacción creó la misma asignación a la vez (ON CONFLICT)
+            motivo != null ? MotivoRechazoAsignacion.valueOf(motivo) : MotivoRechazoAsignacion.ASIGNACION_DUPLICADA,
+            rs.getInt("horas_disponibles"),
+            rs.getInt("horas_trabajador"),
+            rs.getInt("horas_necesarias"),
+            rs.getInt("horas_seccion")
+        );
+    }
+
+    private static String nombreBaseDeDatos(DataSource dataSource) {
+        try {
+            return JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("No se pudo determinar la base de datos de las asignaciones", e);
+        }
+    }
+}
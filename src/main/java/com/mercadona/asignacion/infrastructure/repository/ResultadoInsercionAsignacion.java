@@ -0,0 +1,25 @@
+package com.mercadona.asignacion.infrastructure.repository;
+
+import com.mercadona.asignacion.domain.MotivoRechazoAsignacion;
+
+/**
+ * Resultado de la inserción condicional: el id de la asignación creada o el motivo del rechazo,
+ * junto a las horas que se compararon para poder explicarlo.
+ */
+public record ResultadoInsercionAsignacion(
+    Long idAsignacion,
+    MotivoRechazoAsignacion motivo,
+    int horasDisponibles,
+    int horasTrabajador,
+    int horasNecesarias,
+    int horasSeccion
+) {
+
+    public static ResultadoInsercionAsignacion creada(long idAsignacion) {
+        return new ResultadoInsercionAsignacion(idAsignacion, null, 0, 0, 0, 0);
+    }
+
+    public boolean creada() {
+        return motivo == null;
+    }
+}
@@ -0,0 +1,76 @@
+package com.mercadona.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Pool dedicado a la integración con la API externa de tiendas,
+     * separado de los hilos de Tomcat para que un upstream lento no los bloquee
+     */
+    @Bean(name = "externalStoresExecutor")
+    public ThreadPoolTaskExecutor externalStoresExecutor(
+            @Value("${external.stores.executor.pool-size:4}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("external-stores-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool para las páginas que se descargan en paralelo durante el rastreo del directorio.
+     * Su tamaño es el número máximo de peticiones de página en vuelo contra el upstream. La cola
+     * está acotada: con ella llena la página la descarga el propio hilo que rastrea, lo que frena el
+     * encolado en lugar de acumular una tarea por cada página del directorio
+     */
+    @Bean(name = "externalStoresPageExecutor")
+    public ThreadPoolTaskExecutor externalStoresPageExecutor(
+            @Value("${external.stores.crawler.max-concurrent-pages:4}") int maxPaginasConcurrentes) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxPaginasConcurrentes);
+        executor.setMaxPoolSize(maxPaginasConcurrentes);
+        executor.setQueueCapacity(maxPaginasConcurrentes);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("external-stores-page-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Hilo que coordina la planificación de toda la cadena: carga por lotes de tiendas, reparte el
+     * cálculo en planificacionPool y confirma las propuestas. Solo hay una ejecución a la vez
+     */
+    @Bean(name = "planificacionCadenaExecutor")
+    public ThreadPoolTaskExecutor planificacionCadenaExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("planificacion-cadena-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool de cálculo de las propuestas de cobertura por tienda. Es CPU pura sobre datos ya
+     * cargados, así que por defecto usa un hilo por procesador
+     */
+    @Bean(name = "planificacionPool", destroyMethod = "shutdown")
+    public ForkJoinPool planificacionPool(
+            @Value("${planificacion.cadena.paralelismo:0}") int paralelismo) {
+        return new ForkJoinPool(paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors());
+    }
+}
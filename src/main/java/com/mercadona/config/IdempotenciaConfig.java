@@ -0,0 +1,29 @@
+package com.mercadona.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mercadona.shared.infrastructure.idempotencia.AlmacenRespuestasIdempotentes;
+import com.mercadona.shared.infrastructure.idempotencia.FiltroIdempotencia;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IdempotenciaConfig {
+
+    /**
+     * Idempotency-Key solo en los POST de alta de asignaciones y trabajadores, los que los
+     * clientes móviles reintentan ante cortes de red, y en el intercambio, que repetido se deshace
+     */
+    @Bean
+    public FilterRegistrationBean<FiltroIdempotencia> filtroIdempotencia(AlmacenRespuestasIdempotentes almacen,
+                                                                         ObjectMapper objectMapper,
+                                                                         MeterRegistry meterRegistry) {
+        FilterRegistrationBean<FiltroIdempotencia> registro =
+            new FilterRegistrationBean<>(new FiltroIdempotencia(almacen, objectMapper, meterRegistry));
+        registro.addUrlPatterns("/api/asignaciones", "/api/asignaciones/lote", "/api/asignaciones/intercambio",
+            "/api/trabajadores");
+        registro.setName("filtroIdempotencia");
+        return registro;
+    }
+}
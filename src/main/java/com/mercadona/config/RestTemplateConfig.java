@@ -1,14 +1,81 @@
 package com.mercadona.config;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 @Configuration
 public class RestTemplateConfig {
 
+    /**
+     * Pool de conexiones keep-alive hacia la API externa. Los timeouts de conexión y lectura
+     * salen de configuración para que un upstream lento no retenga hilos indefinidamente
+     */
+    @Bean
+    public PoolingHttpClientConnectionManager externalStoresConnectionManager(
+            @Value("${external.stores.pool.max-total:20}") int maxTotal,
+            @Value("${external.stores.pool.max-per-route:10}") int maxPorRuta,
+            @Value("${external.stores.connect-timeout:${external.stores.timeout}}") long connectTimeoutMs,
+            @Value("${external.stores.timeout}") long readTimeoutMs,
+            @Value("${external.stores.pool.time-to-live:5m}") Duration tiempoDeVida) {
+        ConnectionConfig connectionConfig = ConnectionConfig.custom()
+            .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+            .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+            .setTimeToLive(TimeValue.ofMilliseconds(tiempoDeVida.toMillis()))
+            .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+            .build();
+
+        return PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxTotal)
+            .setMaxConnPerRoute(maxPorRuta)
+            .setDefaultConnectionConfig(connectionConfig)
+            .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient externalStoresHttpClient(
+            PoolingHttpClientConnectionManager externalStoresConnectionManager,
+            @Value("${external.stores.timeout}") long readTimeoutMs,
+            @Value("${external.stores.pool.acquire-timeout:1000}") long adquisicionTimeoutMs,
+            @Value("${external.stores.pool.idle-eviction:30s}") Duration inactividadMaxima) {
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectionRequestTimeout(Timeout.ofMilliseconds(adquisicionTimeoutMs))
+            .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+            .build();
+
+        return HttpClients.custom()
+            .setConnectionManager(externalStoresConnectionManager)
+            .setDefaultRequestConfig(requestConfig)
+            .evictExpiredConnections()
+            .evictIdleConnections(TimeValue.ofMilliseconds(inactividadMaxima.toMillis()))
+            .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(CloseableHttpClient externalStoresHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(externalStoresHttpClient));
+    }
+
+    /**
+     * Expone la ocupación del pool (conexiones disponibles, prestadas y pendientes)
+     * en /actuator/metrics bajo httpcomponents.httpclient.pool.*
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public MeterBinder externalStoresPoolMetrics(PoolingHttpClientConnectionManager externalStoresConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(externalStoresConnectionManager, "external-stores");
     }
 }
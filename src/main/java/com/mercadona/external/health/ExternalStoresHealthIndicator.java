@@ -0,0 +1,39 @@
+package com.mercadona.external.health;
+
+import com.mercadona.external.service.ExternalStoreCircuitBreaker;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publica el estado del circuit breaker de la API externa en /actuator/health.
+ * Un circuito abierto no tumba la aplicación (los informes siguen saliendo con la última
+ * dirección conocida), por eso se usan estados propios ordenados por detrás de UP.
+ */
+@Component
+public class ExternalStoresHealthIndicator implements HealthIndicator {
+
+    static final Status CIRCUITO_ABIERTO = new Status("CIRCUIT_OPEN", "API externa de tiendas no disponible");
+    static final Status CIRCUITO_SEMIABIERTO = new Status("CIRCUIT_HALF_OPEN", "Probando la API externa de tiendas");
+
+    private final ExternalStoreCircuitBreaker circuitBreaker;
+
+    public ExternalStoresHealthIndicator(ExternalStoreCircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public Health health() {
+        ExternalStoreCircuitBreaker.Estado estado = circuitBreaker.getEstado();
+        Health.Builder builder = switch (estado) {
+            case CERRADO -> Health.up();
+            case ABIERTO -> Health.status(CIRCUITO_ABIERTO);
+            case SEMIABIERTO -> Health.status(CIRCUITO_SEMIABIERTO);
+        };
+        return builder
+            .withDetail("circuitBreaker", estado)
+            .withDetail("fallosConsecutivos", circuitBreaker.getFallosConsecutivos())
+            .build();
+    }
+}
@@ -1,7 +1,10 @@
 package com.mercadona.external.port;
 
 import com.mercadona.external.dto.ExternalStoreDto;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface ExternalStoreService {
     
@@ -10,4 +13,17 @@ public interface ExternalStoreService {
      * Busca coincidencias en el campo 'description' de la API
      */
     Optional<ExternalStoreDto> buscarTiendaPorNombre(String nombreTienda);
+
+    /**
+     * Variante asíncrona de {@link #buscarTiendaPorNombre(String)} que no bloquea al llamante,
+     * pensada para solapar la consulta externa con otras consultas a base de datos
+     */
+    CompletableFuture<Optional<ExternalStoreDto>> buscarTiendaPorNombreAsync(String nombreTienda);
+
+    /**
+     * Resuelve varias tiendas con una única pasada por el directorio externo, para los procesos
+     * que trabajan con muchas tiendas a la vez. El mapa solo contiene los nombres encontrados;
+     * si la API externa no está disponible se devuelve vacío
+     */
+    Map<String, ExternalStoreDto> buscarTiendasPorNombre(Collection<String> nombresTiendas);
 }
@@ -0,0 +1,13 @@
+package com.mercadona.external.service;
+
+/**
+ * Se lanza cuando el circuit breaker de la API externa rechaza la llamada sin llegar a hacerla
+ */
+public class CircuitoAbiertoException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CircuitoAbiertoException(String message) {
+        super(message);
+    }
+}
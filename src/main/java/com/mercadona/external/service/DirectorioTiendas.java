@@ -0,0 +1,224 @@
+package com.mercadona.external.service;
+
+import com.mercadona.external.dto.ExternalStoreDto;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Directorio inmutable de tiendas externas indexado por nombre normalizado (sin tildes,
+ * en minúsculas y con los espacios colapsados), de modo que cada búsqueda es una consulta
+ * O(1) sobre un HashMap.
+ * <p>
+ * Si el nombre no coincide exactamente se recurre a un índice de prefijos y de trigramas.
+ * El resultado de cada nombre consultado se memoriza en el propio directorio: como los nombres
+ * que llegan son los de las tiendas de la base de datos, a partir de la primera consulta la
+ * búsqueda es una única consulta al mapa sin normalizar ni crear cadenas.
+ */
+public final class DirectorioTiendas {
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    private static final int LONGITUD_MINIMA_PREFIJO = 3;
+    private static final double SIMILITUD_MINIMA = 0.6;
+    private static final int MAXIMO_RESOLUCIONES = 10_000;
+
+    private static final int[] SIN_POSICIONES = new int[0];
+
+    private static final DirectorioTiendas VACIO = new DirectorioTiendas(Map.of());
+
+    private final Map<String, ExternalStoreDto> tiendasPorNombre;
+    private final String[] nombresOrdenados;
+    private final Map<String, int[]> nombresPorTrigrama;
+    private final String[] nombresPorPosicion;
+    private final int[] trigramasPorPosicion;
+    private final Map<String, Optional<ExternalStoreDto>> resoluciones = new ConcurrentHashMap<>();
+
+    private DirectorioTiendas(Map<String, ExternalStoreDto> tiendasPorNombre) {
+        this.tiendasPorNombre = tiendasPorNombre;
+        this.nombresPorPosicion = tiendasPorNombre.keySet().toArray(new String[0]);
+        this.nombresOrdenados = nombresPorPosicion.clone();
+        Arrays.sort(nombresOrdenados);
+        this.nombresPorTrigrama = indexarTrigramas(nombresPorPosicion);
+        this.trigramasPorPosicion = Arrays.stream(nombresPorPosicion).mapToInt(nombre -> trigramas(nombre).size()).toArray();
+    }
+
+    public static DirectorioTiendas vacio() {
+        return VACIO;
+    }
+
+    /**
+     * Construye el índice. Si dos tiendas comparten descripción normalizada se conserva
+     * la primera, igual que hacía la búsqueda lineal original.
+     */
+    public static DirectorioTiendas indexar(Collection<ExternalStoreDto> tiendas) {
+        Map<String, ExternalStoreDto> indice = new HashMap<>(tiendas.size() * 2);
+        for (ExternalStoreDto tienda : tiendas) {
+            if (tienda.description() != null) {
+                indice.putIfAbsent(normalizar(tienda.description()), tienda);
+            }
+        }
+        return new DirectorioTiendas(Map.copyOf(indice));
+    }
+
+    public Optional<ExternalStoreDto> buscar(String nombreTienda) {
+        if (nombreTienda == null) {
+            return Optional.empty();
+        }
+        Optional<ExternalStoreDto> resuelta = resoluciones.get(nombreTienda);
+        if (resuelta != null) {
+            return resuelta;
+        }
+
+        resuelta = resolver(normalizar(nombreTienda));
+        if (resoluciones.size() < MAXIMO_RESOLUCIONES) {
+            resoluciones.putIfAbsent(nombreTienda, resuelta);
+        }
+        return resuelta;
+    }
+
+    public int tamano() {
+        return tiendasPorNombre.size();
+    }
+
+    public Collection<ExternalStoreDto> tiendas() {
+        return tiendasPorNombre.values();
+    }
+
+    /**
+     * Altas, modificaciones y bajas de este directorio respecto a uno anterior
+     */
+    public Cambios cambiosRespectoA(DirectorioTiendas anterior) {
+        int altas = 0;
+        int modificaciones = 0;
+        for (Map.Entry<String, ExternalStoreDto> entrada : tiendasPorNombre.entrySet()) {
+            ExternalStoreDto previa = anterior.tiendasPorNombre.get(entrada.getKey());
+            if (previa == null) {
+                altas++;
+            } else if (!previa.equals(entrada.getValue())) {
+                modificaciones++;
+            }
+        }
+        int bajas = 0;
+        for (String nombre : anterior.tiendasPorNombre.keySet()) {
+            if (!tiendasPorNombre.containsKey(nombre)) {
+                bajas++;
+            }
+        }
+        return new Cambios(altas, modificaciones, bajas);
+    }
+
+    /**
+     * "  Pescadería   CENTRO " -> "pescaderia centro"
+     */
+    static String normalizar(String nombre) {
+        String sinTildes = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(nombre, Normalizer.Form.NFD)).replaceAll("");
+        return ESPACIOS.matcher(sinTildes.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    private Optional<ExternalStoreDto> resolver(String clave) {
+        ExternalStoreDto exacta = tiendasPorNombre.get(clave);
+        if (exacta != null) {
+            return Optional.of(exacta);
+        }
+        if (clave.isEmpty()) {
+            return Optional.empty();
+        }
+
+        int primero = primerNombreConPrefijo(clave);
+        if (primero < 0) {
+            return Optional.ofNullable(buscarPorTrigramas(clave)).map(tiendasPorNombre::get);
+        }
+        // Con varios nombres que empiezan igual la consulta es ambigua y no se elige ninguno
+        boolean hayOtro = primero + 1 < nombresOrdenados.length && nombresOrdenados[primero + 1].startsWith(clave);
+        return hayOtro ? Optional.empty() : Optional.of(tiendasPorNombre.get(nombresOrdenados[primero]));
+    }
+
+    /**
+     * Posición en {@link #nombresOrdenados} del primer nombre que empieza por la clave, o -1 si no hay ninguno.
+     */
+    private int primerNombreConPrefijo(String clave) {
+        if (clave.length() < LONGITUD_MINIMA_PREFIJO) {
+            return -1;
+        }
+        int posicion = Arrays.binarySearch(nombresOrdenados, clave);
+        int primero = posicion >= 0 ? posicion : -posicion - 1;
+        return primero < nombresOrdenados.length && nombresOrdenados[primero].startsWith(clave) ? primero : -1;
+    }
+
+    /**
+     * Nombre con mayor coeficiente de Dice sobre trigramas, si alcanza {@link #SIMILITUD_MINIMA}
+     * y no empata con otro.
+     */
+    private String buscarPorTrigramas(String clave) {
+        Set<String> trigramasClave = trigramas(clave);
+        int[] comunes = new int[nombresPorPosicion.length];
+        for (String trigrama : trigramasClave) {
+            for (int posicion : nombresPorTrigrama.getOrDefault(trigrama, SIN_POSICIONES)) {
+                comunes[posicion]++;
+            }
+        }
+
+        String mejor = null;
+        double mejorSimilitud = 0;
+        boolean empate = false;
+        for (int posicion = 0; posicion < comunes.length; posicion++) {
+            if (comunes[posicion] == 0) {
+                continue;
+            }
+            double similitud = 2.0 * comunes[posicion] / (trigramasClave.size() + trigramasPorPosicion[posicion]);
+            if (similitud < SIMILITUD_MINIMA) {
+                continue;
+            }
+            if (similitud > mejorSimilitud) {
+                mejor = nombresPorPosicion[posicion];
+                mejorSimilitud = similitud;
+                empate = false;
+            } else if (mejor != null && similitud == mejorSimilitud) {
+                empate = true;
+            }
+        }
+        return empate ? null : mejor;
+    }
+
+    private static Map<String, int[]> indexarTrigramas(String[] nombres) {
+        Map<String, List<Integer>> posiciones = new LinkedHashMap<>();
+        for (int posicion = 0; posicion < nombres.length; posicion++) {
+            for (String trigrama : trigramas(nombres[posicion])) {
+                posiciones.computeIfAbsent(trigrama, t -> new ArrayList<>()).add(posicion);
+            }
+        }
+        Map<String, int[]> indice = new HashMap<>(posiciones.size() * 2);
+        posiciones.forEach((trigrama, lista) -> indice.put(trigrama, lista.stream().mapToInt(Integer::intValue).toArray()));
+        return Map.copyOf(indice);
+    }
+
+    private static Set<String> trigramas(String clave) {
+        String relleno = " " + clave + " ";
+        Set<String> resultado = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= relleno.length(); i++) {
+            resultado.add(relleno.substring(i, i + 3));
+        }
+        return resultado;
+    }
+
+    public record Cambios(int altas, int modificaciones, int bajas) {
+
+        public boolean hayCambios() {
+            return altas > 0 || modificaciones > 0 || bajas > 0;
+        }
+    }
+}
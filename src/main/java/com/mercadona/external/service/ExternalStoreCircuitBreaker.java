@@ -0,0 +1,123 @@
+package com.mercadona.external.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker de las llamadas a la API externa de tiendas.
+ * <ul>
+ *   <li>CERRADO: las llamadas pasan; tras {@code failure-threshold} fallos seguidos se abre.</li>
+ *   <li>ABIERTO: las llamadas se rechazan sin tocar el upstream.</li>
+ *   <li>SEMIABIERTO: se permite una única llamada de prueba; si va bien se cierra y si falla se reabre.</li>
+ * </ul>
+ * El paso de ABIERTO a SEMIABIERTO no lo provoca ninguna petición de usuario, sino la sonda
+ * periódica del directorio, de modo que la llamada de prueba siempre se hace en segundo plano.
+ */
+@Component
+public class ExternalStoreCircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(ExternalStoreCircuitBreaker.class);
+
+    public enum Estado { CERRADO, ABIERTO, SEMIABIERTO }
+
+    private final int umbralFallos;
+    private final Duration tiempoAbierto;
+
+    private Estado estado = Estado.CERRADO;
+    private int fallosConsecutivos;
+    private Instant abiertoDesde;
+    private boolean pruebaEnCurso;
+
+    public ExternalStoreCircuitBreaker(@Value("${external.stores.circuit-breaker.failure-threshold:5}") int umbralFallos,
+                                       @Value("${external.stores.circuit-breaker.open-duration:30s}") Duration tiempoAbierto,
+                                       MeterRegistry meterRegistry) {
+        this.umbralFallos = umbralFallos;
+        this.tiempoAbierto = tiempoAbierto;
+        Gauge.builder("external.stores.circuit.state", this, breaker -> breaker.getEstado().ordinal())
+            .description("0 = cerrado, 1 = abierto, 2 = semiabierto")
+            .register(meterRegistry);
+    }
+
+    public <T> T ejecutar(Supplier<T> llamada) {
+        if (!permitirLlamada()) {
+            throw new CircuitoAbiertoException("Circuito abierto: API externa de tiendas no disponible");
+        }
+        try {
+            T resultado = llamada.get();
+            registrarExito();
+            return resultado;
+        } catch (RuntimeException e) {
+            registrarFallo();
+            throw e;
+        }
+    }
+
+    /**
+     * Pasa a SEMIABIERTO si el circuito lleva abierto el tiempo configurado.
+     * Devuelve true cuando el llamante debe lanzar la llamada de prueba.
+     */
+    public synchronized boolean pasarASemiabiertoSiProcede() {
+        if (estado != Estado.ABIERTO || abiertoDesde.plus(tiempoAbierto).isAfter(Instant.now())) {
+            return false;
+        }
+        estado = Estado.SEMIABIERTO;
+        pruebaEnCurso = false;
+        log.info("Circuito de la API externa de tiendas semiabierto, lanzando llamada de prueba");
+        return true;
+    }
+
+    public synchronized boolean estaCerrado() {
+        return estado == Estado.CERRADO;
+    }
+
+    public synchronized Estado getEstado() {
+        return estado;
+    }
+
+    public synchronized int getFallosConsecutivos() {
+        return fallosConsecutivos;
+    }
+
+    private synchronized boolean permitirLlamada() {
+        return switch (estado) {
+            case CERRADO -> true;
+            case ABIERTO -> false;
+            case SEMIABIERTO -> {
+                if (pruebaEnCurso) {
+                    yield false;
+                }
+                pruebaEnCurso = true;
+                yield true;
+            }
+        };
+    }
+
+    private synchronized void registrarExito() {
+        if (estado != Estado.CERRADO) {
+            log.info("Circuito de la API externa de tiendas cerrado tras una llamada correcta");
+        }
+        estado = Estado.CERRADO;
+        fallosConsecutivos = 0;
+        pruebaEnCurso = false;
+    }
+
+    private synchronized void registrarFallo() {
+        fallosConsecutivos++;
+        pruebaEnCurso = false;
+        if (estado == Estado.SEMIABIERTO || fallosConsecutivos >= umbralFallos) {
+            if (estado != Estado.ABIERTO) {
+                log.warn("Circuito de la API externa de tiendas abierto tras {} fallos consecutivos", fallosConsecutivos);
+            }
+            estado = Estado.ABIERTO;
+            abiertoDesde = Instant.now();
+        }
+    }
+}
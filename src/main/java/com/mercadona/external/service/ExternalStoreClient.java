@@ -0,0 +1,73 @@
+package com.mercadona.external.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mercadona.external.dto.ExternalStoreResponseDto;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Acceso HTTP a la API externa de tiendas.
+ * Las excepciones de RestTemplate se propagan para que el llamante decida el fallback.
+ * <p>
+ * Cada llamada se mide en {@code external.stores.upstream.requests} (con histograma de percentiles,
+ * por resultado) y el tamaño de cada respuesta en {@code external.stores.upstream.payload}.
+ */
+@Component
+public class ExternalStoreClient {
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+
+    private final Timer llamadasCorrectas;
+    private final Timer llamadasFallidas;
+    private final DistributionSummary tamanoRespuesta;
+
+    public ExternalStoreClient(RestTemplate restTemplate,
+                               ObjectMapper objectMapper,
+                               @Value("${external.stores.base-url}") String baseUrl,
+                               MeterRegistry meterRegistry) {
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.baseUrl = baseUrl;
+        this.llamadasCorrectas = temporizador("success", meterRegistry);
+        this.llamadasFallidas = temporizador("error", meterRegistry);
+        this.tamanoRespuesta = DistributionSummary.builder("external.stores.upstream.payload")
+            .description("Tamaño de las páginas recibidas de la API externa de tiendas")
+            .baseUnit("bytes")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    public ExternalStoreResponseDto descargarPagina(int pagina, int tamanoPagina) {
+        String url = baseUrl + "/stores?page=" + pagina + "&size=" + tamanoPagina;
+        Timer.Sample muestra = Timer.start();
+        try {
+            ExternalStoreResponseDto respuesta = restTemplate.execute(url, HttpMethod.GET, null, response -> {
+                byte[] cuerpo = response.getBody().readAllBytes();
+                tamanoRespuesta.record(cuerpo.length);
+                return cuerpo.length == 0 ? null : objectMapper.readValue(cuerpo, ExternalStoreResponseDto.class);
+            });
+            muestra.stop(llamadasCorrectas);
+            return respuesta;
+        } catch (RestClientException e) {
+            muestra.stop(llamadasFallidas);
+            throw e;
+        }
+    }
+
+    private static Timer temporizador(String resultado, MeterRegistry meterRegistry) {
+        return Timer.builder("external.stores.upstream.requests")
+            .description("Llamadas HTTP a la API externa de tiendas")
+            .tag("outcome", resultado)
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+}
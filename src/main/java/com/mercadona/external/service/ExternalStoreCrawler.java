@@ -0,0 +1,78 @@
+package com.mercadona.external.service;
+
+import com.mercadona.external.dto.ExternalStoreDto;
+import com.mercadona.external.dto.ExternalStoreResponseDto;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Recorre todas las páginas de GET /stores. La primera página se pide en el hilo llamante
+ * para conocer el total de páginas; el resto se descargan en paralelo sobre
+ * externalStoresPageExecutor, cuyo tamaño limita las peticiones simultáneas al upstream. Con su
+ * cola llena el hilo llamante descarga la página él mismo, así que nunca hay encoladas más que unas
+ * pocas páginas y el llamante suma como mucho una petición más.
+ */
+@Component
+public class ExternalStoreCrawler {
+
+    private final ExternalStoreClient client;
+    private final Executor pageExecutor;
+    private final int tamanoPagina;
+
+    public ExternalStoreCrawler(ExternalStoreClient client,
+                                @Qualifier("externalStoresPageExecutor") Executor pageExecutor,
+                                @Value("${external.stores.crawler.page-size:50}") int tamanoPagina) {
+        this.client = client;
+        this.pageExecutor = pageExecutor;
+        this.tamanoPagina = tamanoPagina;
+    }
+
+    /**
+     * Descarga el directorio completo. Si falla cualquier página se propaga el error
+     * para no sustituir un directorio completo por uno parcial.
+     */
+    public List<ExternalStoreDto> rastrear() {
+        ExternalStoreResponseDto primeraPagina = client.descargarPagina(0, tamanoPagina);
+        if (primeraPagina == null) {
+            return List.of();
+        }
+
+        List<ExternalStoreDto> tiendas = new ArrayList<>(contenido(primeraPagina));
+        int totalPaginas = primeraPagina.page() != null ? primeraPagina.page().totalPages() : 1;
+
+        List<CompletableFuture<List<ExternalStoreDto>>> paginas = new ArrayList<>();
+        for (int pagina = 1; pagina < totalPaginas; pagina++) {
+            int numeroPagina = pagina;
+            paginas.add(CompletableFuture.supplyAsync(
+                () -> contenido(client.descargarPagina(numeroPagina, tamanoPagina)), pageExecutor));
+        }
+
+        try {
+            // Se concatenan en orden de página para conservar el orden del upstream
+            for (CompletableFuture<List<ExternalStoreDto>> pagina : paginas) {
+                tiendas.addAll(pagina.join());
+            }
+        } catch (CompletionException e) {
+            paginas.forEach(pagina -> pagina.cancel(false));
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+        return tiendas;
+    }
+
+    private static List<ExternalStoreDto> contenido(ExternalStoreResponseDto respuesta) {
+        if (respuesta == null || respuesta.content() == null) {
+            return List.of();
+        }
+        return respuesta.content();
+    }
+}
@@ -0,0 +1,248 @@
+package com.mercadona.external.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Caché en memoria del directorio completo de tiendas de la API externa.
+ * Mientras el directorio está vigente se sirve sin llamadas remotas; una vez
+ * caducado se sigue sirviendo la copia anterior y se refresca en segundo plano
+ * (stale-while-revalidate). Solo la primera carga bloquea al llamante.
+ * <p>
+ * Las descargas pasan por el circuit breaker: con el circuito abierto no se refresca y se
+ * sigue sirviendo el último directorio conocido, que actúa como almacén de respaldo
+ * aunque haya superado el TTL. La sonda periódica es la única que reintenta el upstream.
+ * <p>
+ * Las descargas son single-flight: si llegan varias peticiones mientras hay una descarga
+ * en curso, todas esperan a esa misma descarga en lugar de lanzar una cada una.
+ * <p>
+ * Al arrancar se carga la copia local en disco ({@link ExternalStoreSnapshotFile}) antes de que
+ * la aplicación esté lista, con su fecha de guardado como fecha de carga: hay direcciones desde la
+ * primera petición y el primer acceso la refresca en segundo plano si ha caducado. Un refresco sin
+ * cambios conserva el índice anterior; solo cuando hay altas, modificaciones o bajas se sustituye
+ * y se marca para volver a escribirse en disco.
+ */
+@Component
+public class ExternalStoreDirectory {
+
+    private static final Logger log = LoggerFactory.getLogger(ExternalStoreDirectory.class);
+
+    private final ExternalStoreCrawler crawler;
+    private final ExternalStoreCircuitBreaker circuitBreaker;
+    private final ExternalStoreSnapshotFile copiaLocal;
+    private final Executor executor;
+    private final Duration ttl;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicBoolean refrescando = new AtomicBoolean(false);
+    private final AtomicReference<CompletableFuture<Snapshot>> descargaEnCurso = new AtomicReference<>();
+    private final AtomicBoolean pendienteDeGuardar = new AtomicBoolean(false);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter refrescosCorrectos;
+    private final Counter refrescosFallidos;
+    private final Counter coalescidas;
+    private final Counter altas;
+    private final Counter modificaciones;
+    private final Counter bajas;
+
+    public ExternalStoreDirectory(ExternalStoreCrawler crawler,
+                                  ExternalStoreCircuitBreaker circuitBreaker,
+                                  ExternalStoreSnapshotFile copiaLocal,
+                                  @Qualifier("externalStoresExecutor") Executor executor,
+                                  @Value("${external.stores.cache.ttl:5m}") Duration ttl,
+                                  MeterRegistry meterRegistry) {
+        this.crawler = crawler;
+        this.circuitBreaker = circuitBreaker;
+        this.copiaLocal = copiaLocal;
+        this.executor = executor;
+        this.ttl = ttl;
+        this.hits = meterRegistry.counter("external.stores.directory.requests", "result", "hit");
+        this.misses = meterRegistry.counter("external.stores.directory.requests", "result", "miss");
+        this.refrescosCorrectos = meterRegistry.counter("external.stores.directory.refreshes", "result", "success");
+        this.refrescosFallidos = meterRegistry.counter("external.stores.directory.refreshes", "result", "failure");
+        this.coalescidas = meterRegistry.counter("external.stores.directory.coalesced");
+        this.altas = meterRegistry.counter("external.stores.directory.changes", "type", "added");
+        this.modificaciones = meterRegistry.counter("external.stores.directory.changes", "type", "updated");
+        this.bajas = meterRegistry.counter("external.stores.directory.changes", "type", "removed");
+        Gauge.builder("external.stores.directory.size", snapshot, actual -> actual.get() == null ? 0 : actual.get().directorio().tamano())
+            .description("Tiendas en el directorio en memoria")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void cargarCopiaLocal() {
+        copiaLocal.leer().ifPresent(guardado -> {
+            DirectorioTiendas directorio = DirectorioTiendas.indexar(guardado.tiendas());
+            if (snapshot.compareAndSet(null, new Snapshot(directorio, guardado.guardadoEn()))) {
+                log.info("Directorio de tiendas externas cargado desde la copia local: {} tiendas guardadas el {}",
+                    directorio.tamano(), guardado.guardadoEn());
+            }
+        });
+    }
+
+    /**
+     * Escribe en disco el directorio vigente si ha cambiado desde la última escritura.
+     */
+    @Scheduled(fixedDelayString = "${external.stores.snapshot.write-interval:60000}")
+    @PreDestroy
+    public void guardarCopiaLocal() {
+        Snapshot actual = snapshot.get();
+        if (actual == null || !pendienteDeGuardar.compareAndSet(true, false)) {
+            return;
+        }
+        try {
+            copiaLocal.escribir(actual.directorio().tiendas(), actual.cargadoEn());
+        } catch (UncheckedIOException e) {
+            pendienteDeGuardar.set(true);
+            log.warn("{}: {}", e.getMessage(), e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Devuelve el directorio de tiendas. Si nunca se ha cargado, lo descarga de forma síncrona
+     * y propaga el error del cliente HTTP si la descarga falla, o {@link CircuitoAbiertoException}
+     * si el circuito está abierto.
+     */
+    public DirectorioTiendas obtenerDirectorio() {
+        Snapshot actual = snapshot.get();
+        if (actual == null) {
+            misses.increment();
+            return cargarCompartido().directorio();
+        }
+
+        hits.increment();
+        if (actual.caducado(ttl) && circuitBreaker.estaCerrado()) {
+            refrescarEnSegundoPlano();
+        }
+        return actual.directorio();
+    }
+
+    /**
+     * Sonda del circuito abierto: cuando ha pasado el tiempo de apertura lanza en segundo plano
+     * la descarga de prueba que decide si el circuito se cierra o vuelve a abrirse.
+     */
+    @Scheduled(fixedDelayString = "${external.stores.circuit-breaker.probe-interval:5000}")
+    public void sondearCircuitoAbierto() {
+        if (circuitBreaker.pasarASemiabiertoSiProcede()) {
+            refrescarEnSegundoPlano();
+        }
+    }
+
+    private void refrescarEnSegundoPlano() {
+        if (!refrescando.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    cargarCompartido();
+                } catch (RuntimeException e) {
+                    log.warn("No se pudo refrescar el directorio de tiendas externas, se mantiene la copia anterior: {}",
+                        e.getMessage());
+                } finally {
+                    refrescando.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refrescando.set(false);
+            log.warn("Refresco del directorio de tiendas externas descartado: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Descarga el directorio o, si ya hay una descarga en curso, espera su resultado
+     * (o su error) sin generar otra petición al upstream.
+     */
+    private Snapshot cargarCompartido() {
+        CompletableFuture<Snapshot> propia = new CompletableFuture<>();
+        CompletableFuture<Snapshot> enCurso = descargaEnCurso.compareAndExchange(null, propia);
+        if (enCurso != null) {
+            coalescidas.increment();
+            return esperar(enCurso);
+        }
+
+        try {
+            Snapshot nuevo = cargar();
+            propia.complete(nuevo);
+            return nuevo;
+        } catch (RuntimeException e) {
+            propia.completeExceptionally(e);
+            throw e;
+        } finally {
+            descargaEnCurso.compareAndSet(propia, null);
+        }
+    }
+
+    private static Snapshot esperar(CompletableFuture<Snapshot> descarga) {
+        try {
+            return descarga.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private Snapshot cargar() {
+        try {
+            DirectorioTiendas descargado = DirectorioTiendas.indexar(circuitBreaker.ejecutar(crawler::rastrear));
+            Snapshot nuevo = new Snapshot(aplicarCambios(descargado), Instant.now());
+            snapshot.set(nuevo);
+            refrescosCorrectos.increment();
+            return nuevo;
+        } catch (CircuitoAbiertoException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            refrescosFallidos.increment();
+            throw e;
+        }
+    }
+
+    private DirectorioTiendas aplicarCambios(DirectorioTiendas descargado) {
+        Snapshot anterior = snapshot.get();
+        if (anterior == null) {
+            pendienteDeGuardar.set(true);
+            return descargado;
+        }
+
+        DirectorioTiendas.Cambios cambios = descargado.cambiosRespectoA(anterior.directorio());
+        if (!cambios.hayCambios()) {
+            return anterior.directorio();
+        }
+        altas.increment(cambios.altas());
+        modificaciones.increment(cambios.modificaciones());
+        bajas.increment(cambios.bajas());
+        pendienteDeGuardar.set(true);
+        log.debug("Directorio de tiendas externas actualizado: {}", cambios);
+        return descargado;
+    }
+
+    private record Snapshot(DirectorioTiendas directorio, Instant cargadoEn) {
+
+        boolean caducado(Duration ttl) {
+            return cargadoEn.plus(ttl).isBefore(Instant.now());
+        }
+    }
+}
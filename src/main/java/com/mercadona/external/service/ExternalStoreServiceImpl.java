@@ -1,59 +1,139 @@
 package com.mercadona.external.service;
 
 import com.mercadona.external.dto.ExternalStoreDto;
-import com.mercadona.external.dto.ExternalStoreResponseDto;
 import com.mercadona.external.port.ExternalStoreService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.RestClientException;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Cada búsqueda se mide en {@code external.stores.lookups} etiquetada por resultado
+ * (hit, not_found, error, timeout), separada de las métricas de base de datos. Las búsquedas
+ * en bloque se miden aparte en {@code external.stores.lookups.bulk}.
+ */
 @Service
 public class ExternalStoreServiceImpl implements ExternalStoreService {
 
-    private final RestTemplate restTemplate;
-    private final String baseUrl;
+    private static final Logger log = LoggerFactory.getLogger(ExternalStoreServiceImpl.class);
 
-    public ExternalStoreServiceImpl(RestTemplate restTemplate, 
-                                   @Value("${external.stores.base-url}") String baseUrl) {
-        this.restTemplate = restTemplate;
-        this.baseUrl = baseUrl;
+    private final ExternalStoreDirectory directory;
+    private final Executor executor;
+    private final long plazoMs;
+
+    private final Timer encontradas;
+    private final Timer noEncontradas;
+    private final Timer fallidas;
+    private final Timer fueraDePlazo;
+    private final Timer bloquesCorrectos;
+    private final Timer bloquesFallidos;
+
+    public ExternalStoreServiceImpl(ExternalStoreDirectory directory,
+                                    @Qualifier("externalStoresExecutor") Executor executor,
+                                    @Value("${external.stores.lookup-deadline:3000}") long plazoMs,
+                                    MeterRegistry meterRegistry) {
+        this.directory = directory;
+        this.executor = executor;
+        this.plazoMs = plazoMs;
+        this.encontradas = temporizador("hit", meterRegistry);
+        this.noEncontradas = temporizador("not_found", meterRegistry);
+        this.fallidas = temporizador("error", meterRegistry);
+        this.fueraDePlazo = temporizador("timeout", meterRegistry);
+        this.bloquesCorrectos = temporizadorBloque("success", meterRegistry);
+        this.bloquesFallidos = temporizadorBloque("error", meterRegistry);
     }
 
     @Override
     public Optional<ExternalStoreDto> buscarTiendaPorNombre(String nombreTienda) {
+        Timer.Sample muestra = Timer.start();
+        Busqueda busqueda = buscar(nombreTienda);
+        muestra.stop(busqueda.temporizador());
+        return busqueda.tienda();
+    }
+
+    /**
+     * Si la búsqueda no termina en {@code external.stores.lookup-deadline} se completa
+     * sin tienda y se contabiliza como timeout.
+     */
+    @Override
+    public CompletableFuture<Optional<ExternalStoreDto>> buscarTiendaPorNombreAsync(String nombreTienda) {
+        Timer.Sample muestra = Timer.start();
+        CompletableFuture<Busqueda> busqueda;
+        try {
+            busqueda = CompletableFuture.supplyAsync(() -> buscar(nombreTienda), executor);
+        } catch (RejectedExecutionException e) {
+            // Pool saturado: mejor un informe sin dirección que bloquear el hilo de la petición
+            log.warn("Búsqueda asíncrona de la tienda {} rechazada: {}", nombreTienda, e.getMessage());
+            busqueda = CompletableFuture.completedFuture(new Busqueda(Optional.empty(), fallidas));
+        }
+
+        return busqueda
+            .completeOnTimeout(new Busqueda(Optional.empty(), fueraDePlazo), plazoMs, TimeUnit.MILLISECONDS)
+            .thenApply(resultado -> {
+                muestra.stop(resultado.temporizador());
+                return resultado.tienda();
+            });
+    }
+
+    @Override
+    public Map<String, ExternalStoreDto> buscarTiendasPorNombre(Collection<String> nombresTiendas) {
+        Timer.Sample muestra = Timer.start();
         try {
-            // Obtener todas las tiendas y buscar por coincidencia de nombre
-            String url = baseUrl + "/stores?size=50";
-            ExternalStoreResponseDto response = restTemplate.getForObject(url, ExternalStoreResponseDto.class);
-            
-            if (response != null && response.content() != null) {
-                return response.content().stream()
-                    .filter(store -> coincideNombre(store.description(), nombreTienda))
-                    .findFirst();
+            DirectorioTiendas directorio = directory.obtenerDirectorio();
+            Map<String, ExternalStoreDto> tiendas = new HashMap<>(nombresTiendas.size() * 2);
+            for (String nombreTienda : nombresTiendas) {
+                directorio.buscar(nombreTienda).ifPresent(tienda -> tiendas.put(nombreTienda, tienda));
             }
-            
-            return Optional.empty();
-            
-        } catch (RestClientException e) {
-            System.err.println("Error consultando API externa para tienda " + nombreTienda + ": " + e.getMessage());
-            return Optional.empty();
+            muestra.stop(bloquesCorrectos);
+            return tiendas;
+
+        } catch (RestClientException | CircuitoAbiertoException e) {
+            log.warn("Error consultando API externa para {} tiendas: {}", nombresTiendas.size(), e.getMessage());
+            muestra.stop(bloquesFallidos);
+            return Map.of();
         }
     }
-    
-    private boolean coincideNombre(String apiDescription, String nombreTienda) {
-        if (apiDescription == null || nombreTienda == null) {
-            return false;
+
+    private Busqueda buscar(String nombreTienda) {
+        try {
+            Optional<ExternalStoreDto> tienda = directory.obtenerDirectorio().buscar(nombreTienda);
+            return new Busqueda(tienda, tienda.isPresent() ? encontradas : noEncontradas);
+
+        } catch (RestClientException | CircuitoAbiertoException e) {
+            log.warn("Error consultando API externa para tienda {}: {}", nombreTienda, e.getMessage());
+            return new Busqueda(Optional.empty(), fallidas);
         }
-        
-        String apiLimpio = apiDescription.trim();
-        String tiendaLimpia = nombreTienda.trim();
-        
-        System.out.println("  🔗 Comparando: '" + apiLimpio + "' == '" + tiendaLimpia + "' -> " + 
-                          apiLimpio.equalsIgnoreCase(tiendaLimpia));
-        
-        return apiLimpio.equalsIgnoreCase(tiendaLimpia);
     }
+
+    private static Timer temporizador(String resultado, MeterRegistry meterRegistry) {
+        return Timer.builder("external.stores.lookups")
+            .description("Búsquedas de tiendas en la API externa")
+            .tag("outcome", resultado)
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    private static Timer temporizadorBloque(String resultado, MeterRegistry meterRegistry) {
+        return Timer.builder("external.stores.lookups.bulk")
+            .description("Búsquedas en bloque de tiendas en la API externa")
+            .tag("outcome", resultado)
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+    }
+
+    private record Busqueda(Optional<ExternalStoreDto> tienda, Timer temporizador) {}
 }
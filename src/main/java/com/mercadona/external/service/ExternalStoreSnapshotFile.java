@@ -0,0 +1,160 @@
+package com.mercadona.external.service;
+
+import com.mercadona.external.dto.ExternalStoreDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Copia local en disco del directorio de tiendas externas, para arrancar con direcciones
+ * aunque el upstream no responda.
+ * <p>
+ * Formato binario (big-endian): cabecera {@code MAGIC(int) VERSION(int) guardadoEn(long epoch ms) total(int)}
+ * seguida de {@code total} registros {@code id(long) description address city}, donde cada texto es
+ * {@code longitud(int, -1 = null) + bytes UTF-8}. La lectura se hace con un MappedByteBuffer
+ * y la escritura a un fichero temporal que después se mueve de forma atómica.
+ */
+@Component
+public class ExternalStoreSnapshotFile {
+
+    private static final Logger log = LoggerFactory.getLogger(ExternalStoreSnapshotFile.class);
+
+    private static final int MAGIC = 0x4D535444; // "MSTD"
+    private static final int VERSION = 1;
+    private static final long SIN_ID = Long.MIN_VALUE;
+    /** id(long) + tres longitudes(int): lo mínimo que ocupa un registro en el fichero. */
+    private static final int BYTES_MINIMOS_REGISTRO = Long.BYTES + 3 * Integer.BYTES;
+
+    private final boolean habilitado;
+    private final Path fichero;
+
+    public ExternalStoreSnapshotFile(@Value("${external.stores.snapshot.enabled:true}") boolean habilitado,
+                                     @Value("${external.stores.snapshot.path:data/external-stores.snapshot}") Path fichero) {
+        this.habilitado = habilitado;
+        this.fichero = fichero;
+    }
+
+    public Optional<SnapshotGuardado> leer() {
+        if (!habilitado || !Files.isRegularFile(fichero)) {
+            return Optional.empty();
+        }
+
+        try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                log.warn("Ignorando copia local del directorio con formato desconocido: {}", fichero);
+                return Optional.empty();
+            }
+
+            Instant guardadoEn = Instant.ofEpochMilli(buffer.getLong());
+            int total = buffer.getInt();
+            if (total < 0 || total > buffer.remaining() / BYTES_MINIMOS_REGISTRO) {
+                throw new IllegalStateException("número de registros corrupto: " + total);
+            }
+            List<ExternalStoreDto> tiendas = new ArrayList<>(total);
+            for (int i = 0; i < total; i++) {
+                long id = buffer.getLong();
+                tiendas.add(new ExternalStoreDto(
+                    id == SIN_ID ? null : id,
+                    leerTexto(buffer),
+                    leerTexto(buffer),
+                    leerTexto(buffer)
+                ));
+            }
+            return Optional.of(new SnapshotGuardado(tiendas, guardadoEn));
+
+        } catch (IOException | RuntimeException e) {
+            log.warn("No se pudo leer la copia local del directorio {}: {}", fichero, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public void escribir(Collection<ExternalStoreDto> tiendas, Instant guardadoEn) {
+        if (!habilitado) {
+            return;
+        }
+
+        Path temporal = null;
+        try {
+            Path directorio = fichero.toAbsolutePath().getParent();
+            Files.createDirectories(directorio);
+            temporal = Files.createTempFile(directorio, fichero.getFileName().toString(), ".tmp");
+
+            try (OutputStream fos = Files.newOutputStream(temporal);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(guardadoEn.toEpochMilli());
+                out.writeInt(tiendas.size());
+                for (ExternalStoreDto tienda : tiendas) {
+                    out.writeLong(tienda.id() != null ? tienda.id() : SIN_ID);
+                    escribirTexto(out, tienda.description());
+                    escribirTexto(out, tienda.address());
+                    escribirTexto(out, tienda.city());
+                }
+            }
+
+            Files.move(temporal, fichero, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            temporal = null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar la copia local del directorio en " + fichero, e);
+        } finally {
+            if (temporal != null) {
+                borrarTemporal(temporal);
+            }
+        }
+    }
+
+    private static void borrarTemporal(Path temporal) {
+        try {
+            Files.deleteIfExists(temporal);
+        } catch (IOException e) {
+            log.warn("No se pudo borrar el fichero temporal {}: {}", temporal, e.getMessage());
+        }
+    }
+
+    private static String leerTexto(ByteBuffer buffer) {
+        int longitud = buffer.getInt();
+        if (longitud < 0) {
+            return null;
+        }
+        if (longitud > buffer.remaining()) {
+            throw new IllegalStateException("longitud de texto corrupta: " + longitud);
+        }
+        byte[] bytes = new byte[longitud];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void escribirTexto(DataOutputStream out, String texto) throws IOException {
+        if (texto == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public record SnapshotGuardado(List<ExternalStoreDto> tiendas, Instant guardadoEn) {}
+}
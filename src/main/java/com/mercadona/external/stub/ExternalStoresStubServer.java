@@ -0,0 +1,192 @@
+package com.mercadona.external.stub;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mercadona.external.dto.ExternalStoreDto;
+import com.mercadona.external.dto.ExternalStoreResponseDto;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sustituto local de la API externa de tiendas (imagen jameral/stores) para entornos sin red.
+ * Sirve {@code GET /stores?page=&size=} con el mismo formato y paginación sobre un directorio
+ * sintético, e inyecta latencia, jitter y una tasa de errores 503 configurables.
+ * <p>
+ * Corre en su propio puerto y con sus propios hilos, fuera de Tomcat, para que la latencia
+ * simulada no consuma hilos de la aplicación y las medidas de los benchmarks sean realistas.
+ * Solo se activa con el perfil {@code external-stub}.
+ */
+@Component
+@Profile("external-stub")
+public class ExternalStoresStubServer {
+
+    private static final Logger log = LoggerFactory.getLogger(ExternalStoresStubServer.class);
+
+    /** Tiendas de los datos de ejemplo (V3), para que los reportes resuelvan su dirección */
+    private static final List<String> TIENDAS_CONOCIDAS = List.of("LA UNION", "CAMINO SAN RAFAEL", "AVDA. GIORGETA");
+    private static final int TAMANO_PAGINA_POR_DEFECTO = 20;
+
+    private final ObjectMapper objectMapper;
+    private final int puertoConfigurado;
+    private final int hilos;
+    private final List<ExternalStoreDto> tiendas;
+    private final Duration latencia;
+    private final Duration jitter;
+    private final double tasaErrores;
+
+    private HttpServer servidor;
+    private ExecutorService executor;
+
+    public ExternalStoresStubServer(ObjectMapper objectMapper,
+                                    @Value("${external.stub.port:8090}") int puerto,
+                                    @Value("${external.stub.threads:16}") int hilos,
+                                    @Value("${external.stub.stores:500}") int totalTiendas,
+                                    @Value("${external.stub.latency:0ms}") Duration latencia,
+                                    @Value("${external.stub.jitter:0ms}") Duration jitter,
+                                    @Value("${external.stub.error-rate:0.0}") double tasaErrores) {
+        if (tasaErrores < 0.0 || tasaErrores > 1.0) {
+            throw new IllegalArgumentException("La tasa de errores debe estar entre 0 y 1");
+        }
+        this.objectMapper = objectMapper;
+        this.puertoConfigurado = puerto;
+        this.hilos = hilos;
+        this.tiendas = generarTiendas(totalTiendas);
+        this.latencia = latencia;
+        this.jitter = jitter;
+        this.tasaErrores = tasaErrores;
+    }
+
+    @PostConstruct
+    public void arrancar() {
+        try {
+            servidor = HttpServer.create(new InetSocketAddress(puertoConfigurado), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo arrancar el sustituto de la API externa en el puerto " + puertoConfigurado, e);
+        }
+        executor = Executors.newFixedThreadPool(hilos);
+        servidor.setExecutor(executor);
+        servidor.createContext("/stores", this::atenderStores);
+        servidor.start();
+        log.info("Sustituto de la API externa de tiendas escuchando en el puerto {}: {} tiendas, latencia {}±{}, errores {}",
+            getPuerto(), tiendas.size(), latencia, jitter, tasaErrores);
+    }
+
+    @PreDestroy
+    public void parar() {
+        if (servidor != null) {
+            servidor.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    private void atenderStores(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            simularLatencia();
+            if (tasaErrores > 0.0 && ThreadLocalRandom.current().nextDouble() < tasaErrores) {
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+
+            Map<String, String> parametros = parametros(exchange.getRequestURI());
+            int pagina;
+            int tamano;
+            try {
+                pagina = Integer.parseInt(parametros.getOrDefault("page", "0"));
+                tamano = Integer.parseInt(parametros.getOrDefault("size", String.valueOf(TAMANO_PAGINA_POR_DEFECTO)));
+            } catch (NumberFormatException e) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            if (pagina < 0 || tamano <= 0) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+
+            byte[] cuerpo = objectMapper.writeValueAsBytes(pagina(pagina, tamano));
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, cuerpo.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(cuerpo);
+            }
+        }
+    }
+
+    ExternalStoreResponseDto pagina(int pagina, int tamano) {
+        int desde = (int) Math.min((long) pagina * tamano, tiendas.size());
+        int hasta = Math.min(desde + tamano, tiendas.size());
+        int totalPaginas = (tiendas.size() + tamano - 1) / tamano;
+        return new ExternalStoreResponseDto(
+            tiendas.subList(desde, hasta),
+            new ExternalStoreResponseDto.PageInfoDto(tamano, pagina, tiendas.size(), totalPaginas)
+        );
+    }
+
+    private void simularLatencia() {
+        long retardoMs = latencia.toMillis();
+        if (!jitter.isZero()) {
+            retardoMs += ThreadLocalRandom.current().nextLong(-jitter.toMillis(), jitter.toMillis() + 1);
+        }
+        if (retardoMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(retardoMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, String> parametros(URI uri) {
+        Map<String, String> parametros = new HashMap<>();
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return parametros;
+        }
+        for (String par : query.split("&")) {
+            int igual = par.indexOf('=');
+            if (igual > 0) {
+                parametros.put(par.substring(0, igual), par.substring(igual + 1));
+            }
+        }
+        return parametros;
+    }
+
+    private static List<ExternalStoreDto> generarTiendas(int total) {
+        List<ExternalStoreDto> generadas = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            long id = i + 1L;
+            String nombre = i < TIENDAS_CONOCIDAS.size() ? TIENDAS_CONOCIDAS.get(i) : "TIENDA SINTETICA " + id;
+            generadas.add(new ExternalStoreDto(id, nombre, "Calle Sintética " + id, "Ciudad " + (id % 50)));
+        }
+        return List.copyOf(generadas);
+    }
+}
@@ -0,0 +1,18 @@
+package com.mercadona.planificacion.application.port;
+
+/**
+ * Cambio hipotético sobre las asignaciones de una tienda. En las bajas se ignoran las horas.
+ */
+public record OperacionSimulada(
+    Tipo tipo,
+    String dniTrabajador,
+    String nombreSeccion,
+    int horas
+) {
+
+    public enum Tipo {
+        CREAR,
+        ACTUALIZAR,
+        ELIMINAR
+    }
+}
@@ -0,0 +1,17 @@
+package com.mercadona.planificacion.application.port;
+
+import java.util.Optional;
+
+public interface PlanificacionCadenaService {
+
+    /**
+     * Lanza en segundo plano la propuesta de cobertura de todas las tiendas y, si {@code aplicar},
+     * la confirma con altas en lote. Devuelve vacío si ya hay una ejecución en curso.
+     */
+    Optional<ProgresoPlanificacionCadena> iniciar(boolean aplicar);
+
+    /**
+     * Progreso de la ejecución en curso o resultado de la última terminada
+     */
+    Optional<ProgresoPlanificacionCadena> ultimaEjecucion();
+}
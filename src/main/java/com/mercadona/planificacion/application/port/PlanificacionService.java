@@ -0,0 +1,20 @@
+package com.mercadona.planificacion.application.port;
+
+import java.util.List;
+
+public interface PlanificacionService {
+
+    /**
+     * Calcula, sin escribir nada, las asignaciones nuevas que cubren el máximo posible de las horas
+     * que faltan en las secciones de la tienda con las horas libres de sus trabajadores. Las
+     * solicitudes resultantes se pueden confirmar tal cual con el alta en lote.
+     */
+    PropuestaCoberturaTienda proponerCobertura(String codigoTienda);
+
+    /**
+     * Aplica en orden, sobre una copia en memoria de la tienda, altas, cambios de horas y bajas con
+     * las mismas reglas que el servicio de asignaciones y devuelve cómo quedarían sus informes. Una
+     * operación rechazada no se aplica y no impide las siguientes. No escribe nada.
+     */
+    ResultadoSimulacion simular(String codigoTienda, List<OperacionSimulada> operaciones);
+}
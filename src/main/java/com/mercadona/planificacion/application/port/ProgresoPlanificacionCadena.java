@@ -0,0 +1,45 @@
+package com.mercadona.planificacion.application.port;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Estado de una planificación de toda la cadena. Los contadores de asignaciones creadas y
+ * rechazadas solo avanzan si la ejecución aplica las propuestas; las rechazadas son las que el
+ * alta en lote ya no admite porque la tienda ha cambiado desde que se calcularon.
+ */
+public record ProgresoPlanificacionCadena(
+    String id,
+    Estado estado,
+    boolean aplicar,
+    Instant inicio,
+    Instant fin,
+    int tiendasTotales,
+    int tiendasResueltas,
+    int asignacionesPropuestas,
+    int asignacionesCreadas,
+    int asignacionesRechazadas,
+    int horasCubiertas,
+    int horasSinCubrir,
+    Duration duracion,
+    Duration tiempoResolucionTotal,
+    double tiendasPorSegundo,
+    double asignacionesPorSegundo,
+    List<ResultadoTienda> tiendas,
+    String error
+) {
+
+    public enum Estado { EN_CURSO, COMPLETADA, FALLIDA }
+
+    public record ResultadoTienda(
+        String codigoTienda,
+        int trabajadores,
+        int asignacionesPropuestas,
+        int asignacionesCreadas,
+        int horasCubiertas,
+        int horasSinCubrir,
+        Duration tiempoResolucion
+    ) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.mercadona.planificacion.application.port;
+
+import com.mercadona.asignacion.application.port.SolicitudAsignacion;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Propuesta para cerrar los huecos de cobertura de una tienda. Las horas faltantes son las del
+ * informe de cobertura en el momento del cálculo; las sin cubrir, las que ni siquiera repartiendo
+ * todas las horas libres de la plantilla se pueden cubrir.
+ */
+public record PropuestaCoberturaTienda(
+    String codigoTienda,
+    String nombreTienda,
+    int horasFaltantes,
+    int horasCubiertas,
+    int horasSinCubrir,
+    List<SolicitudAsignacion> solicitudes,
+    Duration tiempoResolucion
+) {
+}
@@ -0,0 +1,28 @@
+package com.mercadona.planificacion.application.port;
+
+import com.mercadona.reporte.infrastructure.controller.dto.CoberturaHorasDto;
+import com.mercadona.reporte.infrastructure.controller.dto.EstadoTiendaDto;
+
+import java.util.List;
+
+/**
+ * Informes de la tienda tal como quedarían tras aplicar las operaciones aceptadas, con una entrada
+ * por operación y en el mismo orden: si se ha aplicado o el motivo por el que se ha rechazado.
+ */
+public record ResultadoSimulacion(
+    EstadoTiendaDto estado,
+    CoberturaHorasDto cobertura,
+    List<ResultadoOperacion> operaciones
+) {
+
+    public long aplicadas() {
+        return operaciones.stream().filter(ResultadoOperacion::aplicada).count();
+    }
+
+    public long rechazadas() {
+        return operaciones.size() - aplicadas();
+    }
+
+    public record ResultadoOperacion(int indice, OperacionSimulada operacion, boolean aplicada, String error) {
+    }
+}
@@ -0,0 +1,102 @@
+package com.mercadona.planificacion.application.service;
+
+import com.mercadona.planificacion.application.port.PropuestaCoberturaTienda;
+import com.mercadona.planificacion.application.port.ProgresoPlanificacionCadena;
+import com.mercadona.planificacion.application.port.ProgresoPlanificacionCadena.Estado;
+import com.mercadona.planificacion.application.port.ProgresoPlanificacionCadena.ResultadoTienda;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estado mutable de una planificación de la cadena. Solo lo modifica el hilo coordinador; los
+ * campos son atómicos o volátiles para que las consultas de progreso desde otros hilos vean
+ * valores actuales.
+ */
+class EjecucionPlanificacionCadena {
+
+    private final String id = UUID.randomUUID().toString();
+    private final boolean aplicar;
+    private final Instant inicio = Instant.now();
+    private final long inicioNanos = System.nanoTime();
+    private volatile Instant fin;
+    private volatile long finNanos;
+    private volatile Estado estado = Estado.EN_CURSO;
+    private volatile int tiendasTotales;
+    private volatile String error;
+
+    private final AtomicInteger tiendasResueltas = new AtomicInteger();
+    private final AtomicInteger asignacionesPropuestas = new AtomicInteger();
+    private final AtomicInteger asignacionesCreadas = new AtomicInteger();
+    private final AtomicInteger asignacionesRechazadas = new AtomicInteger();
+    private final AtomicInteger horasCubiertas = new AtomicInteger();
+    private final AtomicInteger horasSinCubrir = new AtomicInteger();
+    private final AtomicLong nanosResolucion = new AtomicLong();
+    private final ConcurrentLinkedQueue<ResultadoTienda> tiendas = new ConcurrentLinkedQueue<>();
+
+    EjecucionPlanificacionCadena(boolean aplicar) {
+        this.aplicar = aplicar;
+    }
+
+    boolean aplicar() {
+        return aplicar;
+    }
+
+    boolean enCurso() {
+        return estado == Estado.EN_CURSO;
+    }
+
+    void tiendasTotales(int tiendasTotales) {
+        this.tiendasTotales = tiendasTotales;
+    }
+
+    void registrar(PropuestaCoberturaTienda propuesta, int trabajadores, int creadas) {
+        tiendas.add(new ResultadoTienda(propuesta.codigoTienda(), trabajadores, propuesta.solicitudes().size(),
+            creadas, propuesta.horasCubiertas(), propuesta.horasSinCubrir(), propuesta.tiempoResolucion()));
+        asignacionesPropuestas.addAndGet(propuesta.solicitudes().size());
+        asignacionesCreadas.addAndGet(creadas);
+        horasCubiertas.addAndGet(propuesta.horasCubiertas());
+        horasSinCubrir.addAndGet(propuesta.horasSinCubrir());
+        nanosResolucion.addAndGet(propuesta.tiempoResolucion().toNanos());
+        tiendasResueltas.incrementAndGet();
+    }
+
+    void rechazadas(int rechazadas) {
+        asignacionesRechazadas.addAndGet(rechazadas);
+    }
+
+    void completar() {
+        terminar(Estado.COMPLETADA);
+    }
+
+    void fallar(Throwable causa) {
+        this.error = causa.getMessage();
+        terminar(Estado.FALLIDA);
+    }
+
+    private void terminar(Estado estadoFinal) {
+        this.finNanos = System.nanoTime();
+        this.fin = Instant.now();
+        this.estado = estadoFinal;
+    }
+
+    Duration duracion() {
+        return Duration.ofNanos((fin != null ? finNanos : System.nanoTime()) - inicioNanos);
+    }
+
+    ProgresoPlanificacionCadena progreso() {
+        Duration duracion = duracion();
+        double segundos = Math.max(duracion.toNanos(), 1) / 1_000_000_000.0;
+        int resueltas = tiendasResueltas.get();
+        int asignaciones = aplicar ? asignacionesCreadas.get() : asignacionesPropuestas.get();
+        return new ProgresoPlanificacionCadena(id, estado, aplicar, inicio, fin, tiendasTotales, resueltas,
+            asignacionesPropuestas.get(), asignacionesCreadas.get(), asignacionesRechazadas.get(),
+            horasCubiertas.get(), horasSinCubrir.get(), duracion, Duration.ofNanos(nanosResolucion.get()),
+            resueltas / segundos, asignaciones / segundos, List.copyOf(tiendas), error);
+    }
+}
@@ -0,0 +1,206 @@
+package com.mercadona.planificacion.application.service;
+
+import com.mercadona.asignacion.application.port.AsignacionService;
+import com.mercadona.asignacion.application.port.ResultadoLoteAsignaciones;
+import com.mercadona.asignacion.application.port.SolicitudAsignacion;
+import com.mercadona.asignacion.application.service.BloqueoNoDisponibleException;
+import com.mercadona.asignacion.domain.Asignacion;
+import com.mercadona.asignacion.infrastructure.repository.AsignacionRepository;
+import com.mercadona.planificacion.application.port.PlanificacionCadenaService;
+import com.mercadona.planificacion.application.port.ProgresoPlanificacionCadena;
+import com.mercadona.planificacion.application.port.PropuestaCoberturaTienda;
+import com.mercadona.tienda.domain.Tienda;
+import com.mercadona.tienda.infrastructure.repository.TiendaRepository;
+import com.mercadona.trabajador.domain.Trabajador;
+import com.mercadona.trabajador.infrastructure.repository.TrabajadorRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Planificación de la cobertura de todas las tiendas de la cadena.
+ * <p>
+ * Las tiendas se recorren por lotes. De cada lote se cargan la plantilla y las asignaciones con
+ * una consulta por tabla para todas sus tiendas, se calcula la propuesta de cada tienda en
+ * paralelo en {@code planificacionPool} (los datos ya están en memoria y cada tienda es
+ * independiente) y, si la ejecución aplica, las propuestas del lote se confirman con el alta en
+ * lote en transacciones de como mucho {@code asignaciones-por-transaccion} asignaciones. Así
+ * cada alta se vuelve a validar con los bloqueos y versiones de siempre y escribe sus eventos.
+ */
+@Service
+public class PlanificacionCadenaServiceImpl implements PlanificacionCadenaService {
+
+    private static final Logger log = LoggerFactory.getLogger(PlanificacionCadenaServiceImpl.class);
+
+    private final TiendaRepository tiendaRepository;
+    private final TrabajadorRepository trabajadorRepository;
+    private final AsignacionRepository asignacionRepository;
+    private final AsignacionService asignacionService;
+    private final Executor coordinador;
+    private final ForkJoinPool pool;
+    private final int tiendasPorLote;
+    private final int asignacionesPorTransaccion;
+    private final Timer tiempoResolucion;
+    private final Timer duracionCadena;
+    private final AtomicReference<EjecucionPlanificacionCadena> ultima = new AtomicReference<>();
+
+    public PlanificacionCadenaServiceImpl(TiendaRepository tiendaRepository,
+                                          TrabajadorRepository trabajadorRepository,
+                                          AsignacionRepository asignacionRepository,
+                                          AsignacionService asignacionService,
+                                          @Qualifier("planificacionCadenaExecutor") Executor coordinador,
+                                          @Qualifier("planificacionPool") ForkJoinPool pool,
+                                          @Value("${planificacion.cadena.tiendas-por-lote:100}") int tiendasPorLote,
+                                          @Value("${planificacion.cadena.asignaciones-por-transaccion:500}") int asignacionesPorTransaccion,
+                                          MeterRegistry meterRegistry) {
+        this.tiendaRepository = tiendaRepository;
+        this.trabajadorRepository = trabajadorRepository;
+        this.asignacionRepository = asignacionRepository;
+        this.asignacionService = asignacionService;
+        this.coordinador = coordinador;
+        this.pool = pool;
+        this.tiendasPorLote = tiendasPorLote;
+        this.asignacionesPorTransaccion = asignacionesPorTransaccion;
+        this.tiempoResolucion = Timer.builder("planning.coverage.solve")
+            .description("Tiempo de cálculo de la propuesta de cobertura de una tienda, sin la carga de datos")
+            .register(meterRegistry);
+        this.duracionCadena = Timer.builder("planning.chain.duration")
+            .description("Duración de una planificación de toda la cadena")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Optional<ProgresoPlanificacionCadena> iniciar(boolean aplicar) {
+        EjecucionPlanificacionCadena actual = ultima.get();
+        if (actual != null && actual.enCurso()) {
+            return Optional.empty();
+        }
+        EjecucionPlanificacionCadena nueva = new EjecucionPlanificacionCadena(aplicar);
+        if (!ultima.compareAndSet(actual, nueva)) {
+            return Optional.empty();
+        }
+        try {
+            coordinador.execute(() -> ejecutar(nueva));
+        } catch (TaskRejectedException e) {
+            nueva.fallar(e);
+        }
+        return Optional.of(nueva.progreso());
+    }
+
+    @Override
+    public Optional<ProgresoPlanificacionCadena> ultimaEjecucion() {
+        return Optional.ofNullable(ultima.get()).map(EjecucionPlanificacionCadena::progreso);
+    }
+
+    void ejecutar(EjecucionPlanificacionCadena ejecucion) {
+        try {
+            ejecucion.tiendasTotales((int) tiendaRepository.count());
+            Slice<Tienda> lote;
+            int pagina = 0;
+            do {
+                lote = tiendaRepository.findAll(PageRequest.of(pagina++, tiendasPorLote, Sort.by("id")));
+                planificarLote(ejecucion, lote.getContent());
+            } while (lote.hasNext());
+            ejecucion.completar();
+        } catch (RuntimeException e) {
+            log.error("La planificación de la cadena ha fallado", e);
+            ejecucion.fallar(e);
+        } catch (Error e) {
+            // Se marca como fallida para que no quede en curso impidiendo nuevas ejecuciones
+            log.error("La planificación de la cadena ha fallado", e);
+            ejecucion.fallar(e);
+            throw e;
+        }
+        duracionCadena.record(ejecucion.duracion());
+
+        ProgresoPlanificacionCadena progreso = ejecucion.progreso();
+        log.info("Planificación de la cadena {}: {} tiendas en {} ms ({} tiendas/s), {} asignaciones propuestas, " +
+                "{} creadas, {} rechazadas, {} h cubiertas, {} h sin cubrir",
+            progreso.estado(), progreso.tiendasResueltas(), progreso.duracion().toMillis(),
+            String.format("%.1f", progreso.tiendasPorSegundo()), progreso.asignacionesPropuestas(),
+            progreso.asignacionesCreadas(), progreso.asignacionesRechazadas(), progreso.horasCubiertas(),
+            progreso.horasSinCubrir());
+    }
+
+    private void planificarLote(EjecucionPlanificacionCadena ejecucion, List<Tienda> tiendas) {
+        if (tiendas.isEmpty()) {
+            return;
+        }
+        List<Long> ids = tiendas.stream().map(Tienda::getId).toList();
+        Map<Long, List<Trabajador>> plantillas = trabajadorRepository.findByTiendaIdIn(ids).stream()
+            .collect(Collectors.groupingBy(trabajador -> trabajador.getTienda().getId()));
+        Map<Long, List<Asignacion>> asignaciones = asignacionRepository.findConDetallesByTiendaIdIn(ids).stream()
+            .collect(Collectors.groupingBy(asignacion -> asignacion.getTrabajador().getTienda().getId()));
+
+        List<ForkJoinTask<PropuestaCoberturaTienda>> tareas = tiendas.stream()
+            .map(tienda -> pool.submit(() -> PropuestasCobertura.proponer(tienda,
+                plantillas.getOrDefault(tienda.getId(), List.of()),
+                asignaciones.getOrDefault(tienda.getId(), List.of()))))
+            .toList();
+        List<PropuestaCoberturaTienda> propuestas = tareas.stream().map(ForkJoinTask::join).toList();
+        propuestas.forEach(propuesta -> tiempoResolucion.record(propuesta.tiempoResolucion()));
+
+        Map<String, Integer> creadasPorTienda = ejecucion.aplicar() ? confirmar(ejecucion, propuestas) : Map.of();
+        for (int i = 0; i < tiendas.size(); i++) {
+            PropuestaCoberturaTienda propuesta = propuestas.get(i);
+            ejecucion.registrar(propuesta,
+                plantillas.getOrDefault(tiendas.get(i).getId(), List.of()).size(),
+                creadasPorTienda.getOrDefault(propuesta.codigoTienda(), 0));
+        }
+    }
+
+    /**
+     * Confirma las propuestas del lote y devuelve cuántas asignaciones se han creado en cada tienda
+     */
+    private Map<String, Integer> confirmar(EjecucionPlanificacionCadena ejecucion, List<PropuestaCoberturaTienda> propuestas) {
+        Map<String, String> tiendaPorDni = new HashMap<>();
+        List<SolicitudAsignacion> solicitudes = new ArrayList<>();
+        for (PropuestaCoberturaTienda propuesta : propuestas) {
+            for (SolicitudAsignacion solicitud : propuesta.solicitudes()) {
+                tiendaPorDni.put(solicitud.dniTrabajador(), propuesta.codigoTienda());
+                solicitudes.add(solicitud);
+            }
+        }
+
+        Map<String, Integer> creadas = new HashMap<>();
+        for (int desde = 0; desde < solicitudes.size(); desde += asignacionesPorTransaccion) {
+            List<SolicitudAsignacion> transaccion = solicitudes.subList(desde,
+                Math.min(desde + asignacionesPorTransaccion, solicitudes.size()));
+            try {
+                ResultadoLoteAsignaciones resultado = asignacionService.crearAsignacionesEnLote(transaccion);
+                for (ResultadoLoteAsignaciones.Resultado item : resultado.resultados()) {
+                    if (item.creada()) {
+                        creadas.merge(tiendaPorDni.get(item.solicitud().dniTrabajador()), 1, Integer::sum);
+                    }
+                }
+                ejecucion.rechazadas((int) resultado.rechazadas());
+            } catch (DataAccessException | BloqueoNoDisponibleException e) {
+                // Fallo pasajero de esta transacción: se cuenta como rechazada y se sigue con el resto
+                log.warn("No se pudo confirmar un lote de {} asignaciones de la planificación: {}",
+                    transaccion.size(), e.getMessage());
+                ejecucion.rechazadas(transaccion.size());
+            }
+        }
+        return creadas;
+    }
+}
@@ -0,0 +1,105 @@
+package com.mercadona.planificacion.application.service;
+
+import com.mercadona.asignacion.domain.Asignacion;
+import com.mercadona.asignacion.infrastructure.repository.AsignacionRepository;
+import com.mercadona.planificacion.application.port.OperacionSimulada;
+import com.mercadona.planificacion.application.port.PlanificacionService;
+import com.mercadona.planificacion.application.port.PropuestaCoberturaTienda;
+import com.mercadona.planificacion.application.port.ResultadoSimulacion;
+import com.mercadona.planificacion.domain.SimulacionTienda;
+import com.mercadona.reporte.application.service.InformesTienda;
+import com.mercadona.tienda.domain.Tienda;
+import com.mercadona.tienda.infrastructure.repository.SeccionRepository;
+import com.mercadona.tienda.infrastructure.repository.TiendaRepository;
+import com.mercadona.trabajador.domain.Trabajador;
+import com.mercadona.trabajador.infrastructure.repository.TrabajadorRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Carga la tienda con tres consultas (tienda, plantilla y asignaciones con sus detalles) y calcula
+ * su propuesta con {@link PropuestasCobertura}. La simulación carga además las secciones y aplica
+ * las operaciones sobre una {@link SimulacionTienda}, sin más accesos a datos.
+ */
+@Service
+public class PlanificacionServiceImpl implements PlanificacionService {
+
+    private final TiendaRepository tiendaRepository;
+    private final TrabajadorRepository trabajadorRepository;
+    private final AsignacionRepository asignacionRepository;
+    private final SeccionRepository seccionRepository;
+    private final Timer tiempoResolucion;
+
+    public PlanificacionServiceImpl(TiendaRepository tiendaRepository,
+                                    TrabajadorRepository trabajadorRepository,
+                                    AsignacionRepository asignacionRepository,
+                                    SeccionRepository seccionRepository,
+                                    MeterRegistry meterRegistry) {
+        this.tiendaRepository = tiendaRepository;
+        this.trabajadorRepository = trabajadorRepository;
+        this.asignacionRepository = asignacionRepository;
+        this.seccionRepository = seccionRepository;
+        this.tiempoResolucion = Timer.builder("planning.coverage.solve")
+            .description("Tiempo de cálculo de la propuesta de cobertura de una tienda, sin la carga de datos")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public PropuestaCoberturaTienda proponerCobertura(String codigoTienda) {
+        Tienda tienda = buscarTienda(codigoTienda);
+        List<Trabajador> plantilla = trabajadorRepository.findByTienda(tienda);
+        List<Asignacion> asignaciones = asignacionRepository.findConDetallesByTiendaId(tienda.getId());
+
+        PropuestaCoberturaTienda propuesta = PropuestasCobertura.proponer(tienda, plantilla, asignaciones);
+        tiempoResolucion.record(propuesta.tiempoResolucion());
+        return propuesta;
+    }
+
+    @Override
+    public ResultadoSimulacion simular(String codigoTienda, List<OperacionSimulada> operaciones) {
+        Tienda tienda = buscarTienda(codigoTienda);
+        SimulacionTienda simulacion = new SimulacionTienda(tienda.getCodigo(),
+            trabajadorRepository.findByTienda(tienda),
+            seccionRepository.findAll(),
+            asignacionRepository.findConDetallesByTiendaId(tienda.getId()));
+
+        List<ResultadoSimulacion.ResultadoOperacion> resultados = new ArrayList<>(operaciones.size());
+        for (int indice = 0; indice < operaciones.size(); indice++) {
+            OperacionSimulada operacion = operaciones.get(indice);
+            try {
+                aplicar(simulacion, operacion);
+                resultados.add(new ResultadoSimulacion.ResultadoOperacion(indice, operacion, true, null));
+            } catch (IllegalArgumentException e) {
+                resultados.add(new ResultadoSimulacion.ResultadoOperacion(indice, operacion, false, e.getMessage()));
+            }
+        }
+
+        // Sin consultar la API externa: la simulación compara escenarios, no necesita la dirección
+        String direccion = tienda.getDireccion() != null ? tienda.getDireccion() : InformesTienda.DIRECCION_NO_DISPONIBLE;
+        List<Asignacion> asignaciones = simulacion.asignaciones();
+        return new ResultadoSimulacion(
+            InformesTienda.estado(tienda, direccion, asignaciones),
+            InformesTienda.cobertura(tienda, direccion, asignaciones),
+            resultados);
+    }
+
+    private static void aplicar(SimulacionTienda simulacion, OperacionSimulada operacion) {
+        if (operacion == null || operacion.tipo() == null) {
+            throw new IllegalArgumentException("El tipo de operación es obligatorio: CREAR, ACTUALIZAR o ELIMINAR");
+        }
+        switch (operacion.tipo()) {
+            case CREAR -> simulacion.crear(operacion.dniTrabajador(), operacion.nombreSeccion(), operacion.horas());
+            case ACTUALIZAR -> simulacion.actualizar(operacion.dniTrabajador(), operacion.nombreSeccion(), operacion.horas());
+            case ELIMINAR -> simulacion.eliminar(operacion.dniTrabajador(), operacion.nombreSeccion());
+        }
+    }
+
+    private Tienda buscarTienda(String codigoTienda) {
+        return tiendaRepository.findByCodigo(codigoTienda)
+            .orElseThrow(() -> new IllegalArgumentException("No se encontró la tienda con código: " + codigoTienda));
+    }
+}
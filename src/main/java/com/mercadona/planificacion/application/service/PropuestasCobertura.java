@@ -0,0 +1,81 @@
+package com.mercadona.planificacion.application.service;
+
+import com.mercadona.asignacion.application.port.SolicitudAsignacion;
+import com.mercadona.asignacion.domain.Asignacion;
+import com.mercadona.planificacion.application.port.PropuestaCoberturaTienda;
+import com.mercadona.planificacion.domain.PropuestaCobertura;
+import com.mercadona.planificacion.domain.ResolutorCobertura;
+import com.mercadona.reporte.application.service.InformesTienda;
+import com.mercadona.reporte.infrastructure.controller.dto.SeccionCoberturaDto;
+import com.mercadona.tienda.domain.Tienda;
+import com.mercadona.trabajador.domain.Trabajador;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Propuesta de cobertura de una tienda ya cargada en memoria: pasa las horas libres de cada
+ * trabajador y las faltantes de cada sección incompleta a arrays y los resuelve con
+ * {@link ResolutorCobertura}. No accede a datos, así que se puede ejecutar en paralelo para
+ * tiendas distintas.
+ */
+final class PropuestasCobertura {
+
+    private PropuestasCobertura() {
+    }
+
+    /**
+     * @param plantilla    trabajadores de la tienda
+     * @param asignaciones asignaciones de esos trabajadores, con trabajador y sección cargados
+     */
+    static PropuestaCoberturaTienda proponer(Tienda tienda, List<Trabajador> plantilla, List<Asignacion> asignaciones) {
+        long inicio = System.nanoTime();
+        List<SeccionCoberturaDto> incompletas = InformesTienda.seccionesIncompletas(asignaciones);
+
+        Map<String, Integer> indiceTrabajador = new HashMap<>(plantilla.size() * 2);
+        int[] horasLibres = new int[plantilla.size()];
+        for (int i = 0; i < plantilla.size(); i++) {
+            indiceTrabajador.put(plantilla.get(i).getDni(), i);
+            horasLibres[i] = plantilla.get(i).getHorasDisponibles();
+        }
+        Map<String, Integer> indiceSeccion = new HashMap<>();
+        int[] horasFaltantes = new int[incompletas.size()];
+        for (int j = 0; j < incompletas.size(); j++) {
+            indiceSeccion.put(incompletas.get(j).nombreSeccion(), j);
+            horasFaltantes[j] = incompletas.get(j).horasFaltantes();
+        }
+
+        boolean[] yaAsignada = new boolean[plantilla.size() * incompletas.size()];
+        for (Asignacion asignacion : asignaciones) {
+            Integer trabajador = indiceTrabajador.get(asignacion.getTrabajador().getDni());
+            if (trabajador == null) {
+                continue;
+            }
+            horasLibres[trabajador] -= asignacion.getHorasAsignadas();
+            Integer seccion = indiceSeccion.get(asignacion.getSeccion().getNombre());
+            if (seccion != null) {
+                yaAsignada[trabajador * incompletas.size() + seccion] = true;
+            }
+        }
+        for (int i = 0; i < horasLibres.length; i++) {
+            horasLibres[i] = Math.max(0, horasLibres[i]);
+        }
+
+        PropuestaCobertura propuesta = ResolutorCobertura.resolver(horasLibres, horasFaltantes, yaAsignada);
+        List<SolicitudAsignacion> solicitudes = new ArrayList<>(propuesta.asignaciones());
+        for (int i = 0; i < propuesta.asignaciones(); i++) {
+            solicitudes.add(new SolicitudAsignacion(
+                plantilla.get(propuesta.trabajador()[i]).getDni(),
+                incompletas.get(propuesta.seccion()[i]).nombreSeccion(),
+                propuesta.horas()[i]));
+        }
+
+        int totalFaltantes = propuesta.horasCubiertas() + propuesta.horasSinCubrir();
+        return new PropuestaCoberturaTienda(tienda.getCodigo(), tienda.getNombre(), totalFaltantes,
+            propuesta.horasCubiertas(), propuesta.horasSinCubrir(), solicitudes,
+            Duration.ofNanos(System.nanoTime() - inicio));
+    }
+}
@@ -0,0 +1,19 @@
+package com.mercadona.planificacion.domain;
+
+/**
+ * Asignaciones nuevas propuestas por {@link ResolutorCobertura}, en arrays paralelos: la i-ésima
+ * asigna {@code horas[i]} horas al trabajador {@code trabajador[i]} en la sección {@code seccion[i]}
+ * (posiciones en los arrays de entrada del resolutor).
+ */
+public record PropuestaCobertura(
+    int[] trabajador,
+    int[] seccion,
+    int[] horas,
+    int horasCubiertas,
+    int horasSinCubrir
+) {
+
+    public int asignaciones() {
+        return horas.length;
+    }
+}
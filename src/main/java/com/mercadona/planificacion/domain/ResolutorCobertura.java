@@ -0,0 +1,207 @@
+package com.mercadona.planificacion.domain;
+
+import com.mercadona.asignacion.domain.ReglasAsignacion;
+
+import java.util.Arrays;
+
+/**
+ * Reparto de las horas libres de los trabajadores de una tienda entre las secciones a las que les
+ * faltan horas, como un flujo máximo en el grafo bipartito trabajador → sección: cada trabajador
+ * aporta como mucho sus horas libres, cada sección recibe como mucho las que le faltan y cada par
+ * trabajador-sección que aún no tiene asignación admite una nueva de hasta
+ * {@link ReglasAsignacion#HORAS_MAXIMAS} horas. Los pares que ya tienen asignación no se usan,
+ * porque el alta no permite duplicarlas.
+ * <p>
+ * Primero se hace un reparto voraz (las secciones con más horas pendientes primero, cubiertas por
+ * los trabajadores con más horas libres, para que salgan pocas asignaciones y grandes) y después
+ * se completa con caminos de aumento en el grafo residual hasta que no queda ninguno, de modo que
+ * las horas cubiertas son siempre el máximo posible.
+ * <p>
+ * Todo el estado vive en arrays de enteros indexados por posición; el flujo de cada par se guarda
+ * en {@code horas[trabajador * secciones + seccion]}. Con las cinco secciones del sistema y las
+ * pocas decenas de horas pendientes por tienda, una tienda de cientos de trabajadores se resuelve
+ * en microsegundos.
+ */
+public final class ResolutorCobertura {
+
+    private static final int FUENTE = -2;
+    private static final int SIN_VISITAR = -1;
+
+    private final int trabajadores;
+    private final int secciones;
+    private final int[] libres;
+    private final int[] faltantes;
+    private final boolean[] yaAsignada;
+    private final int[] horas;
+
+    private ResolutorCobertura(int[] horasLibres, int[] horasFaltantes, boolean[] yaAsignada) {
+        this.trabajadores = horasLibres.length;
+        this.secciones = horasFaltantes.length;
+        if (yaAsignada.length != trabajadores * secciones) {
+            throw new IllegalArgumentException("Se esperaba una marca por par trabajador-sección: "
+                + trabajadores * secciones + ", recibidas: " + yaAsignada.length);
+        }
+        this.libres = horasLibres.clone();
+        this.faltantes = horasFaltantes.clone();
+        this.yaAsignada = yaAsignada;
+        this.horas = new int[trabajadores * secciones];
+    }
+
+    /**
+     * @param horasLibres    horas que aún puede trabajar cada trabajador
+     * @param horasFaltantes horas que le faltan a cada sección para estar cubierta
+     * @param yaAsignada     {@code true} en {@code [trabajador * secciones + seccion]} si el par ya tiene asignación
+     */
+    public static PropuestaCobertura resolver(int[] horasLibres, int[] horasFaltantes, boolean[] yaAsignada) {
+        ResolutorCobertura resolutor = new ResolutorCobertura(horasLibres, horasFaltantes, yaAsignada);
+        resolutor.repartoVoraz();
+        while (resolutor.aumentar()) {
+            // Cada camino de aumento cubre al menos una hora más
+        }
+        return resolutor.propuesta();
+    }
+
+    private void repartoVoraz() {
+        for (int seccion : ordenDescendente(faltantes)) {
+            for (int trabajador : ordenDescendente(libres)) {
+                if (faltantes[seccion] == 0) {
+                    break;
+                }
+                int par = trabajador * secciones + seccion;
+                if (libres[trabajador] > 0 && !yaAsignada[par]) {
+                    mover(par, trabajador, seccion, Math.min(Math.min(libres[trabajador], faltantes[seccion]), capacidad(par)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Busca en anchura un camino fuente → trabajador → sección (→ trabajador → sección …) → sumidero
+     * en el grafo residual y, si existe, lo satura. Volver de una sección a un trabajador significa
+     * quitarle horas que ya tenía en esa sección para que las cubra otro.
+     */
+    private boolean aumentar() {
+        int nodos = trabajadores + secciones;
+        int[] previo = new int[nodos];
+        Arrays.fill(previo, SIN_VISITAR);
+        int[] cola = new int[nodos];
+        int cabeza = 0;
+        int fin = 0;
+        for (int trabajador = 0; trabajador < trabajadores; trabajador++) {
+            if (libres[trabajador] > 0) {
+                previo[trabajador] = FUENTE;
+                cola[fin++] = trabajador;
+            }
+        }
+
+        int destino = SIN_VISITAR;
+        while (cabeza < fin && destino == SIN_VISITAR) {
+            int nodo = cola[cabeza++];
+            if (nodo < trabajadores) {
+                for (int seccion = 0; seccion < secciones; seccion++) {
+                    int par = nodo * secciones + seccion;
+                    if (previo[trabajadores + seccion] == SIN_VISITAR && capacidad(par) > 0) {
+                        previo[trabajadores + seccion] = nodo;
+                        if (faltantes[seccion] > 0) {
+                            destino = seccion;
+                            break;
+                        }
+                        cola[fin++] = trabajadores + seccion;
+                    }
+                }
+            } else {
+                int seccion = nodo - trabajadores;
+                for (int trabajador = 0; trabajador < trabajadores; trabajador++) {
+                    if (previo[trabajador] == SIN_VISITAR && horas[trabajador * secciones + seccion] > 0) {
+                        previo[trabajador] = nodo;
+                        cola[fin++] = trabajador;
+                    }
+                }
+            }
+        }
+        if (destino == SIN_VISITAR) {
+            return false;
+        }
+
+        int cuello = faltantes[destino];
+        int nodo = trabajadores + destino;
+        while (true) {
+            int trabajador = previo[nodo];
+            cuello = Math.min(cuello, capacidad(trabajador * secciones + nodo - trabajadores));
+            if (previo[trabajador] == FUENTE) {
+                cuello = Math.min(cuello, libres[trabajador]);
+                break;
+            }
+            nodo = previo[trabajador];
+            cuello = Math.min(cuello, horas[trabajador * secciones + nodo - trabajadores]);
+        }
+
+        faltantes[destino] -= cuello;
+        nodo = trabajadores + destino;
+        while (true) {
+            int trabajador = previo[nodo];
+            horas[trabajador * secciones + nodo - trabajadores] += cuello;
+            if (previo[trabajador] == FUENTE) {
+                libres[trabajador] -= cuello;
+                return true;
+            }
+            nodo = previo[trabajador];
+            horas[trabajador * secciones + nodo - trabajadores] -= cuello;
+        }
+    }
+
+    private int capacidad(int par) {
+        return yaAsignada[par] ? 0 : ReglasAsignacion.HORAS_MAXIMAS - horas[par];
+    }
+
+    private void mover(int par, int trabajador, int seccion, int cantidad) {
+        horas[par] += cantidad;
+        libres[trabajador] -= cantidad;
+        faltantes[seccion] -= cantidad;
+    }
+
+    private PropuestaCobertura propuesta() {
+        int total = 0;
+        for (int par = 0; par < horas.length; par++) {
+            if (horas[par] > 0) {
+                total++;
+            }
+        }
+        int[] trabajador = new int[total];
+        int[] seccion = new int[total];
+        int[] horasPropuestas = new int[total];
+        int horasCubiertas = 0;
+        int i = 0;
+        for (int par = 0; par < horas.length; par++) {
+            if (horas[par] > 0) {
+                trabajador[i] = par / secciones;
+                seccion[i] = par % secciones;
+                horasPropuestas[i] = horas[par];
+                horasCubiertas += horas[par];
+                i++;
+            }
+        }
+        int horasSinCubrir = 0;
+        for (int pendientes : faltantes) {
+            horasSinCubrir += pendientes;
+        }
+        return new PropuestaCobertura(trabajador, seccion, horasPropuestas, horasCubiertas, horasSinCubrir);
+    }
+
+    /**
+     * Índices ordenados de mayor a menor valor y, a igualdad, por índice. Se ordena una clave
+     * {@code long} con el valor invertido en la parte alta para no crear objetos.
+     */
+    private static int[] ordenDescendente(int[] valores) {
+        long[] claves = new long[valores.length];
+        for (int i = 0; i < valores.length; i++) {
+            claves[i] = ((long) (Integer.MAX_VALUE - valores[i]) << 32) | i;
+        }
+        Arrays.sort(claves);
+        int[] orden = new int[valores.length];
+        for (int i = 0; i < claves.length; i++) {
+            orden[i] = (int) claves[i];
+        }
+        return orden;
+    }
+}
@@ -0,0 +1,135 @@
+package com.mercadona.planificacion.domain;
+
+import com.mercadona.asignacion.domain.Asignacion;
+import com.mercadona.asignacion.domain.ReglasAsignacion;
+import com.mercadona.tienda.domain.Seccion;
+import com.mercadona.trabajador.domain.Trabajador;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copia en memoria de la plantilla, las secciones y las asignaciones de una tienda sobre la que se
+ * aplican altas, cambios de horas y bajas hipotéticos con las mismas reglas y mensajes que
+ * {@code AsignacionServiceImpl}. Las asignaciones cargadas se copian, así que nada de lo que se
+ * haga aquí llega a las entidades gestionadas ni a la base de datos.
+ * <p>
+ * Solo se admiten trabajadores de la propia tienda: el límite de horas de cada sección se cuenta
+ * por tienda y las asignaciones de otra tienda no aparecerían en sus informes.
+ */
+public class SimulacionTienda {
+
+    private final String codigoTienda;
+    private final Map<String, Trabajador> trabajadores = new HashMap<>();
+    private final Map<String, Seccion> secciones = new HashMap<>();
+    private final Map<Clave, Asignacion> asignaciones = new LinkedHashMap<>();
+    private final Map<String, Integer> horasPorTrabajador = new HashMap<>();
+    private final Map<String, Integer> horasPorSeccion = new HashMap<>();
+
+    /**
+     * @param plantilla    trabajadores de la tienda
+     * @param secciones    secciones del sistema
+     * @param asignaciones asignaciones de la tienda, con trabajador y sección cargados
+     */
+    public SimulacionTienda(String codigoTienda, List<Trabajador> plantilla, List<Seccion> secciones,
+                            List<Asignacion> asignaciones) {
+        this.codigoTienda = codigoTienda;
+        plantilla.forEach(trabajador -> trabajadores.put(trabajador.getDni(), trabajador));
+        secciones.forEach(seccion -> this.secciones.put(seccion.getNombre(), seccion));
+        for (Asignacion asignacion : asignaciones) {
+            anadir(new Asignacion(asignacion.getTrabajador(), asignacion.getSeccion(), asignacion.getHorasAsignadas()));
+        }
+    }
+
+    public void crear(String dniTrabajador, String nombreSeccion, int horasAsignadas) {
+        ReglasAsignacion.validarHoras(horasAsignadas);
+        Trabajador trabajador = buscarTrabajador(dniTrabajador);
+        Seccion seccion = buscarSeccion(nombreSeccion);
+
+        ReglasAsignacion.validarAsignacionUnica(
+            asignaciones.containsKey(new Clave(dniTrabajador, nombreSeccion)), trabajador, seccion);
+        ReglasAsignacion.validarHorasDisponibles(trabajador, horasTrabajador(dniTrabajador), horasAsignadas);
+        ReglasAsignacion.validarLimiteSeccion(seccion, horasSeccion(nombreSeccion), horasAsignadas);
+
+        anadir(new Asignacion(trabajador, seccion, horasAsignadas));
+    }
+
+    public void actualizar(String dniTrabajador, String nombreSeccion, int nuevasHoras) {
+        ReglasAsignacion.validarHoras(nuevasHoras);
+        Trabajador trabajador = buscarTrabajador(dniTrabajador);
+        buscarSeccion(nombreSeccion);
+        Asignacion asignacion = buscarAsignacion(dniTrabajador, nombreSeccion);
+
+        int horasAnteriores = asignacion.getHorasAsignadas();
+        ReglasAsignacion.validarCambioHoras(trabajador, horasTrabajador(dniTrabajador) - horasAnteriores, nuevasHoras);
+
+        asignacion.setHorasAsignadas(nuevasHoras);
+        horasPorTrabajador.merge(dniTrabajador, nuevasHoras - horasAnteriores, Integer::sum);
+        horasPorSeccion.merge(nombreSeccion, nuevasHoras - horasAnteriores, Integer::sum);
+    }
+
+    public void eliminar(String dniTrabajador, String nombreSeccion) {
+        buscarTrabajador(dniTrabajador);
+        buscarSeccion(nombreSeccion);
+        Asignacion asignacion = buscarAsignacion(dniTrabajador, nombreSeccion);
+
+        asignaciones.remove(new Clave(dniTrabajador, nombreSeccion));
+        horasPorTrabajador.merge(dniTrabajador, -asignacion.getHorasAsignadas(), Integer::sum);
+        horasPorSeccion.merge(nombreSeccion, -asignacion.getHorasAsignadas(), Integer::sum);
+    }
+
+    /**
+     * Asignaciones de la tienda tras las operaciones aplicadas, en orden de carga y después de alta
+     */
+    public List<Asignacion> asignaciones() {
+        return new ArrayList<>(asignaciones.values());
+    }
+
+    private void anadir(Asignacion asignacion) {
+        String dni = asignacion.getTrabajador().getDni();
+        String nombreSeccion = asignacion.getSeccion().getNombre();
+        asignaciones.put(new Clave(dni, nombreSeccion), asignacion);
+        horasPorTrabajador.merge(dni, asignacion.getHorasAsignadas(), Integer::sum);
+        horasPorSeccion.merge(nombreSeccion, asignacion.getHorasAsignadas(), Integer::sum);
+    }
+
+    private Trabajador buscarTrabajador(String dni) {
+        Trabajador trabajador = trabajadores.get(dni);
+        if (trabajador == null) {
+            throw new IllegalArgumentException(
+                ReglasAsignacion.mensajeTrabajadorNoEncontrado(dni) + " en la tienda " + codigoTienda);
+        }
+        return trabajador;
+    }
+
+    private Seccion buscarSeccion(String nombre) {
+        Seccion seccion = secciones.get(nombre);
+        if (seccion == null) {
+            throw new IllegalArgumentException(ReglasAsignacion.mensajeSeccionNoEncontrada(nombre));
+        }
+        return seccion;
+    }
+
+    private Asignacion buscarAsignacion(String dniTrabajador, String nombreSeccion) {
+        Asignacion asignacion = asignaciones.get(new Clave(dniTrabajador, nombreSeccion));
+        if (asignacion == null) {
+            throw new IllegalArgumentException(
+                ReglasAsignacion.mensajeAsignacionNoEncontrada(dniTrabajador, nombreSeccion));
+        }
+        return asignacion;
+    }
+
+    private int horasTrabajador(String dni) {
+        return horasPorTrabajador.getOrDefault(dni, 0);
+    }
+
+    private int horasSeccion(String nombre) {
+        return horasPorSeccion.getOrDefault(nombre, 0);
+    }
+
+    private record Clave(String dniTrabajador, String nombreSeccion) {
+    }
+}
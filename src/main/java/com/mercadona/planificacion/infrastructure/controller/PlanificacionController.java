@@ -0,0 +1,157 @@
+package com.mercadona.planificacion.infrastructure.controller;
+
+import com.mercadona.asignacion.infrastructure.controller.dto.AsignacionDto;
+import com.mercadona.asignacion.infrastructure.controller.dto.LoteAsignacionesDto;
+import com.mercadona.planificacion.application.port.OperacionSimulada;
+import com.mercadona.planificacion.application.port.PlanificacionCadenaService;
+import com.mercadona.planificacion.application.port.PlanificacionService;
+import com.mercadona.planificacion.application.port.ProgresoPlanificacionCadena;
+import com.mercadona.planificacion.application.port.PropuestaCoberturaTienda;
+import com.mercadona.planificacion.application.port.ResultadoSimulacion;
+import com.mercadona.planificacion.infrastructure.controller.dto.ProgresoPlanificacionCadenaDto;
+import com.mercadona.planificacion.infrastructure.controller.dto.PropuestaCoberturaDto;
+import com.mercadona.planificacion.infrastructure.controller.dto.ResultadoSimulacionDto;
+import com.mercadona.planificacion.infrastructure.controller.dto.SimulacionDto;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/planificacion")
+public class PlanificacionController {
+
+    private final PlanificacionService planificacionService;
+    private final PlanificacionCadenaService planificacionCadenaService;
+
+    public PlanificacionController(PlanificacionService planificacionService,
+                                   PlanificacionCadenaService planificacionCadenaService) {
+        this.planificacionService = planificacionService;
+        this.planificacionCadenaService = planificacionCadenaService;
+    }
+
+    /**
+     * Propuesta de asignaciones para cubrir las secciones incompletas de la tienda. No escribe nada:
+     * para aplicarla se envía {@code lote} a POST /api/asignaciones/lote.
+     */
+    @GetMapping("/tienda/{codigo}/cobertura")
+    public ResponseEntity<PropuestaCoberturaDto> proponerCobertura(@PathVariable String codigo) {
+        PropuestaCoberturaTienda propuesta = planificacionService.proponerCobertura(codigo);
+
+        List<AsignacionDto> asignaciones = propuesta.solicitudes().stream()
+            .map(solicitud -> new AsignacionDto(
+                solicitud.dniTrabajador(),
+                solicitud.nombreSeccion(),
+                solicitud.horasAsignadas()
+            ))
+            .toList();
+
+        PropuestaCoberturaDto respuesta = new PropuestaCoberturaDto(
+            propuesta.codigoTienda(),
+            propuesta.nombreTienda(),
+            propuesta.horasFaltantes(),
+            propuesta.horasCubiertas(),
+            propuesta.horasSinCubrir(),
+            milisegundos(propuesta.tiempoResolucion()),
+            new LoteAsignacionesDto(asignaciones)
+        );
+        return ResponseEntity.ok(respuesta);
+    }
+
+    /**
+     * Simulación de cambios sobre las asignaciones de la tienda: 200 con el estado y la cobertura
+     * resultantes y el resultado de cada operación. No escribe nada.
+     */
+    @PostMapping("/tienda/{codigo}/simulacion")
+    public ResponseEntity<ResultadoSimulacionDto> simular(@PathVariable String codigo,
+                                                          @Valid @RequestBody SimulacionDto simulacionDto) {
+        List<OperacionSimulada> operaciones = simulacionDto.operaciones().stream()
+            .map(dto -> dto == null
+                ? new OperacionSimulada(null, null, null, 0)
+                : new OperacionSimulada(tipo(dto.tipo()), dto.dniTrabajador(), dto.nombreSeccion(),
+                    dto.horas() != null ? dto.horas() : 0))
+            .toList();
+
+        ResultadoSimulacion resultado = planificacionService.simular(codigo, operaciones);
+
+        List<ResultadoSimulacionDto.ResultadoOperacionDto> resultadosDto = resultado.operaciones().stream()
+            .map(item -> new ResultadoSimulacionDto.ResultadoOperacionDto(item.indice(), item.aplicada(), item.error()))
+            .toList();
+
+        return ResponseEntity.ok(new ResultadoSimulacionDto(resultado.aplicadas(), resultado.rechazadas(),
+            resultadosDto, resultado.estado(), resultado.cobertura()));
+    }
+
+    /**
+     * Planificación de toda la cadena en segundo plano: 202 con el progreso inicial, o 409 con el
+     * progreso de la ejecución que ya está en curso. Con {@code aplicar=false} solo calcula.
+     */
+    @PostMapping("/cadena")
+    public ResponseEntity<ProgresoPlanificacionCadenaDto> planificarCadena(
+            @RequestParam(defaultValue = "true") boolean aplicar) {
+        return planificacionCadenaService.iniciar(aplicar)
+            .map(progreso -> ResponseEntity.status(HttpStatus.ACCEPTED).body(aDto(progreso)))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(planificacionCadenaService.ultimaEjecucion().map(PlanificacionController::aDto).orElse(null)));
+    }
+
+    @GetMapping("/cadena")
+    public ResponseEntity<ProgresoPlanificacionCadenaDto> consultarPlanificacionCadena() {
+        return planificacionCadenaService.ultimaEjecucion()
+            .map(progreso -> ResponseEntity.ok(aDto(progreso)))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private static ProgresoPlanificacionCadenaDto aDto(ProgresoPlanificacionCadena progreso) {
+        List<ProgresoPlanificacionCadenaDto.TiendaPlanificadaDto> tiendas = progreso.tiendas().stream()
+            .map(tienda -> new ProgresoPlanificacionCadenaDto.TiendaPlanificadaDto(
+                tienda.codigoTienda(),
+                tienda.trabajadores(),
+                tienda.asignacionesPropuestas(),
+                tienda.asignacionesCreadas(),
+                tienda.horasCubiertas(),
+                tienda.horasSinCubrir(),
+                milisegundos(tienda.tiempoResolucion())
+            ))
+            .toList();
+
+        return new ProgresoPlanificacionCadenaDto(
+            progreso.id(),
+            progreso.estado().name(),
+            progreso.aplicar(),
+            progreso.inicio(),
+            progreso.fin(),
+            progreso.tiendasTotales(),
+            progreso.tiendasResueltas(),
+            progreso.asignacionesPropuestas(),
+            progreso.asignacionesCreadas(),
+            progreso.asignacionesRechazadas(),
+            progreso.horasCubiertas(),
+            progreso.horasSinCubrir(),
+            progreso.duracion().toMillis(),
+            milisegundos(progreso.tiempoResolucionTotal()),
+            progreso.tiendasPorSegundo(),
+            progreso.asignacionesPorSegundo(),
+            progreso.error(),
+            tiendas
+        );
+    }
+
+    /**
+     * Un tipo desconocido se deja nulo para que el servicio rechace solo esa operación
+     */
+    private static OperacionSimulada.Tipo tipo(String tipo) {
+        return Arrays.stream(OperacionSimulada.Tipo.values())
+            .filter(valor -> valor.name().equalsIgnoreCase(tipo))
+            .findFirst()
+            .orElse(null);
+    }
+
+    private static double milisegundos(Duration duracion) {
+        return duracion.toNanos() / 1_000_000.0;
+    }
+}
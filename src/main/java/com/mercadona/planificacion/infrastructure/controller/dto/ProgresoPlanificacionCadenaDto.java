@@ -0,0 +1,37 @@
+package com.mercadona.planificacion.infrastructure.controller.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record ProgresoPlanificacionCadenaDto(
+    String id,
+    String estado,
+    boolean aplicar,
+    Instant inicio,
+    Instant fin,
+    int tiendasTotales,
+    int tiendasResueltas,
+    int asignacionesPropuestas,
+    int asignacionesCreadas,
+    int asignacionesRechazadas,
+    int horasCubiertas,
+    int horasSinCubrir,
+    long duracionMs,
+    double tiempoResolucionTotalMs,
+    double tiendasPorSegundo,
+    double asignacionesPorSegundo,
+    String error,
+    List<TiendaPlanificadaDto> tiendas
+) {
+
+    public record TiendaPlanificadaDto(
+        String codigoTienda,
+        int trabajadores,
+        int asignacionesPropuestas,
+        int asignacionesCreadas,
+        int horasCubiertas,
+        int horasSinCubrir,
+        double tiempoResolucionMs
+    ) {
+    }
+}
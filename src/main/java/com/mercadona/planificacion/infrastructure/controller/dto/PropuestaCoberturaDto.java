@@ -0,0 +1,17 @@
+package com.mercadona.planificacion.infrastructure.controller.dto;
+
+import com.mercadona.asignacion.infrastructure.controller.dto.LoteAsignacionesDto;
+
+/**
+ * El campo {@code lote} tiene el formato de POST /api/asignaciones/lote para confirmar la propuesta
+ */
+public record PropuestaCoberturaDto(
+    String codigoTienda,
+    String nombreTienda,
+    int horasFaltantes,
+    int horasCubiertas,
+    int horasSinCubrir,
+    double tiempoResolucionMs,
+    LoteAsignacionesDto lote
+) {
+}
@@ -0,0 +1,22 @@
+package com.mercadona.planificacion.infrastructure.controller.dto;
+
+import com.mercadona.reporte.infrastructure.controller.dto.CoberturaHorasDto;
+import com.mercadona.reporte.infrastructure.controller.dto.EstadoTiendaDto;
+
+import java.util.List;
+
+public record ResultadoSimulacionDto(
+    long aplicadas,
+    long rechazadas,
+    List<ResultadoOperacionDto> operaciones,
+    EstadoTiendaDto estado,
+    CoberturaHorasDto cobertura
+) {
+
+    public record ResultadoOperacionDto(
+        int indice,
+        boolean aplicada,
+        String error
+    ) {
+    }
+}
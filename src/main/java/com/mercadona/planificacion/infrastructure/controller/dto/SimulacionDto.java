@@ -0,0 +1,28 @@
+package com.mercadona.planificacion.infrastructure.controller.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Como en el alta en lote, las operaciones no se validan con Bean Validation para que una
+ * operación incorrecta se rechace individualmente en lugar de invalidar toda la simulación.
+ */
+public record SimulacionDto(
+    @NotEmpty(message = "La simulación debe contener al menos una operación")
+    @Size(max = 500, message = "La simulación no puede superar 500 operaciones")
+    List<OperacionDto> operaciones
+) {
+
+    /**
+     * @param tipo CREAR, ACTUALIZAR o ELIMINAR
+     */
+    public record OperacionDto(
+        String tipo,
+        String dniTrabajador,
+        String nombreSeccion,
+        Integer horas
+    ) {
+    }
+}
@@ -0,0 +1,112 @@
+package com.mercadona.reporte.application.service;
+
+import com.mercadona.asignacion.domain.Asignacion;
+import com.mercadona.reporte.infrastructure.controller.dto.CoberturaHorasDto;
+import com.mercadona.reporte.infrastructure.controller.dto.EstadoTiendaDto;
+import com.mercadona.reporte.infrastructure.controller.dto.SeccionCoberturaDto;
+import com.mercadona.reporte.infrastructure.controller.dto.SeccionEstadoDto;
+import com.mercadona.reporte.infrastructure.controller.dto.TrabajadorAsignadoDto;
+import com.mercadona.tienda.domain.Seccion;
+import com.mercadona.tienda.domain.Tienda;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Construcción de las secciones de los informes de una tienda a partir de sus asignaciones,
+ * sin acceso a datos: la usan los reportes y la planificación, que calcula huecos de cobertura
+ * y simula cambios con las mismas horas necesarias que muestra el informe.
+ */
+public final class InformesTienda {
+
+    // Secciones predefinidas del sistema
+    public static final List<Seccion> SECCIONES_SISTEMA = Arrays.asList(
+        new Seccion("Horno", 8),
+        new Seccion("Cajas", 16),
+        new Seccion("Pescadería", 16),
+        new Seccion("Verduras", 16),
+        new Seccion("Droguería", 16)
+    );
+
+    public static final String DIRECCION_NO_DISPONIBLE = "Dirección no disponible";
+
+    private InformesTienda() {
+    }
+
+    public static EstadoTiendaDto estado(Tienda tienda, String direccion, List<Asignacion> asignaciones) {
+        return new EstadoTiendaDto(tienda.getCodigo(), tienda.getNombre(), direccion, seccionesEstado(asignaciones));
+    }
+
+    public static CoberturaHorasDto cobertura(Tienda tienda, String direccion, List<Asignacion> asignaciones) {
+        List<SeccionCoberturaDto> seccionesIncompletas = seccionesIncompletas(asignaciones);
+        int totalHorasFaltantes = seccionesIncompletas.stream()
+            .mapToInt(SeccionCoberturaDto::horasFaltantes)
+            .sum();
+
+        return new CoberturaHorasDto(
+            tienda.getCodigo(),
+            tienda.getNombre(),
+            direccion,
+            seccionesIncompletas,
+            seccionesIncompletas.size(),
+            totalHorasFaltantes
+        );
+    }
+
+    public static List<SeccionEstadoDto> seccionesEstado(List<Asignacion> asignaciones) {
+        // Agrupar asignaciones por sección
+        Map<String, List<Asignacion>> asignacionesPorSeccion = asignaciones.stream()
+            .collect(Collectors.groupingBy(a -> a.getSeccion().getNombre()));
+
+        return asignacionesPorSeccion.entrySet().stream()
+            .map(entry -> {
+                String nombreSeccion = entry.getKey();
+                List<Asignacion> asignacionesSeccion = entry.getValue();
+
+                List<TrabajadorAsignadoDto> trabajadores = asignacionesSeccion.stream()
+                    .map(a -> new TrabajadorAsignadoDto(
+                        a.getTrabajador().getDni(),
+                        a.getTrabajador().getNombre(),
+                        a.getHorasAsignadas()
+                    ))
+                    .toList();
+
+                return new SeccionEstadoDto(nombreSeccion, trabajadores);
+            })
+            .toList();
+    }
+
+    /**
+     * Secciones del sistema a las que les faltan horas, en el orden de {@link #SECCIONES_SISTEMA}
+     */
+    public static List<SeccionCoberturaDto> seccionesIncompletas(List<Asignacion> asignaciones) {
+        // Agrupar asignaciones por sección
+        Map<String, List<Asignacion>> asignacionesPorSeccion = asignaciones.stream()
+            .collect(Collectors.groupingBy(a -> a.getSeccion().getNombre()));
+
+        return SECCIONES_SISTEMA.stream()
+            .map(seccion -> {
+                List<Asignacion> asignacionesSeccion = asignacionesPorSeccion.getOrDefault(
+                    seccion.getNombre(),
+                    List.of()
+                );
+
+                int horasAsignadas = asignacionesSeccion.stream()
+                    .mapToInt(Asignacion::getHorasAsignadas)
+                    .sum();
+
+                int horasFaltantes = Math.max(0, seccion.getHorasNecesarias() - horasAsignadas);
+
+                return new SeccionCoberturaDto(
+                    seccion.getNombre(),
+                    seccion.getHorasNecesarias(),
+                    horasAsignadas,
+                    horasFaltantes
+                );
+            })
+            .filter(seccion -> seccion.horasFaltantes() > 0) // Solo secciones incompletas
+            .toList();
+    }
+}
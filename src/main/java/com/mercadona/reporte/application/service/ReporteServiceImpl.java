@@ -1,79 +1,72 @@
 package com.mercadona.reporte.application.service;
 
+import com.mercadona.asignacion.application.port.AsignacionService;
 import com.mercadona.asignacion.domain.Asignacion;
 import com.mercadona.asignacion.infrastructure.repository.AsignacionRepository;
 import com.mercadona.reporte.application.port.ReporteService;
 import com.mercadona.reporte.infrastructure.controller.dto.EstadoTiendaDto;
 import com.mercadona.reporte.infrastructure.controller.dto.CoberturaHorasDto;
-import com.mercadona.reporte.infrastructure.controller.dto.SeccionEstadoDto;
-import com.mercadona.reporte.infrastructure.controller.dto.SeccionCoberturaDto;
-import com.mercadona.reporte.infrastructure.controller.dto.TrabajadorAsignadoDto;
-import com.mercadona.tienda.domain.Seccion;
 import com.mercadona.tienda.domain.Tienda;
 import com.mercadona.tienda.infrastructure.repository.TiendaRepository;
 import com.mercadona.external.port.ExternalStoreService;
 import com.mercadona.external.dto.ExternalStoreDto;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class ReporteServiceImpl implements ReporteService {
 
     private final TiendaRepository tiendaRepository;
     private final AsignacionRepository asignacionRepository;
+    private final AsignacionService asignacionService;
     private final ExternalStoreService externalStoreService;
-
-    // Secciones predefinidas del sistema
-    private static final List<Seccion> SECCIONES_SISTEMA = Arrays.asList(
-        new Seccion("Horno", 8),
-        new Seccion("Cajas", 16),
-        new Seccion("Pescadería", 16),
-        new Seccion("Verduras", 16),
-        new Seccion("Droguería", 16)
-    );
+    private final long plazoDireccionMs;
 
     public ReporteServiceImpl(TiendaRepository tiendaRepository, 
                              AsignacionRepository asignacionRepository,
-                             ExternalStoreService externalStoreService) {
+                             AsignacionService asignacionService,
+                             ExternalStoreService externalStoreService,
+                             @Value("${external.stores.lookup-deadline:3000}") long plazoDireccionMs) {
         this.tiendaRepository = tiendaRepository;
         this.asignacionRepository = asignacionRepository;
+        this.asignacionService = asignacionService;
         this.externalStoreService = externalStoreService;
+        this.plazoDireccionMs = plazoDireccionMs;
     } 
 
     @Override
     public EstadoTiendaDto obtenerEstadoTienda(String codigoTienda) {
         Tienda tienda = buscarTienda(codigoTienda);
-        List<Asignacion> asignaciones = asignacionRepository.findByCodigoTienda(codigoTienda);
-        
-        List<SeccionEstadoDto> secciones = construirSeccionesEstado(asignaciones);
-        String direccion = obtenerDireccionTienda(tienda.getNombre());
+        // La dirección se resuelve en paralelo con la consulta de asignaciones
+        CompletableFuture<String> direccionFutura = obtenerDireccionTienda(tienda);
+        List<Asignacion> asignaciones = asignacionesConfirmadas(codigoTienda);
+        String direccion = direccionFutura.join();
         
-        return new EstadoTiendaDto(tienda.getCodigo(), tienda.getNombre(), direccion, secciones);
+        return InformesTienda.estado(tienda, direccion, asignaciones);
     }
 
     @Override
     public CoberturaHorasDto obtenerCoberturaHoras(String codigoTienda) {
         Tienda tienda = buscarTienda(codigoTienda);
-        List<Asignacion> asignaciones = asignacionRepository.findByCodigoTienda(codigoTienda);
+        // La dirección se resuelve en paralelo con la consulta de asignaciones
+        CompletableFuture<String> direccionFutura = obtenerDireccionTienda(tienda);
+        List<Asignacion> asignaciones = asignacionesConfirmadas(codigoTienda);
+        String direccion = direccionFutura.join();
         
-        List<SeccionCoberturaDto> seccionesIncompletas = construirSeccionesCobertura(asignaciones);
-        int totalHorasFaltantes = seccionesIncompletas.stream()
-            .mapToInt(SeccionCoberturaDto::horasFaltantes)
-            .sum();
-        String direccion = obtenerDireccionTienda(tienda.getNombre());
-        
-        return new CoberturaHorasDto(
-            tienda.getCodigo(), 
-            tienda.getNombre(), 
-            direccion,
-            seccionesIncompletas,
-            seccionesIncompletas.size(),
-            totalHorasFaltantes
-        );
+        return InformesTienda.cobertura(tienda, direccion, asignaciones);
+    }
+
+    /**
+     * Con la escritura diferida de horas activa, los cambios pendientes de la tienda se escriben
+     * antes de leer para que el informe los refleje
+     */
+    private List<Asignacion> asignacionesConfirmadas(String codigoTienda) {
+        asignacionService.confirmarHorasPendientes(codigoTienda);
+        return asignacionRepository.findByCodigoTienda(codigoTienda);
     }
 
     private Tienda buscarTienda(String codigoTienda) {
@@ -81,65 +74,18 @@ public class ReporteServiceImpl implements ReporteService {
             .orElseThrow(() -> new IllegalArgumentException("No se encontró la tienda con código: " + codigoTienda));
     }
 
-    private List<SeccionEstadoDto> construirSeccionesEstado(List<Asignacion> asignaciones) {
-        // Agrupar asignaciones por sección
-        Map<String, List<Asignacion>> asignacionesPorSeccion = asignaciones.stream()
-            .collect(Collectors.groupingBy(a -> a.getSeccion().getNombre()));
-
-        return asignacionesPorSeccion.entrySet().stream()
-            .map(entry -> {
-                String nombreSeccion = entry.getKey();
-                List<Asignacion> asignacionesSeccion = entry.getValue();
-                
-                List<TrabajadorAsignadoDto> trabajadores = asignacionesSeccion.stream()
-                    .map(a -> new TrabajadorAsignadoDto(
-                        a.getTrabajador().getDni(),
-                        a.getTrabajador().getNombre(),
-                        a.getHorasAsignadas()
-                    ))
-                    .toList();
-
-                return new SeccionEstadoDto(nombreSeccion, trabajadores);
-            })
-            .toList();
-    }
-
-    private List<SeccionCoberturaDto> construirSeccionesCobertura(List<Asignacion> asignaciones) {
-        // Agrupar asignaciones por sección
-        Map<String, List<Asignacion>> asignacionesPorSeccion = asignaciones.stream()
-            .collect(Collectors.groupingBy(a -> a.getSeccion().getNombre()));
-
-        return SECCIONES_SISTEMA.stream()
-            .map(seccion -> {
-                List<Asignacion> asignacionesSeccion = asignacionesPorSeccion.getOrDefault(
-                    seccion.getNombre(), 
-                    List.of()
-                );
-                
-                int horasAsignadas = asignacionesSeccion.stream()
-                    .mapToInt(Asignacion::getHorasAsignadas)
-                    .sum();
-
-                int horasFaltantes = Math.max(0, seccion.getHorasNecesarias() - horasAsignadas);
-
-                return new SeccionCoberturaDto(
-                    seccion.getNombre(),
-                    seccion.getHorasNecesarias(),
-                    horasAsignadas,
-                    horasFaltantes
-                );
-            })
-            .filter(seccion -> seccion.horasFaltantes() > 0) // Solo secciones incompletas
-            .toList();
-    }
-
     /**
-     * Obtiene la dirección de una tienda desde la API externa
-     * Busca por nombre de tienda en el campo 'description' de la API
+     * Obtiene la dirección de una tienda. Si la sincronización ya la ha guardado en la tienda
+     * se usa esa; si no, se busca en la API externa por nombre de tienda en el campo 'description'.
+     * Si no responde dentro del plazo configurado el informe sale sin dirección
      */
-    private String obtenerDireccionTienda(String nombreTienda) {
-        return externalStoreService.buscarTiendaPorNombre(nombreTienda)
-            .map(ExternalStoreDto::address)
-            .orElse("Dirección no disponible");
+    private CompletableFuture<String> obtenerDireccionTienda(Tienda tienda) {
+        if (tienda.getDireccion() != null) {
+            return CompletableFuture.completedFuture(tienda.getDireccion());
+        }
+        return externalStoreService.buscarTiendaPorNombreAsync(tienda.getNombre())
+            .thenApply(externa -> externa.map(ExternalStoreDto::address).orElse(InformesTienda.DIRECCION_NO_DISPONIBLE))
+            .completeOnTimeout(InformesTienda.DIRECCION_NO_DISPONIBLE, plazoDireccionMs, TimeUnit.MILLISECONDS)
+            .exceptionally(error -> InformesTienda.DIRECCION_NO_DISPONIBLE);
     }
 }
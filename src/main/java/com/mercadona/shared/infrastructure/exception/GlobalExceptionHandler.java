@@ -1,5 +1,10 @@
 package com.mercadona.shared.infrastructure.exception;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.mercadona.asignacion.application.service.BloqueoNoDisponibleException;
+import com.mercadona.asignacion.domain.AsignacionRechazadaException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -33,6 +38,18 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(errorResponse);
     }
 
+    @ExceptionHandler(AsignacionRechazadaException.class)
+    public ResponseEntity<ErrorResponse> handleAsignacionRechazadaException(AsignacionRechazadaException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(
+            "Error de negocio",
+            ex.getMessage(),
+            ex.getMotivo().name(),
+            LocalDateTime.now()
+        );
+        
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ErrorResponse> handleIllegalArgumentException(IllegalArgumentException ex) {
         ErrorResponse errorResponse = new ErrorResponse(
@@ -44,6 +61,32 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(errorResponse);
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(
+            "Conflicto de concurrencia",
+            "Los datos han sido modificados por otra operación. Vuelva a intentarlo",
+            "CONFLICTO_CONCURRENTE",
+            LocalDateTime.now()
+        );
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
+    @ExceptionHandler(BloqueoNoDisponibleException.class)
+    public ResponseEntity<ErrorResponse> handleBloqueoNoDisponibleException(BloqueoNoDisponibleException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(
+            "Conflicto de concurrencia",
+            ex.getMessage(),
+            "OPERACION_EN_CURSO",
+            LocalDateTime.now()
+        );
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body(errorResponse);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
         ErrorResponse errorResponse = new ErrorResponse(
@@ -55,9 +98,16 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
     }
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public record ErrorResponse(
         String titulo,
         String mensaje,
+        String codigo,
         LocalDateTime timestamp
-    ) {}
+    ) {
+
+        public ErrorResponse(String titulo, String mensaje, LocalDateTime timestamp) {
+            this(titulo, mensaje, null, timestamp);
+        }
+    }
 }
@@ -0,0 +1,153 @@
+package com.mercadona.shared.infrastructure.idempotencia;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Respuestas ya enviadas a peticiones con Idempotency-Key, para devolverlas tal cual si el cliente
+ * repite la petición. Cada entrada guarda solo el código de estado, el Content-Type, el cuerpo y un
+ * resumen SHA-256 del cuerpo de la petición original, y caduca pasado el TTL.
+ * <p>
+ * Mientras la primera petición se procesa la clave queda reservada, de modo que una repetición
+ * simultánea no llega a ejecutarse dos veces. El número de entradas está acotado: sin hueco libre
+ * la petición se atiende sin idempotencia en lugar de desalojar respuestas vigentes.
+ */
+@Component
+public class AlmacenRespuestasIdempotentes {
+
+    private final ConcurrentHashMap<String, Entrada> entradas = new ConcurrentHashMap<>();
+    private final AtomicLong bytes = new AtomicLong();
+    private final Duration ttl;
+    private final int maximoEntradas;
+    private final int maximoBytesRespuesta;
+
+    public AlmacenRespuestasIdempotentes(@Value("${idempotencia.ttl:24h}") Duration ttl,
+                                         @Value("${idempotencia.maximo-entradas:100000}") int maximoEntradas,
+                                         @Value("${idempotencia.maximo-bytes-respuesta:65536}") int maximoBytesRespuesta,
+                                         MeterRegistry meterRegistry) {
+        this.ttl = ttl;
+        this.maximoEntradas = maximoEntradas;
+        this.maximoBytesRespuesta = maximoBytesRespuesta;
+        Gauge.builder("idempotency.store.size", entradas, ConcurrentHashMap::size)
+            .description("Claves de idempotencia guardadas o en curso")
+            .register(meterRegistry);
+        Gauge.builder("idempotency.store.bytes", bytes, AtomicLong::get)
+            .description("Bytes de las respuestas guardadas")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Reserva la clave para una petición nueva o devuelve lo que ya hay guardado para ella
+     */
+    public Reserva reservar(String clave, byte[] huellaPeticion) {
+        Instant ahora = Instant.now();
+        Reserva[] reserva = new Reserva[1];
+        entradas.compute(clave, (k, actual) -> {
+            if (actual != null && !actual.caducada(ahora)) {
+                reserva[0] = reservaExistente(actual, huellaPeticion);
+                return actual;
+            }
+            if (actual != null) {
+                bytes.addAndGet(-actual.tamano());
+            } else if (entradas.size() >= maximoEntradas) {
+                reserva[0] = Reserva.SIN_ESPACIO;
+                return null;
+            }
+            reserva[0] = Reserva.NUEVA;
+            return new Entrada(huellaPeticion, ahora.plus(ttl), null);
+        });
+        return reserva[0];
+    }
+
+    private static Reserva reservaExistente(Entrada actual, byte[] huellaPeticion) {
+        if (!Arrays.equals(actual.huellaPeticion(), huellaPeticion)) {
+            return Reserva.PETICION_DISTINTA;
+        }
+        return actual.respuesta() == null ? Reserva.EN_CURSO : Reserva.repeticion(actual.respuesta());
+    }
+
+    /**
+     * Guarda la respuesta de una clave reservada. Si es demasiado grande la clave se libera.
+     */
+    public void guardar(String clave, RespuestaGuardada respuesta) {
+        if (respuesta.cuerpo().length > maximoBytesRespuesta) {
+            liberar(clave);
+            return;
+        }
+        entradas.computeIfPresent(clave, (k, actual) -> {
+            Entrada guardada = new Entrada(actual.huellaPeticion(), Instant.now().plus(ttl), respuesta);
+            bytes.addAndGet(guardada.tamano() - actual.tamano());
+            return guardada;
+        });
+    }
+
+    /**
+     * Libera la reserva de una petición cuya respuesta no se guarda, para que pueda repetirse
+     */
+    public void liberar(String clave) {
+        entradas.computeIfPresent(clave, (k, actual) -> {
+            bytes.addAndGet(-actual.tamano());
+            return null;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${idempotencia.purge-interval:60000}")
+    public void purgarCaducadas() {
+        Instant ahora = Instant.now();
+        entradas.forEach((clave, entrada) -> {
+            if (entrada.caducada(ahora)) {
+                entradas.computeIfPresent(clave, (k, actual) -> {
+                    if (!actual.caducada(ahora)) {
+                        return actual;
+                    }
+                    bytes.addAndGet(-actual.tamano());
+                    return null;
+                });
+            }
+        });
+    }
+
+    int tamano() {
+        return entradas.size();
+    }
+
+    public record RespuestaGuardada(int estado, String contentType, byte[] cuerpo) {}
+
+    /**
+     * Resultado de reservar una clave. Solo {@link Tipo#REPETICION} lleva respuesta.
+     */
+    public record Reserva(Tipo tipo, RespuestaGuardada respuesta) {
+
+        static final Reserva NUEVA = new Reserva(Tipo.NUEVA, null);
+        static final Reserva EN_CURSO = new Reserva(Tipo.EN_CURSO, null);
+        static final Reserva PETICION_DISTINTA = new Reserva(Tipo.PETICION_DISTINTA, null);
+        static final Reserva SIN_ESPACIO = new Reserva(Tipo.SIN_ESPACIO, null);
+
+        static Reserva repeticion(RespuestaGuardada respuesta) {
+            return new Reserva(Tipo.REPETICION, respuesta);
+        }
+
+        public enum Tipo { NUEVA, REPETICION, EN_CURSO, PETICION_DISTINTA, SIN_ESPACIO }
+    }
+
+    private record Entrada(byte[] huellaPeticion, Instant caducaEn, RespuestaGuardada respuesta) {
+
+        boolean caducada(Instant ahora) {
+            return caducaEn.isBefore(ahora);
+        }
+
+        long tamano() {
+            return respuesta == null ? 0 : respuesta.cuerpo().length;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.mercadona.shared.infrastructure.idempotencia;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mercadona.shared.infrastructure.exception.GlobalExceptionHandler.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+
+/**
+ * Soporte de la cabecera Idempotency-Key en los POST de alta. La primera petición con una clave se
+ * procesa normalmente y, si su respuesta es definitiva (2xx, 400, 404 o 422), se guarda; las
+ * repeticiones con la misma clave, ruta y cuerpo reciben esa misma respuesta, con la cabecera
+ * Idempotent-Replayed, sin llegar al controlador. El resto de respuestas (5xx, y 409, 423 o 429, que
+ * dependen de la concurrencia o de la carga del momento) no se guardan, para que el cliente pueda
+ * reintentar con la misma clave.
+ * <p>
+ * Una repetición mientras la original sigue en curso recibe 409 y reutilizar la clave con otro
+ * cuerpo, 422. Las peticiones sin la cabecera no se ven afectadas.
+ */
+public class FiltroIdempotencia extends OncePerRequestFilter {
+
+    public static final String CABECERA_CLAVE = "Idempotency-Key";
+    public static final String CABECERA_REPETIDA = "Idempotent-Replayed";
+
+    private static final int LONGITUD_MAXIMA_CLAVE = 255;
+
+    private final AlmacenRespuestasIdempotentes almacen;
+    private final ObjectMapper objectMapper;
+
+    private final Counter aciertos;
+    private final Counter fallos;
+    private final Counter enCurso;
+    private final Counter peticionesDistintas;
+    private final Counter sinEspacio;
+
+    public FiltroIdempotencia(AlmacenRespuestasIdempotentes almacen, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.almacen = almacen;
+        this.objectMapper = objectMapper;
+        this.aciertos = meterRegistry.counter("idempotency.requests", "result", "hit");
+        this.fallos = meterRegistry.counter("idempotency.requests", "result", "miss");
+        this.enCurso = meterRegistry.counter("idempotency.requests", "result", "in_progress");
+        this.peticionesDistintas = meterRegistry.counter("idempotency.requests", "result", "mismatch");
+        this.sinEspacio = meterRegistry.counter("idempotency.requests", "result", "bypass");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || request.getHeader(CABECERA_CLAVE) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String claveCliente = request.getHeader(CABECERA_CLAVE).trim();
+        if (claveCliente.isEmpty() || claveCliente.length() > LONGITUD_MAXIMA_CLAVE) {
+            escribirError(response, HttpStatus.BAD_REQUEST, "IDEMPOTENCIA_CLAVE_INVALIDA",
+                "La cabecera " + CABECERA_CLAVE + " debe tener entre 1 y " + LONGITUD_MAXIMA_CLAVE + " caracteres");
+            return;
+        }
+
+        byte[] cuerpo = StreamUtils.copyToByteArray(request.getInputStream());
+        String clave = request.getRequestURI() + " " + claveCliente;
+        AlmacenRespuestasIdempotentes.Reserva reserva = almacen.reservar(clave, huella(cuerpo));
+        switch (reserva.tipo()) {
+            case REPETICION -> {
+                aciertos.increment();
+                repetir(response, reserva.respuesta());
+            }
+            case EN_CURSO -> {
+                enCurso.increment();
+                escribirError(response, HttpStatus.CONFLICT, "IDEMPOTENCIA_EN_CURSO",
+                    "Ya se está procesando una petición con la misma " + CABECERA_CLAVE);
+            }
+            case PETICION_DISTINTA -> {
+                peticionesDistintas.increment();
+                escribirError(response, HttpStatus.UNPROCESSABLE_ENTITY, "IDEMPOTENCIA_CLAVE_REUTILIZADA",
+                    "La " + CABECERA_CLAVE + " ya se usó con una petición distinta");
+            }
+            case SIN_ESPACIO -> {
+                sinEspacio.increment();
+                chain.doFilter(new PeticionConCuerpo(request, cuerpo), response);
+            }
+            case NUEVA -> {
+                fallos.increment();
+                procesarYGuardar(new PeticionConCuerpo(request, cuerpo), response, chain, clave);
+            }
+        }
+    }
+
+    private void procesarYGuardar(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+                                  String clave) throws ServletException, IOException {
+        ContentCachingResponseWrapper respuesta = new ContentCachingResponseWrapper(response);
+        boolean guardada = false;
+        try {
+            chain.doFilter(request, respuesta);
+            if (esDefinitiva(respuesta.getStatus())) {
+                almacen.guardar(clave, new AlmacenRespuestasIdempotentes.RespuestaGuardada(
+                    respuesta.getStatus(), respuesta.getContentType(), respuesta.getContentAsByteArray()));
+                guardada = true;
+            }
+        } finally {
+            if (!guardada) {
+                almacen.liberar(clave);
+            }
+            respuesta.copyBodyToResponse();
+        }
+    }
+
+    /**
+     * Respuestas que se repetirían igual al reintentar la misma petición
+     */
+    private static boolean esDefinitiva(int estado) {
+        return (estado >= 200 && estado < 300)
+            || estado == HttpStatus.BAD_REQUEST.value()
+            || estado == HttpStatus.NOT_FOUND.value()
+            || estado == HttpStatus.UNPROCESSABLE_ENTITY.value();
+    }
+
+    private static void repetir(HttpServletResponse response, AlmacenRespuestasIdempotentes.RespuestaGuardada guardada)
+            throws IOException {
+        response.setStatus(guardada.estado());
+        if (guardada.contentType() != null) {
+            response.setContentType(guardada.contentType());
+        }
+        response.setHeader(CABECERA_REPETIDA, "true");
+        response.setContentLength(guardada.cuerpo().length);
+        response.getOutputStream().write(guardada.cuerpo());
+    }
+
+    private void escribirError(HttpServletResponse response, HttpStatus estado, String codigo, String mensaje)
+            throws IOException {
+        response.setStatus(estado.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(),
+            new ErrorResponse("Error de idempotencia", mensaje, codigo, LocalDateTime.now()));
+    }
+
+    private static byte[] huella(byte[] cuerpo) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(cuerpo);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Petición cuyo cuerpo ya se ha leído para calcular su huella y se vuelve a servir al controlador
+     */
+    private static final class PeticionConCuerpo extends HttpServletRequestWrapper {
+
+        private final byte[] cuerpo;
+
+        PeticionConCuerpo(HttpServletRequest request, byte[] cuerpo) {
+            super(request);
+            this.cuerpo = cuerpo;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream entrada = new ByteArrayInputStream(cuerpo);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return entrada.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return entrada.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return entrada.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // El cuerpo ya está en memoria, así que está disponible entero desde el principio
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String codificacion = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(codificacion)));
+        }
+
+        @Override
+        public int getContentLength() {
+            return cuerpo.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return cuerpo.length;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.mercadona.tienda.application.service;
+
+import com.mercadona.external.dto.ExternalStoreDto;
+import com.mercadona.external.port.ExternalStoreService;
+import com.mercadona.tienda.domain.Tienda;
+import com.mercadona.tienda.infrastructure.repository.TiendaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Reconciliación periódica de la dirección y ciudad de las tiendas con la API externa,
+ * para que los reportes las lean de la propia fila de la tienda sin llamadas remotas.
+ * <p>
+ * Recorre las tiendas por lotes, resuelve cada lote con una única búsqueda en bloque y solo
+ * escribe las que han cambiado. Una tienda que no aparece en el directorio externo (o si la API
+ * no está disponible) conserva la última ubicación conocida.
+ */
+@Component
+@ConditionalOnProperty(name = "external.stores.sync.enabled", havingValue = "true", matchIfMissing = true)
+public class SincronizacionUbicacionTiendas {
+
+    private static final Logger log = LoggerFactory.getLogger(SincronizacionUbicacionTiendas.class);
+
+    private final TiendaRepository tiendaRepository;
+    private final ExternalStoreService externalStoreService;
+    private final int tamanoLote;
+
+    public SincronizacionUbicacionTiendas(TiendaRepository tiendaRepository,
+                                          ExternalStoreService externalStoreService,
+                                          @Value("${external.stores.sync.batch-size:200}") int tamanoLote) {
+        this.tiendaRepository = tiendaRepository;
+        this.externalStoreService = externalStoreService;
+        this.tamanoLote = tamanoLote;
+    }
+
+    @Scheduled(initialDelayString = "${external.stores.sync.initial-delay:30000}",
+               fixedDelayString = "${external.stores.sync.interval:600000}")
+    public void sincronizar() {
+        int revisadas = 0;
+        int actualizadas = 0;
+        Slice<Tienda> lote;
+        int pagina = 0;
+        do {
+            lote = tiendaRepository.findAll(PageRequest.of(pagina++, tamanoLote, Sort.by("id")));
+            Map<String, ExternalStoreDto> externas = externalStoreService.buscarTiendasPorNombre(
+                lote.map(Tienda::getNombre).getContent());
+            for (Tienda tienda : lote) {
+                revisadas++;
+                if (sincronizar(tienda, externas.get(tienda.getNombre()))) {
+                    actualizadas++;
+                }
+            }
+        } while (lote.hasNext());
+
+        log.info("Sincronización de ubicaciones de tiendas: {} revisadas, {} actualizadas", revisadas, actualizadas);
+    }
+
+    private boolean sincronizar(Tienda tienda, ExternalStoreDto externa) {
+        if (externa == null || !tienda.actualizarUbicacion(externa.address(), externa.city())) {
+            return false;
+        }
+        tiendaRepository.actualizarUbicacion(tienda.getId(), tienda.getDireccion(), tienda.getCiudad());
+        return true;
+    }
+}
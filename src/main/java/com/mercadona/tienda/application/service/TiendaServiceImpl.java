@@ -1,13 +1,21 @@
 package com.mercadona.tienda.application.service;
 
 import com.mercadona.tienda.application.port.TiendaService;
+import com.mercadona.tienda.domain.Seccion;
 import com.mercadona.tienda.domain.Tienda;
+import com.mercadona.tienda.infrastructure.repository.SeccionRepository;
 import com.mercadona.tienda.infrastructure.repository.TiendaRepository;
 import com.mercadona.trabajador.infrastructure.repository.TrabajadorRepository;
+import com.mercadona.asignacion.application.port.AsignacionService;
+import com.mercadona.asignacion.application.service.BandejaSalidaAsignaciones;
+import com.mercadona.asignacion.application.service.BloqueosPorFranjas;
+import com.mercadona.asignacion.application.service.LibroHorasAsignadas;
 import com.mercadona.asignacion.infrastructure.repository.AsignacionRepository;
+import com.mercadona.trabajador.domain.Trabajador;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,13 +25,28 @@ public class TiendaServiceImpl implements TiendaService {
     private final TiendaRepository tiendaRepository;
     private final TrabajadorRepository trabajadorRepository;
     private final AsignacionRepository asignacionRepository;
+    private final LibroHorasAsignadas libroHoras;
+    private final BandejaSalidaAsignaciones bandejaSalida;
+    private final SeccionRepository seccionRepository;
+    private final BloqueosPorFranjas bloqueos;
+    private final AsignacionService asignacionService;
 
     public TiendaServiceImpl(TiendaRepository tiendaRepository, 
                            TrabajadorRepository trabajadorRepository,
-                           AsignacionRepository asignacionRepository) {
+                           AsignacionRepository asignacionRepository,
+                           LibroHorasAsignadas libroHoras,
+                           BandejaSalidaAsignaciones bandejaSalida,
+                           SeccionRepository seccionRepository,
+                           BloqueosPorFranjas bloqueos,
+                           AsignacionService asignacionService) {
         this.tiendaRepository = tiendaRepository;
         this.trabajadorRepository = trabajadorRepository;
         this.asignacionRepository = asignacionRepository;
+        this.libroHoras = libroHoras;
+        this.bandejaSalida = bandejaSalida;
+        this.seccionRepository = seccionRepository;
+        this.bloqueos = bloqueos;
+        this.asignacionService = asignacionService;
     }
 
     @Override
@@ -80,15 +103,38 @@ public class TiendaServiceImpl implements TiendaService {
         Tienda tienda = tiendaRepository.findByCodigo(codigo)
             .orElseThrow(() -> new IllegalArgumentException("No se encontró la tienda con código: " + codigo));
             
-        // Eliminación en cascada:
-        // 1. Eliminar todas las asignaciones de trabajadores de esta tienda
-        asignacionRepository.deleteByTrabajadorTiendaId(tienda.getId());
-        
-        // 2. Eliminar todos los trabajadores de esta tienda
-        trabajadorRepository.deleteByTiendaId(tienda.getId());
-        
-        // 3. Eliminar la tienda
-        tiendaRepository.deleteById(tienda.getId());
+        // Mismas franjas que las escrituras de asignaciones: todos los trabajadores y secciones de la
+        // tienda, para que ningún alta o cambio de horas se cruce con la baja en cascada
+        List<Trabajador> plantilla = trabajadorRepository.findByTienda(tienda);
+        bloqueos.conBloqueo(clavesDeBloqueo(tienda, plantilla), () -> {
+            // Los cambios de horas diferidos de sus trabajadores ya no se podrían escribir
+            plantilla.forEach(trabajador -> asignacionService.descartarHorasPendientesTrabajador(trabajador.getDni()));
+            
+            // Eliminación en cascada:
+            // 1. Anotar la baja de las asignaciones de trabajadores de esta tienda en el outbox y eliminarlas
+            bandejaSalida.registrarBajas(asignacionRepository.findConDetallesByTiendaId(tienda.getId()));
+            asignacionRepository.deleteByTrabajadorTiendaId(tienda.getId());
+            
+            // 2. Eliminar las horas asignadas registradas para la tienda y sus trabajadores
+            libroHoras.eliminarTienda(tienda);
+            
+            // 3. Eliminar todos los trabajadores de esta tienda
+            trabajadorRepository.deleteByTiendaId(tienda.getId());
+            
+            // 4. Eliminar la tienda
+            tiendaRepository.deleteById(tienda.getId());
+        });
+    }
+
+    private List<String> clavesDeBloqueo(Tienda tienda, List<Trabajador> plantilla) {
+        List<String> claves = new ArrayList<>();
+        for (Trabajador trabajador : plantilla) {
+            claves.add(BloqueosPorFranjas.claveTrabajador(trabajador.getDni()));
+        }
+        for (Seccion seccion : seccionRepository.findAll()) {
+            claves.add(BloqueosPorFranjas.claveSeccion(tienda.getId(), seccion.getNombre()));
+        }
+        return claves;
     }
 
     private void validarDatosCreacion(String codigo, String nombre) {
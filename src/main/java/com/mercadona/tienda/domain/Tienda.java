@@ -8,7 +8,8 @@ import java.util.Objects;
 public class Tienda {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tiendas_seq")
+    @SequenceGenerator(name = "tiendas_seq", sequenceName = "tiendas_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "codigo", unique = true, nullable = false, length = 50)
@@ -16,6 +17,13 @@ public class Tienda {
     
     @Column(name = "nombre", nullable = false)
     private String nombre;
+
+    // Datos de la API externa de tiendas, mantenidos por la sincronización periódica
+    @Column(name = "direccion")
+    private String direccion;
+
+    @Column(name = "ciudad", length = 100)
+    private String ciudad;
     
     protected Tienda() {
         // Constructor vacío requerido por JPA
@@ -54,6 +62,26 @@ public class Tienda {
         }
         this.nombre = nombre;
     }
+
+    public String getDireccion() {
+        return direccion;
+    }
+
+    public String getCiudad() {
+        return ciudad;
+    }
+
+    /**
+     * Actualiza dirección y ciudad con los datos externos. Devuelve false si no cambia nada.
+     */
+    public boolean actualizarUbicacion(String direccion, String ciudad) {
+        if (Objects.equals(this.direccion, direccion) && Objects.equals(this.ciudad, ciudad)) {
+            return false;
+        }
+        this.direccion = direccion;
+        this.ciudad = ciudad;
+        return true;
+    }
     
     @Override
     public boolean equals(Object obj) {
@@ -4,12 +4,16 @@ import com.mercadona.tienda.domain.Seccion;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface SeccionRepository extends JpaRepository<Seccion, Long> {
     
     Optional<Seccion> findByNombre(String nombre);
+
+    List<Seccion> findByNombreIn(Collection<String> nombres);
     
     boolean existsByNombre(String nombre);
 }
@@ -3,9 +3,11 @@ package com.mercadona.tienda.infrastructure.repository;
 import com.mercadona.tienda.domain.Tienda;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -23,4 +25,12 @@ public interface TiendaRepository extends JpaRepository<Tienda, Long>, JpaSpecif
 
     @Query("SELECT COUNT(t) FROM Tienda t")
     Long countTotalTiendas();
+
+    /**
+     * Actualiza solo la ubicación, sin pisar cambios concurrentes del resto de columnas
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Tienda t SET t.direccion = :direccion, t.ciudad = :ciudad WHERE t.id = :id")
+    int actualizarUbicacion(@Param("id") Long id, @Param("direccion") String direccion, @Param("ciudad") String ciudad);
 }
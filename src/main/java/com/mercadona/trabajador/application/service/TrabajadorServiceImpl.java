@@ -5,10 +5,18 @@ import com.mercadona.tienda.infrastructure.repository.TiendaRepository;
 import com.mercadona.trabajador.application.port.TrabajadorService;
 import com.mercadona.trabajador.domain.Trabajador;
 import com.mercadona.trabajador.infrastructure.repository.TrabajadorRepository;
+import com.mercadona.asignacion.application.port.AsignacionService;
+import com.mercadona.asignacion.application.service.BandejaSalidaAsignaciones;
+import com.mercadona.asignacion.application.service.BloqueosPorFranjas;
+import com.mercadona.asignacion.application.service.LibroHorasAsignadas;
+import com.mercadona.asignacion.domain.Asignacion;
 import com.mercadona.asignacion.infrastructure.repository.AsignacionRepository;
+import com.mercadona.tienda.domain.Seccion;
+import com.mercadona.tienda.infrastructure.repository.SeccionRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,13 +26,28 @@ public class TrabajadorServiceImpl implements TrabajadorService {
     private final TrabajadorRepository trabajadorRepository;
     private final TiendaRepository tiendaRepository;
     private final AsignacionRepository asignacionRepository;
+    private final LibroHorasAsignadas libroHoras;
+    private final BandejaSalidaAsignaciones bandejaSalida;
+    private final SeccionRepository seccionRepository;
+    private final BloqueosPorFranjas bloqueos;
+    private final AsignacionService asignacionService;
 
     public TrabajadorServiceImpl(TrabajadorRepository trabajadorRepository, 
                                TiendaRepository tiendaRepository,
-                               AsignacionRepository asignacionRepository) {
+                               AsignacionRepository asignacionRepository,
+                               LibroHorasAsignadas libroHoras,
+                               BandejaSalidaAsignaciones bandejaSalida,
+                               SeccionRepository seccionRepository,
+                               BloqueosPorFranjas bloqueos,
+                               AsignacionService asignacionService) {
         this.trabajadorRepository = trabajadorRepository;
         this.tiendaRepository = tiendaRepository;
         this.asignacionRepository = asignacionRepository;
+        this.libroHoras = libroHoras;
+        this.bandejaSalida = bandejaSalida;
+        this.seccionRepository = seccionRepository;
+        this.bloqueos = bloqueos;
+        this.asignacionService = asignacionService;
     }
 
     @Override
@@ -104,10 +127,17 @@ public class TrabajadorServiceImpl implements TrabajadorService {
         
         Trabajador trabajador = trabajadorRepository.findByDni(dni)
             .orElseThrow(() -> new IllegalArgumentException("No se encontró el trabajador con DNI: " + dni));
+        
+        // Los cambios de horas ya aceptados se escriben con las horas disponibles con que se validaron.
+        // Con las franjas del trabajador y de las secciones de su tienda adquiridas hasta guardar,
+        // ningún cambio nuevo se valida entre medias contra las horas que se van a sustituir
+        return bloqueos.conBloqueo(clavesDeBloqueo(trabajador), () -> {
+            asignacionService.confirmarHorasPendientesTrabajador(dni);
             
-        trabajador.setNombre(nuevoNombre);
-        trabajador.setHorasDisponibles(nuevasHorasDisponibles);
-        return trabajadorRepository.save(trabajador);
+            trabajador.setNombre(nuevoNombre);
+            trabajador.setHorasDisponibles(nuevasHorasDisponibles);
+            return trabajadorRepository.save(trabajador);
+        });
     }
 
     @Override
@@ -116,12 +146,35 @@ public class TrabajadorServiceImpl implements TrabajadorService {
         Trabajador trabajador = trabajadorRepository.findByDni(dni)
             .orElseThrow(() -> new IllegalArgumentException("No se encontró el trabajador con DNI: " + dni));
             
-        // Eliminación en cascada:
-        // 1. Eliminar todas las asignaciones del trabajador
-        asignacionRepository.deleteByTrabajador(trabajador);
-        
-        // 2. Eliminar el trabajador
-        trabajadorRepository.deleteById(trabajador.getId());
+        // Mismas franjas que las escrituras de asignaciones: el trabajador y todas las secciones de
+        // su tienda, para que ningún alta o cambio de horas se cruce con la baja en cascada
+        bloqueos.conBloqueo(clavesDeBloqueo(trabajador), () -> {
+            // Sus cambios de horas diferidos ya no se podrían escribir
+            asignacionService.descartarHorasPendientesTrabajador(dni);
+            
+            // Eliminación en cascada:
+            // 1. Descontar sus horas de las secciones de la tienda, eliminar sus horas registradas
+            //    y anotar la baja de cada asignación en el outbox
+            List<Asignacion> asignaciones = asignacionRepository.findByTrabajador(trabajador);
+            libroHoras.registrarBajas(asignaciones);
+            bandejaSalida.registrarBajas(asignaciones);
+            libroHoras.eliminarTrabajador(trabajador);
+            
+            // 2. Eliminar todas las asignaciones del trabajador
+            asignacionRepository.deleteByTrabajador(trabajador);
+            
+            // 3. Eliminar el trabajador
+            trabajadorRepository.deleteById(trabajador.getId());
+        });
+    }
+
+    private List<String> clavesDeBloqueo(Trabajador trabajador) {
+        List<String> claves = new ArrayList<>();
+        claves.add(BloqueosPorFranjas.claveTrabajador(trabajador.getDni()));
+        for (Seccion seccion : seccionRepository.findAll()) {
+            claves.add(BloqueosPorFranjas.claveSeccion(trabajador.getTienda().getId(), seccion.getNombre()));
+        }
+        return claves;
     }
 
     private void validarDniUnico(String dni) {
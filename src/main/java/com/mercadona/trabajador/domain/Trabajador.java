@@ -11,7 +11,8 @@ public class Trabajador {
     private static final int HORAS_MAXIMAS = 8;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trabajadores_seq")
+    @SequenceGenerator(name = "trabajadores_seq", sequenceName = "trabajadores_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "dni", unique = true, nullable = false, length = 9)
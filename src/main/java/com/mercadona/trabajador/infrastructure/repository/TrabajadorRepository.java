@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,6 +17,12 @@ public interface TrabajadorRepository extends JpaRepository<Trabajador, Long>, J
 
     Optional<Trabajador> findByDni(String dni);
 
+    @Query("SELECT t FROM Trabajador t JOIN FETCH t.tienda WHERE t.dni IN :dnis")
+    List<Trabajador> findByDniIn(@Param("dnis") Collection<String> dnis);
+
+    @Query("SELECT t FROM Trabajador t JOIN FETCH t.tienda WHERE t.tienda.id IN :tiendaIds")
+    List<Trabajador> findByTiendaIdIn(@Param("tiendaIds") Collection<Long> tiendaIds);
+
     boolean existsByDni(String dni);
 
     List<Trabajador> findByTienda(Tienda tienda);
@@ -0,0 +1,8 @@
+-- Dirección y ciudad de la API externa de tiendas, persistidas para no consultarla en cada reporte
+-- Las rellena la sincronización periódica (SincronizacionUbicacionTiendas)
+
+ALTER TABLE tiendas ADD COLUMN direccion VARCHAR(255);
+ALTER TABLE tiendas ADD COLUMN ciudad VARCHAR(100);
+
+COMMENT ON COLUMN tiendas.direccion IS 'Dirección según la API externa de tiendas';
+COMMENT ON COLUMN tiendas.ciudad IS 'Ciudad según la API externa de tiendas';
@@ -0,0 +1,34 @@
+-- Horas ya asignadas por trabajador y por sección de cada tienda
+-- Se mantienen en la misma transacción que cada asignación para validar sus límites con una
+-- única lectura por clave, sin sumar todas las asignaciones
+
+CREATE TABLE horas_trabajador (
+    trabajador_id BIGINT PRIMARY KEY,
+    horas_asignadas INTEGER NOT NULL DEFAULT 0 CHECK (horas_asignadas >= 0),
+    FOREIGN KEY (trabajador_id) REFERENCES trabajadores(id) ON DELETE CASCADE
+);
+
+CREATE TABLE horas_seccion_tienda (
+    id BIGSERIAL PRIMARY KEY,
+    tienda_id BIGINT NOT NULL,
+    seccion_id BIGINT NOT NULL,
+    horas_asignadas INTEGER NOT NULL DEFAULT 0 CHECK (horas_asignadas >= 0),
+    FOREIGN KEY (tienda_id) REFERENCES tiendas(id) ON DELETE CASCADE,
+    FOREIGN KEY (seccion_id) REFERENCES secciones(id),
+    UNIQUE(tienda_id, seccion_id)
+);
+
+-- Carga inicial a partir de las asignaciones existentes
+INSERT INTO horas_trabajador (trabajador_id, horas_asignadas)
+SELECT a.trabajador_id, SUM(a.horas_asignadas)
+FROM asignaciones a
+GROUP BY a.trabajador_id;
+
+INSERT INTO horas_seccion_tienda (tienda_id, seccion_id, horas_asignadas)
+SELECT t.tienda_id, a.seccion_id, SUM(a.horas_asignadas)
+FROM asignaciones a
+JOIN trabajadores t ON t.id = a.trabajador_id
+GROUP BY t.tienda_id, a.seccion_id;
+
+COMMENT ON TABLE horas_trabajador IS 'Horas asignadas a cada trabajador, mantenidas con cada asignación';
+COMMENT ON TABLE horas_seccion_tienda IS 'Horas asignadas a cada sección por tienda, mantenidas con cada asignación';
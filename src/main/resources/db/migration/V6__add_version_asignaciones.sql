@@ -0,0 +1,10 @@
+-- Versión para el bloqueo optimista de las asignaciones y de las horas registradas:
+-- cada actualización la incrementa y una escritura que partió de una versión anterior se rechaza
+
+ALTER TABLE asignaciones ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE horas_trabajador ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE horas_seccion_tienda ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+COMMENT ON COLUMN asignaciones.version IS 'Versión para el bloqueo optimista';
+COMMENT ON COLUMN horas_trabajador.version IS 'Versión para el bloqueo optimista';
+COMMENT ON COLUMN horas_seccion_tienda.version IS 'Versión para el bloqueo optimista';
@@ -0,0 +1,29 @@
+-- Secuencias con incremento 50 para los identificadores de tiendas, trabajadores, asignaciones
+-- y horas por sección: Hibernate reserva 50 identificadores por llamada (optimizador pooled) y
+-- puede agrupar las inserciones en lotes JDBC, cosa que las columnas IDENTITY/SERIAL impiden.
+-- Las inserciones SQL que no indican el id siguen usando la secuencia como valor por defecto.
+
+CREATE SEQUENCE tiendas_seq INCREMENT BY 50;
+-- El siguiente valor cierra el primer bloque: Hibernate usa los 50 identificadores que acaban en él
+SELECT setval('tiendas_seq', COALESCE((SELECT MAX(id) FROM tiendas), 0) + 50, false);
+ALTER TABLE tiendas ALTER COLUMN id SET DEFAULT nextval('tiendas_seq');
+ALTER SEQUENCE tiendas_seq OWNED BY tiendas.id;
+DROP SEQUENCE tiendas_id_seq;
+
+CREATE SEQUENCE trabajadores_seq INCREMENT BY 50;
+SELECT setval('trabajadores_seq', COALESCE((SELECT MAX(id) FROM trabajadores), 0) + 50, false);
+ALTER TABLE trabajadores ALTER COLUMN id SET DEFAULT nextval('trabajadores_seq');
+ALTER SEQUENCE trabajadores_seq OWNED BY trabajadores.id;
+DROP SEQUENCE trabajadores_id_seq;
+
+CREATE SEQUENCE asignaciones_seq INCREMENT BY 50;
+SELECT setval('asignaciones_seq', COALESCE((SELECT MAX(id) FROM asignaciones), 0) + 50, false);
+ALTER TABLE asignaciones ALTER COLUMN id SET DEFAULT nextval('asignaciones_seq');
+ALTER SEQUENCE asignaciones_seq OWNED BY asignaciones.id;
+DROP SEQUENCE asignaciones_id_seq;
+
+CREATE SEQUENCE horas_seccion_tienda_seq INCREMENT BY 50;
+SELECT setval('horas_seccion_tienda_seq', COALESCE((SELECT MAX(id) FROM horas_seccion_tienda), 0) + 50, false);
+ALTER TABLE horas_seccion_tienda ALTER COLUMN id SET DEFAULT nextval('horas_seccion_tienda_seq');
+ALTER SEQUENCE horas_seccion_tienda_seq OWNED BY horas_seccion_tienda.id;
+DROP SEQUENCE horas_seccion_tienda_id_seq;
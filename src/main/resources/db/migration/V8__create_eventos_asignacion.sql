@@ -0,0 +1,27 @@
+-- Outbox transaccional de cambios de asignaciones: cada alta, cambio o baja (también las bajas en
+-- cascada al eliminar trabajadores o tiendas) escribe aquí un evento en la misma transacción, y el
+-- relay (RelayEventosAsignacion) los publica en lotes y los marca como publicados
+
+CREATE SEQUENCE eventos_asignacion_seq INCREMENT BY 50;
+
+CREATE TABLE eventos_asignacion (
+    id BIGINT PRIMARY KEY DEFAULT nextval('eventos_asignacion_seq'),
+    tipo VARCHAR(20) NOT NULL CHECK (tipo IN ('CREADA', 'ACTUALIZADA', 'ELIMINADA')),
+    asignacion_id BIGINT,
+    dni_trabajador VARCHAR(9) NOT NULL,
+    codigo_tienda VARCHAR(50) NOT NULL,
+    nombre_seccion VARCHAR(100) NOT NULL,
+    horas_anteriores INTEGER NOT NULL,
+    horas_nuevas INTEGER NOT NULL,
+    creado_en TIMESTAMP WITH TIME ZONE NOT NULL,
+    publicado_en TIMESTAMP WITH TIME ZONE
+);
+
+ALTER SEQUENCE eventos_asignacion_seq OWNED BY eventos_asignacion.id;
+
+-- El relay solo recorre los pendientes y la purga solo los publicados
+CREATE INDEX idx_eventos_asignacion_pendientes ON eventos_asignacion(id) WHERE publicado_en IS NULL;
+CREATE INDEX idx_eventos_asignacion_publicados ON eventos_asignacion(publicado_en) WHERE publicado_en IS NOT NULL;
+
+COMMENT ON TABLE eventos_asignacion IS 'Outbox de cambios de asignaciones pendientes de publicar';
+COMMENT ON COLUMN eventos_asignacion.asignacion_id IS 'Id de la asignación, sin clave foránea para conservar el evento tras su baja';
@@ -1,24 +1,44 @@
 package com.mercadona.asignacion.application.service;
 
 import com.mercadona.asignacion.application.port.AsignacionService;
+import com.mercadona.asignacion.application.port.ResultadoLoteAsignaciones;
+import com.mercadona.asignacion.application.port.SolicitudAsignacion;
 import com.mercadona.asignacion.domain.Asignacion;
 import com.mercadona.asignacion.infrastructure.repository.AsignacionRepository;
+import com.mercadona.asignacion.domain.AsignacionRechazadaException;
+import com.mercadona.asignacion.domain.MotivoRechazoAsignacion;
+import com.mercadona.asignacion.domain.MovimientoAsignacion;
+import com.mercadona.asignacion.infrastructure.repository.HorasAsignadasAgregadas;
+import com.mercadona.asignacion.infrastructure.repository.InsercionCondicionalAsignacion;
+import com.mercadona.asignacion.infrastructure.repository.ResultadoInsercionAsignacion;
 import com.mercadona.tienda.domain.Seccion;
 import com.mercadona.tienda.domain.Tienda;
 import com.mercadona.trabajador.domain.Trabajador;
 import com.mercadona.trabajador.infrastructure.repository.TrabajadorRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +54,26 @@ class AsignacionServiceImplTest {
     @Mock
     private com.mercadona.tienda.infrastructure.repository.SeccionRepository seccionRepository;
 
+    @Mock
+    private LibroHorasAsignadas libroHoras;
+
+    @Mock
+    private BandejaSalidaAsignaciones bandejaSalida;
+
+    @Mock
+    private InsercionCondicionalAsignacion insercionCondicional;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final BloqueosPorFranjas bloqueos = new BloqueosPorFranjas(16, Duration.ofSeconds(1), new SimpleMeterRegistry());
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final CambiosHorasPendientes pendientes = new CambiosHorasPendientes(false, Duration.ZERO, new SimpleMeterRegistry());
+
+    private ReintentosBloqueoOptimista reintentos;
+
     private AsignacionService asignacionService;
 
     private Tienda tiendaMock;
@@ -42,7 +82,9 @@ class AsignacionServiceImplTest {
 
     @BeforeEach
     void setUp() {
-        asignacionService = new AsignacionServiceImpl(asignacionRepository, trabajadorRepository, seccionRepository);
+        reintentos = new ReintentosBloqueoOptimista(transactionManager, 3, Duration.ZERO, Duration.ZERO, meterRegistry);
+        asignacionService = new AsignacionServiceImpl(asignacionRepository, trabajadorRepository, seccionRepository,
+            libroHoras, bandejaSalida, pendientes, bloqueos, reintentos, insercionCondicional, false);
         
         tiendaMock = new Tienda("T001", "Tienda Centro");
         trabajadorMock = new Trabajador("12345678Z", "Juan Perez", 8, tiendaMock);
@@ -150,7 +192,7 @@ class AsignacionServiceImplTest {
         when(trabajadorRepository.findByDni(dniTrabajador)).thenReturn(Optional.of(trabajadorMock));
         when(seccionRepository.findByNombre(nombreSeccion)).thenReturn(Optional.of(seccionMock));
         when(asignacionRepository.existsByTrabajadorAndSeccion(trabajadorMock, seccionMock)).thenReturn(false);
-        when(asignacionRepository.findByTrabajador(trabajadorMock)).thenReturn(List.of()); // Sin asignaciones previas
+        when(libroHoras.horasTrabajador(trabajadorMock)).thenReturn(0); // Sin asignaciones previas
         
         // When & Then
         IllegalArgumentException exception = assertThrows(
@@ -291,6 +333,8 @@ class AsignacionServiceImplTest {
         
         // Then
         verify(asignacionRepository).deleteById(asignacionExistente.getId());
+        verify(libroHoras).registrarBajas(List.of(asignacionExistente));
+        verify(bandejaSalida).registrarBajas(List.of(asignacionExistente));
     }
 
     @Test
@@ -395,15 +439,12 @@ class AsignacionServiceImplTest {
         Trabajador trabajadorConHorasLimitadas = new Trabajador("12345678Z", "Juan Perez", 6, tiendaMock);
         trabajadorConHorasLimitadas.setId(1L);
         
-        Asignacion asignacionExistente = new Asignacion(trabajadorConHorasLimitadas, seccionMock, 4);
-        List<Asignacion> asignacionesExistentes = List.of(asignacionExistente);
-        
         when(trabajadorRepository.findByDni(dniTrabajador))
                 .thenReturn(Optional.of(trabajadorConHorasLimitadas));
         when(seccionRepository.findByNombre(nombreSeccion))
                 .thenReturn(Optional.of(seccionMock));
-        when(asignacionRepository.findByTrabajador(trabajadorConHorasLimitadas))
-                .thenReturn(asignacionesExistentes);
+        when(libroHoras.horasTrabajador(trabajadorConHorasLimitadas))
+                .thenReturn(4); // Ya tiene 4 horas asignadas
         
         // When & Then
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
@@ -431,11 +472,9 @@ class AsignacionServiceImplTest {
                 .thenReturn(Optional.of(trabajadorValido));
         when(seccionRepository.findByNombre(nombreSeccion))
                 .thenReturn(Optional.of(seccionValida));
-        when(asignacionRepository.findByTrabajador(trabajadorValido))
-                .thenReturn(List.of());
         when(asignacionRepository.existsByTrabajadorAndSeccion(trabajadorValido, seccionValida))
                 .thenReturn(false);
-        when(asignacionRepository.sumHorasAsignadasBySeccion(seccionValida))
+        when(libroHoras.horasSeccion(tiendaMock, seccionValida))
                 .thenReturn(0); // Sin horas asignadas previamente
         when(asignacionRepository.save(any(Asignacion.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
@@ -448,6 +487,8 @@ class AsignacionServiceImplTest {
         assertEquals(trabajadorValido, resultado.getTrabajador());
         assertEquals(seccionValida, resultado.getSeccion());
         assertEquals(horasAsignadas, resultado.getHorasAsignadas());
+        verify(libroHoras).registrarAltas(List.of(resultado));
+        verify(bandejaSalida).registrarAltas(List.of(resultado));
     }
 
     @Test
@@ -467,12 +508,10 @@ class AsignacionServiceImplTest {
                 .thenReturn(Optional.of(trabajadorValido));
         when(seccionRepository.findByNombre(nombreSeccion))
                 .thenReturn(Optional.of(seccionHorno));
-        when(asignacionRepository.findByTrabajador(trabajadorValido))
-                .thenReturn(List.of());
         when(asignacionRepository.existsByTrabajadorAndSeccion(trabajadorValido, seccionHorno))
                 .thenReturn(false);
-        when(asignacionRepository.sumHorasAsignadasBySeccion(seccionHorno))
-                .thenReturn(6); // Ya tiene 6 horas asignadas
+        when(libroHoras.horasSeccion(tiendaMock, seccionHorno))
+                .thenReturn(6); // La sección ya tiene 6 horas asignadas en la tienda
         
         // When & Then
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
@@ -483,4 +522,447 @@ class AsignacionServiceImplTest {
                 exception.getMessage());
     }
 
+    @Test
+    void deberiaCrearAsignacionConInsercionCondicionalSinValidarEnJava() {
+        // Given
+        AsignacionService servicio = new AsignacionServiceImpl(asignacionRepository, trabajadorRepository, seccionRepository,
+            libroHoras, bandejaSalida, pendientes, bloqueos, reintentos, insercionCondicional, true);
+        Asignacion creada = new Asignacion(trabajadorMock, seccionMock, 4);
+        when(insercionCondicional.prepararHoras("12345678Z", "Horno")).thenReturn(Optional.of(1L));
+        when(insercionCondicional.insertar("12345678Z", "Horno", 4)).thenReturn(ResultadoInsercionAsignacion.creada(7L));
+        when(asignacionRepository.findConDetallesById(7L)).thenReturn(Optional.of(creada));
+
+        // When
+        Asignacion resultado = servicio.crearAsignacion("12345678Z", "Horno", 4);
+
+        // Then
+        assertSame(creada, resultado);
+        verify(trabajadorRepository, never()).findByDni(any());
+        verifyNoInteractions(seccionRepository, libroHoras);
+        verify(asignacionRepository, never()).save(any());
+        verify(bandejaSalida).registrarAltas(List.of(creada));
+    }
+
+    @Test
+    void deberiaInformarDelMotivoCuandoLaInsercionCondicionalRechazaElAlta() {
+        // Given
+        AsignacionService servicio = new AsignacionServiceImpl(asignacionRepository, trabajadorRepository, seccionRepository,
+            libroHoras, bandejaSalida, pendientes, bloqueos, reintentos, insercionCondicional, true);
+        when(insercionCondicional.insertar("12345678Z", "Horno", 3)).thenReturn(new ResultadoInsercionAsignacion(
+            null, MotivoRechazoAsignacion.LIMITE_SECCION_EXCEDIDO, 8, 2, 8, 6));
+
+        // When
+        AsignacionRechazadaException exception = assertThrows(AsignacionRechazadaException.class,
+            () -> servicio.crearAsignacion("12345678Z", "Horno", 3));
+
+        // Then
+        assertEquals(MotivoRechazoAsignacion.LIMITE_SECCION_EXCEDIDO, exception.getMotivo());
+        assertEquals("La sección no puede exceder sus horas necesarias. Sección: Horno, límite: 8, ya asignadas: 6, intentando asignar: 3",
+            exception.getMessage());
+        verify(asignacionRepository, never()).findConDetallesById(any());
+    }
+
+    @Test
+    void deberiaActualizarHorasValidandoContraLasHorasRegistradasDelTrabajador() {
+        // Given
+        Asignacion asignacionExistente = new Asignacion(trabajadorMock, seccionMock, 2);
+        when(trabajadorRepository.findByDni("12345678Z")).thenReturn(Optional.of(trabajadorMock));
+        when(seccionRepository.findByNombre("Horno")).thenReturn(Optional.of(seccionMock));
+        when(asignacionRepository.findByTrabajadorAndSeccion(trabajadorMock, seccionMock))
+            .thenReturn(Optional.of(asignacionExistente));
+        when(libroHoras.horasTrabajador(trabajadorMock)).thenReturn(7); // 2 de esta asignación + 5 de otras
+        when(asignacionRepository.save(asignacionExistente)).thenReturn(asignacionExistente);
+
+        // When
+        Asignacion resultado = asignacionService.actualizarHorasAsignacion("12345678Z", "Horno", 3);
+
+        // Then
+        assertEquals(3, resultado.getHorasAsignadas());
+        verify(libroHoras).registrarCambio(asignacionExistente, 2);
+        verify(bandejaSalida).registrarCambio(asignacionExistente, 2);
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> asignacionService.actualizarHorasAsignacion("12345678Z", "Horno", 5));
+        assertEquals("El trabajador no tiene suficientes horas disponibles. Disponibles: 8, ya asignadas: 4, solicitadas: 5",
+            exception.getMessage());
+    }
+
+    @Test
+    void deberiaRepetirLaActualizacionDesdeLaLecturaCuandoHayConflictoDeVersion() {
+        // Given
+        Asignacion leidaPrimero = new Asignacion(trabajadorMock, seccionMock, 2);
+        Asignacion leidaDespues = new Asignacion(trabajadorMock, seccionMock, 2);
+        when(trabajadorRepository.findByDni("12345678Z")).thenReturn(Optional.of(trabajadorMock));
+        when(seccionRepository.findByNombre("Horno")).thenReturn(Optional.of(seccionMock));
+        when(asignacionRepository.findByTrabajadorAndSeccion(trabajadorMock, seccionMock))
+            .thenReturn(Optional.of(leidaPrimero), Optional.of(leidaDespues));
+        when(libroHoras.horasTrabajador(trabajadorMock)).thenReturn(2);
+        when(asignacionRepository.save(any(Asignacion.class)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Asignacion.class, 1L))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Asignacion resultado = asignacionService.actualizarHorasAsignacion("12345678Z", "Horno", 3);
+
+        // Then
+        assertSame(leidaDespues, resultado);
+        verify(libroHoras, times(1)).registrarCambio(same(leidaDespues), eq(2));
+        verify(transactionManager).rollback(any());
+        assertEquals(1.0, meterRegistry.counter("assignments.optimistic.retries", "operation", "update").count());
+    }
+
+    @Test
+    void deberiaCrearLoteAcumulandoHorasDelPropioLoteYReportarErroresPorElemento() {
+        // Given
+        Trabajador trabajador2 = new Trabajador("87654321X", "María García", 8, tiendaMock);
+        Seccion cajas = new Seccion("Cajas", 16);
+        when(trabajadorRepository.findByDniIn(anyCollection())).thenReturn(List.of(trabajadorMock, trabajador2));
+        when(seccionRepository.findByNombreIn(anyCollection())).thenReturn(List.of(seccionMock, cajas));
+        when(asignacionRepository.sumHorasAsignadasPorTrabajadorYSeccion(anyCollection()))
+            .thenReturn(List.of(horas("87654321X", "Cajas", 6)));
+        when(libroHoras.horasSecciones(anyCollection(), anyCollection()))
+            .thenReturn(Map.of(new LibroHorasAsignadas.ClaveSeccion("T001", "Cajas"), 6));
+
+        List<SolicitudAsignacion> solicitudes = List.of(
+            new SolicitudAsignacion("12345678Z", "Horno", 6),    // válida
+            new SolicitudAsignacion("12345678Z", "Cajas", 4),    // 6 + 4 > 8 del propio lote
+            new SolicitudAsignacion("87654321X", "Cajas", 2),    // ya asignado a Cajas
+            new SolicitudAsignacion("87654321X", "Horno", 2),    // válida: completa Horno (6 + 2)
+            new SolicitudAsignacion("00000000T", "Horno", 1)     // trabajador inexistente
+        );
+
+        // When
+        ResultadoLoteAsignaciones resultado = asignacionService.crearAsignacionesEnLote(solicitudes);
+
+        // Then
+        assertEquals(2, resultado.creadas());
+        assertEquals(3, resultado.rechazadas());
+        List<ResultadoLoteAsignaciones.Resultado> resultados = resultado.resultados();
+        assertTrue(resultados.get(0).creada());
+        assertEquals("El trabajador no puede exceder sus horas disponibles. Disponibles: 8, ya asignadas: 6, intentando asignar: 4",
+            resultados.get(1).error());
+        assertEquals("Ya existe una asignación para el trabajador 87654321X en la sección Cajas", resultados.get(2).error());
+        assertTrue(resultados.get(3).creada());
+        assertEquals("No existe un trabajador con el DNI: 00000000T", resultados.get(4).error());
+
+        verify(asignacionRepository).saveAll(List.of(resultados.get(0).asignacion(), resultados.get(3).asignacion()));
+        verify(libroHoras).registrarAltas(List.of(resultados.get(0).asignacion(), resultados.get(3).asignacion()));
+        verify(bandejaSalida).registrarAltas(List.of(resultados.get(0).asignacion(), resultados.get(3).asignacion()));
+        verify(trabajadorRepository, never()).findByDni(any());
+        verify(asignacionRepository, never()).findByTrabajador(any());
+    }
+
+    @Test
+    void deberiaRechazarEnLoteCuandoSeSuperaElLimiteDeLaSeccionEnLaMismaTienda() {
+        // Given
+        Trabajador trabajador2 = new Trabajador("87654321X", "María García", 8, tiendaMock);
+        Trabajador trabajadorOtraTienda = new Trabajador("11111111H", "Luis Gómez", 8, new Tienda("T002", "Tienda Norte"));
+        when(trabajadorRepository.findByDniIn(anyCollection())).thenReturn(List.of(trabajadorMock, trabajador2, trabajadorOtraTienda));
+        when(seccionRepository.findByNombreIn(anyCollection())).thenReturn(List.of(seccionMock));
+        when(asignacionRepository.sumHorasAsignadasPorTrabajadorYSeccion(anyCollection())).thenReturn(List.of());
+        when(libroHoras.horasSecciones(anyCollection(), anyCollection())).thenReturn(Map.of());
+
+        // When
+        ResultadoLoteAsignaciones resultado = asignacionService.crearAsignacionesEnLote(List.of(
+            new SolicitudAsignacion("12345678Z", "Horno", 5),
+            new SolicitudAsignacion("87654321X", "Horno", 4),
+            new SolicitudAsignacion("11111111H", "Horno", 4)     // el límite es por tienda
+        ));
+
+        // Then
+        assertTrue(resultado.resultados().get(0).creada());
+        assertEquals("La sección no puede exceder sus horas necesarias. Sección: Horno, límite: 8, ya asignadas: 5, intentando asignar: 4",
+            resultado.resultados().get(1).error());
+        assertTrue(resultado.resultados().get(2).creada());
+    }
+
+    @Test
+    void deberiaMoverAsignacionAOtraSeccionConLasMismasHoras() {
+        // Given
+        Seccion cajas = new Seccion("Cajas", 16);
+        Asignacion asignacion = new Asignacion(trabajadorMock, seccionMock, 6);
+        when(trabajadorRepository.findByDni("12345678Z")).thenReturn(Optional.of(trabajadorMock));
+        when(seccionRepository.findByNombre("Horno")).thenReturn(Optional.of(seccionMock));
+        when(seccionRepository.findByNombre("Cajas")).thenReturn(Optional.of(cajas));
+        when(asignacionRepository.findByTrabajadorAndSeccion(trabajadorMock, seccionMock)).thenReturn(Optional.of(asignacion));
+        when(asignacionRepository.existsByTrabajadorAndSeccion(trabajadorMock, cajas)).thenReturn(false);
+        when(libroHoras.horasSeccion(tiendaMock, cajas)).thenReturn(10);
+        when(asignacionRepository.save(asignacion)).thenReturn(asignacion);
+
+        // When
+        Asignacion resultado = asignacionService.moverAsignacion("12345678Z", "Horno", "Cajas");
+
+        // Then
+        assertEquals("Cajas", resultado.getSeccion().getNombre());
+        assertEquals(6, resultado.getHorasAsignadas());
+        List<MovimientoAsignacion> movimientos = List.of(new MovimientoAsignacion(asignacion, seccionMock));
+        verify(libroHoras).registrarMovimientos(movimientos);
+        verify(bandejaSalida).registrarMovimientos(movimientos);
+        verify(libroHoras, never()).horasTrabajador(any());
+    }
+
+    @Test
+    void deberiaRechazarMoverCuandoLaSeccionDeDestinoSuperaSuLimite() {
+        // Given
+        Seccion cajas = new Seccion("Cajas", 16);
+        Asignacion asignacion = new Asignacion(trabajadorMock, seccionMock, 6);
+        when(trabajadorRepository.findByDni("12345678Z")).thenReturn(Optional.of(trabajadorMock));
+        when(seccionRepository.findByNombre("Horno")).thenReturn(Optional.of(seccionMock));
+        when(seccionRepository.findByNombre("Cajas")).thenReturn(Optional.of(cajas));
+        when(asignacionRepository.findByTrabajadorAndSeccion(trabajadorMock, seccionMock)).thenReturn(Optional.of(asignacion));
+        when(asignacionRepository.existsByTrabajadorAndSeccion(trabajadorMock, cajas)).thenReturn(false);
+        when(libroHoras.horasSeccion(tiendaMock, cajas)).thenReturn(12);
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> asignacionService.moverAsignacion("12345678Z", "Horno", "Cajas"));
+        assertEquals("La sección no puede exceder sus horas necesarias. Sección: Cajas, límite: 16, ya asignadas: 12, intentando asignar: 6",
+            exception.getMessage());
+        assertEquals("Horno", asignacion.getSeccion().getNombre());
+        verify(asignacionRepository, never()).save(any());
+        verifyNoInteractions(bandejaSalida);
+    }
+
+    @Test
+    void deberiaIntercambiarAsignacionesContandoLasHorasQueSalenDeCadaSeccion() {
+        // Given: Horno y Cajas están completos; solo caben porque cada uno deja las mismas horas que recibe
+        Trabajador ana = new Trabajador("87654321X", "Ana López", 8, tiendaMock);
+        Seccion cajas = new Seccion("Cajas", 16);
+        Asignacion hornoJuan = new Asignacion(trabajadorMock, seccionMock, 4);
+        Asignacion cajasAna = new Asignacion(ana, cajas, 4);
+        when(trabajadorRepository.findByDni("12345678Z")).thenReturn(Optional.of(trabajadorMock));
+        when(trabajadorRepository.findByDni("87654321X")).thenReturn(Optional.of(ana));
+        when(seccionRepository.findByNombre("Horno")).thenReturn(Optional.of(seccionMock));
+        when(seccionRepository.findByNombre("Cajas")).thenReturn(Optional.of(cajas));
+        when(asignacionRepository.findByTrabajadorAndSeccion(trabajadorMock, seccionMock)).thenReturn(Optional.of(hornoJuan));
+        when(asignacionRepository.findByTrabajadorAndSeccion(ana, cajas)).thenReturn(Optional.of(cajasAna));
+        when(asignacionRepository.existsByTrabajadorAndSeccion(any(), any())).thenReturn(false);
+        when(libroHoras.horasSecciones(List.of(trabajadorMock, ana), List.of(seccionMock, cajas))).thenReturn(Map.of(
+            LibroHorasAsignadas.ClaveSeccion.de(tiendaMock, seccionMock), 8,
+            LibroHorasAsignadas.ClaveSeccion.de(tiendaMock, cajas), 16));
+        when(asignacionRepository.saveAll(List.of(hornoJuan, cajasAna))).thenReturn(List.of(hornoJuan, cajasAna));
+
+        // When
+        List<Asignacion> resultado = asignacionService.intercambiarAsignaciones("12345678Z", "Horno", "87654321X", "Cajas");
+
+        // Then
+        assertEquals("Cajas", resultado.get(0).getSeccion().getNombre());
+        assertEquals(4, resultado.get(0).getHorasAsignadas());
+        assertEquals("Horno", resultado.get(1).getSeccion().getNombre());
+        assertEquals(4, resultado.get(1).getHorasAsignadas());
+        verify(libroHoras).registrarMovimientos(List.of(
+            new MovimientoAsignacion(hornoJuan, seccionMock), new MovimientoAsignacion(cajasAna, cajas)));
+    }
+
+    @Test
+    void deberiaRechazarIntercambioCuandoLaSeccionNoAdmiteLasHorasQueEntran() {
+        // Given: de Horno salen 2 h pero entran 6 y ya había 6
+        Trabajador ana = new Trabajador("87654321X", "Ana López", 8, tiendaMock);
+        Seccion cajas = new Seccion("Cajas", 16);
+        Asignacion hornoJuan = new Asignacion(trabajadorMock, seccionMock, 2);
+        Asignacion cajasAna = new Asignacion(ana, cajas, 6);
+        when(trabajadorRepository.findByDni("12345678Z")).thenReturn(Optional.of(trabajadorMock));
+        when(trabajadorRepository.findByDni("87654321X")).thenReturn(Optional.of(ana));
+        when(seccionRepository.findByNombre("Horno")).thenReturn(Optional.of(seccionMock));
+        when(seccionRepository.findByNombre("Cajas")).thenReturn(Optional.of(cajas));
+        when(asignacionRepository.findByTrabajadorAndSeccion(trabajadorMock, seccionMock)).thenReturn(Optional.of(hornoJuan));
+        when(asignacionRepository.findByTrabajadorAndSeccion(ana, cajas)).thenReturn(Optional.of(cajasAna));
+        when(asignacionRepository.existsByTrabajadorAndSeccion(any(), any())).thenReturn(false);
+        when(libroHoras.horasSecciones(List.of(trabajadorMock, ana), List.of(seccionMock, cajas))).thenReturn(Map.of(
+            LibroHorasAsignadas.ClaveSeccion.de(tiendaMock, seccionMock), 6,
+            LibroHorasAsignadas.ClaveSeccion.de(tiendaMock, cajas), 6));
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> asignacionService.intercambiarAsignaciones("12345678Z", "Horno", "87654321X", "Cajas"));
+        assertEquals("La sección no puede exceder sus horas necesarias. Sección: Horno, límite: 8, ya asignadas: 4, intentando asignar: 6",
+            exception.getMessage());
+        verify(asignacionRepository, never()).saveAll(any());
+        verifyNoInteractions(bandejaSalida);
+    }
+
+    @Test
+    void deberiaRechazarIntercambioDeAsignacionesDelMismoTrabajador() {
+        // Given
+        when(trabajadorRepository.findByDni("12345678Z")).thenReturn(Optional.of(trabajadorMock));
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> asignacionService.intercambiarAsignaciones("12345678Z", "Horno", "12345678Z", "Cajas"));
+        assertEquals("Solo se pueden intercambiar asignaciones de trabajadores distintos", exception.getMessage());
+        verifyNoInteractions(asignacionRepository);
+    }
+
+    @Test
+    void deberiaFundirLosCambiosDiferidosEnUnaSolaEscrituraAlConfirmarLaTienda() {
+        // Given
+        AsignacionService servicio = servicioConEscrituraDiferida();
+        Asignacion cargada = new Asignacion(trabajadorMock, seccionMock, 2);
+        Asignacion asignacion = new Asignacion(trabajadorMock, seccionMock, 2);
+        when(trabajadorRepository.findByDni("12345678Z")).thenReturn(Optional.of(trabajadorMock));
+        when(seccionRepository.findByNombre("Horno")).thenReturn(Optional.of(seccionMock));
+        when(asignacionRepository.findConDetallesByTrabajadorAndSeccion(trabajadorMock, seccionMock)).thenReturn(Optional.of(cargada));
+        when(asignacionRepository.findByTrabajadorAndSeccion(trabajadorMock, seccionMock)).thenReturn(Optional.of(asignacion));
+        when(libroHoras.horasTrabajador(trabajadorMock)).thenReturn(2);
+        when(asignacionRepository.save(asignacion)).thenReturn(asignacion);
+
+        // When
+        servicio.actualizarHorasAsignacion("12345678Z", "Horno", 3);
+        servicio.actualizarHorasAsignacion("12345678Z", "Horno", 4);
+        Asignacion aceptada = servicio.actualizarHorasAsignacion("12345678Z", "Horno", 5);
+
+        // Then: los tres cambios se aceptan leyendo la base de datos una sola vez y sin escribir,
+        // y se devuelve la asignación leída con las últimas horas aceptadas
+        assertSame(cargada, aceptada);
+        assertEquals(5, aceptada.getHorasAsignadas());
+        verify(trabajadorRepository, times(1)).findByDni("12345678Z");
+        verify(asignacionRepository, never()).save(any());
+
+        // When
+        servicio.confirmarHorasPendientes("T001");
+
+        // Then
+        verify(asignacionRepository, times(1)).save(asignacion);
+        assertEquals(5, asignacion.getHorasAsignadas());
+        verify(libroHoras).registrarCambio(asignacion, 2);
+        verify(bandejaSalida).registrarCambio(asignacion, 2);
+    }
+
+    @Test
+    void deberiaValidarLosCambiosDiferidosContraLaVistaEnMemoriaYEscribirlosAntesDeOtraEscritura() {
+        // Given: 2 h de esta asignación y 4 de otras
+        AsignacionService servicio = servicioConEscrituraDiferida();
+        Asignacion asignacion = new Asignacion(trabajadorMock, seccionMock, 2);
+        when(trabajadorRepository.findByDni("12345678Z")).thenReturn(Optional.of(trabajadorMock));
+        when(seccionRepository.findByNombre("Horno")).thenReturn(Optional.of(seccionMock));
+        when(asignacionRepository.findConDetallesByTrabajadorAndSeccion(trabajadorMock, seccionMock))
+            .thenReturn(Optional.of(new Asignacion(trabajadorMock, seccionMock, 2)));
+        when(asignacionRepository.findByTrabajadorAndSeccion(trabajadorMock, seccionMock)).thenReturn(Optional.of(asignacion));
+        when(libroHoras.horasTrabajador(trabajadorMock)).thenReturn(6);
+        when(asignacionRepository.save(asignacion)).thenReturn(asignacion);
+        servicio.actualizarHorasAsignacion("12345678Z", "Horno", 4);
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> servicio.actualizarHorasAsignacion("12345678Z", "Horno", 5));
+        assertEquals("El trabajador no tiene suficientes horas disponibles. Disponibles: 8, ya asignadas: 4, solicitadas: 5",
+            exception.getMessage());
+        verify(asignacionRepository, never()).save(any());
+
+        // When
+        servicio.eliminarAsignacion("12345678Z", "Horno");
+
+        // Then
+        InOrder orden = inOrder(asignacionRepository);
+        orden.verify(asignacionRepository).save(asignacion);
+        orden.verify(asignacionRepository).deleteById(any());
+        assertEquals(4, asignacion.getHorasAsignadas());
+    }
+
+    @Test
+    void deberiaDescartarLosCambiosDiferidosDeUnTrabajadorQueSeElimina() {
+        // Given
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        AsignacionService servicio = new AsignacionServiceImpl(asignacionRepository, trabajadorRepository, seccionRepository,
+            libroHoras, bandejaSalida, new CambiosHorasPendientes(true, Duration.ofMinutes(1), registro),
+            bloqueos, reintentos, insercionCondicional, false);
+        Asignacion asignacion = new Asignacion(trabajadorMock, seccionMock, 2);
+        when(trabajadorRepository.findByDni("12345678Z")).thenReturn(Optional.of(trabajadorMock));
+        when(seccionRepository.findByNombre("Horno")).thenReturn(Optional.of(seccionMock));
+        when(asignacionRepository.findConDetallesByTrabajadorAndSeccion(trabajadorMock, seccionMock)).thenReturn(Optional.of(asignacion));
+        when(libroHoras.horasTrabajador(trabajadorMock)).thenReturn(2);
+        servicio.actualizarHorasAsignacion("12345678Z", "Horno", 4);
+        assertEquals(1.0, registro.get("assignments.write_behind.pending").gauge().value());
+
+        // When
+        servicio.descartarHorasPendientesTrabajador("12345678Z");
+        servicio.confirmarHorasPendientes("T001");
+
+        // Then
+        assertEquals(0.0, registro.get("assignments.write_behind.pending").gauge().value());
+        assertEquals(1.0, registro.counter("assignments.write_behind.dropped").count());
+        verify(asignacionRepository, never()).save(any());
+    }
+
+    @Test
+    void deberiaMantenerPendientesLosCambiosDiferidosSiUnaFranjaSigueOcupada() throws Exception {
+        // Given
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        BloqueosPorFranjas bloqueosCortos = new BloqueosPorFranjas(16, Duration.ofMillis(50), new SimpleMeterRegistry());
+        AsignacionService servicio = new AsignacionServiceImpl(asignacionRepository, trabajadorRepository, seccionRepository,
+            libroHoras, bandejaSalida, new CambiosHorasPendientes(true, Duration.ofMinutes(1), registro),
+            bloqueosCortos, reintentos, insercionCondicional, false);
+        Asignacion asignacion = new Asignacion(trabajadorMock, seccionMock, 2);
+        when(trabajadorRepository.findByDni("12345678Z")).thenReturn(Optional.of(trabajadorMock));
+        when(seccionRepository.findByNombre("Horno")).thenReturn(Optional.of(seccionMock));
+        when(asignacionRepository.findConDetallesByTrabajadorAndSeccion(trabajadorMock, seccionMock))
+            .thenReturn(Optional.of(new Asignacion(trabajadorMock, seccionMock, 2)));
+        when(libroHoras.horasTrabajador(trabajadorMock)).thenReturn(2);
+        servicio.actualizarHorasAsignacion("12345678Z", "Horno", 4);
+
+        // When: otra operación retiene la franja de la sección
+        ExecutorService otroHilo = Executors.newSingleThreadExecutor();
+        CountDownLatch retenida = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+        Future<?> otraOperacion = otroHilo.submit(() -> {
+            BloqueosPorFranjas.Bloqueo bloqueo = bloqueosCortos.bloquear(
+                List.of(BloqueosPorFranjas.claveSeccion(tiendaMock.getId(), "Horno")));
+            try {
+                retenida.countDown();
+                soltar.await();
+            } finally {
+                bloqueo.close();
+            }
+            return null;
+        });
+        try {
+            assertTrue(retenida.await(1, TimeUnit.SECONDS));
+            servicio.confirmarHorasPendientes("T001");
+
+            // Then: el cambio ni se escribe ni se pierde, y otra escritura sobre el trabajador espera
+            assertEquals(1.0, registro.get("assignments.write_behind.pending").gauge().value());
+            assertEquals(0.0, registro.counter("assignments.write_behind.dropped").count());
+            assertThrows(BloqueoNoDisponibleException.class,
+                () -> servicio.confirmarHorasPendientesTrabajador("12345678Z"));
+            verify(asignacionRepository, never()).save(any());
+        } finally {
+            soltar.countDown();
+            otraOperacion.get(1, TimeUnit.SECONDS);
+            otroHilo.shutdown();
+        }
+
+        // When
+        when(asignacionRepository.findByTrabajadorAndSeccion(trabajadorMock, seccionMock)).thenReturn(Optional.of(asignacion));
+        when(asignacionRepository.save(asignacion)).thenReturn(asignacion);
+        servicio.confirmarHorasPendientes("T001");
+
+        // Then
+        assertEquals(4, asignacion.getHorasAsignadas());
+        assertEquals(0.0, registro.get("assignments.write_behind.pending").gauge().value());
+        assertEquals(1.0, registro.counter("assignments.write_behind.written").count());
+    }
+
+    private AsignacionService servicioConEscrituraDiferida() {
+        return new AsignacionServiceImpl(asignacionRepository, trabajadorRepository, seccionRepository, libroHoras,
+            bandejaSalida, new CambiosHorasPendientes(true, Duration.ofMinutes(1), new SimpleMeterRegistry()),
+            bloqueos, reintentos, insercionCondicional, false);
+    }
+
+    private static HorasAsignadasAgregadas horas(String dniTrabajador, String nombreSeccion, long horas) {
+        return new HorasAsignadasAgregadas() {
+            @Override
+            public String getDniTrabajador() {
+                return dniTrabajador;
+            }
+
+            @Override
+            public String getNombreSeccion() {
+                return nombreSeccion;
+            }
+
+            @Override
+            public Long getHoras() {
+                return horas;
+            }
+        };
+    }
 }
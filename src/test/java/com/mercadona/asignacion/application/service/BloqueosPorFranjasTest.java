@@ -0,0 +1,156 @@
+package com.mercadona.asignacion.application.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloqueosPorFranjasTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BloqueosPorFranjas bloqueos;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bloqueos = new BloqueosPorFranjas(64, Duration.ofMillis(200), meterRegistry);
+        pool = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void deberiaPermitirEnParaleloClavesDeFranjasDistintas() throws Exception {
+        // Given
+        String claveA = "trabajador:12345678Z";
+        String claveB = claveEnOtraFranja(claveA);
+
+        // When
+        try (BloqueosPorFranjas.Bloqueo bloqueo = bloqueos.bloquear(List.of(claveA))) {
+            Future<Boolean> otra = pool.submit(() -> {
+                try (BloqueosPorFranjas.Bloqueo otro = bloqueos.bloquear(List.of(claveB))) {
+                    return true;
+                }
+            });
+
+            // Then
+            assertTrue(otra.get(1, TimeUnit.SECONDS));
+        }
+        assertEquals(0.0, meterRegistry.counter("assignments.locks.acquisitions", "result", "contended").count());
+    }
+
+    @Test
+    void deberiaEsperarPorLaMismaClaveYAgotarLaEsperaMaxima() throws Exception {
+        // Given
+        String clave = "seccion:1|Horno";
+
+        // When
+        try (BloqueosPorFranjas.Bloqueo bloqueo = bloqueos.bloquear(List.of(clave))) {
+            Future<?> otra = pool.submit(() -> bloqueos.bloquear(List.of(clave)).close());
+
+            // Then
+            Exception exception = assertThrows(Exception.class, () -> otra.get(1, TimeUnit.SECONDS));
+            assertInstanceOf(BloqueoNoDisponibleException.class, exception.getCause());
+        }
+        assertEquals(1.0, meterRegistry.counter("assignments.locks.acquisitions", "result", "timeout").count());
+        assertEquals(1L, meterRegistry.timer("assignments.locks.wait").count());
+    }
+
+    @Test
+    void deberiaAdquirirEnOrdenFijoSinInterbloquearseConClavesCruzadas() throws Exception {
+        // Given
+        String claveA = "trabajador:12345678Z";
+        String claveB = claveEnOtraFranja(claveA);
+        CountDownLatch salida = new CountDownLatch(1);
+        int repeticiones = 500;
+
+        // When
+        CompletableFuture<Void> primera = CompletableFuture.runAsync(() -> repetir(salida, repeticiones, claveA, claveB), pool);
+        CompletableFuture<Void> segunda = CompletableFuture.runAsync(() -> repetir(salida, repeticiones, claveB, claveA), pool);
+        salida.countDown();
+
+        // Then
+        CompletableFuture.allOf(primera, segunda).get(5, TimeUnit.SECONDS);
+        assertEquals(0.0, meterRegistry.counter("assignments.locks.acquisitions", "result", "timeout").count());
+    }
+
+    @Test
+    void deberiaRetenerLasFranjasHastaQueTermineLaTransaccion() throws Exception {
+        // Given
+        String clave = "trabajador:12345678Z";
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            bloqueos.bloquear(List.of(clave)).close();
+
+            // Then
+            assertFalse(pool.submit(() -> intentar(clave)).get(1, TimeUnit.SECONDS));
+            TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sincronizacion -> sincronizacion.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            assertTrue(pool.submit(() -> intentar(clave)).get(1, TimeUnit.SECONDS));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void deberiaLiberarLasFranjasAunqueLaOperacionFalle() throws Exception {
+        // Given
+        String clave = "trabajador:12345678Z";
+
+        // When
+        assertThrows(IllegalStateException.class, () -> bloqueos.conBloqueo(List.of(clave), () -> {
+            throw new IllegalStateException("fallo");
+        }));
+
+        // Then
+        assertTrue(pool.submit(() -> intentar(clave)).get(1, TimeUnit.SECONDS));
+        assertEquals("hecho", bloqueos.conBloqueo(List.of(clave), () -> "hecho"));
+    }
+
+    private void repetir(CountDownLatch salida, int repeticiones, String... claves) {
+        try {
+            salida.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        for (int i = 0; i < repeticiones; i++) {
+            bloqueos.bloquear(List.of(claves)).close();
+        }
+    }
+
+    private boolean intentar(String clave) {
+        try (BloqueosPorFranjas.Bloqueo bloqueo = bloqueos.bloquear(List.of(clave))) {
+            return true;
+        } catch (BloqueoNoDisponibleException e) {
+            return false;
+        }
+    }
+
+    private String claveEnOtraFranja(String clave) {
+        for (int i = 0; ; i++) {
+            String candidata = "trabajador:" + i;
+            if (bloqueos.franja(candidata) != bloqueos.franja(clave)) {
+                return candidata;
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.mercadona.asignacion.application.service;
+
+import com.mercadona.asignacion.domain.Asignacion;
+import com.mercadona.asignacion.domain.HorasSeccionTienda;
+import com.mercadona.asignacion.domain.HorasTrabajador;
+import com.mercadona.asignacion.infrastructure.repository.HorasSeccionTiendaRepository;
+import com.mercadona.asignacion.infrastructure.repository.HorasTrabajadorRepository;
+import com.mercadona.tienda.domain.Seccion;
+import com.mercadona.tienda.domain.Tienda;
+import com.mercadona.trabajador.domain.Trabajador;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LibroHorasAsignadasTest {
+
+    @Mock
+    private HorasTrabajadorRepository horasTrabajadorRepository;
+
+    @Mock
+    private HorasSeccionTiendaRepository horasSeccionTiendaRepository;
+
+    @Captor
+    private ArgumentCaptor<Iterable<HorasTrabajador>> filasTrabajador;
+
+    @Captor
+    private ArgumentCaptor<Iterable<HorasSeccionTienda>> filasSeccion;
+
+    private LibroHorasAsignadas libroHoras;
+
+    private Tienda tienda;
+    private Trabajador trabajador;
+    private Seccion horno;
+    private Seccion cajas;
+
+    @BeforeEach
+    void setUp() {
+        libroHoras = new LibroHorasAsignadas(horasTrabajadorRepository, horasSeccionTiendaRepository);
+        tienda = new Tienda("T001", "Tienda Centro");
+        trabajador = new Trabajador("12345678Z", "Juan Perez", 8, tienda);
+        horno = new Seccion("Horno", 8);
+        cajas = new Seccion("Cajas", 16);
+    }
+
+    @Test
+    void deberiaDevolverCeroCuandoNoHayFila() {
+        // Given
+        when(horasTrabajadorRepository.findByTrabajador(trabajador)).thenReturn(Optional.empty());
+        when(horasSeccionTiendaRepository.findByTiendaAndSeccion(tienda, horno)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertEquals(0, libroHoras.horasTrabajador(trabajador));
+        assertEquals(0, libroHoras.horasSeccion(tienda, horno));
+    }
+
+    @Test
+    void deberiaSumarAltasSobreLasFilasExistentesYCrearLasQueFaltan() {
+        // Given
+        HorasTrabajador horasTrabajador = new HorasTrabajador(trabajador);
+        horasTrabajador.sumar(2);
+        HorasSeccionTienda horasHorno = new HorasSeccionTienda(tienda, horno);
+        horasHorno.sumar(2);
+        when(horasTrabajadorRepository.findByTrabajadorIn(anyCollection())).thenReturn(List.of(horasTrabajador));
+        when(horasSeccionTiendaRepository.findByTiendaInAndSeccionIn(anyCollection(), anyCollection()))
+            .thenReturn(List.of(horasHorno));
+
+        // When
+        libroHoras.registrarAltas(List.of(
+            new Asignacion(trabajador, horno, 3),
+            new Asignacion(trabajador, cajas, 1)
+        ));
+
+        // Then
+        verify(horasTrabajadorRepository).saveAll(filasTrabajador.capture());
+        verify(horasSeccionTiendaRepository).saveAll(filasSeccion.capture());
+        assertEquals(6, horasTrabajador.getHorasAsignadas());
+        assertEquals(5, horasHorno.getHorasAsignadas());
+        Map<String, Integer> horasPorSeccion = new HashMap<>();
+        filasSeccion.getValue().forEach(fila -> horasPorSeccion.put(fila.getSeccion().getNombre(), fila.getHorasAsignadas()));
+        assertEquals(Map.of("Horno", 5, "Cajas", 1), horasPorSeccion);
+    }
+
+    @Test
+    void deberiaDescontarCambiosYBajas() {
+        // Given
+        HorasTrabajador horasTrabajador = new HorasTrabajador(trabajador);
+        horasTrabajador.sumar(6);
+        HorasSeccionTienda horasHorno = new HorasSeccionTienda(tienda, horno);
+        horasHorno.sumar(6);
+        when(horasTrabajadorRepository.findByTrabajadorIn(anyCollection())).thenReturn(List.of(horasTrabajador));
+        when(horasSeccionTiendaRepository.findByTiendaInAndSeccionIn(anyCollection(), anyCollection()))
+            .thenReturn(List.of(horasHorno));
+        Asignacion asignacion = new Asignacion(trabajador, horno, 4);
+
+        // When
+        libroHoras.registrarCambio(asignacion, 6);
+        libroHoras.registrarBajas(List.of(asignacion));
+
+        // Then
+        assertEquals(0, horasTrabajador.getHorasAsignadas());
+        assertEquals(0, horasHorno.getHorasAsignadas());
+    }
+
+    @Test
+    void deberiaImpedirQueLasHorasRegistradasQuedenNegativas() {
+        // Given
+        when(horasTrabajadorRepository.findByTrabajadorIn(anyCollection())).thenReturn(new ArrayList<>());
+
+        // When & Then
+        assertThrows(IllegalStateException.class,
+            () -> libroHoras.registrarBajas(List.of(new Asignacion(trabajador, horno, 2))));
+    }
+}
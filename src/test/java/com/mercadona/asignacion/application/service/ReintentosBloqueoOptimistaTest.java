@@ -0,0 +1,110 @@
+package com.mercadona.asignacion.application.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReintentosBloqueoOptimistaTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReintentosBloqueoOptimista reintentos;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        reintentos = new ReintentosBloqueoOptimista(transactionManager, 3, Duration.ofMillis(1), Duration.ofMillis(2), meterRegistry);
+    }
+
+    @Test
+    void deberiaReintentarEnUnaTransaccionNuevaHastaQueNoHayaConflicto() {
+        // Given
+        AtomicInteger intentos = new AtomicInteger();
+
+        // When
+        String resultado = reintentos.ejecutar("update", () -> {
+            if (intentos.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException(Object.class, 1L);
+            }
+            return "ok";
+        });
+
+        // Then
+        assertEquals("ok", resultado);
+        verify(transactionManager, times(3)).getTransaction(any());
+        verify(transactionManager, times(2)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+        assertEquals(2.0, meterRegistry.counter("assignments.optimistic.conflicts", "operation", "update").count());
+        assertEquals(2.0, meterRegistry.counter("assignments.optimistic.retries", "operation", "update").count());
+        assertEquals(1.0, meterRegistry.counter("assignments.optimistic.executions", "operation", "update").count());
+    }
+
+    @Test
+    void deberiaPropagarElConflictoAlAgotarLosIntentos() {
+        // Given
+        AtomicInteger intentos = new AtomicInteger();
+
+        // When
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> reintentos.ejecutar("delete", () -> {
+            intentos.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException(Object.class, 1L);
+        }));
+
+        // Then
+        assertEquals(3, intentos.get());
+        assertEquals(1.0, meterRegistry.counter("assignments.optimistic.exhausted", "operation", "delete").count());
+        assertEquals(2.0, meterRegistry.counter("assignments.optimistic.retries", "operation", "delete").count());
+    }
+
+    @Test
+    void deberiaNoReintentarLosErroresDeNegocio() {
+        // Given
+        AtomicInteger intentos = new AtomicInteger();
+
+        // When
+        assertThrows(IllegalArgumentException.class, () -> reintentos.ejecutar("create", () -> {
+            intentos.incrementAndGet();
+            throw new IllegalArgumentException("El trabajador no tiene suficientes horas disponibles");
+        }));
+
+        // Then
+        assertEquals(1, intentos.get());
+        assertEquals(0.0, meterRegistry.counter("assignments.optimistic.conflicts", "operation", "create").count());
+    }
+
+    @Test
+    void deberiaUnirseALaTransaccionActivaSinReintentar() {
+        // Given
+        AtomicInteger intentos = new AtomicInteger();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            // When
+            assertThrows(ObjectOptimisticLockingFailureException.class, () -> reintentos.ejecutar("update", () -> {
+                intentos.incrementAndGet();
+                throw new ObjectOptimisticLockingFailureException(Object.class, 1L);
+            }));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        // Then
+        assertEquals(1, intentos.get());
+        verifyNoInteractions(transactionManager);
+    }
+}
@@ -0,0 +1,107 @@
+package com.mercadona.asignacion.application.service;
+
+import com.mercadona.asignacion.application.port.CambioAsignacion;
+import com.mercadona.asignacion.application.port.CambiosAsignacionPublicados;
+import com.mercadona.asignacion.domain.Asignacion;
+import com.mercadona.asignacion.domain.EventoAsignacion;
+import com.mercadona.asignacion.domain.TipoCambioAsignacion;
+import com.mercadona.asignacion.infrastructure.repository.EventoAsignacionRepository;
+import com.mercadona.tienda.domain.Seccion;
+import com.mercadona.tienda.domain.Tienda;
+import com.mercadona.trabajador.domain.Trabajador;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RelayEventosAsignacionTest {
+
+    @Mock
+    private EventoAsignacionRepository eventoAsignacionRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RelayEventosAsignacion relay;
+    private Asignacion asignacion;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new RelayEventosAsignacion(eventoAsignacionRepository, eventPublisher, transactionManager,
+            2, Duration.ofDays(7), meterRegistry);
+        Tienda tienda = new Tienda("T001", "Tienda Centro");
+        asignacion = new Asignacion(new Trabajador("12345678Z", "Juan Perez", 8, tienda), new Seccion("Horno", 8), 4);
+    }
+
+    @Test
+    void deberiaPublicarLotesEnOrdenYMarcarlosComoPublicados() {
+        // Given
+        EventoAsignacion alta = evento(1L, EventoAsignacion.alta(asignacion));
+        EventoAsignacion cambio = evento(2L, EventoAsignacion.cambio(asignacion, 2));
+        EventoAsignacion baja = evento(3L, EventoAsignacion.baja(asignacion));
+        when(eventoAsignacionRepository.findPendientes(any(Pageable.class)))
+            .thenReturn(List.of(alta, cambio), List.of(baja));
+
+        // When
+        int publicados = relay.publicarPendientes();
+
+        // Then
+        assertEquals(3, publicados);
+        ArgumentCaptor<CambiosAsignacionPublicados> captor = ArgumentCaptor.forClass(CambiosAsignacionPublicados.class);
+        verify(eventPublisher, times(2)).publishEvent(captor.capture());
+        List<CambioAsignacion> primerLote = captor.getAllValues().get(0).cambios();
+        assertEquals(List.of(1L, 2L), primerLote.stream().map(CambioAsignacion::idEvento).toList());
+        assertEquals(TipoCambioAsignacion.ACTUALIZADA, primerLote.get(1).tipo());
+        assertEquals(2, primerLote.get(1).diferenciaHoras());
+        assertEquals(-4, captor.getAllValues().get(1).cambios().get(0).diferenciaHoras());
+        assertNotNull(alta.getPublicadoEn());
+        assertNotNull(baja.getPublicadoEn());
+        verify(transactionManager, times(2)).commit(any());
+        assertEquals(3.0, meterRegistry.counter("assignments.outbox.published").count());
+        assertEquals(2.0, meterRegistry.counter("assignments.outbox.batches").count());
+    }
+
+    @Test
+    void deberiaDejarElLotePendienteSiUnSuscriptorFalla() {
+        // Given
+        EventoAsignacion alta = evento(1L, EventoAsignacion.alta(asignacion));
+        when(eventoAsignacionRepository.findPendientes(any(Pageable.class))).thenReturn(List.of(alta));
+        doThrow(new IllegalStateException("suscriptor caído")).when(eventPublisher).publishEvent(any(Object.class));
+
+        // When
+        int publicados = relay.publicarPendientes();
+
+        // Then
+        assertEquals(0, publicados);
+        assertNull(alta.getPublicadoEn());
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        assertEquals(1.0, meterRegistry.counter("assignments.outbox.failures").count());
+        assertEquals(0.0, meterRegistry.counter("assignments.outbox.published").count());
+    }
+
+    private static EventoAsignacion evento(long id, EventoAsignacion evento) {
+        ReflectionTestUtils.setField(evento, "id", id);
+        return evento;
+    }
+}
@@ -1,6 +1,9 @@
 package com.mercadona.asignacion.infrastructure.controller;
 
 import com.mercadona.asignacion.application.port.AsignacionService;
+import com.mercadona.asignacion.application.port.ResultadoLoteAsignaciones;
+import com.mercadona.asignacion.application.port.SolicitudAsignacion;
+import com.mercadona.asignacion.application.service.BloqueoNoDisponibleException;
 import com.mercadona.asignacion.domain.Asignacion;
 import com.mercadona.asignacion.infrastructure.controller.dto.AsignacionDto;
 import com.mercadona.tienda.domain.Seccion;
@@ -15,6 +18,8 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -56,6 +61,21 @@ class AsignacionControllerTest {
                 .andExpect(jsonPath("$.codigoTienda").value("T001"));
     }
 
+    @Test
+    void deberiaResponderConflictoReintentableCuandoElBloqueoNoEstaDisponible() throws Exception {
+        // Given
+        when(asignacionService.crearAsignacion("12345678Z", "Horno", 4))
+            .thenThrow(new BloqueoNoDisponibleException("Hay otra operación en curso sobre el mismo trabajador o sección; inténtelo de nuevo"));
+
+        // When & Then
+        mockMvc.perform(post("/api/asignaciones")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new AsignacionDto("12345678Z", "Horno", 4))))
+                .andExpect(status().isConflict())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.codigo").value("OPERACION_EN_CURSO"));
+    }
+
     @Test
     void deberiaFallarAlCrearAsignacionCuandoDniVacio() throws Exception {
         // Given
@@ -247,4 +267,75 @@ class AsignacionControllerTest {
                 .andExpect(jsonPath("$.titulo").value("Errores de validación"))
                 .andExpect(jsonPath("$.mensaje").value("{nuevasHoras=Las horas asignadas no pueden superar 8}"));
     }
+
+    @Test
+    void deberiaMoverAsignacionAOtraSeccion() throws Exception {
+        // Given
+        Tienda tienda = new Tienda("T001", "Tienda Centro");
+        Trabajador trabajador = new Trabajador("12345678Z", "Juan Perez", 8, tienda);
+        Asignacion movida = new Asignacion(trabajador, new Seccion("Verduras", 16), 4);
+        when(asignacionService.moverAsignacion("12345678Z", "Cajas", "Verduras")).thenReturn(movida);
+
+        // When & Then
+        mockMvc.perform(put("/api/asignaciones/trabajador/{dni}/seccion/{nombreSeccion}/mover", "12345678Z", "Cajas")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"seccionDestino\": \"Verduras\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nombreSeccion").value("Verduras"))
+                .andExpect(jsonPath("$.horasAsignadas").value(4));
+    }
+
+    @Test
+    void deberiaRechazarIntercambioSinSegundaAsignacion() throws Exception {
+        // Given
+        String requestBody = "{\"primera\": {\"dniTrabajador\": \"12345678Z\", \"nombreSeccion\": \"Cajas\"}}";
+
+        // When & Then
+        mockMvc.perform(post("/api/asignaciones/intercambio")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.mensaje").value("{segunda=La segunda asignación es obligatoria}"));
+    }
+
+    @Test
+    void deberiaDevolverMultiStatusCuandoAlgunaAsignacionDelLoteSeRechaza() throws Exception {
+        // Given
+        Tienda tienda = new Tienda("T001", "Tienda Centro");
+        Trabajador trabajador = new Trabajador("12345678Z", "Juan Perez", 8, tienda);
+        Asignacion creada = new Asignacion(trabajador, new Seccion("Horno", 8), 4);
+        SolicitudAsignacion valida = new SolicitudAsignacion("12345678Z", "Horno", 4);
+        SolicitudAsignacion invalida = new SolicitudAsignacion("12345678Z", "Inexistente", 2);
+
+        when(asignacionService.crearAsignacionesEnLote(List.of(valida, invalida)))
+            .thenReturn(new ResultadoLoteAsignaciones(List.of(
+                ResultadoLoteAsignaciones.Resultado.creada(0, valida, creada),
+                ResultadoLoteAsignaciones.Resultado.rechazada(1, invalida, "No existe una sección con el nombre: Inexistente")
+            )));
+
+        String requestBody = objectMapper.writeValueAsString(Map.of("asignaciones", List.of(
+            new AsignacionDto("12345678Z", "Horno", 4),
+            new AsignacionDto("12345678Z", "Inexistente", 2)
+        )));
+
+        // When & Then
+        mockMvc.perform(post("/api/asignaciones/lote")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.creadas").value(1))
+                .andExpect(jsonPath("$.rechazadas").value(1))
+                .andExpect(jsonPath("$.resultados[0].asignacion.codigoTienda").value("T001"))
+                .andExpect(jsonPath("$.resultados[1].creada").value(false))
+                .andExpect(jsonPath("$.resultados[1].error").value("No existe una sección con el nombre: Inexistente"));
+    }
+
+    @Test
+    void deberiaRechazarLoteVacio() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/asignaciones/lote")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"asignaciones\": []}"))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -0,0 +1,125 @@
+package com.mercadona.asignacion.infrastructure.repository;
+
+import com.mercadona.asignacion.domain.Asignacion;
+import com.mercadona.tienda.domain.Seccion;
+import com.mercadona.tienda.domain.Tienda;
+import com.mercadona.trabajador.domain.Trabajador;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Carga masiva de asignaciones a través de JPA: filas por segundo y sentencias JDBC preparadas.
+ * No forma parte de la batería normal; se lanza con
+ * {@code mvn test -Dtest=CargaMasivaAsignacionesBenchmark -Dbenchmark=true}
+ * y el volumen se ajusta con {@code -Dbenchmark.asignaciones=100000}.
+ * <p>
+ * Por defecto usa la base de datos H2 del perfil de test. Para medir contra PostgreSQL basta con
+ * sobrescribir {@code spring.datasource.*} apuntando a un esquema vacío: las tablas se crean y se
+ * borran con el propio contexto.
+ */
+@SpringBootTest(properties = {
+    "spring.jpa.show-sql=false",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "logging.level.org.hibernate.SQL=WARN",
+    "logging.level.org.hibernate.orm.jdbc.bind=WARN",
+    "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CargaMasivaAsignacionesBenchmark {
+
+    private static final int ASIGNACIONES = Integer.getInteger("benchmark.asignaciones", 100_000);
+    private static final int SECCIONES = 8;
+    private static final int FILAS_POR_TRANSACCION = 1_000;
+    private static final String LETRAS_DNI = "TRWAGMYFPDXBNJZSQVHLCKE";
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void cargarAsignaciones() {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        List<Seccion> secciones = new ArrayList<>();
+        Tienda tienda = transaccion.execute(status -> {
+            for (int i = 1; i <= SECCIONES; i++) {
+                Seccion seccion = new Seccion("Benchmark " + i, ASIGNACIONES);
+                entityManager.persist(seccion);
+                secciones.add(seccion);
+            }
+            Tienda nueva = new Tienda("T999", "Tienda benchmark");
+            entityManager.persist(nueva);
+            return nueva;
+        });
+
+        int numeroTrabajadores = (ASIGNACIONES + SECCIONES - 1) / SECCIONES;
+        List<Trabajador> trabajadores = new ArrayList<>(numeroTrabajadores);
+        estadisticas.clear();
+        long inicioTrabajadores = System.nanoTime();
+        for (int desde = 0; desde < numeroTrabajadores; desde += FILAS_POR_TRANSACCION) {
+            int hasta = Math.min(desde + FILAS_POR_TRANSACCION, numeroTrabajadores);
+            int primero = desde;
+            transaccion.executeWithoutResult(status -> {
+                Tienda referencia = entityManager.getReference(Tienda.class, tienda.getId());
+                for (int i = primero; i < hasta; i++) {
+                    Trabajador trabajador = new Trabajador(dni(i), "Trabajador " + i, SECCIONES, referencia);
+                    entityManager.persist(trabajador);
+                    trabajadores.add(trabajador);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+        informar("trabajadores", numeroTrabajadores, System.nanoTime() - inicioTrabajadores, estadisticas);
+
+        estadisticas.clear();
+        long inicioAsignaciones = System.nanoTime();
+        for (int desde = 0; desde < ASIGNACIONES; desde += FILAS_POR_TRANSACCION) {
+            int hasta = Math.min(desde + FILAS_POR_TRANSACCION, ASIGNACIONES);
+            int primera = desde;
+            transaccion.executeWithoutResult(status -> {
+                for (int i = primera; i < hasta; i++) {
+                    Trabajador trabajador = entityManager.getReference(Trabajador.class, trabajadores.get(i / SECCIONES).getId());
+                    Seccion seccion = entityManager.getReference(Seccion.class, secciones.get(i % SECCIONES).getId());
+                    entityManager.persist(new Asignacion(trabajador, seccion, 1));
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+        informar("asignaciones", ASIGNACIONES, System.nanoTime() - inicioAsignaciones, estadisticas);
+    }
+
+    private static void informar(String filas, int total, long nanos, Statistics estadisticas) {
+        double segundos = nanos / 1_000_000_000.0;
+        System.out.printf("[benchmark] %d %s en %.2f s: %.0f filas/s, %d sentencias preparadas%n",
+            total, filas, segundos, total / segundos, estadisticas.getPrepareStatementCount());
+    }
+
+    /**
+     * DNI válido (8 dígitos y letra de control) a partir de un número
+     */
+    private static String dni(int numero) {
+        int digitos = 10_000_000 + numero;
+        return String.format("%08d%c", digitos, LETRAS_DNI.charAt(digitos % 23));
+    }
+}
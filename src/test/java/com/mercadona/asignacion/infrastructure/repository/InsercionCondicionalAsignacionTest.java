@@ -0,0 +1,101 @@
+package com.mercadona.asignacion.infrastructure.repository;
+
+import com.mercadona.asignacion.domain.MotivoRechazoAsignacion;
+import com.mercadona.tienda.domain.Seccion;
+import com.mercadona.tienda.domain.Tienda;
+import com.mercadona.trabajador.domain.Trabajador;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Variante portable de la inserción condicional sobre H2 (la de PostgreSQL se ejecuta en la aplicación)
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(InsercionCondicionalAsignacion.class)
+class InsercionCondicionalAsignacionTest {
+
+    @Autowired
+    private InsercionCondicionalAsignacion insercionCondicional;
+
+    @Autowired
+    private AsignacionRepository asignacionRepository;
+
+    @Autowired
+    private HorasTrabajadorRepository horasTrabajadorRepository;
+
+    @Autowired
+    private HorasSeccionTiendaRepository horasSeccionTiendaRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Trabajador trabajador;
+    private Seccion horno;
+
+    @BeforeEach
+    void setUp() {
+        Tienda tienda = new Tienda("T001", "Tienda Test");
+        entityManager.persist(tienda);
+        trabajador = new Trabajador("12345678Z", "Juan Perez", 8, tienda);
+        entityManager.persist(trabajador);
+        entityManager.persist(new Trabajador("87654321X", "Ana Garcia", 8, tienda));
+        horno = new Seccion("Horno", 8);
+        entityManager.persist(horno);
+        entityManager.persist(new Seccion("Cajas", 16));
+        entityManager.flush();
+    }
+
+    @Test
+    void deberiaDevolverLaTiendaDelTrabajadorAlPrepararLasHoras() {
+        // When & Then
+        assertEquals(trabajador.getTienda().getId(), insercionCondicional.prepararHoras("12345678Z", "Horno").orElseThrow());
+        assertTrue(insercionCondicional.prepararHoras("00000000T", "Horno").isEmpty());
+    }
+
+    @Test
+    void deberiaInsertarLaAsignacionYSumarLasHorasRegistradas() {
+        // When
+        ResultadoInsercionAsignacion resultado = insercionCondicional.insertar("12345678Z", "Horno", 5);
+        insercionCondicional.insertar("12345678Z", "Cajas", 2);
+
+        // Then
+        assertTrue(resultado.creada());
+        assertEquals(5, asignacionRepository.findConDetallesById(resultado.idAsignacion()).orElseThrow().getHorasAsignadas());
+        entityManager.clear();
+        assertEquals(7, horasTrabajadorRepository.findByTrabajador(trabajador).orElseThrow().getHorasAsignadas());
+        assertEquals(5, horasSeccionTiendaRepository.findByTiendaAndSeccion(trabajador.getTienda(), horno)
+            .orElseThrow().getHorasAsignadas());
+    }
+
+    @Test
+    void deberiaRechazarConElMotivoYLasHorasComparadas() {
+        // Given
+        insercionCondicional.insertar("12345678Z", "Horno", 5);
+
+        // When
+        ResultadoInsercionAsignacion duplicada = insercionCondicional.insertar("12345678Z", "Horno", 1);
+        ResultadoInsercionAsignacion seccionLlena = insercionCondicional.insertar("87654321X", "Horno", 4);
+        ResultadoInsercionAsignacion sinHoras = insercionCondicional.insertar("12345678Z", "Cajas", 4);
+        ResultadoInsercionAsignacion sinTrabajador = insercionCondicional.insertar("00000000T", "Horno", 1);
+        ResultadoInsercionAsignacion sinSeccion = insercionCondicional.insertar("12345678Z", "Carnicería", 1);
+
+        // Then
+        assertEquals(MotivoRechazoAsignacion.ASIGNACION_DUPLICADA, duplicada.motivo());
+        assertEquals(MotivoRechazoAsignacion.LIMITE_SECCION_EXCEDIDO, seccionLlena.motivo());
+        assertEquals(8, seccionLlena.horasNecesarias());
+        assertEquals(5, seccionLlena.horasSeccion());
+        assertEquals(MotivoRechazoAsignacion.HORAS_TRABAJADOR_EXCEDIDAS, sinHoras.motivo());
+        assertEquals(5, sinHoras.horasTrabajador());
+        assertEquals(MotivoRechazoAsignacion.TRABAJADOR_NO_ENCONTRADO, sinTrabajador.motivo());
+        assertEquals(MotivoRechazoAsignacion.SECCION_NO_ENCONTRADA, sinSeccion.motivo());
+        assertEquals(1, asignacionRepository.count());
+    }
+}
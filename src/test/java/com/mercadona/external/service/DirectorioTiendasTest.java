@@ -0,0 +1,62 @@
+package com.mercadona.external.service;
+
+import com.mercadona.external.dto.ExternalStoreDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirectorioTiendasTest {
+
+    private final ExternalStoreDto pescaderia = new ExternalStoreDto(1L, "Pescadería  Centro", "Calle Mayor 1", "Valencia");
+    private final ExternalStoreDto giorgeta = new ExternalStoreDto(2L, "AVDA. GIORGETA", "Avda. Giorgeta 5", "Valencia");
+    private final ExternalStoreDto ruzafa1 = new ExternalStoreDto(3L, "RUZAFA NORTE", "Calle Sueca 2", "Valencia");
+    private final ExternalStoreDto ruzafa2 = new ExternalStoreDto(4L, "RUZAFA SUR", "Calle Cuba 8", "Valencia");
+
+    private final DirectorioTiendas directorio = DirectorioTiendas.indexar(List.of(pescaderia, giorgeta, ruzafa1, ruzafa2));
+
+    @Test
+    void deberiaIgnorarTildesMayusculasYEspacios() {
+        // When & Then
+        assertEquals(Optional.of(pescaderia), directorio.buscar("  PESCADERIA centro "));
+        assertEquals(Optional.of(pescaderia), directorio.buscar("pescadería\tcentro"));
+    }
+
+    @Test
+    void deberiaEncontrarPorPrefijoSoloSiEsUnico() {
+        // When & Then
+        assertEquals(Optional.of(giorgeta), directorio.buscar("Avda. Gior"));
+        assertTrue(directorio.buscar("Ruzafa").isEmpty());
+    }
+
+    @Test
+    void deberiaEncontrarNombresParecidosPorTrigramas() {
+        // When & Then
+        assertEquals(Optional.of(giorgeta), directorio.buscar("AVDA GIORGETTA"));
+        assertTrue(directorio.buscar("TIENDA INEXISTENTE").isEmpty());
+    }
+
+    @Test
+    void deberiaAceptarUnaSimilitudIgualALaMinima() {
+        // Given
+        ExternalStoreDto sueca = new ExternalStoreDto(5L, "SUECA", "Calle Sueca 2", "Valencia");
+        DirectorioTiendas directorioSueca = DirectorioTiendas.indexar(List.of(sueca));
+
+        // When & Then: 3 trigramas comunes sobre 5 + 5 (0.6) frente a 5 + 6 (0.545)
+        assertEquals(Optional.of(sueca), directorioSueca.buscar("SUECX"));
+        assertTrue(directorioSueca.buscar("SUECXY").isEmpty());
+    }
+
+    @Test
+    void deberiaDevolverLaMismaResolucionEnConsultasRepetidas() {
+        // When
+        Optional<ExternalStoreDto> primera = directorio.buscar("Ruzafa Norte");
+        Optional<ExternalStoreDto> segunda = directorio.buscar("Ruzafa Norte");
+
+        // Then
+        assertEquals(Optional.of(ruzafa1), primera);
+        assertSame(primera, segunda);
+    }
+}
@@ -0,0 +1,123 @@
+package com.mercadona.external.service;
+
+import com.mercadona.config.AsyncConfig;
+import com.mercadona.external.dto.ExternalStoreDto;
+import com.mercadona.external.dto.ExternalStoreResponseDto;
+import com.mercadona.external.dto.ExternalStoreResponseDto.PageInfoDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExternalStoreCrawlerTest {
+
+    @Mock
+    private ExternalStoreClient client;
+
+    private ExternalStoreCrawler crawler;
+
+    @BeforeEach
+    void setUp() {
+        ExecutorService pageExecutor = Executors.newFixedThreadPool(2);
+        crawler = new ExternalStoreCrawler(client, pageExecutor, 2);
+    }
+
+    @Test
+    void deberiaRecorrerTodasLasPaginasEnOrden() {
+        // Given
+        when(client.descargarPagina(0, 2)).thenReturn(pagina(0, 3, tienda(1), tienda(2)));
+        when(client.descargarPagina(1, 2)).thenReturn(pagina(1, 3, tienda(3), tienda(4)));
+        when(client.descargarPagina(2, 2)).thenReturn(pagina(2, 3, tienda(5)));
+
+        // When
+        List<ExternalStoreDto> resultado = crawler.rastrear();
+
+        // Then
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), resultado.stream().map(ExternalStoreDto::id).toList());
+        verify(client, times(3)).descargarPagina(anyInt(), eq(2));
+    }
+
+    @Test
+    void deberiaIndexarTiendasMasAllaDeLaPrimeraPagina() {
+        // Given
+        when(client.descargarPagina(0, 2)).thenReturn(pagina(0, 2, tienda(1), tienda(2)));
+        when(client.descargarPagina(1, 2)).thenReturn(pagina(1, 2, tienda(3)));
+
+        // When
+        DirectorioTiendas directorio = DirectorioTiendas.indexar(crawler.rastrear());
+
+        // Then
+        assertEquals(3, directorio.tamano());
+        assertEquals(Optional.of(tienda(3)), directorio.buscar("  tienda 3 "));
+    }
+
+    @Test
+    void deberiaPropagarErrorCuandoFallaUnaPagina() {
+        // Given
+        when(client.descargarPagina(0, 2)).thenReturn(pagina(0, 2, tienda(1), tienda(2)));
+        when(client.descargarPagina(1, 2)).thenThrow(new ResourceAccessException("Read timed out"));
+
+        // When & Then
+        assertThrows(ResourceAccessException.class, () -> crawler.rastrear());
+    }
+
+    @Test
+    void deberiaUsarSoloLaPrimeraPaginaCuandoNoHayInformacionDePaginacion() {
+        // Given
+        when(client.descargarPagina(0, 2)).thenReturn(new ExternalStoreResponseDto(List.of(tienda(1)), null));
+
+        // When
+        List<ExternalStoreDto> resultado = crawler.rastrear();
+
+        // Then
+        assertEquals(1, resultado.size());
+        verify(client, never()).descargarPagina(eq(1), anyInt());
+    }
+
+    @Test
+    void deberiaAcotarLasPaginasEncoladasConMuchasPaginas() {
+        // Given
+        ThreadPoolTaskExecutor pageExecutor = new AsyncConfig().externalStoresPageExecutor(2);
+        ExternalStoreCrawler crawlerAcotado = new ExternalStoreCrawler(client, pageExecutor, 2);
+        int totalPaginas = 200;
+        AtomicInteger maximoEncoladas = new AtomicInteger();
+        when(client.descargarPagina(anyInt(), eq(2))).thenAnswer(invocation -> {
+            maximoEncoladas.accumulateAndGet(pageExecutor.getThreadPoolExecutor().getQueue().size(), Math::max);
+            int numero = invocation.getArgument(0);
+            return pagina(numero, totalPaginas, tienda(numero));
+        });
+
+        try {
+            // When
+            List<ExternalStoreDto> resultado = crawlerAcotado.rastrear();
+
+            // Then
+            assertEquals(totalPaginas, resultado.size());
+            assertEquals(199L, resultado.get(199).id());
+            assertTrue(maximoEncoladas.get() <= 2);
+        } finally {
+            pageExecutor.shutdown();
+        }
+    }
+
+    private static ExternalStoreResponseDto pagina(int numero, int totalPaginas, ExternalStoreDto... tiendas) {
+        return new ExternalStoreResponseDto(List.of(tiendas), new PageInfoDto(2, numero, 5, totalPaginas));
+    }
+
+    private static ExternalStoreDto tienda(long id) {
+        return new ExternalStoreDto(id, "TIENDA " + id, "Calle " + id, "Valencia");
+    }
+}
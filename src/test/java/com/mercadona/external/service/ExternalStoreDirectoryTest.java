@@ -0,0 +1,250 @@
+package com.mercadona.external.service;
+
+import com.mercadona.external.dto.ExternalStoreDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExternalStoreDirectoryTest {
+
+    @Mock
+    private ExternalStoreCrawler crawler;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private final ExternalStoreDto laUnion = new ExternalStoreDto(1L, "LA UNION", "Calle Mayor 1", "Murcia");
+    private final ExternalStoreDto giorgeta = new ExternalStoreDto(2L, "AVDA. GIORGETA", "Avda. Giorgeta 5", "Valencia");
+
+    private ExternalStoreCircuitBreaker circuitBreaker;
+
+    private ExternalStoreSnapshotFile copiaLocal;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        circuitBreaker = new ExternalStoreCircuitBreaker(2, Duration.ZERO, meterRegistry);
+        copiaLocal = new ExternalStoreSnapshotFile(true, tempDir.resolve("external-stores.snapshot"));
+    }
+
+    @Test
+    void deberiaServirDesdeCacheMientrasNoCaduque() {
+        // Given
+        ExternalStoreDirectory directory = nuevoDirectorio(Duration.ofMinutes(5));
+        when(crawler.rastrear()).thenReturn(List.of(laUnion));
+
+        // When
+        DirectorioTiendas primero = directory.obtenerDirectorio();
+        DirectorioTiendas segundo = directory.obtenerDirectorio();
+
+        // Then
+        assertEquals(Optional.of(laUnion), primero.buscar("LA UNION"));
+        assertSame(primero, segundo);
+        verify(crawler, times(1)).rastrear();
+        assertEquals(1.0, meterRegistry.counter("external.stores.directory.requests", "result", "miss").count());
+        assertEquals(1.0, meterRegistry.counter("external.stores.directory.requests", "result", "hit").count());
+    }
+
+    @Test
+    void deberiaServirCopiaCaducadaYRefrescarEnSegundoPlano() {
+        // Given
+        ExternalStoreDirectory directory = nuevoDirectorio(Duration.ZERO);
+        when(crawler.rastrear())
+            .thenReturn(List.of(laUnion))
+            .thenReturn(List.of(laUnion, giorgeta));
+        directory.obtenerDirectorio();
+
+        // When
+        DirectorioTiendas caducado = directory.obtenerDirectorio();
+        DirectorioTiendas refrescado = directory.obtenerDirectorio();
+
+        // Then
+        assertEquals(1, caducado.tamano());
+        assertEquals(2, refrescado.tamano());
+        assertEquals(Optional.of(giorgeta), refrescado.buscar("AVDA. GIORGETA"));
+        assertEquals(3.0, meterRegistry.counter("external.stores.directory.refreshes", "result", "success").count());
+    }
+
+    @Test
+    void deberiaMantenerCopiaAnteriorCuandoFallaElRefresco() {
+        // Given
+        ExternalStoreDirectory directory = nuevoDirectorio(Duration.ZERO);
+        when(crawler.rastrear())
+            .thenReturn(List.of(laUnion))
+            .thenThrow(new ResourceAccessException("Connection refused"));
+        directory.obtenerDirectorio();
+
+        // When
+        directory.obtenerDirectorio();
+        DirectorioTiendas resultado = directory.obtenerDirectorio();
+
+        // Then
+        assertEquals(Optional.of(laUnion), resultado.buscar("LA UNION"));
+        assertTrue(meterRegistry.counter("external.stores.directory.refreshes", "result", "failure").count() >= 1.0);
+    }
+
+    @Test
+    void deberiaPropagarErrorCuandoFallaLaPrimeraCarga() {
+        // Given
+        ExternalStoreDirectory directory = nuevoDirectorio(Duration.ofMinutes(5));
+        when(crawler.rastrear()).thenThrow(new ResourceAccessException("Connection refused"));
+
+        // When & Then
+        assertThrows(ResourceAccessException.class, directory::obtenerDirectorio);
+        assertEquals(1.0, meterRegistry.counter("external.stores.directory.refreshes", "result", "failure").count());
+    }
+
+    @Test
+    void deberiaServirUltimoDirectorioConocidoSinLlamarAlUpstreamConCircuitoAbierto() {
+        // Given
+        ExternalStoreDirectory directory = nuevoDirectorio(Duration.ZERO);
+        when(crawler.rastrear())
+            .thenReturn(List.of(laUnion))
+            .thenThrow(new ResourceAccessException("Connection refused"));
+        directory.obtenerDirectorio();
+        directory.obtenerDirectorio(); // 1er fallo de refresco
+        directory.obtenerDirectorio(); // 2º fallo: el circuito se abre
+
+        // When
+        DirectorioTiendas resultado = directory.obtenerDirectorio();
+
+        // Then
+        assertEquals(ExternalStoreCircuitBreaker.Estado.ABIERTO, circuitBreaker.getEstado());
+        assertEquals(Optional.of(laUnion), resultado.buscar("LA UNION"));
+        verify(crawler, times(3)).rastrear();
+    }
+
+    @Test
+    void deberiaCerrarElCircuitoCuandoLaSondaRecuperaElUpstream() {
+        // Given
+        ExternalStoreDirectory directory = nuevoDirectorio(Duration.ofMinutes(5));
+        when(crawler.rastrear())
+            .thenThrow(new ResourceAccessException("Connection refused"))
+            .thenThrow(new ResourceAccessException("Connection refused"))
+            .thenReturn(List.of(laUnion));
+        assertThrows(ResourceAccessException.class, directory::obtenerDirectorio);
+        assertThrows(ResourceAccessException.class, directory::obtenerDirectorio);
+        assertThrows(CircuitoAbiertoException.class, directory::obtenerDirectorio);
+
+        // When
+        directory.sondearCircuitoAbierto();
+
+        // Then
+        assertEquals(ExternalStoreCircuitBreaker.Estado.CERRADO, circuitBreaker.getEstado());
+        assertEquals(Optional.of(laUnion), directory.obtenerDirectorio().buscar("LA UNION"));
+        verify(crawler, times(3)).rastrear();
+    }
+
+    @Test
+    void deberiaCompartirUnaUnicaDescargaEntreLlamadasConcurrentes() throws Exception {
+        // Given
+        ExternalStoreDirectory directory = nuevoDirectorio(Duration.ofMinutes(5));
+        CountDownLatch liberarDescarga = new CountDownLatch(1);
+        when(crawler.rastrear()).thenAnswer(invocation -> {
+            liberarDescarga.await(5, TimeUnit.SECONDS);
+            return List.of(laUnion);
+        });
+        int llamadas = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(llamadas);
+
+        // When
+        List<Future<DirectorioTiendas>> resultados = new ArrayList<>();
+        for (int i = 0; i < llamadas; i++) {
+            resultados.add(pool.submit(directory::obtenerDirectorio));
+        }
+        while (meterRegistry.counter("external.stores.directory.coalesced").count() < llamadas - 1) {
+            Thread.sleep(5);
+        }
+        liberarDescarga.countDown();
+
+        // Then
+        for (Future<DirectorioTiendas> resultado : resultados) {
+            assertEquals(Optional.of(laUnion), resultado.get(5, TimeUnit.SECONDS).buscar("LA UNION"));
+        }
+        verify(crawler, times(1)).rastrear();
+        assertEquals(llamadas - 1, meterRegistry.counter("external.stores.directory.coalesced").count());
+        pool.shutdown();
+    }
+
+    @Test
+    void deberiaArrancarDesdeLaCopiaLocalSinLlamarAlUpstream() {
+        // Given
+        copiaLocal.escribir(List.of(laUnion, giorgeta), Instant.now());
+        ExternalStoreDirectory directory = nuevoDirectorio(Duration.ofMinutes(5));
+
+        // When
+        directory.cargarCopiaLocal();
+        DirectorioTiendas resultado = directory.obtenerDirectorio();
+
+        // Then
+        assertEquals(Optional.of(giorgeta), resultado.buscar("AVDA. GIORGETA"));
+        verifyNoInteractions(crawler);
+    }
+
+    @Test
+    void deberiaConservarElDirectorioYNoReescribirCuandoElRefrescoNoTraeCambios() {
+        // Given
+        ExternalStoreDirectory directory = nuevoDirectorio(Duration.ZERO);
+        when(crawler.rastrear()).thenReturn(List.of(laUnion));
+        DirectorioTiendas inicial = directory.obtenerDirectorio();
+        directory.guardarCopiaLocal();
+        Instant guardadoEn = copiaLocal.leer().orElseThrow().guardadoEn();
+
+        // When
+        directory.obtenerDirectorio();
+        DirectorioTiendas refrescado = directory.obtenerDirectorio();
+        directory.guardarCopiaLocal();
+
+        // Then
+        assertSame(inicial, refrescado);
+        assertEquals(guardadoEn, copiaLocal.leer().orElseThrow().guardadoEn());
+        assertEquals(0.0, meterRegistry.counter("external.stores.directory.changes", "type", "added").count());
+    }
+
+    @Test
+    void deberiaAplicarYGuardarLosCambiosDelUpstream() {
+        // Given
+        ExternalStoreDto laUnionTrasladada = new ExternalStoreDto(1L, "LA UNION", "Calle Nueva 3", "Murcia");
+        copiaLocal.escribir(List.of(laUnion), Instant.EPOCH);
+        ExternalStoreDirectory directory = nuevoDirectorio(Duration.ofMinutes(5));
+        directory.cargarCopiaLocal();
+        when(crawler.rastrear()).thenReturn(List.of(laUnionTrasladada, giorgeta));
+
+        // When
+        directory.obtenerDirectorio(); // copia caducada: refresca en segundo plano
+        directory.guardarCopiaLocal();
+
+        // Then
+        assertEquals(Optional.of(laUnionTrasladada), directory.obtenerDirectorio().buscar("LA UNION"));
+        assertEquals(2, copiaLocal.leer().orElseThrow().tiendas().size());
+        assertEquals(1.0, meterRegistry.counter("external.stores.directory.changes", "type", "added").count());
+        assertEquals(1.0, meterRegistry.counter("external.stores.directory.changes", "type", "updated").count());
+    }
+
+    private ExternalStoreDirectory nuevoDirectorio(Duration ttl) {
+        return new ExternalStoreDirectory(crawler, circuitBreaker, copiaLocal, Runnable::run, ttl, meterRegistry);
+    }
+}
@@ -0,0 +1,113 @@
+package com.mercadona.external.service;
+
+import com.mercadona.external.dto.ExternalStoreDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExternalStoreServiceImplTest {
+
+    @Mock
+    private ExternalStoreDirectory directory;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private final ExternalStoreDto laUnion = new ExternalStoreDto(1L, "LA UNION", "Calle Mayor 1", "Murcia");
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void deberiaContabilizarBusquedasPorResultado() {
+        // Given
+        ExternalStoreServiceImpl service = new ExternalStoreServiceImpl(directory, Runnable::run, 1000, meterRegistry);
+        when(directory.obtenerDirectorio())
+            .thenReturn(DirectorioTiendas.indexar(List.of(laUnion)))
+            .thenReturn(DirectorioTiendas.indexar(List.of(laUnion)))
+            .thenThrow(new ResourceAccessException("Connection refused"));
+
+        // When
+        Optional<ExternalStoreDto> encontrada = service.buscarTiendaPorNombre("LA UNION");
+        Optional<ExternalStoreDto> noEncontrada = service.buscarTiendaPorNombre("TIENDA INEXISTENTE");
+        Optional<ExternalStoreDto> conError = service.buscarTiendaPorNombre("LA UNION");
+
+        // Then
+        assertEquals(Optional.of(laUnion), encontrada);
+        assertTrue(noEncontrada.isEmpty());
+        assertTrue(conError.isEmpty());
+        assertEquals(1, meterRegistry.timer("external.stores.lookups", "outcome", "hit").count());
+        assertEquals(1, meterRegistry.timer("external.stores.lookups", "outcome", "not_found").count());
+        assertEquals(1, meterRegistry.timer("external.stores.lookups", "outcome", "error").count());
+    }
+
+    @Test
+    void deberiaResolverVariasTiendasConUnaSolaConsultaAlDirectorio() {
+        // Given
+        ExternalStoreDto giorgeta = new ExternalStoreDto(2L, "AVDA. GIORGETA", "Avda. Giorgeta 5", "Valencia");
+        ExternalStoreServiceImpl service = new ExternalStoreServiceImpl(directory, Runnable::run, 1000, meterRegistry);
+        when(directory.obtenerDirectorio()).thenReturn(DirectorioTiendas.indexar(List.of(laUnion, giorgeta)));
+
+        // When
+        Map<String, ExternalStoreDto> resultado = service.buscarTiendasPorNombre(
+            List.of("LA UNION", "AVDA. GIORGETA", "TIENDA INEXISTENTE"));
+
+        // Then
+        assertEquals(Map.of("LA UNION", laUnion, "AVDA. GIORGETA", giorgeta), resultado);
+        verify(directory, times(1)).obtenerDirectorio();
+    }
+
+    @Test
+    void deberiaDevolverMapaVacioSiFallaLaBusquedaEnBloque() {
+        // Given
+        ExternalStoreServiceImpl service = new ExternalStoreServiceImpl(directory, Runnable::run, 1000, meterRegistry);
+        when(directory.obtenerDirectorio()).thenThrow(new ResourceAccessException("Connection refused"));
+
+        // When
+        Map<String, ExternalStoreDto> resultado = service.buscarTiendasPorNombre(List.of("LA UNION"));
+
+        // Then
+        assertTrue(resultado.isEmpty());
+        assertEquals(1, meterRegistry.timer("external.stores.lookups.bulk", "outcome", "error").count());
+    }
+
+    @Test
+    void deberiaContabilizarTimeoutCuandoLaBusquedaAsincronaSuperaElPlazo() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        ExternalStoreServiceImpl service = new ExternalStoreServiceImpl(directory, executor, 50, meterRegistry);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(directory.obtenerDirectorio()).thenAnswer(invocation -> {
+            liberar.await(5, TimeUnit.SECONDS);
+            return DirectorioTiendas.indexar(List.of(laUnion));
+        });
+
+        // When
+        Optional<ExternalStoreDto> resultado = service.buscarTiendaPorNombreAsync("LA UNION").get(1, TimeUnit.SECONDS);
+        liberar.countDown();
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+
+        // Then
+        assertTrue(resultado.isEmpty());
+        assertEquals(1, meterRegistry.timer("external.stores.lookups", "outcome", "timeout").count());
+        assertEquals(0, meterRegistry.timer("external.stores.lookups", "outcome", "hit").count());
+    }
+}
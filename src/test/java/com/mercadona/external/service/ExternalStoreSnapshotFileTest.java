@@ -0,0 +1,109 @@
+package com.mercadona.external.service;
+
+import com.mercadona.external.dto.ExternalStoreDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalStoreSnapshotFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void deberiaLeerLoMismoQueSeEscribio() {
+        // Given
+        ExternalStoreSnapshotFile copiaLocal = new ExternalStoreSnapshotFile(true, tempDir.resolve("tiendas.snapshot"));
+        List<ExternalStoreDto> tiendas = List.of(
+            new ExternalStoreDto(1L, "LA UNIÓN", "Calle Mayor 1", "Murcia"),
+            new ExternalStoreDto(null, "SIN DIRECCION", null, null)
+        );
+        Instant guardadoEn = Instant.ofEpochMilli(1_700_000_000_000L);
+
+        // When
+        copiaLocal.escribir(tiendas, guardadoEn);
+        Optional<ExternalStoreSnapshotFile.SnapshotGuardado> leido = copiaLocal.leer();
+
+        // Then
+        assertTrue(leido.isPresent());
+        assertEquals(tiendas, leido.get().tiendas());
+        assertEquals(guardadoEn, leido.get().guardadoEn());
+    }
+
+    @Test
+    void deberiaIgnorarFicheroConFormatoDesconocido() throws Exception {
+        // Given
+        Path fichero = tempDir.resolve("tiendas.snapshot");
+        Files.writeString(fichero, "no es una copia");
+        ExternalStoreSnapshotFile copiaLocal = new ExternalStoreSnapshotFile(true, fichero);
+
+        // When & Then
+        assertTrue(copiaLocal.leer().isEmpty());
+    }
+
+    @Test
+    void deberiaIgnorarFicheroConTamanosCorruptos() throws Exception {
+        // Given
+        Path fichero = tempDir.resolve("tiendas.snapshot");
+        ExternalStoreSnapshotFile copiaLocal = new ExternalStoreSnapshotFile(true, fichero);
+        copiaLocal.escribir(List.of(new ExternalStoreDto(1L, "LA UNION", "Calle Mayor 1", "Murcia")), Instant.now());
+        byte[] contenido = Files.readAllBytes(fichero);
+
+        // When & Then: total de registros desorbitado
+        ByteBuffer.wrap(contenido).putInt(16, Integer.MAX_VALUE);
+        Files.write(fichero, contenido);
+        assertTrue(copiaLocal.leer().isEmpty());
+
+        // When & Then: total negativo
+        ByteBuffer.wrap(contenido).putInt(16, -5);
+        Files.write(fichero, contenido);
+        assertTrue(copiaLocal.leer().isEmpty());
+
+        // When & Then: longitud de texto mayor que el fichero
+        ByteBuffer.wrap(contenido).putInt(16, 1).putInt(28, Integer.MAX_VALUE);
+        Files.write(fichero, contenido);
+        assertTrue(copiaLocal.leer().isEmpty());
+    }
+
+    @Test
+    void deberiaBorrarElTemporalSiFallaLaEscritura() throws Exception {
+        // Given: el destino es un directorio no vacío, así que el move atómico falla
+        Path fichero = tempDir.resolve("tiendas.snapshot");
+        Files.createDirectories(fichero);
+        Files.writeString(fichero.resolve("ocupado"), "x");
+        ExternalStoreSnapshotFile copiaLocal = new ExternalStoreSnapshotFile(true, fichero);
+
+        // When
+        assertThrows(UncheckedIOException.class, () ->
+            copiaLocal.escribir(List.of(new ExternalStoreDto(1L, "LA UNION", "Calle Mayor 1", "Murcia")), Instant.now()));
+
+        // Then
+        try (Stream<Path> restos = Files.list(tempDir)) {
+            assertEquals(List.of(fichero), restos.toList());
+        }
+    }
+
+    @Test
+    void deberiaNoHacerNadaSiEstaDeshabilitado() {
+        // Given
+        Path fichero = tempDir.resolve("tiendas.snapshot");
+        ExternalStoreSnapshotFile copiaLocal = new ExternalStoreSnapshotFile(false, fichero);
+
+        // When
+        copiaLocal.escribir(List.of(new ExternalStoreDto(1L, "LA UNION", "Calle Mayor 1", "Murcia")), Instant.now());
+
+        // Then
+        assertFalse(Files.exists(fichero));
+        assertTrue(copiaLocal.leer().isEmpty());
+    }
+}
@@ -0,0 +1,61 @@
+package com.mercadona.external.stub;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mercadona.external.dto.ExternalStoreResponseDto;
+import com.mercadona.external.service.ExternalStoreClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalStoresStubServerTest {
+
+    private ExternalStoresStubServer servidor;
+
+    @AfterEach
+    void tearDown() {
+        servidor.parar();
+    }
+
+    @Test
+    void deberiaPaginarLasTiendasSinteticas() {
+        // Given
+        ExternalStoreClient client = arrancar(45, 0.0);
+
+        // When
+        ExternalStoreResponseDto primera = client.descargarPagina(0, 20);
+        ExternalStoreResponseDto ultima = client.descargarPagina(2, 20);
+        ExternalStoreResponseDto fueraDeRango = client.descargarPagina(3, 20);
+
+        // Then
+        assertEquals(20, primera.content().size());
+        assertEquals("LA UNION", primera.content().get(0).description());
+        assertEquals(45, primera.page().totalElements());
+        assertEquals(3, primera.page().totalPages());
+        assertEquals(5, ultima.content().size());
+        assertEquals(45L, ultima.content().get(4).id());
+        assertTrue(fueraDeRango.content().isEmpty());
+    }
+
+    @Test
+    void deberiaResponderConErrorSegunLaTasaConfigurada() {
+        // Given
+        ExternalStoreClient client = arrancar(10, 1.0);
+
+        // When & Then
+        HttpServerErrorException error = assertThrows(HttpServerErrorException.class, () -> client.descargarPagina(0, 20));
+        assertEquals(503, error.getStatusCode().value());
+    }
+
+    private ExternalStoreClient arrancar(int totalTiendas, double tasaErrores) {
+        servidor = new ExternalStoresStubServer(new ObjectMapper(), 0, 2, totalTiendas, Duration.ZERO, Duration.ZERO, tasaErrores);
+        servidor.arrancar();
+        return new ExternalStoreClient(new RestTemplate(), new ObjectMapper(), "http://localhost:" + servidor.getPuerto(),
+            new SimpleMeterRegistry());
+    }
+}
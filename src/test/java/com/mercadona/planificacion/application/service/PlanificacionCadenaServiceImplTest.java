@@ -0,0 +1,184 @@
+package com.mercadona.planificacion.application.service;
+
+import com.mercadona.asignacion.application.port.AsignacionService;
+import com.mercadona.asignacion.application.port.ResultadoLoteAsignaciones;
+import com.mercadona.asignacion.application.port.SolicitudAsignacion;
+import com.mercadona.asignacion.application.service.BloqueoNoDisponibleException;
+import com.mercadona.asignacion.domain.Asignacion;
+import com.mercadona.asignacion.infrastructure.repository.AsignacionRepository;
+import com.mercadona.planificacion.application.port.ProgresoPlanificacionCadena;
+import com.mercadona.tienda.domain.Seccion;
+import com.mercadona.tienda.domain.Tienda;
+import com.mercadona.tienda.infrastructure.repository.TiendaRepository;
+import com.mercadona.trabajador.domain.Trabajador;
+import com.mercadona.trabajador.infrastructure.repository.TrabajadorRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlanificacionCadenaServiceImplTest {
+
+    @Mock
+    private TiendaRepository tiendaRepository;
+
+    @Mock
+    private TrabajadorRepository trabajadorRepository;
+
+    @Mock
+    private AsignacionRepository asignacionRepository;
+
+    @Mock
+    private AsignacionService asignacionService;
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+    private final List<Runnable> tareasPendientes = new ArrayList<>();
+    private PlanificacionCadenaServiceImpl planificacionCadena;
+
+    @BeforeEach
+    void setUp() {
+        planificacionCadena = new PlanificacionCadenaServiceImpl(tiendaRepository, trabajadorRepository,
+            asignacionRepository, asignacionService, tareasPendientes::add, pool, 100, 1, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void deberiaPlanificarCadaTiendaYConfirmarEnTransaccionesSeparadas() {
+        // Given
+        Tienda centro = tienda(1L, "T001");
+        Tienda norte = tienda(2L, "T002");
+        Trabajador juan = new Trabajador("12345678Z", "Juan Perez", 8, centro);
+        Trabajador maria = new Trabajador("87654321X", "María García", 4, norte);
+        Asignacion hornoJuan = new Asignacion(juan, new Seccion("Horno", 8), 6);
+        when(tiendaRepository.count()).thenReturn(2L);
+        when(tiendaRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(centro, norte)));
+        when(trabajadorRepository.findByTiendaIdIn(List.of(1L, 2L))).thenReturn(List.of(juan, maria));
+        when(asignacionRepository.findConDetallesByTiendaIdIn(List.of(1L, 2L))).thenReturn(List.of(hornoJuan));
+        when(asignacionService.crearAsignacionesEnLote(anyList())).thenAnswer(invocation -> {
+            List<SolicitudAsignacion> solicitudes = invocation.getArgument(0);
+            SolicitudAsignacion solicitud = solicitudes.get(0);
+            return new ResultadoLoteAsignaciones(List.of(solicitud.dniTrabajador().equals("87654321X")
+                ? ResultadoLoteAsignaciones.Resultado.rechazada(0, solicitud, "cambiada")
+                : ResultadoLoteAsignaciones.Resultado.creada(0, solicitud, hornoJuan)));
+        });
+
+        // When
+        ProgresoPlanificacionCadena inicial = planificacionCadena.iniciar(true).orElseThrow();
+        tareasPendientes.forEach(Runnable::run);
+        ProgresoPlanificacionCadena progreso = planificacionCadena.ultimaEjecucion().orElseThrow();
+
+        // Then
+        assertEquals(ProgresoPlanificacionCadena.Estado.EN_CURSO, inicial.estado());
+        assertEquals(ProgresoPlanificacionCadena.Estado.COMPLETADA, progreso.estado());
+        assertEquals(2, progreso.tiendasTotales());
+        assertEquals(2, progreso.tiendasResueltas());
+        assertEquals(2, progreso.asignacionesPropuestas());
+        assertEquals(1, progreso.asignacionesCreadas());
+        assertEquals(1, progreso.asignacionesRechazadas());
+        assertEquals(6, progreso.horasCubiertas());
+        verify(asignacionService, times(2)).crearAsignacionesEnLote(anyList());
+
+        ProgresoPlanificacionCadena.ResultadoTienda resultadoCentro = progreso.tiendas().get(0);
+        assertEquals("T001", resultadoCentro.codigoTienda());
+        assertEquals(1, resultadoCentro.trabajadores());
+        assertEquals(1, resultadoCentro.asignacionesCreadas());
+        assertEquals(2, resultadoCentro.horasCubiertas());
+        assertEquals(0, progreso.tiendas().get(1).asignacionesCreadas());
+    }
+
+    @Test
+    void deberiaSoloCalcularSinAplicarYNoAdmitirDosEjecucionesALaVez() {
+        // Given
+        Tienda centro = tienda(1L, "T001");
+        when(tiendaRepository.count()).thenReturn(1L);
+        when(tiendaRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(centro)));
+        when(trabajadorRepository.findByTiendaIdIn(List.of(1L)))
+            .thenReturn(List.of(new Trabajador("12345678Z", "Juan Perez", 8, centro)));
+
+        // When
+        assertTrue(planificacionCadena.iniciar(false).isPresent());
+        boolean segundaAdmitida = planificacionCadena.iniciar(false).isPresent();
+        tareasPendientes.forEach(Runnable::run);
+
+        // Then
+        assertFalse(segundaAdmitida);
+        ProgresoPlanificacionCadena progreso = planificacionCadena.ultimaEjecucion().orElseThrow();
+        assertEquals(ProgresoPlanificacionCadena.Estado.COMPLETADA, progreso.estado());
+        assertEquals(1, progreso.asignacionesPropuestas());
+        assertEquals(0, progreso.asignacionesCreadas());
+        verifyNoInteractions(asignacionService);
+    }
+
+    @Test
+    void deberiaContarComoRechazadaLaTransaccionSinBloqueoYSeguirConLasDemas() {
+        // Given
+        Tienda centro = tienda(1L, "T001");
+        Tienda norte = tienda(2L, "T002");
+        Trabajador juan = new Trabajador("12345678Z", "Juan Perez", 8, centro);
+        Trabajador maria = new Trabajador("87654321X", "María García", 4, norte);
+        Asignacion hornoMaria = new Asignacion(maria, new Seccion("Horno", 8), 4);
+        when(tiendaRepository.count()).thenReturn(2L);
+        when(tiendaRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(centro, norte)));
+        when(trabajadorRepository.findByTiendaIdIn(List.of(1L, 2L))).thenReturn(List.of(juan, maria));
+        when(asignacionService.crearAsignacionesEnLote(anyList())).thenAnswer(invocation -> {
+            List<SolicitudAsignacion> solicitudes = invocation.getArgument(0);
+            SolicitudAsignacion solicitud = solicitudes.get(0);
+            if (solicitud.dniTrabajador().equals("12345678Z")) {
+                throw new BloqueoNoDisponibleException("Hay otra operación en curso sobre el mismo trabajador o sección; inténtelo de nuevo");
+            }
+            return new ResultadoLoteAsignaciones(List.of(ResultadoLoteAsignaciones.Resultado.creada(0, solicitud, hornoMaria)));
+        });
+
+        // When
+        planificacionCadena.iniciar(true);
+        tareasPendientes.forEach(Runnable::run);
+
+        // Then
+        ProgresoPlanificacionCadena progreso = planificacionCadena.ultimaEjecucion().orElseThrow();
+        assertEquals(ProgresoPlanificacionCadena.Estado.COMPLETADA, progreso.estado());
+        assertEquals(2, progreso.tiendasResueltas());
+        assertEquals(1, progreso.asignacionesCreadas());
+        assertEquals(1, progreso.asignacionesRechazadas());
+        assertEquals(1, progreso.tiendas().get(1).asignacionesCreadas());
+    }
+
+    @Test
+    void deberiaMarcarComoFallidaLaEjecucionSiSaltaUnError() {
+        // Given
+        when(tiendaRepository.count()).thenThrow(new OutOfMemoryError("sin memoria"));
+        planificacionCadena.iniciar(true);
+
+        // When
+        assertThrows(OutOfMemoryError.class, () -> tareasPendientes.forEach(Runnable::run));
+
+        // Then
+        ProgresoPlanificacionCadena progreso = planificacionCadena.ultimaEjecucion().orElseThrow();
+        assertEquals(ProgresoPlanificacionCadena.Estado.FALLIDA, progreso.estado());
+        assertTrue(planificacionCadena.iniciar(false).isPresent());
+    }
+
+    private static Tienda tienda(Long id, String codigo) {
+        Tienda tienda = new Tienda(codigo, "Tienda " + codigo);
+        tienda.setId(id);
+        return tienda;
+    }
+}
@@ -0,0 +1,126 @@
+package com.mercadona.planificacion.application.service;
+
+import com.mercadona.asignacion.application.port.SolicitudAsignacion;
+import com.mercadona.asignacion.domain.Asignacion;
+import com.mercadona.asignacion.infrastructure.repository.AsignacionRepository;
+import com.mercadona.planificacion.application.port.OperacionSimulada;
+import com.mercadona.planificacion.application.port.PlanificacionService;
+import com.mercadona.planificacion.application.port.PropuestaCoberturaTienda;
+import com.mercadona.planificacion.application.port.ResultadoSimulacion;
+import com.mercadona.tienda.domain.Seccion;
+import com.mercadona.tienda.domain.Tienda;
+import com.mercadona.tienda.infrastructure.repository.SeccionRepository;
+import com.mercadona.tienda.infrastructure.repository.TiendaRepository;
+import com.mercadona.trabajador.domain.Trabajador;
+import com.mercadona.trabajador.infrastructure.repository.TrabajadorRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlanificacionServiceImplTest {
+
+    @Mock
+    private TiendaRepository tiendaRepository;
+
+    @Mock
+    private TrabajadorRepository trabajadorRepository;
+
+    @Mock
+    private AsignacionRepository asignacionRepository;
+
+    @Mock
+    private SeccionRepository seccionRepository;
+
+    private PlanificacionService planificacionService;
+
+    private Tienda tienda;
+
+    @BeforeEach
+    void setUp() {
+        planificacionService = new PlanificacionServiceImpl(tiendaRepository, trabajadorRepository,
+            asignacionRepository, seccionRepository, new SimpleMeterRegistry());
+        tienda = new Tienda("T001", "Tienda Centro");
+        tienda.setId(1L);
+    }
+
+    @Test
+    void deberiaProponerAsignacionesConLasHorasLibresDeLaPlantilla() {
+        // Given
+        Trabajador juan = new Trabajador("12345678Z", "Juan Perez", 8, tienda);
+        Trabajador maria = new Trabajador("87654321X", "María García", 4, tienda);
+        Asignacion hornoJuan = new Asignacion(juan, new Seccion("Horno", 8), 6);
+        when(tiendaRepository.findByCodigo("T001")).thenReturn(Optional.of(tienda));
+        when(trabajadorRepository.findByTienda(tienda)).thenReturn(List.of(juan, maria));
+        when(asignacionRepository.findConDetallesByTiendaId(1L)).thenReturn(List.of(hornoJuan));
+
+        // When
+        PropuestaCoberturaTienda propuesta = planificacionService.proponerCobertura("T001");
+
+        // Then: faltan 2 h de Horno y 16 h en cada una de las otras cuatro secciones
+        assertEquals(66, propuesta.horasFaltantes());
+        assertEquals(6, propuesta.horasCubiertas());
+        assertEquals(60, propuesta.horasSinCubrir());
+        assertEquals(List.of(
+            new SolicitudAsignacion("12345678Z", "Cajas", 2),
+            new SolicitudAsignacion("87654321X", "Cajas", 4)
+        ), propuesta.solicitudes());
+    }
+
+    @Test
+    void deberiaSimularLasOperacionesSinEscribirYRechazarSoloLasInvalidas() {
+        // Given
+        Trabajador juan = new Trabajador("12345678Z", "Juan Perez", 8, tienda);
+        Trabajador maria = new Trabajador("87654321X", "María García", 4, tienda);
+        Seccion horno = new Seccion("Horno", 8);
+        Seccion cajas = new Seccion("Cajas", 16);
+        Asignacion hornoJuan = new Asignacion(juan, horno, 6);
+        when(tiendaRepository.findByCodigo("T001")).thenReturn(Optional.of(tienda));
+        when(trabajadorRepository.findByTienda(tienda)).thenReturn(List.of(juan, maria));
+        when(seccionRepository.findAll()).thenReturn(List.of(horno, cajas));
+        when(asignacionRepository.findConDetallesByTiendaId(1L)).thenReturn(List.of(hornoJuan));
+
+        // When
+        ResultadoSimulacion resultado = planificacionService.simular("T001", List.of(
+            new OperacionSimulada(OperacionSimulada.Tipo.CREAR, "87654321X", "Horno", 2),
+            new OperacionSimulada(OperacionSimulada.Tipo.CREAR, "87654321X", "Cajas", 4),
+            new OperacionSimulada(OperacionSimulada.Tipo.ELIMINAR, "12345678Z", "Horno", 0),
+            new OperacionSimulada(null, "12345678Z", "Cajas", 2)
+        ));
+
+        // Then: María ya no tiene horas para Cajas y la última operación no tiene tipo
+        assertEquals(2, resultado.aplicadas());
+        assertEquals(2, resultado.rechazadas());
+        assertFalse(resultado.operaciones().get(1).aplicada());
+        assertEquals("El trabajador no puede exceder sus horas disponibles. Disponibles: 4, ya asignadas: 2, intentando asignar: 4",
+            resultado.operaciones().get(1).error());
+        assertEquals(1, resultado.estado().secciones().size());
+        assertEquals("87654321X", resultado.estado().secciones().get(0).trabajadores().get(0).dni());
+        assertEquals("Dirección no disponible", resultado.cobertura().direccion());
+        assertEquals(70, resultado.cobertura().totalHorasFaltantes());
+        assertEquals(6, hornoJuan.getHorasAsignadas());
+        verify(asignacionRepository).findConDetallesByTiendaId(1L);
+        verifyNoMoreInteractions(asignacionRepository);
+    }
+
+    @Test
+    void deberiaFallarCuandoLaTiendaNoExiste() {
+        // Given
+        when(tiendaRepository.findByCodigo("T999")).thenReturn(Optional.empty());
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> planificacionService.proponerCobertura("T999"));
+        assertEquals("No se encontró la tienda con código: T999", exception.getMessage());
+        verifyNoInteractions(trabajadorRepository, asignacionRepository);
+    }
+}
@@ -0,0 +1,96 @@
+package com.mercadona.planificacion.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResolutorCoberturaTest {
+
+    @Test
+    void deberiaReasignarHorasCuandoElRepartoVorazDejaUnaSeccionSinCubrir() {
+        // Given: el trabajador 0 puede ir a las dos secciones, el 1 ya está asignado a la sección 1
+        int[] horasLibres = {4, 4};
+        int[] horasFaltantes = {4, 4};
+        boolean[] yaAsignada = {false, false, false, true};
+
+        // When
+        PropuestaCobertura propuesta = ResolutorCobertura.resolver(horasLibres, horasFaltantes, yaAsignada);
+
+        // Then: el reparto voraz da la sección 0 al trabajador 0; el camino de aumento se la pasa al 1
+        assertEquals(8, propuesta.horasCubiertas());
+        assertEquals(0, propuesta.horasSinCubrir());
+        assertEquals(2, propuesta.asignaciones());
+        assertArrayEquals(new int[]{0, 1}, propuesta.trabajador());
+        assertArrayEquals(new int[]{1, 0}, propuesta.seccion());
+        assertArrayEquals(new int[]{4, 4}, propuesta.horas());
+    }
+
+    @Test
+    void deberiaRespetarHorasLibresHuecosYAsignacionesExistentes() {
+        // Given
+        Random aleatorio = new Random(42);
+        int trabajadores = 40;
+        int secciones = 5;
+        int[] horasLibres = new int[trabajadores];
+        int[] horasFaltantes = {8, 16, 16, 16, 16};
+        boolean[] yaAsignada = new boolean[trabajadores * secciones];
+        for (int i = 0; i < trabajadores; i++) {
+            horasLibres[i] = aleatorio.nextInt(3);
+            for (int j = 0; j < secciones; j++) {
+                yaAsignada[i * secciones + j] = aleatorio.nextInt(4) == 0;
+            }
+        }
+
+        // When
+        PropuestaCobertura propuesta = ResolutorCobertura.resolver(horasLibres, horasFaltantes, yaAsignada);
+
+        // Then
+        int[] usadasTrabajador = new int[trabajadores];
+        int[] cubiertasSeccion = new int[secciones];
+        for (int i = 0; i < propuesta.asignaciones(); i++) {
+            int trabajador = propuesta.trabajador()[i];
+            int seccion = propuesta.seccion()[i];
+            assertFalse(yaAsignada[trabajador * secciones + seccion]);
+            assertTrue(propuesta.horas()[i] >= 1 && propuesta.horas()[i] <= 8);
+            usadasTrabajador[trabajador] += propuesta.horas()[i];
+            cubiertasSeccion[seccion] += propuesta.horas()[i];
+        }
+        for (int i = 0; i < trabajadores; i++) {
+            assertTrue(usadasTrabajador[i] <= horasLibres[i]);
+        }
+        for (int j = 0; j < secciones; j++) {
+            assertTrue(cubiertasSeccion[j] <= horasFaltantes[j]);
+        }
+        assertEquals(72, propuesta.horasCubiertas() + propuesta.horasSinCubrir());
+    }
+
+    @Test
+    void deberiaResolverUnaTiendaDeQuinientosTrabajadoresEnMilisegundos() {
+        // Given
+        int trabajadores = 500;
+        int[] horasLibres = new int[trabajadores];
+        boolean[] yaAsignada = new boolean[trabajadores * 5];
+        for (int i = 0; i < trabajadores; i++) {
+            horasLibres[i] = 1 + i % 8;
+            yaAsignada[i * 5 + i % 5] = true;
+        }
+        int[] horasFaltantes = {8, 16, 16, 16, 16};
+
+        // When
+        PropuestaCobertura propuesta = assertTimeoutPreemptively(Duration.ofMillis(100),
+            () -> ResolutorCobertura.resolver(horasLibres, horasFaltantes, yaAsignada));
+
+        // Then
+        assertEquals(72, propuesta.horasCubiertas());
+        assertEquals(0, propuesta.horasSinCubrir());
+    }
+
+    @Test
+    void deberiaFallarSiLasMarcasNoCorrespondenAlNumeroDePares() {
+        assertThrows(IllegalArgumentException.class,
+            () -> ResolutorCobertura.resolver(new int[]{8, 8}, new int[]{8}, new boolean[]{false}));
+    }
+}
@@ -0,0 +1,85 @@
+package com.mercadona.planificacion.domain;
+
+import com.mercadona.asignacion.domain.Asignacion;
+import com.mercadona.tienda.domain.Seccion;
+import com.mercadona.tienda.domain.Tienda;
+import com.mercadona.trabajador.domain.Trabajador;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulacionTiendaTest {
+
+    private Trabajador juan;
+    private Trabajador maria;
+    private Seccion horno;
+    private Seccion cajas;
+    private Asignacion hornoJuan;
+    private SimulacionTienda simulacion;
+
+    @BeforeEach
+    void setUp() {
+        Tienda tienda = new Tienda("T001", "Tienda Centro");
+        juan = new Trabajador("12345678Z", "Juan Perez", 8, tienda);
+        maria = new Trabajador("87654321X", "María García", 4, tienda);
+        horno = new Seccion("Horno", 8);
+        cajas = new Seccion("Cajas", 16);
+        hornoJuan = new Asignacion(juan, horno, 6);
+        simulacion = new SimulacionTienda("T001", List.of(juan, maria), List.of(horno, cajas), List.of(hornoJuan));
+    }
+
+    @Test
+    void deberiaAplicarAltasCambiosYBajasSinModificarLasAsignacionesCargadas() {
+        // When
+        simulacion.crear("87654321X", "Cajas", 4);
+        simulacion.actualizar("12345678Z", "Horno", 2);
+        simulacion.crear("12345678Z", "Cajas", 6);
+        simulacion.eliminar("87654321X", "Cajas");
+
+        // Then
+        List<Asignacion> asignaciones = simulacion.asignaciones();
+        assertEquals(2, asignaciones.size());
+        assertEquals("Horno", asignaciones.get(0).getSeccion().getNombre());
+        assertEquals(2, asignaciones.get(0).getHorasAsignadas());
+        assertEquals("Cajas", asignaciones.get(1).getSeccion().getNombre());
+        assertEquals(6, asignaciones.get(1).getHorasAsignadas());
+        assertEquals(6, hornoJuan.getHorasAsignadas());
+    }
+
+    @Test
+    void deberiaRechazarConLosMismosMensajesQueElServicioDeAsignaciones() {
+        // When & Then
+        assertEquals("El trabajador no puede exceder sus horas disponibles. Disponibles: 8, ya asignadas: 6, intentando asignar: 4",
+            assertThrows(IllegalArgumentException.class, () -> simulacion.crear("12345678Z", "Cajas", 4)).getMessage());
+        assertEquals("La sección no puede exceder sus horas necesarias. Sección: Horno, límite: 8, ya asignadas: 6, intentando asignar: 4",
+            assertThrows(IllegalArgumentException.class, () -> simulacion.crear("87654321X", "Horno", 4)).getMessage());
+        assertEquals("Ya existe una asignación para el trabajador 12345678Z en la sección Horno",
+            assertThrows(IllegalArgumentException.class, () -> simulacion.crear("12345678Z", "Horno", 1)).getMessage());
+        assertEquals("No existe una asignación para el trabajador 87654321X en la sección Horno",
+            assertThrows(IllegalArgumentException.class, () -> simulacion.eliminar("87654321X", "Horno")).getMessage());
+        assertEquals("No existe una sección con el nombre: Pescadería",
+            assertThrows(IllegalArgumentException.class, () -> simulacion.crear("87654321X", "Pescadería", 2)).getMessage());
+        assertEquals("No existe un trabajador con el DNI: 11111111H en la tienda T001",
+            assertThrows(IllegalArgumentException.class, () -> simulacion.crear("11111111H", "Cajas", 2)).getMessage());
+        assertEquals(List.of(hornoJuan), simulacion.asignaciones());
+    }
+
+    @Test
+    void deberiaDescontarLasHorasDeLaPropiaAsignacionAlCambiarSusHoras() {
+        // Given
+        simulacion.crear("87654321X", "Cajas", 2);
+
+        // When
+        simulacion.actualizar("87654321X", "Cajas", 4);
+
+        // Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> simulacion.actualizar("87654321X", "Cajas", 5));
+        assertEquals("El trabajador no tiene suficientes horas disponibles. Disponibles: 4, ya asignadas: 0, solicitadas: 5",
+            exception.getMessage());
+        assertEquals(4, simulacion.asignaciones().get(1).getHorasAsignadas());
+    }
+}
@@ -0,0 +1,139 @@
+package com.mercadona.planificacion.infrastructure.controller;
+
+import com.mercadona.asignacion.application.port.SolicitudAsignacion;
+import com.mercadona.planificacion.application.port.OperacionSimulada;
+import com.mercadona.planificacion.application.port.PlanificacionCadenaService;
+import com.mercadona.planificacion.application.port.PlanificacionService;
+import com.mercadona.planificacion.application.port.ProgresoPlanificacionCadena;
+import com.mercadona.planificacion.application.port.PropuestaCoberturaTienda;
+import com.mercadona.planificacion.application.port.ResultadoSimulacion;
+import com.mercadona.reporte.infrastructure.controller.dto.CoberturaHorasDto;
+import com.mercadona.reporte.infrastructure.controller.dto.EstadoTiendaDto;
+import com.mercadona.shared.infrastructure.exception.GlobalExceptionHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(PlanificacionController.class)
+@Import(GlobalExceptionHandler.class)
+class PlanificacionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private PlanificacionService planificacionService;
+
+    @MockBean
+    private PlanificacionCadenaService planificacionCadenaService;
+
+    @Test
+    void deberiaDevolverLaPropuestaComoLoteDeAsignaciones() throws Exception {
+        // Given
+        PropuestaCoberturaTienda propuesta = new PropuestaCoberturaTienda("T001", "Tienda Centro", 10, 6, 4,
+            List.of(new SolicitudAsignacion("12345678Z", "Cajas", 6)), Duration.ofNanos(150_000));
+        when(planificacionService.proponerCobertura("T001")).thenReturn(propuesta);
+
+        // When & Then
+        mockMvc.perform(get("/api/planificacion/tienda/{codigo}/cobertura", "T001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.horasFaltantes").value(10))
+                .andExpect(jsonPath("$.horasCubiertas").value(6))
+                .andExpect(jsonPath("$.horasSinCubrir").value(4))
+                .andExpect(jsonPath("$.tiempoResolucionMs").value(0.15))
+                .andExpect(jsonPath("$.lote.asignaciones[0].dniTrabajador").value("12345678Z"))
+                .andExpect(jsonPath("$.lote.asignaciones[0].nombreSeccion").value("Cajas"))
+                .andExpect(jsonPath("$.lote.asignaciones[0].horasAsignadas").value(6));
+    }
+
+    @Test
+    void deberiaDevolver400CuandoLaTiendaNoExiste() throws Exception {
+        // Given
+        when(planificacionService.proponerCobertura("T999"))
+            .thenThrow(new IllegalArgumentException("No se encontró la tienda con código: T999"));
+
+        // When & Then
+        mockMvc.perform(get("/api/planificacion/tienda/{codigo}/cobertura", "T999"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void deberiaDevolverElResultadoDeLaSimulacionConUnTipoDesconocidoRechazado() throws Exception {
+        // Given
+        List<OperacionSimulada> operaciones = List.of(
+            new OperacionSimulada(OperacionSimulada.Tipo.CREAR, "12345678Z", "Cajas", 4),
+            new OperacionSimulada(null, "12345678Z", "Horno", 0));
+        ResultadoSimulacion resultado = new ResultadoSimulacion(
+            new EstadoTiendaDto("T001", "Tienda Centro", "Dirección no disponible", List.of()),
+            new CoberturaHorasDto("T001", "Tienda Centro", "Dirección no disponible", List.of(), 0, 0),
+            List.of(new ResultadoSimulacion.ResultadoOperacion(0, operaciones.get(0), true, null),
+                new ResultadoSimulacion.ResultadoOperacion(1, operaciones.get(1), false,
+                    "El tipo de operación es obligatorio: CREAR, ACTUALIZAR o ELIMINAR")));
+        when(planificacionService.simular("T001", operaciones)).thenReturn(resultado);
+
+        // When & Then
+        mockMvc.perform(post("/api/planificacion/tienda/{codigo}/simulacion", "T001")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"operaciones": [
+                      {"tipo": "crear", "dniTrabajador": "12345678Z", "nombreSeccion": "Cajas", "horas": 4},
+                      {"tipo": "MOVER", "dniTrabajador": "12345678Z", "nombreSeccion": "Horno"}
+                    ]}
+                    """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.aplicadas").value(1))
+                .andExpect(jsonPath("$.rechazadas").value(1))
+                .andExpect(jsonPath("$.operaciones[1].aplicada").value(false))
+                .andExpect(jsonPath("$.operaciones[1].error").value("El tipo de operación es obligatorio: CREAR, ACTUALIZAR o ELIMINAR"))
+                .andExpect(jsonPath("$.estado.codigoTienda").value("T001"))
+                .andExpect(jsonPath("$.cobertura.totalHorasFaltantes").value(0));
+    }
+
+    @Test
+    void deberiaAceptarLaPlanificacionDeLaCadena() throws Exception {
+        // Given
+        when(planificacionCadenaService.iniciar(false)).thenReturn(Optional.of(progreso("EN_CURSO")));
+
+        // When & Then
+        mockMvc.perform(post("/api/planificacion/cadena").param("aplicar", "false"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value("ejecucion-1"))
+                .andExpect(jsonPath("$.estado").value("EN_CURSO"))
+                .andExpect(jsonPath("$.tiendas[0].codigoTienda").value("T001"))
+                .andExpect(jsonPath("$.tiendas[0].tiempoResolucionMs").value(0.2));
+    }
+
+    @Test
+    void deberiaDevolver409ConLaEjecucionEnCurso() throws Exception {
+        // Given
+        when(planificacionCadenaService.iniciar(true)).thenReturn(Optional.empty());
+        when(planificacionCadenaService.ultimaEjecucion()).thenReturn(Optional.of(progreso("EN_CURSO")));
+
+        // When & Then
+        mockMvc.perform(post("/api/planificacion/cadena"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.id").value("ejecucion-1"));
+    }
+
+    private static ProgresoPlanificacionCadena progreso(String estado) {
+        return new ProgresoPlanificacionCadena("ejecucion-1", ProgresoPlanificacionCadena.Estado.valueOf(estado), false,
+            Instant.parse("2026-01-01T00:00:00Z"), null, 10, 1, 2, 0, 0, 6, 4, Duration.ofMillis(5),
+            Duration.ofNanos(200_000), 200.0, 400.0,
+            List.of(new ProgresoPlanificacionCadena.ResultadoTienda("T001", 3, 2, 0, 6, 4, Duration.ofNanos(200_000))),
+            null);
+    }
+}
@@ -1,5 +1,6 @@
 package com.mercadona.reporte.application.service;
 
+import com.mercadona.asignacion.application.port.AsignacionService;
 import com.mercadona.asignacion.domain.Asignacion;
 import com.mercadona.asignacion.infrastructure.repository.AsignacionRepository;
 import com.mercadona.reporte.application.port.ReporteService;
@@ -14,15 +15,19 @@ import com.mercadona.external.dto.ExternalStoreDto;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 @ExtendWith(MockitoExtension.class)
 class ReporteServiceImplTest {
@@ -33,6 +38,9 @@ class ReporteServiceImplTest {
     @Mock
     private AsignacionRepository asignacionRepository;
     
+    @Mock
+    private AsignacionService asignacionService;
+
     @Mock
     private ExternalStoreService externalStoreService;
 
@@ -46,7 +54,7 @@ class ReporteServiceImplTest {
 
     @BeforeEach
     void setUp() {
-        reporteService = new ReporteServiceImpl(tiendaRepository, asignacionRepository, externalStoreService);
+        reporteService = new ReporteServiceImpl(tiendaRepository, asignacionRepository, asignacionService, externalStoreService, 1000);
         
         // Datos de prueba
         tienda = new Tienda("T001", "Tienda Centro");
@@ -69,8 +77,9 @@ class ReporteServiceImplTest {
         
         when(tiendaRepository.findByCodigo(codigoTienda)).thenReturn(Optional.of(tienda));
         when(asignacionRepository.findByCodigoTienda(codigoTienda)).thenReturn(asignaciones);
-        when(externalStoreService.buscarTiendaPorNombre("Tienda Centro"))
-            .thenReturn(Optional.of(new ExternalStoreDto(1L, "Tienda Centro", "Calle Falsa 123", "Madrid")));
+        when(externalStoreService.buscarTiendaPorNombreAsync("Tienda Centro"))
+            .thenReturn(CompletableFuture.completedFuture(
+                Optional.of(new ExternalStoreDto(1L, "Tienda Centro", "Calle Falsa 123", "Madrid"))));
         
         // When
         EstadoTiendaDto resultado = reporteService.obtenerEstadoTienda(codigoTienda);
@@ -104,6 +113,11 @@ class ReporteServiceImplTest {
         assertEquals(1, seccionPescaderia.trabajadores().size());
         assertEquals("12345678Z", seccionPescaderia.trabajadores().get(0).dni());
         assertEquals(2, seccionPescaderia.trabajadores().get(0).horasAsignadas());
+
+        // Los cambios de horas diferidos de la tienda se escriben antes de leer sus asignaciones
+        InOrder orden = inOrder(asignacionService, asignacionRepository);
+        orden.verify(asignacionService).confirmarHorasPendientes(codigoTienda);
+        orden.verify(asignacionRepository).findByCodigoTienda(codigoTienda);
     }
 
     @Test
@@ -118,8 +132,9 @@ class ReporteServiceImplTest {
         
         when(tiendaRepository.findByCodigo(codigoTienda)).thenReturn(Optional.of(tienda));
         when(asignacionRepository.findByCodigoTienda(codigoTienda)).thenReturn(asignaciones);
-        when(externalStoreService.buscarTiendaPorNombre("Tienda Centro"))
-            .thenReturn(Optional.of(new ExternalStoreDto(1L, "Tienda Centro", "Calle Falsa 123", "Madrid")));
+        when(externalStoreService.buscarTiendaPorNombreAsync("Tienda Centro"))
+            .thenReturn(CompletableFuture.completedFuture(
+                Optional.of(new ExternalStoreDto(1L, "Tienda Centro", "Calle Falsa 123", "Madrid"))));
         
         // When
         CoberturaHorasDto resultado = reporteService.obtenerCoberturaHoras(codigoTienda);
@@ -158,6 +173,44 @@ class ReporteServiceImplTest {
         assertEquals(56, resultado.totalHorasFaltantes()); 
     }
 
+    @Test
+    void deberiaDevolverEstadoSinDireccionCuandoLaApiExternaNoRespondeAPlazo() {
+        // Given
+        String codigoTienda = "T001";
+        
+        when(tiendaRepository.findByCodigo(codigoTienda)).thenReturn(Optional.of(tienda));
+        when(asignacionRepository.findByCodigoTienda(codigoTienda))
+            .thenReturn(List.of(new Asignacion(trabajador1, seccionHorno, 8)));
+        when(externalStoreService.buscarTiendaPorNombreAsync("Tienda Centro"))
+            .thenReturn(new CompletableFuture<>()); // Nunca completa
+        reporteService = new ReporteServiceImpl(tiendaRepository, asignacionRepository, asignacionService, externalStoreService, 50);
+        
+        // When
+        EstadoTiendaDto resultado = reporteService.obtenerEstadoTienda(codigoTienda);
+        
+        // Then
+        assertEquals("Dirección no disponible", resultado.direccion());
+        assertEquals(1, resultado.secciones().size());
+    }
+
+    @Test
+    void deberiaDevolverCoberturaSinDireccionCuandoLaApiExternaFalla() {
+        // Given
+        String codigoTienda = "T001";
+        
+        when(tiendaRepository.findByCodigo(codigoTienda)).thenReturn(Optional.of(tienda));
+        when(asignacionRepository.findByCodigoTienda(codigoTienda)).thenReturn(List.of());
+        when(externalStoreService.buscarTiendaPorNombreAsync("Tienda Centro"))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Upstream caído")));
+        
+        // When
+        CoberturaHorasDto resultado = reporteService.obtenerCoberturaHoras(codigoTienda);
+        
+        // Then
+        assertEquals("Dirección no disponible", resultado.direccion());
+        assertEquals(5, resultado.totalSeccionesIncompletas());
+    }
+
     @Test
     void deberiaFallarCuandoTiendaNoExisteEnEstado() {
         // Given
@@ -174,6 +227,23 @@ class ReporteServiceImplTest {
         assertEquals("No se encontró la tienda con código: INEXISTENTE", exception.getMessage());
     }
     
+    @Test
+    void deberiaUsarLaDireccionGuardadaSinConsultarLaApiExterna() {
+        // Given
+        String codigoTienda = "T001";
+        tienda.actualizarUbicacion("Calle Guardada 7", "Valencia");
+
+        when(tiendaRepository.findByCodigo(codigoTienda)).thenReturn(Optional.of(tienda));
+        when(asignacionRepository.findByCodigoTienda(codigoTienda)).thenReturn(List.of());
+
+        // When
+        EstadoTiendaDto resultado = reporteService.obtenerEstadoTienda(codigoTienda);
+
+        // Then
+        assertEquals("Calle Guardada 7", resultado.direccion());
+        verifyNoInteractions(externalStoreService);
+    }
+
     @Test
     void deberiaFallarCuandoTiendaNoExisteEnCobertura() {
         // Given
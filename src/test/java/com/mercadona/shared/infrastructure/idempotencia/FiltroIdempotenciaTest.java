@@ -0,0 +1,214 @@
+package com.mercadona.shared.infrastructure.idempotencia;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FiltroIdempotenciaTest {
+
+    private static final String CUERPO = "{\"dniTrabajador\":\"12345678Z\",\"nombreSeccion\":\"Horno\",\"horasAsignadas\":4}";
+
+    private SimpleMeterRegistry meterRegistry;
+    private AlmacenRespuestasIdempotentes almacen;
+    private FiltroIdempotencia filtro;
+    private final AtomicInteger llamadasAlControlador = new AtomicInteger();
+    private int estadoDelControlador = 201;
+
+    private final FilterChain controlador = (request, response) -> {
+        llamadasAlControlador.incrementAndGet();
+        String cuerpo = StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8);
+        ((HttpServletResponse) response).setStatus(estadoDelControlador);
+        response.setContentType("application/json");
+        response.getWriter().write("{\"eco\":" + cuerpo + ",\"llamada\":" + llamadasAlControlador.get() + "}");
+    };
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        almacen = new AlmacenRespuestasIdempotentes(Duration.ofHours(1), 10, 65536, meterRegistry);
+        filtro = new FiltroIdempotencia(almacen, new ObjectMapper().findAndRegisterModules(), meterRegistry);
+    }
+
+    @Test
+    void deberiaDevolverLaRespuestaOriginalSinVolverAlControladorAlRepetir() throws Exception {
+        // Given
+        MockHttpServletResponse original = ejecutar(peticion("clave-1", CUERPO));
+
+        // When
+        MockHttpServletResponse repetida = ejecutar(peticion("clave-1", CUERPO));
+
+        // Then
+        assertEquals(1, llamadasAlControlador.get());
+        assertEquals(201, repetida.getStatus());
+        assertEquals(original.getContentAsString(), repetida.getContentAsString());
+        assertTrue(repetida.getContentAsString().contains("\"horasAsignadas\":4"));
+        assertEquals("true", repetida.getHeader(FiltroIdempotencia.CABECERA_REPETIDA));
+        assertNull(original.getHeader(FiltroIdempotencia.CABECERA_REPETIDA));
+        assertEquals(1.0, meterRegistry.counter("idempotency.requests", "result", "hit").count());
+        assertEquals(1.0, meterRegistry.counter("idempotency.requests", "result", "miss").count());
+        assertEquals(1.0, meterRegistry.get("idempotency.store.size").gauge().value());
+    }
+
+    @Test
+    void deberiaRechazarLaMismaClaveConOtroCuerpo() throws Exception {
+        // Given
+        ejecutar(peticion("clave-1", CUERPO));
+
+        // When
+        MockHttpServletResponse respuesta = ejecutar(peticion("clave-1", CUERPO.replace("4", "5")));
+
+        // Then
+        assertEquals(422, respuesta.getStatus());
+        assertTrue(respuesta.getContentAsString().contains("IDEMPOTENCIA_CLAVE_REUTILIZADA"));
+        assertEquals(1, llamadasAlControlador.get());
+    }
+
+    @Test
+    void deberiaLiberarLaClaveCuandoLaRespuestaEsUnErrorDelServidor() throws Exception {
+        // Given
+        estadoDelControlador = 500;
+        ejecutar(peticion("clave-1", CUERPO));
+        estadoDelControlador = 201;
+
+        // When
+        MockHttpServletResponse reintento = ejecutar(peticion("clave-1", CUERPO));
+
+        // Then
+        assertEquals(201, reintento.getStatus());
+        assertEquals(2, llamadasAlControlador.get());
+    }
+
+    @Test
+    void deberiaVolverAlControladorAlReintentarTrasUnConflictoConcurrente() throws Exception {
+        // Given: se agotan los reintentos por bloqueo optimista
+        estadoDelControlador = 409;
+        MockHttpServletResponse conflicto = ejecutar(peticion("clave-1", CUERPO));
+        estadoDelControlador = 201;
+
+        // When
+        MockHttpServletResponse reintento = ejecutar(peticion("clave-1", CUERPO));
+
+        // Then
+        assertEquals(409, conflicto.getStatus());
+        assertEquals(201, reintento.getStatus());
+        assertNull(reintento.getHeader(FiltroIdempotencia.CABECERA_REPETIDA));
+        assertEquals(2, llamadasAlControlador.get());
+    }
+
+    @Test
+    void deberiaRepetirLosErroresDeValidacionSinVolverAlControlador() throws Exception {
+        // Given
+        estadoDelControlador = 400;
+        ejecutar(peticion("clave-1", CUERPO));
+
+        // When
+        MockHttpServletResponse repetida = ejecutar(peticion("clave-1", CUERPO));
+
+        // Then
+        assertEquals(400, repetida.getStatus());
+        assertEquals("true", repetida.getHeader(FiltroIdempotencia.CABECERA_REPETIDA));
+        assertEquals(1, llamadasAlControlador.get());
+    }
+
+    @Test
+    void deberiaServirElCuerpoALosLectoresNoBloqueantes() throws Exception {
+        // Given
+        ByteArrayOutputStream leido = new ByteArrayOutputStream();
+        AtomicBoolean completo = new AtomicBoolean();
+        FilterChain lectorAsincrono = (request, response) -> {
+            ServletInputStream entrada = request.getInputStream();
+            entrada.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    byte[] bloque = new byte[16];
+                    while (entrada.isReady() && !entrada.isFinished()) {
+                        int n = entrada.read(bloque);
+                        if (n > 0) {
+                            leido.write(bloque, 0, n);
+                        }
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    completo.set(true);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    fail(t);
+                }
+            });
+            ((HttpServletResponse) response).setStatus(201);
+        };
+
+        // When
+        filtro.doFilter(peticion("clave-1", CUERPO), new MockHttpServletResponse(), lectorAsincrono);
+
+        // Then
+        assertTrue(completo.get());
+        assertEquals(CUERPO, leido.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void deberiaProcesarNormalmenteLasPeticionesSinCabecera() throws Exception {
+        // Given
+        MockHttpServletRequest sinClave = new MockHttpServletRequest("POST", "/api/asignaciones");
+        sinClave.setContent(CUERPO.getBytes(StandardCharsets.UTF_8));
+
+        // When
+        ejecutar(sinClave);
+        ejecutar(sinClave);
+
+        // Then
+        assertEquals(2, llamadasAlControlador.get());
+        assertEquals(0, almacen.tamano());
+    }
+
+    @Test
+    void deberiaVolverAProcesarUnaClaveCaducada() throws Exception {
+        // Given
+        almacen = new AlmacenRespuestasIdempotentes(Duration.ZERO, 10, 65536, meterRegistry);
+        filtro = new FiltroIdempotencia(almacen, new ObjectMapper(), meterRegistry);
+        ejecutar(peticion("clave-1", CUERPO));
+        Thread.sleep(2);
+
+        // When
+        almacen.purgarCaducadas();
+        ejecutar(peticion("clave-1", CUERPO));
+
+        // Then
+        assertEquals(2, llamadasAlControlador.get());
+    }
+
+    private MockHttpServletRequest peticion(String clave, String cuerpo) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/asignaciones");
+        request.addHeader(FiltroIdempotencia.CABECERA_CLAVE, clave);
+        request.setContentType("application/json");
+        request.setContent(cuerpo.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private MockHttpServletResponse ejecutar(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filtro.doFilter(request, response, controlador);
+        return response;
+    }
+}
@@ -0,0 +1,87 @@
+package com.mercadona.tienda.application.service;
+
+import com.mercadona.external.dto.ExternalStoreDto;
+import com.mercadona.external.port.ExternalStoreService;
+import com.mercadona.tienda.domain.Tienda;
+import com.mercadona.tienda.infrastructure.repository.TiendaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SincronizacionUbicacionTiendasTest {
+
+    @Mock
+    private TiendaRepository tiendaRepository;
+
+    @Mock
+    private ExternalStoreService externalStoreService;
+
+    private SincronizacionUbicacionTiendas sincronizacion;
+
+    @BeforeEach
+    void setUp() {
+        sincronizacion = new SincronizacionUbicacionTiendas(tiendaRepository, externalStoreService, 2);
+    }
+
+    @Test
+    void deberiaActualizarSoloLasTiendasCuyaUbicacionHaCambiado() {
+        // Given
+        Tienda sinCambios = tienda(1L, "LA UNION");
+        sinCambios.actualizarUbicacion("Calle Mayor 1", "Murcia");
+        Tienda trasladada = tienda(2L, "CAMINO SAN RAFAEL");
+        trasladada.actualizarUbicacion("Calle Vieja 2", "Málaga");
+        Tienda nueva = tienda(3L, "AVDA. GIORGETA");
+
+        when(tiendaRepository.findAll(any(Pageable.class)))
+            .thenReturn(new PageImpl<>(List.of(sinCambios, trasladada), PageRequest.of(0, 2), 3))
+            .thenReturn(new PageImpl<>(List.of(nueva), PageRequest.of(1, 2), 3));
+        when(externalStoreService.buscarTiendasPorNombre(List.of("LA UNION", "CAMINO SAN RAFAEL"))).thenReturn(Map.of(
+            "LA UNION", new ExternalStoreDto(1L, "LA UNION", "Calle Mayor 1", "Murcia"),
+            "CAMINO SAN RAFAEL", new ExternalStoreDto(2L, "CAMINO SAN RAFAEL", "Calle Nueva 9", "Málaga")));
+        when(externalStoreService.buscarTiendasPorNombre(List.of("AVDA. GIORGETA"))).thenReturn(Map.of(
+            "AVDA. GIORGETA", new ExternalStoreDto(3L, "AVDA. GIORGETA", "Avda. Giorgeta 5", "Valencia")));
+
+        // When
+        sincronizacion.sincronizar();
+
+        // Then
+        verify(tiendaRepository).actualizarUbicacion(2L, "Calle Nueva 9", "Málaga");
+        verify(tiendaRepository).actualizarUbicacion(3L, "Avda. Giorgeta 5", "Valencia");
+        verify(tiendaRepository, never()).actualizarUbicacion(eq(1L), any(), any());
+    }
+
+    @Test
+    void deberiaConservarLaUbicacionSiLaTiendaNoApareceEnLaApiExterna() {
+        // Given
+        Tienda tienda = tienda(1L, "LA UNION");
+        tienda.actualizarUbicacion("Calle Mayor 1", "Murcia");
+        when(tiendaRepository.findAll(any(Pageable.class)))
+            .thenReturn(new PageImpl<>(List.of(tienda), PageRequest.of(0, 2), 1));
+        when(externalStoreService.buscarTiendasPorNombre(List.of("LA UNION"))).thenReturn(Map.of());
+
+        // When
+        sincronizacion.sincronizar();
+
+        // Then
+        verify(tiendaRepository, never()).actualizarUbicacion(anyLong(), any(), any());
+    }
+
+    private static Tienda tienda(Long id, String nombre) {
+        Tienda tienda = new Tienda("T00" + id, nombre);
+        tienda.setId(id);
+        return tienda;
+    }
+}
@@ -1,16 +1,26 @@
 package com.mercadona.tienda.application.service;
 
 import com.mercadona.tienda.application.port.TiendaService;
+import com.mercadona.tienda.domain.Seccion;
 import com.mercadona.tienda.domain.Tienda;
+import com.mercadona.tienda.infrastructure.repository.SeccionRepository;
 import com.mercadona.tienda.infrastructure.repository.TiendaRepository;
+import com.mercadona.trabajador.domain.Trabajador;
 import com.mercadona.trabajador.infrastructure.repository.TrabajadorRepository;
+import com.mercadona.asignacion.application.port.AsignacionService;
+import com.mercadona.asignacion.application.service.BandejaSalidaAsignaciones;
+import com.mercadona.asignacion.application.service.BloqueosPorFranjas;
+import com.mercadona.asignacion.application.service.LibroHorasAsignadas;
+import com.mercadona.asignacion.domain.Asignacion;
 import com.mercadona.asignacion.infrastructure.repository.AsignacionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -32,11 +42,26 @@ class TiendaServiceImplTest {
     @Mock
     private AsignacionRepository asignacionRepository;
 
+    @Mock
+    private LibroHorasAsignadas libroHoras;
+
+    @Mock
+    private BandejaSalidaAsignaciones bandejaSalida;
+
+    @Mock
+    private SeccionRepository seccionRepository;
+
+    @Mock
+    private AsignacionService asignacionService;
+
+    private final BloqueosPorFranjas bloqueos = new BloqueosPorFranjas(16, Duration.ofMillis(50), new SimpleMeterRegistry());
+
     private TiendaService tiendaService;
 
     @BeforeEach
     void setUp() {
-        tiendaService = new TiendaServiceImpl(tiendaRepository, trabajadorRepository, asignacionRepository);
+        tiendaService = new TiendaServiceImpl(tiendaRepository, trabajadorRepository, asignacionRepository, libroHoras, bandejaSalida,
+            seccionRepository, bloqueos, asignacionService);
     }
 
     @Test
@@ -296,6 +321,8 @@ class TiendaServiceImplTest {
         tiendaExistente.setId(1L); // Simulamos que tiene ID
         
         when(tiendaRepository.findByCodigo(codigo)).thenReturn(Optional.of(tiendaExistente));
+        List<Asignacion> asignaciones = List.of(new Asignacion(new Trabajador("12345678Z", "Juan Perez", 8, tiendaExistente), new Seccion("Horno", 8), 4));
+        when(asignacionRepository.findConDetallesByTiendaId(1L)).thenReturn(asignaciones);
         doNothing().when(tiendaRepository).deleteById(any(Long.class));
         
         // When
@@ -303,6 +330,9 @@ class TiendaServiceImplTest {
         
         // Then
         verify(tiendaRepository).findByCodigo(codigo);
+        verify(bandejaSalida).registrarBajas(asignaciones);
+        verify(asignacionRepository).deleteByTrabajadorTiendaId(1L);
+        verify(libroHoras).eliminarTienda(tiendaExistente);
         verify(tiendaRepository).deleteById(1L);
     }
 
@@ -65,4 +65,15 @@ class TiendaTest {
         
         assertNotEquals(tienda1, "string");
     }
+
+    @Test
+    void deberiaActualizarUbicacionSoloSiCambia() {
+        Tienda tienda = new Tienda("T001", "Tienda Centro");
+
+        assertTrue(tienda.actualizarUbicacion("Calle Mayor 1", "Valencia"));
+        assertFalse(tienda.actualizarUbicacion("Calle Mayor 1", "Valencia"));
+
+        assertEquals("Calle Mayor 1", tienda.getDireccion());
+        assertEquals("Valencia", tienda.getCiudad());
+    }
 }
@@ -1,20 +1,33 @@
 package com.mercadona.trabajador.application.service;
 
+import com.mercadona.tienda.domain.Seccion;
 import com.mercadona.tienda.domain.Tienda;
+import com.mercadona.tienda.infrastructure.repository.SeccionRepository;
 import com.mercadona.tienda.infrastructure.repository.TiendaRepository;
 import com.mercadona.trabajador.application.port.TrabajadorService;
 import com.mercadona.trabajador.domain.Trabajador;
 import com.mercadona.trabajador.infrastructure.repository.TrabajadorRepository;
+import com.mercadona.asignacion.application.port.AsignacionService;
+import com.mercadona.asignacion.application.service.BandejaSalidaAsignaciones;
+import com.mercadona.asignacion.application.service.BloqueoNoDisponibleException;
+import com.mercadona.asignacion.application.service.BloqueosPorFranjas;
+import com.mercadona.asignacion.application.service.LibroHorasAsignadas;
 import com.mercadona.asignacion.infrastructure.repository.AsignacionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -32,13 +45,28 @@ class TrabajadorServiceImplTest {
     @Mock
     private AsignacionRepository asignacionRepository;
 
+    @Mock
+    private LibroHorasAsignadas libroHoras;
+
+    @Mock
+    private BandejaSalidaAsignaciones bandejaSalida;
+
+    @Mock
+    private SeccionRepository seccionRepository;
+
+    @Mock
+    private AsignacionService asignacionService;
+
+    private final BloqueosPorFranjas bloqueos = new BloqueosPorFranjas(16, Duration.ofMillis(50), new SimpleMeterRegistry());
+
     private TrabajadorService trabajadorService;
 
     private Tienda tiendaMock;
 
     @BeforeEach
     void setUp() {
-        trabajadorService = new TrabajadorServiceImpl(trabajadorRepository, tiendaRepository, asignacionRepository);
+        trabajadorService = new TrabajadorServiceImpl(trabajadorRepository, tiendaRepository, asignacionRepository, libroHoras, bandejaSalida,
+            seccionRepository, bloqueos, asignacionService);
         tiendaMock = new Tienda("T001", "Tienda Centro");
     }
 
@@ -330,4 +358,65 @@ class TrabajadorServiceImplTest {
         assertTrue(resultado);
         verify(trabajadorRepository).existsByDni(dni);
     }
+
+    @Test
+    void deberiaEliminarTrabajadorConLasFranjasDeSusAsignacionesAdquiridas() throws Exception {
+        // Given
+        tiendaMock.setId(1L);
+        Trabajador trabajador = new Trabajador("12345678Z", "Juan Perez", 8, tiendaMock);
+        trabajador.setId(1L);
+        when(trabajadorRepository.findByDni("12345678Z")).thenReturn(Optional.of(trabajador));
+        when(seccionRepository.findAll()).thenReturn(List.of(new Seccion("Horno", 8)));
+        List<Class<?>> resultadoOtraEscritura = new ArrayList<>();
+        doAnswer(invocacion -> {
+            resultadoOtraEscritura.add(intentarEnOtroHilo(BloqueosPorFranjas.claveTrabajador("12345678Z")));
+            resultadoOtraEscritura.add(intentarEnOtroHilo(BloqueosPorFranjas.claveSeccion(1L, "Horno")));
+            return null;
+        }).when(asignacionRepository).deleteByTrabajador(trabajador);
+
+        // When
+        trabajadorService.eliminarTrabajador("12345678Z");
+
+        // Then: otra escritura sobre el trabajador o su sección espera a que termine la baja
+        assertEquals(List.of(BloqueoNoDisponibleException.class, BloqueoNoDisponibleException.class), resultadoOtraEscritura);
+        verify(asignacionService).descartarHorasPendientesTrabajador("12345678Z");
+        verify(trabajadorRepository).deleteById(1L);
+        assertNull(intentarEnOtroHilo(BloqueosPorFranjas.claveTrabajador("12345678Z")));
+    }
+
+    @Test
+    void deberiaEscribirLosCambiosDeHorasDiferidosAntesDeActualizarTrabajador() throws Exception {
+        // Given
+        tiendaMock.setId(1L);
+        Trabajador trabajador = new Trabajador("12345678Z", "Juan Perez", 8, tiendaMock);
+        when(trabajadorRepository.findByDni("12345678Z")).thenReturn(Optional.of(trabajador));
+        when(seccionRepository.findAll()).thenReturn(List.of(new Seccion("Horno", 8)));
+        List<Class<?>> resultadoOtraEscritura = new ArrayList<>();
+        when(trabajadorRepository.save(trabajador)).thenAnswer(invocacion -> {
+            resultadoOtraEscritura.add(intentarEnOtroHilo(BloqueosPorFranjas.claveTrabajador("12345678Z")));
+            resultadoOtraEscritura.add(intentarEnOtroHilo(BloqueosPorFranjas.claveSeccion(1L, "Horno")));
+            return trabajador;
+        });
+
+        // When
+        Trabajador actualizado = trabajadorService.actualizarTrabajador("12345678Z", "Juan Pérez", 6);
+
+        // Then: hasta guardar, ningún cambio de horas nuevo puede validarse contra las horas anteriores
+        assertEquals(6, actualizado.getHorasDisponibles());
+        InOrder orden = inOrder(asignacionService, trabajadorRepository);
+        orden.verify(asignacionService).confirmarHorasPendientesTrabajador("12345678Z");
+        orden.verify(trabajadorRepository).save(trabajador);
+        assertEquals(List.of(BloqueoNoDisponibleException.class, BloqueoNoDisponibleException.class), resultadoOtraEscritura);
+        assertNull(intentarEnOtroHilo(BloqueosPorFranjas.claveTrabajador("12345678Z")));
+    }
+
+    private Class<?> intentarEnOtroHilo(String clave) throws Exception {
+        return CompletableFuture.supplyAsync(() -> {
+            try (BloqueosPorFranjas.Bloqueo bloqueo = bloqueos.bloquear(List.of(clave))) {
+                return null;
+            } catch (BloqueoNoDisponibleException e) {
+                return e.getClass();
+            }
+        }).get(1, TimeUnit.SECONDS);
+    }
 }